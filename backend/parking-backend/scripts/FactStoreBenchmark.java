@@ -0,0 +1,163 @@
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import com.parking.entity.Booking;
+import com.parking.entity.ParkingSlot;
+import com.parking.entity.Vehicle;
+import com.parking.service.BookingFactStore;
+import com.parking.service.BookingFactStore.Dimension;
+import com.parking.service.BookingFactStore.Filter;
+
+/**
+ * Milliseconds per ad-hoc analytics query over the memory-mapped booking
+ * fact store, filled with generated completed bookings.
+ *
+ *   mvn -q compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:$(cat target/cp.txt) scripts/FactStoreBenchmark.java [bookings] [slots] [runs] [dir]
+ *   java -Xmx1g -cp target/classes:$(cat target/cp.txt) scripts/FactStoreBenchmark.java 50000000 20000 7
+ *
+ * Bookings go in through append(), as completed bookings do, spread over
+ * two years, 40 cities and the given number of slots. The store is then
+ * closed and reopened from its files, and each query runs once cold (first
+ * scan after reopening, pages possibly still in the OS cache) and then
+ * runs times more, of which the median and best are printed. Every query's
+ * counts are checked to add up to the rows it matched. The store
+ * directory (a temporary one unless given) is deleted at the end.
+ */
+public class FactStoreBenchmark {
+
+    private static final String[] VEHICLES = {"BIKE", "CAR", "SUV", "TRUCK"};
+    private static final String[] TYPES = {"SMALL", "MEDIUM", "LARGE"};
+    private static final int CITIES = 40;
+
+    record Query(String name, Filter filter, Dimension... dimensions) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long bookings = args.length > 0 ? Long.parseLong(args[0]) : 50_000_000L;
+        int slotCount = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 7;
+        Path dir = args.length > 3 ? Path.of(args[3]) : Files.createTempDirectory("fact-store-bench");
+
+        System.out.printf("%,d bookings, %,d slots, %d cities, %d scan threads, store %s%n",
+            bookings, slotCount, CITIES, ForkJoinPool.getCommonPoolParallelism() + 1, dir);
+        try {
+            long loadStart = System.nanoTime();
+            BookingFactStore store = open(dir);
+            load(store, bookings, slotCount);
+            store.close();
+            System.out.printf("load: %.1f s (%,d rows in %d segments)%n",
+                (System.nanoTime() - loadStart) / 1e9, store.rowCount(), store.segmentCount());
+
+            long openStart = System.nanoTime();
+            store = open(dir);
+            System.out.printf("reopen: %d ms%n", (System.nanoTime() - openStart) / 1_000_000);
+            if (store.rowCount() != bookings) {
+                throw new IllegalStateException("reopened store has " + store.rowCount() + " rows");
+            }
+
+            for (Query query : queries(store)) {
+                measure(store, query, runs);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    private static BookingFactStore open(Path dir) throws Exception {
+        BookingFactStore store = new BookingFactStore();
+        set(store, "storeDir", dir.toString());
+        set(store, "maxGroups", 262_144);
+        store.open();
+        return store;
+    }
+
+    private static void load(BookingFactStore store, long bookings, int slotCount) {
+        Random random = new Random(42);
+        ParkingSlot[] slots = new ParkingSlot[slotCount];
+        for (int s = 0; s < slotCount; s++) {
+            ParkingSlot slot = new ParkingSlot(s + 1, 1, TYPES[random.nextInt(TYPES.length)]);
+            slot.setId((long) s + 1);
+            slot.setCity("City " + (s % CITIES));
+            slots[s] = slot;
+        }
+        Vehicle[] vehicles = new Vehicle[VEHICLES.length];
+        for (int v = 0; v < vehicles.length; v++) {
+            vehicles[v] = new Vehicle("MH00X" + v, VEHICLES[v], "Owner", "9000000000");
+        }
+
+        // One booking object, refilled per row: append() copies its fields into the columns
+        Booking booking = new Booking();
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0);
+        int span = 2 * 365 * 24 * 60;
+        for (long i = 0; i < bookings; i++) {
+            LocalDateTime entry = start.plusMinutes(random.nextInt(span));
+            booking.setParkingSlot(slots[random.nextInt(slotCount)]);
+            booking.setVehicle(vehicles[random.nextInt(vehicles.length)]);
+            booking.setEntryTime(entry);
+            booking.setExitTime(entry.plusMinutes(5 + random.nextInt(random.nextInt(10) == 0 ? 3 * 24 * 60 : 6 * 60)));
+            booking.setTotalAmountPaise((long) random.nextInt(200_000));
+            store.append(booking);
+            if ((i + 1) % 10_000_000 == 0) {
+                System.out.printf("  %,d appended%n", i + 1);
+            }
+        }
+    }
+
+    private static List<Query> queries(BookingFactStore store) {
+        List<Query> queries = new ArrayList<>();
+        queries.add(new Query("count, no filter", new Filter()));
+        queries.add(new Query("city x hour", new Filter(), Dimension.CITY, Dimension.HOUR));
+        queries.add(new Query("slot type x weekday", new Filter(), Dimension.SLOT_TYPE, Dimension.WEEKDAY));
+        queries.add(new Query("vehicle type x duration", new Filter(), Dimension.VEHICLE_TYPE, Dimension.DURATION));
+        queries.add(new Query("per slot", new Filter(), Dimension.SLOT));
+
+        Filter month = new Filter();
+        month.fromEpoch = BookingFactStore.toEpoch(LocalDateTime.of(2024, 3, 1, 0, 0));
+        month.toEpoch = BookingFactStore.toEpoch(LocalDateTime.of(2024, 4, 1, 0, 0));
+        queries.add(new Query("one month, city x duration", month, Dimension.CITY, Dimension.DURATION));
+
+        Filter city = new Filter();
+        city.cityId = store.cityIdOf("City 7");
+        city.vehicleTypeCode = 1;
+        queries.add(new Query("one city and CAR, hour x weekday", city, Dimension.HOUR, Dimension.WEEKDAY));
+        return queries;
+    }
+
+    private static void measure(BookingFactStore store, Query query, int runs) {
+        long coldStart = System.nanoTime();
+        BookingFactStore.Result first = store.query(query.filter(), query.dimensions());
+        double cold = (System.nanoTime() - coldStart) / 1e6;
+
+        double[] ms = new double[runs];
+        for (int r = 0; r < runs; r++) {
+            long start = System.nanoTime();
+            BookingFactStore.Result result = store.query(query.filter(), query.dimensions());
+            ms[r] = (System.nanoTime() - start) / 1e6;
+            if (!Arrays.equals(result.counts, first.counts)) {
+                throw new IllegalStateException(query.name() + ": runs disagree");
+            }
+        }
+        Arrays.sort(ms);
+        long matched = Arrays.stream(first.counts).sum();
+        System.out.printf("%-36s %,12d rows  %5d groups  cold %7.1f ms  median %7.1f ms  best %7.1f ms%n",
+            query.name(), matched, first.counts.length, cold, ms[runs / 2], ms[0]);
+    }
+
+    private static void set(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+}
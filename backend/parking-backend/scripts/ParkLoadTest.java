@@ -0,0 +1,167 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Open-loop load on the gate endpoints: requests are fired at a fixed rate
+ * whatever the response times, like cars arriving at gates, so an
+ * overloaded server shows up as growing latency instead of a slower test.
+ *
+ *   java scripts/ParkLoadTest.java [baseUrl] [requestsPerSecond] [seconds] [gates] [exitShare]
+ *   java scripts/ParkLoadTest.java http://localhost:8080 300 30 100 0.4
+ *
+ * Entries park on random slots (so some collide on the same slot row),
+ * exits release vehicles parked earlier in the run. Prints latency
+ * percentiles of accepted requests and how many were shed with 429.
+ */
+public class ParkLoadTest {
+
+    private static final Pattern SLOT_NUMBER = Pattern.compile("\"slotNumber\"\\s*:\\s*(\\d+)");
+
+    record Sample(boolean exit, int status, long micros) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int rate = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int gates = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        double exitShare = args.length > 4 ? Double.parseDouble(args[4]) : 0.4;
+
+        HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(8))
+            .build();
+
+        String slotsJson = client.send(HttpRequest.newBuilder(URI.create(base + "/api/parking/slots")).build(),
+            HttpResponse.BodyHandlers.ofString()).body();
+        List<Integer> slots = new ArrayList<>();
+        Matcher m = SLOT_NUMBER.matcher(slotsJson);
+        while (m.find()) {
+            slots.add(Integer.parseInt(m.group(1)));
+        }
+        if (slots.isEmpty()) {
+            throw new IllegalStateException("No slots at " + base);
+        }
+        System.out.printf("%d slots, %d req/s for %d s from %d gates, %.0f%% exits%n",
+            slots.size(), rate, seconds, gates, exitShare * 100);
+
+        ConcurrentLinkedQueue<String> parked = new ConcurrentLinkedQueue<>();
+        List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong plateSeq = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        String run = Long.toString(System.currentTimeMillis() % 100000, 36).toUpperCase();
+
+        long intervalNanos = 1_000_000_000L / rate;
+        long total = (long) rate * seconds;
+        long start = System.nanoTime();
+        ExecutorService timer = Executors.newSingleThreadExecutor();
+        timer.submit(() -> {
+            for (long i = 0; i < total; i++) {
+                long due = start + i * intervalNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                String gate = "gate-" + (i % gates);
+                String plate = parked.poll();
+                boolean exit = plate != null && ThreadLocalRandom.current().nextDouble() < exitShare;
+                if (plate != null && !exit) {
+                    parked.add(plate);
+                }
+                HttpRequest request;
+                if (exit) {
+                    request = HttpRequest.newBuilder(URI.create(base + "/api/parking/remove/" + plate))
+                        .header("X-Gate-Id", gate).timeout(Duration.ofSeconds(60)).DELETE().build();
+                } else {
+                    plate = "LT" + run + plateSeq.incrementAndGet();
+                    int slot = slots.get(ThreadLocalRandom.current().nextInt(slots.size()));
+                    String body = "{\"licensePlate\":\"" + plate + "\",\"vehicleType\":\"CAR\",\"ownerName\":\"Load\"," +
+                        "\"phoneNumber\":\"9000000000\",\"slotNumber\":" + slot + "}";
+                    request = HttpRequest.newBuilder(URI.create(base + "/api/parking/park"))
+                        .header("Content-Type", "application/json").header("X-Gate-Id", gate)
+                        .timeout(Duration.ofSeconds(60)).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+                }
+                boolean isExit = exit;
+                String thePlate = plate;
+                long sent = System.nanoTime();
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((response, error) -> {
+                    long micros = (System.nanoTime() - sent) / 1000;
+                    if (error != null) {
+                        failures.incrementAndGet();
+                        samples.add(new Sample(isExit, 0, micros));
+                        return;
+                    }
+                    samples.add(new Sample(isExit, response.statusCode(), micros));
+                    if (!isExit && response.statusCode() == 200 && response.body().contains("\"success\" : true")) {
+                        parked.add(thePlate);
+                    } else if (isExit && response.statusCode() == 429) {
+                        parked.add(thePlate);
+                    }
+                });
+            }
+            return null;
+        });
+        timer.shutdown();
+        timer.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        // Let the last requests finish
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (samples.size() + 0L < total && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        List<Sample> copy;
+        synchronized (samples) {
+            copy = new ArrayList<>(samples);
+        }
+        report("entries", copy.stream().filter(s -> !s.exit()).toList());
+        report("exits", copy.stream().filter(Sample::exit).toList());
+        report("all", copy);
+        System.out.printf("%d responses in %.1f s, %d transport errors, %d unanswered%n",
+            copy.size(), elapsed, failures.get(), total - copy.size());
+        System.exit(0);
+    }
+
+    private static void report(String name, List<Sample> samples) {
+        List<Long> ok = new ArrayList<>();
+        List<Long> shed = new ArrayList<>();
+        long other = 0;
+        for (Sample s : samples) {
+            if (s.status() == 200) {
+                ok.add(s.micros());
+            } else if (s.status() == 429 || s.status() == 503) {
+                shed.add(s.micros());
+            } else {
+                other++;
+            }
+        }
+        Collections.sort(ok);
+        Collections.sort(shed);
+        System.out.printf("%-8s sent %6d  ok %6d  shed %6d  other %4d | ok p50 %7.1f ms  p99 %7.1f ms  max %7.1f ms | shed p99 %6.1f ms%n",
+            name, samples.size(), ok.size(), shed.size(), other,
+            pct(ok, 0.50), pct(ok, 0.99), pct(ok, 1.0), pct(shed, 0.99));
+    }
+
+    private static double pct(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int i = (int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1);
+        return sorted.get(Math.max(0, i)) / 1000.0;
+    }
+}
@@ -0,0 +1,688 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import com.parking.util.ParquetWriter;
+
+/**
+ * Round-trip check of util/ParquetWriter against a decoder written from
+ * the Parquet format spec, independent of the writer's code.
+ *
+ *   mvn -q compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:$(cat target/cp.txt) scripts/ParquetVerifier.java [files] [seed]
+ *   java -cp target/classes:$(cat target/cp.txt) scripts/ParquetVerifier.java 300 1
+ *   java -cp target/classes:$(cat target/cp.txt) scripts/ParquetVerifier.java export.parquet
+ *
+ * First the RLE / bit-packing hybrid is checked against byte sequences
+ * from the spec's Encodings page. Then random files are written (every
+ * column type, required and optional, both codecs, row groups from 1 row
+ * up, values with long runs and without, dictionary columns over and
+ * under the dictionary limit) and decoded again. The decoder checks:
+ *  - the magic bytes and the footer length,
+ *  - the schema, converted and logical types,
+ *  - row group and column chunk offsets and sizes,
+ *  - page headers and each page's decompressed size,
+ *  - definition levels, dictionary pages and RLE_DICTIONARY indexes,
+ *  - null counts and min/max statistics,
+ *  - and every value.
+ * Exits non-zero on the first mismatch.
+ *
+ * Given a .parquet file instead, it decodes it and prints the schema,
+ * row groups and first rows, e.g. to look at a bookings export.
+ */
+public class ParquetVerifier {
+
+    // Physical types and page types from parquet.thrift
+    private static final int BOOLEAN = 0;
+    private static final int INT32 = 1;
+    private static final int INT64 = 2;
+    private static final int DOUBLE = 5;
+    private static final int BYTE_ARRAY = 6;
+    private static final int DATA_PAGE = 0;
+    private static final int DICTIONARY_PAGE = 2;
+    private static final int PLAIN = 0;
+    private static final int RLE = 3;
+    private static final int RLE_DICTIONARY = 8;
+
+    private static final String[] KINDS = {"int32", "int64", "float64", "bool", "string", "dictionary", "timestamp", "decimal"};
+    private static final String[] WORDS = {"Mumbai", "Delhi", "Pune", "", "Bengaluru", "Kakinada", "ಬೆಂಗಳೂರು", "CAR", "BIKE"};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].endsWith(".parquet")) {
+            describe(Files.readAllBytes(Path.of(args[0])));
+            return;
+        }
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        checkHybridFixtures();
+        Random random = new Random(seed);
+        long rows = 0;
+        for (int f = 0; f < files; f++) {
+            rows += roundTrip(random, f);
+        }
+        // A row group with more distinct strings than a dictionary holds falls back to PLAIN
+        rows += roundTrip(new Random(seed), -1);
+        System.out.println("✅ Hybrid fixtures and " + (files + 1) + " files (" + rows + " rows) decode to what was written");
+    }
+
+    // ---- Spec fixtures ----
+
+    private static void checkHybridFixtures() throws Exception {
+        Method hybrid = ParquetWriter.class.getDeclaredMethod("rleHybrid", ByteArrayOutputStream.class, int[].class, int.class, int.class);
+        hybrid.setAccessible(true);
+
+        // Encodings.md: 0..7 at bit width 3 bit-pack to 10001000 11000110 11111010
+        expectBytes(hybrid, new int[] { 0, 1, 2, 3, 4, 5, 6, 7 }, 3, 0x03, 0x88, 0xC6, 0xFA);
+        // A run of ten 5s at bit width 3: header (10 << 1), value in one byte
+        expectBytes(hybrid, new int[] { 5, 5, 5, 5, 5, 5, 5, 5, 5, 5 }, 3, 0x14, 0x05);
+        // Three values pad one group of 8: header (1 << 1 | 1), 1 0 1 at width 1
+        expectBytes(hybrid, new int[] { 1, 0, 1 }, 1, 0x03, 0x05);
+        // Width 9 repeats in two little-endian bytes
+        expectBytes(hybrid, new int[] { 300, 300, 300, 300, 300, 300, 300, 300 }, 9, 0x10, 0x2C, 0x01);
+    }
+
+    private static void expectBytes(Method hybrid, int[] values, int bitWidth, int... expected) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        hybrid.invoke(null, out, values, values.length, bitWidth);
+        byte[] actual = out.toByteArray();
+        byte[] want = new byte[expected.length];
+        for (int i = 0; i < expected.length; i++) {
+            want[i] = (byte) expected[i];
+        }
+        if (!Arrays.equals(actual, want)) {
+            fail("hybrid " + Arrays.toString(values) + " width " + bitWidth + ": expected " + hex(want) + ", got " + hex(actual));
+        }
+        int[] decoded = new Reader(actual, 0).hybrid(bitWidth, values.length);
+        if (!Arrays.equals(decoded, values)) {
+            fail("hybrid fixture decodes to " + Arrays.toString(decoded));
+        }
+    }
+
+    // ---- Random round trips ----
+
+    private record Spec(String name, String kind, boolean optional) {
+    }
+
+    private static int roundTrip(Random random, int file) throws IOException {
+        List<Spec> specs = new ArrayList<>();
+        List<ParquetWriter.Column> columns = new ArrayList<>();
+        int columnCount = file < 0 ? 1 : 1 + random.nextInt(10);
+        for (int c = 0; c < columnCount; c++) {
+            String kind = file < 0 ? "dictionary" : KINDS[random.nextInt(KINDS.length)];
+            boolean optional = random.nextBoolean();
+            String name = "c" + c + "_" + kind;
+            specs.add(new Spec(name, kind, optional));
+            columns.add(switch (kind) {
+                case "int32" -> ParquetWriter.int32(name, optional);
+                case "int64" -> ParquetWriter.int64(name, optional);
+                case "float64" -> ParquetWriter.float64(name, optional);
+                case "bool" -> ParquetWriter.bool(name, optional);
+                case "string" -> ParquetWriter.string(name, optional);
+                case "dictionary" -> ParquetWriter.dictionaryString(name, optional);
+                case "timestamp" -> ParquetWriter.timestamp(name, optional);
+                default -> ParquetWriter.decimal(name, 2, optional);
+            });
+        }
+        int rowCount = file < 0 ? 40_000 : file == 0 ? 0 : random.nextInt(random.nextBoolean() ? 40 : 6_000);
+        int rowGroupRows = file < 0 ? 40_000 : 1 + random.nextInt(random.nextBoolean() ? 16 : 3_000);
+        ParquetWriter.Codec codec = random.nextBoolean() ? ParquetWriter.Codec.GZIP : ParquetWriter.Codec.UNCOMPRESSED;
+        Map<String, String> metadata = new LinkedHashMap<>();
+        if (random.nextBoolean()) {
+            metadata.put("parking.export", "test " + file);
+        }
+
+        // Per column, how often a value repeats the previous one, so both run kinds appear
+        double[] repeat = new double[columnCount];
+        double[] nullRate = new double[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            repeat[c] = file < 0 ? 0 : random.nextInt(3) == 0 ? 0.95 : 0.1;
+            nullRate[c] = file < 0 || !specs.get(c).optional() ? 0 : random.nextInt(4) == 0 ? 0.9 : 0.2;
+        }
+        Object[][] expected = new Object[rowCount][columnCount];
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ParquetWriter writer = new ParquetWriter(bytes, columns, codec, rowGroupRows, metadata);
+        for (int r = 0; r < rowCount; r++) {
+            for (int c = 0; c < columnCount; c++) {
+                Spec spec = specs.get(c);
+                Object v;
+                if (random.nextDouble() < nullRate[c]) {
+                    v = null;
+                } else if (r > 0 && expected[r - 1][c] != null && random.nextDouble() < repeat[c]) {
+                    v = expected[r - 1][c];
+                } else {
+                    v = file < 0 ? "plate-" + r : value(random, spec.kind());
+                }
+                expected[r][c] = v;
+                switch (spec.kind()) {
+                    case "int32" -> writer.number((Integer) v);
+                    case "int64", "decimal" -> writer.number((Long) v);
+                    case "float64" -> writer.number((Double) v);
+                    case "bool" -> writer.flag((Boolean) v);
+                    case "string", "dictionary" -> writer.text((String) v);
+                    default -> writer.timestamp((LocalDateTime) v);
+                }
+            }
+            writer.endRow();
+        }
+        writer.finish();
+
+        String label = "file " + file + " (" + rowCount + " rows, row groups of " + rowGroupRows + ", " + codec + ")";
+        try {
+            Decoded decoded = decode(bytes.toByteArray());
+            verify(decoded, specs, expected, rowGroupRows, codec, metadata, file < 0);
+        } catch (RuntimeException e) {
+            fail(label + ": " + e.getMessage());
+        }
+        return rowCount;
+    }
+
+    private static Object value(Random random, String kind) {
+        return switch (kind) {
+            case "int32" -> random.nextBoolean() ? random.nextInt() : random.nextInt(100) - 50;
+            case "int64" -> random.nextBoolean() ? random.nextLong() : (long) random.nextInt(1000);
+            case "float64" -> random.nextBoolean() ? random.nextGaussian() * 1e6 : (double) random.nextInt(10);
+            case "bool" -> random.nextBoolean();
+            case "string" -> random.nextBoolean() ? WORDS[random.nextInt(WORDS.length)] : "v" + random.nextLong();
+            case "dictionary" -> WORDS[random.nextInt(WORDS.length)];
+            case "timestamp" -> LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(random.nextInt(400 * 86_400))
+                .plusNanos(random.nextInt(1000) * 1_000_000L);
+            default -> (long) random.nextInt(10_000_000);
+        };
+    }
+
+    // ---- Checks against what was written ----
+
+    @SuppressWarnings("unchecked")
+    private static void verify(Decoded d, List<Spec> specs, Object[][] expected, int rowGroupRows,
+                               ParquetWriter.Codec codec, Map<String, String> metadata, boolean overDictionaryLimit) {
+        check(d.numRows == expected.length, "num_rows " + d.numRows + ", wrote " + expected.length);
+        check(d.keyValues.equals(metadata), "key/value metadata " + d.keyValues);
+        check(d.columns.size() == specs.size(), "schema has " + d.columns.size() + " columns");
+        for (int c = 0; c < specs.size(); c++) {
+            Spec spec = specs.get(c);
+            Map<Integer, Object> element = d.columns.get(c);
+            check(spec.name().equals(string(element.get(4))), "column " + c + " named " + string(element.get(4)));
+            check(num(element.get(3)) == (spec.optional() ? 1 : 0), spec.name() + " repetition");
+            check(num(element.get(1)) == physicalType(spec.kind()), spec.name() + " type " + element.get(1));
+            Map<Integer, Object> logical = (Map<Integer, Object>) element.get(10);
+            switch (spec.kind()) {
+                case "string", "dictionary" -> {
+                    check(num(element.get(6)) == 0, spec.name() + " converted type UTF8");
+                    check(logical != null && logical.containsKey(1), spec.name() + " logical STRING");
+                }
+                case "decimal" -> {
+                    check(num(element.get(6)) == 5 && num(element.get(7)) == 2 && num(element.get(8)) == 18,
+                        spec.name() + " converted DECIMAL(18, 2)");
+                    Map<Integer, Object> decimal = (Map<Integer, Object>) logical.get(5);
+                    check(num(decimal.get(1)) == 2 && num(decimal.get(2)) == 18, spec.name() + " logical DECIMAL(18, 2)");
+                }
+                case "timestamp" -> {
+                    Map<Integer, Object> timestamp = (Map<Integer, Object>) logical.get(8);
+                    check(Boolean.FALSE.equals(timestamp.get(1)), spec.name() + " isAdjustedToUTC=false");
+                    check(((Map<Integer, Object>) timestamp.get(2)).containsKey(1), spec.name() + " unit MILLIS");
+                }
+                default -> check(logical == null, spec.name() + " has no logical type");
+            }
+        }
+
+        int expectedGroups = (expected.length + rowGroupRows - 1) / rowGroupRows;
+        check(d.groups.size() == expectedGroups, d.groups.size() + " row groups, expected " + expectedGroups);
+        int firstRow = 0;
+        for (int g = 0; g < d.groups.size(); g++) {
+            DecodedGroup group = d.groups.get(g);
+            int rows = (int) group.numRows;
+            check(rows == Math.min(rowGroupRows, expected.length - firstRow), "row group " + g + " has " + rows + " rows");
+            for (int c = 0; c < specs.size(); c++) {
+                Spec spec = specs.get(c);
+                DecodedChunk chunk = group.chunks.get(c);
+                String where = "row group " + g + " column " + spec.name();
+                check(chunk.codec == (codec == ParquetWriter.Codec.GZIP ? 2 : 0), where + " codec " + chunk.codec);
+                check(chunk.numValues == rows, where + " num_values " + chunk.numValues);
+                if (spec.kind().equals("dictionary")) {
+                    check(chunk.dictionary != null != overDictionaryLimit,
+                        where + (overDictionaryLimit ? " kept a dictionary over the limit" : " has no dictionary page"));
+                } else {
+                    check(chunk.dictionary == null, where + " has a dictionary page");
+                }
+
+                long nulls = 0;
+                Object min = null;
+                Object max = null;
+                for (int r = 0; r < rows; r++) {
+                    Object want = expected[firstRow + r][c];
+                    if (want instanceof LocalDateTime t) {
+                        want = t.toInstant(ZoneOffset.UTC).toEpochMilli();
+                    }
+                    Object got = chunk.values[r];
+                    check(equal(want, got), where + " row " + (firstRow + r) + ": wrote " + want + ", read " + got);
+                    if (want == null) {
+                        nulls++;
+                    } else if (want instanceof Number n) {
+                        min = min == null || compare(n, (Number) min) < 0 ? n : min;
+                        max = max == null || compare(n, (Number) max) > 0 ? n : max;
+                    }
+                }
+                check(chunk.nullCount == nulls, where + " null_count " + chunk.nullCount + ", expected " + nulls);
+                check(equal(chunk.min, min) && equal(chunk.max, max),
+                    where + " statistics min " + chunk.min + " max " + chunk.max + ", expected " + min + " " + max);
+            }
+            firstRow += rows;
+        }
+    }
+
+    private static int physicalType(String kind) {
+        return switch (kind) {
+            case "int32" -> INT32;
+            case "float64" -> DOUBLE;
+            case "bool" -> BOOLEAN;
+            case "string", "dictionary" -> BYTE_ARRAY;
+            default -> INT64;
+        };
+    }
+
+    private static boolean equal(Object a, Object b) {
+        if (a instanceof Double x && b instanceof Double y) {
+            return x.doubleValue() == y.doubleValue();
+        }
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static int compare(Number a, Number b) {
+        return a instanceof Double ? Double.compare(a.doubleValue(), b.doubleValue()) : Long.compare(a.longValue(), b.longValue());
+    }
+
+    // ---- Decoder ----
+
+    private record Decoded(long numRows, List<Map<Integer, Object>> columns, Map<String, String> keyValues,
+                           List<DecodedGroup> groups) {
+    }
+
+    private record DecodedGroup(long numRows, List<DecodedChunk> chunks) {
+    }
+
+    private record DecodedChunk(int codec, long numValues, Object[] values, Object[] dictionary,
+                                long nullCount, Object min, Object max) {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Decoded decode(byte[] file) throws IOException {
+        check(file.length >= 12, "file is " + file.length + " bytes");
+        check(new String(file, 0, 4, StandardCharsets.US_ASCII).equals("PAR1"), "no leading magic");
+        check(new String(file, file.length - 4, 4, StandardCharsets.US_ASCII).equals("PAR1"), "no trailing magic");
+        int footerLength = (int) new Reader(file, file.length - 8).littleEndian(4);
+        int footerStart = file.length - 8 - footerLength;
+        check(footerStart >= 4, "footer length " + footerLength);
+        Reader footerReader = new Reader(file, footerStart);
+        Map<Integer, Object> meta = footerReader.struct();
+        check(footerReader.pos == file.length - 8, "footer ends at " + footerReader.pos + ", not at its length");
+        check(num(meta.get(1)) == 1, "version " + meta.get(1));
+
+        List<Map<Integer, Object>> schema = (List<Map<Integer, Object>>) meta.get(2);
+        Map<Integer, Object> root = schema.get(0);
+        check(num(root.get(5)) == schema.size() - 1, "root has " + root.get(5) + " children");
+        List<Map<Integer, Object>> columns = schema.subList(1, schema.size());
+
+        Map<String, String> keyValues = new LinkedHashMap<>();
+        if (meta.containsKey(5)) {
+            for (Map<Integer, Object> kv : (List<Map<Integer, Object>>) meta.get(5)) {
+                keyValues.put(string(kv.get(1)), string(kv.get(2)));
+            }
+        }
+
+        List<DecodedGroup> groups = new ArrayList<>();
+        long expectedOffset = 4;
+        List<Map<Integer, Object>> rowGroups = meta.containsKey(4) ? (List<Map<Integer, Object>>) meta.get(4) : List.of();
+        for (Map<Integer, Object> rowGroup : rowGroups) {
+            long numRows = num(rowGroup.get(3));
+            check(num(rowGroup.get(5)) == expectedOffset, "row group starts at " + rowGroup.get(5) + ", expected " + expectedOffset);
+            List<DecodedChunk> chunks = new ArrayList<>();
+            long uncompressed = 0;
+            List<Map<Integer, Object>> chunkList = (List<Map<Integer, Object>>) rowGroup.get(1);
+            check(chunkList.size() == columns.size(), "row group has " + chunkList.size() + " chunks");
+            for (int c = 0; c < chunkList.size(); c++) {
+                Map<Integer, Object> chunk = chunkList.get(c);
+                Map<Integer, Object> cm = (Map<Integer, Object>) chunk.get(3);
+                Map<Integer, Object> column = columns.get(c);
+                String name = string(column.get(4));
+                check(num(chunk.get(2)) == expectedOffset, name + " chunk file_offset " + chunk.get(2));
+                check(num(cm.get(1)) == num(column.get(1)), name + " chunk type differs from schema");
+                check(string(((List<Object>) cm.get(3)).get(0)).equals(name), name + " path_in_schema");
+                DecodedChunk decoded = decodeChunk(file, column, cm, (int) numRows, expectedOffset);
+                chunks.add(decoded);
+                uncompressed += num(cm.get(6));
+                expectedOffset += num(cm.get(7));
+            }
+            check(num(rowGroup.get(2)) == uncompressed, "row group total_byte_size " + rowGroup.get(2) + ", expected " + uncompressed);
+            check(num(rowGroup.get(5)) + num(rowGroup.get(6)) == expectedOffset, "row group total_compressed_size " + rowGroup.get(6));
+            groups.add(new DecodedGroup(numRows, chunks));
+        }
+        check(expectedOffset == footerStart, "column chunks end at " + expectedOffset + ", footer starts at " + footerStart);
+        return new Decoded(num(meta.get(3)), columns, keyValues, groups);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DecodedChunk decodeChunk(byte[] file, Map<Integer, Object> column, Map<Integer, Object> cm,
+                                            int rows, long chunkStart) throws IOException {
+        String name = string(column.get(4));
+        int type = (int) num(column.get(1));
+        boolean optional = num(column.get(3)) == 1;
+        int codec = (int) num(cm.get(4));
+        long pos = chunkStart;
+        long uncompressed = 0;
+
+        Object[] dictionary = null;
+        if (cm.containsKey(11)) {
+            check(num(cm.get(11)) == pos, name + " dictionary_page_offset " + cm.get(11) + ", expected " + pos);
+            Reader headerReader = new Reader(file, (int) pos);
+            Map<Integer, Object> header = headerReader.struct();
+            check(num(header.get(1)) == DICTIONARY_PAGE, name + " first page is not a dictionary page");
+            Map<Integer, Object> dictHeader = (Map<Integer, Object>) header.get(7);
+            check(num(dictHeader.get(2)) == PLAIN, name + " dictionary encoding " + dictHeader.get(2));
+            byte[] body = page(file, headerReader.pos, header, codec, name);
+            int entries = (int) num(dictHeader.get(1));
+            Reader values = new Reader(body, 0);
+            dictionary = new Object[entries];
+            for (int i = 0; i < entries; i++) {
+                dictionary[i] = values.plain(type);
+            }
+            check(values.pos == body.length, name + " dictionary page has trailing bytes");
+            uncompressed += headerReader.pos - pos + num(header.get(2));
+            pos = headerReader.pos + num(header.get(3));
+        }
+
+        check(num(cm.get(9)) == pos, name + " data_page_offset " + cm.get(9) + ", expected " + pos);
+        Reader headerReader = new Reader(file, (int) pos);
+        Map<Integer, Object> header = headerReader.struct();
+        check(num(header.get(1)) == DATA_PAGE, name + " page type " + header.get(1));
+        Map<Integer, Object> dataHeader = (Map<Integer, Object>) header.get(5);
+        check(num(dataHeader.get(1)) == rows, name + " page num_values " + dataHeader.get(1));
+        check(num(dataHeader.get(3)) == RLE && num(dataHeader.get(4)) == RLE, name + " level encodings");
+        int encoding = (int) num(dataHeader.get(2));
+        check(encoding == (dictionary != null ? RLE_DICTIONARY : PLAIN), name + " value encoding " + encoding);
+        byte[] body = page(file, headerReader.pos, header, codec, name);
+        uncompressed += headerReader.pos - pos + num(header.get(2));
+        pos = headerReader.pos + num(header.get(3));
+
+        Reader page = new Reader(body, 0);
+        int[] levels = new int[rows];
+        Arrays.fill(levels, 1);
+        if (optional) {
+            int length = (int) page.littleEndian(4);
+            int levelsEnd = page.pos + length;
+            levels = page.hybrid(1, rows);
+            check(page.pos == levelsEnd, name + " definition levels are " + (page.pos - levelsEnd + length) +
+                " bytes, header says " + length);
+        }
+        int present = 0;
+        for (int level : levels) {
+            check(level == 0 || level == 1, name + " definition level " + level);
+            present += level;
+        }
+
+        Object[] values = new Object[rows];
+        if (dictionary != null) {
+            int bitWidth = page.pos < body.length ? body[page.pos++] & 0xFF : 0;
+            int[] indexes = page.hybrid(bitWidth, present);
+            for (int r = 0, i = 0; r < rows; r++) {
+                if (levels[r] == 1) {
+                    check(indexes[i] < dictionary.length, name + " dictionary index " + indexes[i]);
+                    values[r] = dictionary[indexes[i++]];
+                }
+            }
+        } else if (type == BOOLEAN) {
+            for (int r = 0, i = 0; r < rows; r++) {
+                if (levels[r] == 1) {
+                    values[r] = (body[page.pos + i / 8] >>> (i % 8) & 1) == 1;
+                    i++;
+                }
+            }
+            page.pos += (present + 7) / 8;
+        } else {
+            for (int r = 0; r < rows; r++) {
+                if (levels[r] == 1) {
+                    values[r] = page.plain(type);
+                }
+            }
+        }
+        check(page.pos == body.length, name + " data page has " + (body.length - page.pos) + " trailing bytes");
+
+        check(num(cm.get(6)) == uncompressed, name + " total_uncompressed_size " + cm.get(6) + ", expected " + uncompressed);
+        check(num(cm.get(7)) == pos - chunkStart, name + " total_compressed_size " + cm.get(7) + ", expected " + (pos - chunkStart));
+
+        Map<Integer, Object> stats = (Map<Integer, Object>) cm.get(12);
+        Object min = stats.containsKey(6) ? new Reader((byte[]) stats.get(6), 0).plain(type) : null;
+        Object max = stats.containsKey(5) ? new Reader((byte[]) stats.get(5), 0).plain(type) : null;
+        return new DecodedChunk(codec, num(cm.get(5)), values, dictionary, num(stats.get(3)), min, max);
+    }
+
+    // A page body, decompressed, checked against the sizes in its header
+    private static byte[] page(byte[] file, int start, Map<Integer, Object> header, int codec, String name) throws IOException {
+        int stored = (int) num(header.get(3));
+        byte[] body = Arrays.copyOfRange(file, start, start + stored);
+        if (codec == 2) {
+            try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = gzip.readAllBytes();
+            }
+        } else {
+            check(codec == 0, name + " codec " + codec);
+        }
+        check(body.length == num(header.get(2)), name + " page is " + body.length + " bytes, header says " + header.get(2));
+        return body;
+    }
+
+    /**
+     * Thrift compact protocol into field id -> value maps, plus the plain
+     * and hybrid encodings
+     */
+    private static final class Reader {
+        final byte[] buf;
+        int pos;
+
+        Reader(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        Map<Integer, Object> struct() {
+            Map<Integer, Object> fields = new HashMap<>();
+            int last = 0;
+            while (true) {
+                int b = buf[pos++] & 0xFF;
+                if (b == 0) {
+                    return fields;
+                }
+                int delta = b >>> 4;
+                int id = delta != 0 ? last + delta : (int) zigzag(varint());
+                last = id;
+                fields.put(id, value(b & 0x0F));
+            }
+        }
+
+        private Object value(int type) {
+            switch (type) {
+                case 1:
+                    return true;
+                case 2:
+                    return false;
+                case 3:
+                    return (long) buf[pos++];
+                case 4:
+                case 5:
+                case 6:
+                    return zigzag(varint());
+                case 7:
+                    return Double.longBitsToDouble(littleEndian(8));
+                case 8: {
+                    int length = (int) varint();
+                    byte[] bytes = Arrays.copyOfRange(buf, pos, pos + length);
+                    pos += length;
+                    return bytes;
+                }
+                case 9:
+                case 10: {
+                    int b = buf[pos++] & 0xFF;
+                    int size = b >>> 4 == 15 ? (int) varint() : b >>> 4;
+                    int elementType = b & 0x0F;
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(elementType == 1 || elementType == 2 ? buf[pos++] == 1 : value(elementType));
+                    }
+                    return list;
+                }
+                case 12:
+                    return struct();
+                default:
+                    throw new IllegalStateException("thrift type " + type + " at " + (pos - 1));
+            }
+        }
+
+        Object plain(int type) {
+            switch (type) {
+                case INT32:
+                    return (int) littleEndian(4);
+                case INT64:
+                    return littleEndian(8);
+                case DOUBLE:
+                    return Double.longBitsToDouble(littleEndian(8));
+                case BYTE_ARRAY: {
+                    int length = (int) littleEndian(4);
+                    String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+                    pos += length;
+                    return s;
+                }
+                default:
+                    throw new IllegalStateException("plain type " + type);
+            }
+        }
+
+        // RLE / bit-packing hybrid runs until count values are read
+        int[] hybrid(int bitWidth, int count) {
+            int[] out = new int[count];
+            int n = 0;
+            while (n < count) {
+                long header = varint();
+                if ((header & 1) == 0) {
+                    int run = (int) (header >>> 1);
+                    check(run > 0, "empty RLE run");
+                    int value = (int) littleEndian((bitWidth + 7) / 8);
+                    for (int i = 0; i < run && n < count; i++) {
+                        out[n++] = value;
+                    }
+                } else {
+                    int values = (int) (header >>> 1) * 8;
+                    check(values > 0, "empty bit-packed run");
+                    long buffer = 0;
+                    int bits = 0;
+                    for (int i = 0; i < values; i++) {
+                        while (bits < bitWidth) {
+                            buffer |= (long) (buf[pos++] & 0xFF) << bits;
+                            bits += 8;
+                        }
+                        int value = (int) (buffer & ((1L << bitWidth) - 1));
+                        buffer >>>= bitWidth;
+                        bits -= bitWidth;
+                        if (n < count) {
+                            out[n++] = value;
+                        }
+                    }
+                }
+            }
+            return out;
+        }
+
+        long littleEndian(int width) {
+            long v = 0;
+            for (int b = 0; b < width; b++) {
+                v |= (long) (buf[pos++] & 0xFF) << (8 * b);
+            }
+            return v;
+        }
+
+        long varint() {
+            long v = 0;
+            int shift = 0;
+            while (true) {
+                int b = buf[pos++] & 0xFF;
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return v;
+                }
+                shift += 7;
+            }
+        }
+
+        private static long zigzag(long v) {
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+
+    // ---- Describing a file ----
+
+    private static void describe(byte[] file) throws IOException {
+        Decoded d = decode(file);
+        System.out.println(file.length + " bytes, " + d.numRows + " rows in " + d.groups.size() + " row groups");
+        System.out.println("metadata: " + d.keyValues);
+        List<String> names = new ArrayList<>();
+        for (Map<Integer, Object> column : d.columns) {
+            names.add(string(column.get(4)));
+            System.out.printf("  %-24s type %d %s%s%n", string(column.get(4)), num(column.get(1)),
+                num(column.get(3)) == 1 ? "optional" : "required", column.containsKey(10) ? " logical " + column.get(10).toString() : "");
+        }
+        System.out.println(String.join(" | ", names));
+        if (!d.groups.isEmpty()) {
+            DecodedGroup first = d.groups.get(0);
+            for (int r = 0; r < Math.min(5, first.numRows); r++) {
+                List<String> row = new ArrayList<>();
+                for (DecodedChunk chunk : first.chunks) {
+                    row.add(String.valueOf(chunk.values[r]));
+                }
+                System.out.println(String.join(" | ", row));
+            }
+        }
+        System.out.println("✅ Decoded without errors");
+    }
+
+    // ---- Helpers ----
+
+    private static long num(Object value) {
+        return value == null ? -1 : (Long) value;
+    }
+
+    private static String string(Object value) {
+        return new String((byte[]) value, StandardCharsets.UTF_8);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    private static void fail(String message) {
+        System.out.println("❌ " + message);
+        System.exit(1);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02X ", b & 0xFF));
+        }
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,209 @@
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.parking.entity.ParkingSlot;
+import com.parking.entity.RateRule;
+import com.parking.repository.RateRuleRepository;
+import com.parking.service.OccupancyTracker;
+import com.parking.service.PricingEngine;
+import com.parking.util.Money;
+
+/**
+ * Nanoseconds and bytes allocated per price quote, against a rate table
+ * compiled from a generated rule set (global peak hours, a rule per city,
+ * night and weekend rules per location) with surge tiers. Location names
+ * repeat in every city, as "Central Mall" might, and each city's location
+ * is checked to resolve to a row of its own.
+ *
+ *   mvn -q compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:$(cat target/cp.txt) scripts/QuoteBenchmark.java [cities] [locationsPerCity] [rounds]
+ *   java -cp target/classes:$(cat target/cp.txt) scripts/QuoteBenchmark.java 40 25 10
+ *
+ * Two paths are measured: quote(row, vehicle, slot type, day, hour,
+ * occupancy) on pre-resolved indices, and quoteHourlyRate(slot, type, at),
+ * which also resolves the row and occupancy by city and location as a park
+ * does. Each round runs for about a second after a warm-up; the median and
+ * best rounds are printed.
+ */
+public class QuoteBenchmark {
+
+    private static final String[] VEHICLES = {"BIKE", "CAR", "SUV", "TRUCK"};
+    private static final String[] TYPES = {"SMALL", "MEDIUM", "LARGE"};
+    private static final int INPUTS = 1 << 12;
+    private static final long ROUND_NANOS = 1_000_000_000L;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Keeps the JIT from dropping the quotes
+    private static long sink;
+
+    interface Op {
+        long run(int i);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int cities = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int locations = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        List<RateRule> rules = rules(cities, locations);
+        PricingEngine engine = new PricingEngine();
+        set(engine, "rateRuleRepository", Proxy.newProxyInstance(QuoteBenchmark.class.getClassLoader(),
+            new Class<?>[] { RateRuleRepository.class }, (proxy, method, a) -> {
+                if (method.getName().equals("findByActive")) {
+                    return rules;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }));
+        set(engine, "occupancyTracker", new OccupancyTracker());
+        set(engine, "surgeTiers", "70:1.2,85:1.5,95:2.0");
+        engine.reload();
+
+        Random random = new Random(42);
+        int[] rows = new int[INPUTS];
+        int[] vehicleCodes = new int[INPUTS];
+        int[] slotCodes = new int[INPUTS];
+        int[] days = new int[INPUTS];
+        int[] hours = new int[INPUTS];
+        int[] occupancy = new int[INPUTS];
+        ParkingSlot[] slots = new ParkingSlot[INPUTS];
+        String[] vehicles = new String[INPUTS];
+        LocalDateTime[] times = new LocalDateTime[INPUTS];
+        LocalDateTime monday = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < INPUTS; i++) {
+            int city = random.nextInt(cities);
+            int location = random.nextInt(locations + 1);
+            ParkingSlot slot = new ParkingSlot(i, 1, TYPES[random.nextInt(TYPES.length)]);
+            slot.setCity("City " + city);
+            // One slot in locations + 1 is at a location without rules of its own
+            slot.setLocationName("Parking " + location + " - Slot " + i);
+            slots[i] = slot;
+            vehicles[i] = VEHICLES[random.nextInt(VEHICLES.length)];
+            times[i] = monday.plusMinutes(random.nextInt(7 * 24 * 60));
+
+            rows[i] = engine.resolveRow(slot.getCity(), slot.locationKey());
+            vehicleCodes[i] = PricingEngine.vehicleTypeCode(vehicles[i]);
+            slotCodes[i] = PricingEngine.slotTypeCode(slot.getSlotType());
+            days[i] = times[i].getDayOfWeek().getValue() - 1;
+            hours[i] = times[i].getHour();
+            occupancy[i] = random.nextInt(101);
+        }
+        System.out.printf("%d rules over %d cities x %d locations, %d distinct inputs%n",
+            rules.size(), cities, locations, INPUTS);
+        checkRows(engine, cities, locations);
+
+        measure("quote(row, vehicle, slot, day, hour, occupancy)", rounds,
+            i -> engine.quote(rows[i], vehicleCodes[i], slotCodes[i], days[i], hours[i], occupancy[i]));
+        measure("quoteHourlyRate(slot, vehicleType, at)", rounds,
+            i -> engine.quoteHourlyRate(slots[i], vehicles[i], times[i]));
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    private static List<RateRule> rules(int cities, int locations) {
+        List<RateRule> rules = new ArrayList<>();
+        long id = 1;
+        // Weekday peak hours everywhere
+        rules.add(rule(id++, null, null, null, 0x1F, 8, 11, 35.0));
+        rules.add(rule(id++, null, null, null, 0x1F, 17, 20, 35.0));
+        for (int c = 0; c < cities; c++) {
+            String city = "City " + c;
+            rules.add(rule(id++, city, null, null, null, null, null, 15.0 + c % 10));
+            for (int l = 0; l < locations; l++) {
+                String location = "Parking " + l;
+                rules.add(rule(id++, city, location, "CAR", null, 22, 6, 10.0));
+                rules.add(rule(id++, city, location, null, 0x60, null, null, 25.0 + l % 5));
+            }
+        }
+        return rules;
+    }
+
+    // Every (city, location) with rules has its own row, priced from its own city's rules
+    private static void checkRows(PricingEngine engine, int cities, int locations) {
+        Set<Integer> seen = new HashSet<>();
+        LocalDateTime mondayNoon = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int c = 0; c < cities; c++) {
+            ParkingSlot slot = new ParkingSlot(1, 1, "SMALL");
+            slot.setCity("City " + c);
+            for (int l = 0; l < locations; l++) {
+                slot.setLocationName("Parking " + l);
+                if (!seen.add(engine.resolveRow(slot.getCity(), slot.locationKey()))) {
+                    throw new IllegalStateException("City " + c + " / Parking " + l + " shares a row");
+                }
+                // Weekday noon: none of the location's rules apply, so its city's rate does
+                long expected = Money.toPaise(15.0 + c % 10);
+                long quoted = engine.quoteHourlyRate(slot, "BIKE", mondayNoon);
+                if (quoted != expected) {
+                    throw new IllegalStateException("City " + c + " / Parking " + l + " quoted " + quoted
+                        + " paise, its city charges " + expected);
+                }
+            }
+        }
+        System.out.printf("%d (city, location) rows, each priced from its own city%n", seen.size());
+    }
+
+    private static RateRule rule(long id, String city, String location, String vehicleType,
+                                 Integer daysMask, Integer startHour, Integer endHour, double rate) {
+        RateRule rule = new RateRule();
+        rule.setId(id);
+        rule.setCity(city);
+        rule.setLocationName(location);
+        rule.setVehicleType(vehicleType);
+        rule.setDaysMask(daysMask);
+        rule.setStartHour(startHour);
+        rule.setEndHour(endHour);
+        rule.setHourlyRate(rate);
+        rule.setActive(true);
+        return rule;
+    }
+
+    private static void measure(String name, int rounds, Op op) {
+        // Warm-up: long enough for the C2 compile of the loop below
+        for (int r = 0; r < 3; r++) {
+            round(op);
+        }
+        double[] nanos = new double[rounds];
+        double bytes = 0;
+        for (int r = 0; r < rounds; r++) {
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+            long[] result = round(op);
+            long allocated = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+            nanos[r] = result[0] / (double) result[1];
+            bytes += allocated / (double) result[1];
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-50s median %6.2f ns/op, best %6.2f ns/op, %.3f bytes/op%n",
+            name, nanos[rounds / 2], nanos[0], bytes / rounds);
+    }
+
+    // Returns (elapsed nanos, ops); checks the clock once per INPUTS quotes
+    private static long[] round(Op op) {
+        long ops = 0;
+        long sum = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < INPUTS; i++) {
+                sum += op.run(i);
+            }
+            ops += INPUTS;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ROUND_NANOS);
+        sink += sum;
+        return new long[] { elapsed, ops };
+    }
+
+    private static void set(Object target, String field, Object value) throws Exception {
+        Field f = target.getClass().getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+}
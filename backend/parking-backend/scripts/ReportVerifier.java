@@ -0,0 +1,417 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.parking.entity.Booking;
+import com.parking.entity.BookingStatus;
+import com.parking.entity.ParkingSlot;
+import com.parking.entity.User;
+import com.parking.entity.Vehicle;
+import com.parking.service.ReportAccumulator;
+import com.parking.util.Money;
+
+/**
+ * Checks the single-pass monthly report (ReportAccumulator) against the
+ * stream-per-section implementation it replaced, on randomized booking sets.
+ *
+ *   mvn -q compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:$(cat target/cp.txt) scripts/ReportVerifier.java [datasets] [maxBookings] [seed]
+ *   java -cp target/classes:$(cat target/cp.txt) scripts/ReportVerifier.java 200 40000 1
+ *
+ * Datasets vary in size (including empty and below and above the
+ * accumulator's chunk size), number of slots, users and vehicle types
+ * (a quarter with slot numbers and user ids anywhere in their range), and
+ * mix in bookings without a slot, vehicle, owner, exit time or amount.
+ * Every section the previous implementation produced is compared by value.
+ * Where several slots or vehicle types tie for most or least used, the
+ * previous implementation picked whichever HashMap iteration reached first;
+ * for those only the count, and that the chosen key is one of the tied
+ * keys, is compared. averageUtilization is left out: it is time-weighted
+ * now and no longer derived from the booking count. Exits non-zero on the
+ * first mismatch.
+ */
+public class ReportVerifier {
+
+    private static final String[] TYPES = {"CAR", "BIKE", "SUV", "TRUCK", "VAN", "EV", "BUS"};
+    private static final BookingStatus[] STATUSES = BookingStatus.values();
+
+    public static void main(String[] args) {
+        int datasets = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int maxBookings = args.length > 1 ? Integer.parseInt(args[1]) : 40_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        Random random = new Random(seed);
+
+        long bookingsChecked = 0;
+        for (int d = 0; d < datasets; d++) {
+            LocalDate first = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365));
+            LocalDate last = first.plusDays(random.nextInt(40));
+            int size = d == 0 ? 0 : random.nextInt(maxBookings + 1);
+            List<Booking> bookings = bookings(random, size, first, last);
+
+            for (String reportType : new String[] { "admin", "user" }) {
+                Map<String, Object> expected = previous(bookings, first, last, reportType);
+                Map<String, Object> actual = new HashMap<>();
+                ReportAccumulator.aggregate(bookings, first, last).writeSections(actual, reportType, 1, 0.0);
+                String mismatch = compare(expected, actual);
+                if (mismatch != null) {
+                    System.out.println("❌ Dataset " + d + " (" + size + " bookings, " + first + " to " + last
+                        + ", " + reportType + "): " + mismatch);
+                    System.exit(1);
+                }
+            }
+            bookingsChecked += size;
+        }
+        System.out.println("✅ " + datasets + " datasets, " + bookingsChecked + " bookings: reports match");
+    }
+
+    private static List<Booking> bookings(Random random, int size, LocalDate first, LocalDate last) {
+        int days = (int) ChronoUnit.DAYS.between(first, last) + 1;
+        int slotCount = 1 + random.nextInt(random.nextBoolean() ? 20 : 600);
+        int userCount = 1 + random.nextInt(random.nextBoolean() ? 5 : 2_000);
+        int typeCount = 1 + random.nextInt(TYPES.length);
+
+        // Some datasets use any int as a slot number and any long as a user id, as rows
+        // written before slot numbers were bounded may; the report must not size arrays by them
+        boolean unbounded = random.nextInt(4) == 0;
+        List<ParkingSlot> slots = new ArrayList<>();
+        for (int s = 0; s < slotCount; s++) {
+            // Sparse slot numbers, as after deletes
+            int number = unbounded ? random.nextInt() : 1 + s * (1 + random.nextInt(3));
+            ParkingSlot slot = new ParkingSlot(number, 1, "MEDIUM");
+            slot.setId((long) s + 1);
+            slots.add(slot);
+        }
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int u = 0; u < userCount; u++) {
+            User user = new User();
+            user.setId(unbounded ? random.nextLong() : (long) u + 1);
+            for (int v = 0; v < 1 + random.nextInt(2); v++) {
+                Vehicle vehicle = new Vehicle("MH" + u + "X" + v, TYPES[random.nextInt(typeCount)], "Owner " + u, "9000000000");
+                vehicle.setId((long) vehicles.size() + 1);
+                vehicle.setUser(random.nextInt(20) == 0 ? null : user);
+                vehicles.add(vehicle);
+            }
+        }
+
+        List<Booking> bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Booking booking = new Booking();
+            booking.setId((long) i + 1);
+            booking.setEntryTime(first.plusDays(random.nextInt(days)).atStartOfDay()
+                .plusSeconds(random.nextInt(24 * 60 * 60)));
+            booking.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            if (random.nextInt(50) != 0) {
+                booking.setParkingSlot(slots.get(random.nextInt(slotCount)));
+            }
+            if (random.nextInt(50) != 0) {
+                booking.setVehicle(vehicles.get(random.nextInt(vehicles.size())));
+            }
+            if (booking.getStatus() != BookingStatus.ACTIVE) {
+                booking.setExitTime(booking.getEntryTime().plusMinutes(random.nextInt(3 * 24 * 60)));
+                // BUS bookings never carry an amount, so BUS has a count but no revenue
+                boolean bus = booking.getVehicle() != null && "BUS".equals(booking.getVehicle().getVehicleType());
+                if (random.nextInt(10) != 0 && !bus) {
+                    booking.setTotalAmountPaise((long) random.nextInt(500_000));
+                }
+            }
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+
+    // ---- Comparison ----
+
+    @SuppressWarnings("unchecked")
+    private static String compare(Map<String, Object> expected, Map<String, Object> actual) {
+        for (String section : expected.keySet()) {
+            if (!actual.containsKey(section)) {
+                return "missing section " + section;
+            }
+        }
+
+        Map<String, Object> expectedSlots = new HashMap<>((Map<String, Object>) expected.get("slotUtilization"));
+        Map<String, Object> actualSlots = new HashMap<>((Map<String, Object>) actual.get("slotUtilization"));
+        expectedSlots.remove("averageUtilization");
+        actualSlots.remove("averageUtilization");
+        actualSlots.remove("bookingsPerSlot");
+        Map<Integer, Long> slotBookings = (Map<Integer, Long>) expectedSlots.get("slotBookings");
+        String tie = compareTied("slotUtilization.mostUsedSlot", slotBookings, expectedSlots, actualSlots,
+            "mostUsedSlot", "slotNumber", "bookings");
+        if (tie == null) {
+            tie = compareTied("slotUtilization.leastUsedSlot", slotBookings, expectedSlots, actualSlots,
+                "leastUsedSlot", "slotNumber", "bookings");
+        }
+        if (tie != null) {
+            return tie;
+        }
+
+        Map<String, Object> expectedTypes = new HashMap<>((Map<String, Object>) expected.get("vehicleTypeDistribution"));
+        Map<String, Object> actualTypes = new HashMap<>((Map<String, Object>) actual.get("vehicleTypeDistribution"));
+        Map<String, Long> distribution = (Map<String, Long>) expectedTypes.get("distribution");
+        if (expectedTypes.containsKey("mostPopularType") != actualTypes.containsKey("mostPopularType")) {
+            return "vehicleTypeDistribution.mostPopularType presence differs";
+        }
+        if (expectedTypes.containsKey("mostPopularType")) {
+            Object type = actualTypes.remove("mostPopularType");
+            expectedTypes.remove("mostPopularType");
+            if (!Objects.equals(distribution.get(type), expectedTypes.get("mostPopularCount"))) {
+                return "vehicleTypeDistribution.mostPopularType " + type + " is not a most popular type";
+            }
+        }
+
+        for (String section : expected.keySet()) {
+            Object e = expected.get(section);
+            Object a = actual.get(section);
+            if (section.equals("slotUtilization")) {
+                e = expectedSlots;
+                a = actualSlots;
+            } else if (section.equals("vehicleTypeDistribution")) {
+                e = expectedTypes;
+                a = actualTypes;
+            } else if (section.equals("slotPerformance")) {
+                e = bySlotNumber((List<Map<String, Object>>) e);
+                a = bySlotNumber((List<Map<String, Object>>) a);
+            }
+            if (!Objects.equals(e, a)) {
+                return section + " differs:\n  expected " + e + "\n  actual   " + a;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The tied entry must hold the expected count, and its key must be one
+     * of the keys with that count. Both entries are then dropped from the
+     * section so the rest compares exactly.
+     */
+    @SuppressWarnings("unchecked")
+    private static String compareTied(String name, Map<Integer, Long> counts, Map<String, Object> expected,
+                                      Map<String, Object> actual, String entry, String keyField, String countField) {
+        Map<String, Object> e = (Map<String, Object>) expected.remove(entry);
+        Map<String, Object> a = (Map<String, Object>) actual.remove(entry);
+        if (e == null || a == null) {
+            return e == a ? null : name + " presence differs";
+        }
+        if (!Objects.equals(e.get(countField), a.get(countField))) {
+            return name + " count differs: expected " + e + ", actual " + a;
+        }
+        if (!Objects.equals(counts.get(a.get(keyField)), a.get(countField))) {
+            return name + " " + a.get(keyField) + " does not have " + a.get(countField) + " bookings";
+        }
+        return null;
+    }
+
+    private static List<Map<String, Object>> bySlotNumber(List<Map<String, Object>> performance) {
+        List<Map<String, Object>> sorted = new ArrayList<>(performance);
+        sorted.sort(Comparator.comparing(p -> (Integer) p.get("slotNumber")));
+        return sorted;
+    }
+
+    // ---- Previous implementation, one stream per section ----
+
+    private static Map<String, Object> previous(List<Booking> bookings, LocalDate first, LocalDate last, String reportType) {
+        Map<String, Object> report = new HashMap<>();
+        report.put("summary", generateSummary(bookings));
+        report.put("peakHours", analyzePeakHours(bookings));
+        report.put("dailyTrend", analyzeDailyTrend(bookings, first.atStartOfDay(), last.atTime(23, 59, 59)));
+        report.put("slotUtilization", analyzeSlotUtilization(bookings));
+        report.put("revenueAnalysis", analyzeRevenue(bookings));
+        report.put("vehicleTypeDistribution", analyzeVehicleTypes(bookings));
+        report.put("averageMetrics", calculateAverageMetrics(bookings));
+        if ("admin".equalsIgnoreCase(reportType)) {
+            report.put("userAnalysis", analyzeUserBehavior(bookings));
+            report.put("slotPerformance", analyzeSlotPerformance(bookings));
+        }
+        return report;
+    }
+
+    private static Map<String, Object> generateSummary(List<Booking> bookings) {
+        Map<String, Object> summary = new HashMap<>();
+        long totalBookings = bookings.size();
+        long completedBookings = bookings.stream()
+            .filter(b -> b.getStatus() == BookingStatus.COMPLETED)
+            .count();
+        long activeBookings = bookings.stream()
+            .filter(b -> b.getStatus() == BookingStatus.ACTIVE)
+            .count();
+        summary.put("totalBookings", totalBookings);
+        summary.put("completedBookings", completedBookings);
+        summary.put("activeBookings", activeBookings);
+        summary.put("completionRate", totalBookings > 0 ?
+            Math.round((completedBookings * 100.0 / totalBookings) * 100.0) / 100.0 : 0);
+        return summary;
+    }
+
+    private static Map<String, Object> analyzePeakHours(List<Booking> bookings) {
+        Map<String, Object> peakHours = new HashMap<>();
+        Map<Integer, Long> hourlyDistribution = new HashMap<>();
+        for (int i = 0; i < 24; i++) {
+            hourlyDistribution.put(i, 0L);
+        }
+        for (Booking booking : bookings) {
+            if (booking.getEntryTime() != null) {
+                int hour = booking.getEntryTime().getHour();
+                hourlyDistribution.put(hour, hourlyDistribution.get(hour) + 1);
+            }
+        }
+        int peakHour = hourlyDistribution.entrySet().stream()
+            .max(Map.Entry.comparingByValue())
+            .map(Map.Entry::getKey)
+            .orElse(0);
+        long peakHourCount = hourlyDistribution.get(peakHour);
+        peakHours.put("peakHour", String.format("%02d:00 - %02d:00", peakHour, (peakHour + 1) % 24));
+        peakHours.put("peakHourBookings", peakHourCount);
+        peakHours.put("hourlyDistribution", hourlyDistribution);
+        peakHours.put("timePeriods", Map.of(
+            "morning", hours(hourlyDistribution, 6, 12),
+            "afternoon", hours(hourlyDistribution, 12, 18),
+            "evening", hours(hourlyDistribution, 18, 24),
+            "night", hours(hourlyDistribution, 0, 6)
+        ));
+        return peakHours;
+    }
+
+    private static long hours(Map<Integer, Long> hourlyDistribution, int from, int to) {
+        return hourlyDistribution.entrySet().stream()
+            .filter(e -> e.getKey() >= from && e.getKey() < to)
+            .mapToLong(Map.Entry::getValue)
+            .sum();
+    }
+
+    private static List<Map<String, Object>> analyzeDailyTrend(List<Booking> bookings, LocalDateTime start, LocalDateTime end) {
+        List<Map<String, Object>> dailyTrend = new ArrayList<>();
+        LocalDate currentDate = start.toLocalDate();
+        LocalDate endDate = end.toLocalDate();
+        while (!currentDate.isAfter(endDate)) {
+            final LocalDate date = currentDate;
+            long dayBookings = bookings.stream()
+                .filter(b -> b.getEntryTime() != null && b.getEntryTime().toLocalDate().equals(date))
+                .count();
+            long dayRevenuePaise = bookings.stream()
+                .filter(b -> b.getEntryTime() != null && b.getEntryTime().toLocalDate().equals(date))
+                .mapToLong(ReportVerifier::amountPaise)
+                .sum();
+            Map<String, Object> dayData = new HashMap<>();
+            dayData.put("date", date.toString());
+            dayData.put("dayOfWeek", date.getDayOfWeek().toString());
+            dayData.put("bookings", dayBookings);
+            dayData.put("revenue", Money.toRupees(dayRevenuePaise));
+            dailyTrend.add(dayData);
+            currentDate = currentDate.plusDays(1);
+        }
+        return dailyTrend;
+    }
+
+    private static Map<String, Object> analyzeSlotUtilization(List<Booking> bookings) {
+        Map<String, Object> utilization = new HashMap<>();
+        Map<Integer, Long> slotBookings = bookings.stream()
+            .filter(b -> b.getParkingSlot() != null)
+            .collect(Collectors.groupingBy(b -> b.getParkingSlot().getSlotNumber(), Collectors.counting()));
+        if (!slotBookings.isEmpty()) {
+            Integer mostUsedSlot = slotBookings.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+            Integer leastUsedSlot = slotBookings.entrySet().stream()
+                .min(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+            utilization.put("mostUsedSlot", Map.of("slotNumber", mostUsedSlot, "bookings", slotBookings.get(mostUsedSlot)));
+            utilization.put("leastUsedSlot", Map.of("slotNumber", leastUsedSlot, "bookings", slotBookings.get(leastUsedSlot)));
+        }
+        utilization.put("slotBookings", slotBookings);
+        return utilization;
+    }
+
+    private static Map<String, Object> analyzeRevenue(List<Booking> bookings) {
+        Map<String, Object> revenue = new HashMap<>();
+        long totalRevenuePaise = 0;
+        for (Booking b : bookings) {
+            totalRevenuePaise += amountPaise(b);
+        }
+        long avgRevenuePaise = bookings.isEmpty() ? 0 : Math.round((double) totalRevenuePaise / bookings.size());
+        revenue.put("totalRevenue", Money.toRupees(totalRevenuePaise));
+        revenue.put("averageRevenuePerBooking", Money.toRupees(avgRevenuePaise));
+        Map<String, Long> revenuePaiseByType = bookings.stream()
+            .filter(b -> b.getVehicle() != null && b.getTotalAmountPaise() != null)
+            .collect(Collectors.groupingBy(b -> b.getVehicle().getVehicleType(),
+                Collectors.summingLong(Booking::getTotalAmountPaise)));
+        Map<String, Double> revenueByType = new HashMap<>();
+        revenuePaiseByType.forEach((type, paise) -> revenueByType.put(type, Money.toRupees(paise)));
+        revenue.put("revenueByVehicleType", revenueByType);
+        return revenue;
+    }
+
+    private static Map<String, Object> analyzeVehicleTypes(List<Booking> bookings) {
+        Map<String, Object> distribution = new HashMap<>();
+        Map<String, Long> typeCount = bookings.stream()
+            .filter(b -> b.getVehicle() != null)
+            .collect(Collectors.groupingBy(b -> b.getVehicle().getVehicleType(), Collectors.counting()));
+        distribution.put("distribution", typeCount);
+        if (!typeCount.isEmpty()) {
+            String mostPopular = typeCount.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+            distribution.put("mostPopularType", mostPopular);
+            distribution.put("mostPopularCount", typeCount.get(mostPopular));
+        }
+        return distribution;
+    }
+
+    private static Map<String, Object> calculateAverageMetrics(List<Booking> bookings) {
+        Map<String, Object> metrics = new HashMap<>();
+        long totalMinutes = bookings.stream()
+            .filter(b -> b.getEntryTime() != null && b.getExitTime() != null)
+            .mapToLong(b -> ChronoUnit.MINUTES.between(b.getEntryTime(), b.getExitTime()))
+            .sum();
+        long completedBookings = bookings.stream()
+            .filter(b -> b.getExitTime() != null)
+            .count();
+        double avgDurationHours = completedBookings > 0 ? (totalMinutes / 60.0) / completedBookings : 0;
+        metrics.put("averageDurationHours", Math.round(avgDurationHours * 100.0) / 100.0);
+        metrics.put("totalParkingHours", Math.round((totalMinutes / 60.0) * 100.0) / 100.0);
+        return metrics;
+    }
+
+    private static Map<String, Object> analyzeUserBehavior(List<Booking> bookings) {
+        Map<String, Object> userAnalysis = new HashMap<>();
+        Map<Long, Long> userBookings = bookings.stream()
+            .filter(b -> b.getVehicle() != null && b.getVehicle().getUser() != null)
+            .collect(Collectors.groupingBy(b -> b.getVehicle().getUser().getId(), Collectors.counting()));
+        userAnalysis.put("totalUsers", userBookings.size());
+        userAnalysis.put("averageBookingsPerUser",
+            userBookings.isEmpty() ? 0 :
+            Math.round((bookings.size() * 1.0 / userBookings.size()) * 100.0) / 100.0);
+        return userAnalysis;
+    }
+
+    private static List<Map<String, Object>> analyzeSlotPerformance(List<Booking> bookings) {
+        List<Map<String, Object>> performance = new ArrayList<>();
+        Map<Integer, List<Booking>> slotBookings = bookings.stream()
+            .filter(b -> b.getParkingSlot() != null)
+            .collect(Collectors.groupingBy(b -> b.getParkingSlot().getSlotNumber()));
+        slotBookings.forEach((slotNum, slotBookingList) -> {
+            Map<String, Object> slotPerf = new HashMap<>();
+            slotPerf.put("slotNumber", slotNum);
+            slotPerf.put("totalBookings", slotBookingList.size());
+            slotPerf.put("totalRevenue", Money.toRupees(slotBookingList.stream()
+                .mapToLong(ReportVerifier::amountPaise)
+                .sum()));
+            performance.add(slotPerf);
+        });
+        return performance;
+    }
+
+    private static long amountPaise(Booking booking) {
+        return booking.getTotalAmountPaise() != null ? booking.getTotalAmountPaise() : 0L;
+    }
+}
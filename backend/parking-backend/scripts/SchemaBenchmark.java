@@ -0,0 +1,227 @@
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Row size, index size and lookup latency of the bookings and slot tables,
+ * with the V3 layout (status names as strings, no slot indexes) against the
+ * V4 one (one-byte status codes, status and slot availability indexes).
+ * Both are filled with the same generated rows.
+ *
+ *   java -cp <h2.jar> scripts/SchemaBenchmark.java [bookings] [slots] [dir]
+ *   java -cp ~/.m2/repository/com/h2database/h2/2.2.224/h2-2.2.224.jar scripts/SchemaBenchmark.java 1000000 100000
+ *
+ * or against MySQL, where sizes come from information_schema:
+ *
+ *   java -cp <mysql-connector.jar> scripts/SchemaBenchmark.java 1000000 100000 jdbc:mysql://localhost/bench user pass
+ */
+public class SchemaBenchmark {
+
+    private static final String[] STATUSES = {"ACTIVE", "COMPLETED", "CANCELLED"};
+    private static final String[] PAYMENTS = {"PENDING", "PAID"};
+    private static final String[] TYPES = {"SMALL", "MEDIUM", "LARGE"};
+    private static final int CITIES = 40;
+    private static final int RUNS = 20;
+
+    public static void main(String[] args) throws Exception {
+        int bookings = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int slots = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        String target = args.length > 2 ? args[2] : System.getProperty("java.io.tmpdir");
+        boolean mysql = target.startsWith("jdbc:mysql");
+
+        System.out.printf("%,d bookings, %,d slots in %d cities, %s%n", bookings, slots, CITIES, mysql ? "MySQL" : "H2");
+        for (boolean compact : new boolean[] { false, true }) {
+            String layout = compact ? "V4" : "V3";
+            // H2 would otherwise answer a repeated query from its result cache
+            String url = mysql ? target : "jdbc:h2:file:" + new File(target, "schema-bench-" + layout).getAbsolutePath()
+                + ";OPTIMIZE_REUSE_RESULTS=FALSE";
+            if (!mysql) {
+                new File(target, "schema-bench-" + layout + ".mv.db").delete();
+            }
+            try (Connection conn = mysql ? DriverManager.getConnection(url, args[3], args.length > 4 ? args[4] : "")
+                                         : DriverManager.getConnection(url, "sa", "")) {
+                create(conn, compact, mysql);
+                long started = System.nanoTime();
+                fill(conn, compact, bookings, slots);
+                System.out.printf("%n%s layout: loaded in %.1f s%n", layout, (System.nanoTime() - started) / 1e9);
+                sizes(conn, mysql, bookings, slots);
+                queries(conn, compact);
+                if (!mysql) {
+                    try (Statement st = conn.createStatement()) {
+                        st.execute("SHUTDOWN COMPACT");
+                    }
+                }
+            }
+            if (!mysql) {
+                long bytes = new File(target, "schema-bench-" + layout + ".mv.db").length();
+                System.out.printf("  database file after compaction: %,d bytes (%.1f bytes per booking)%n",
+                    bytes, bytes / (double) bookings);
+            }
+        }
+    }
+
+    private static void create(Connection conn, boolean compact, boolean mysql) throws Exception {
+        String status = compact ? "tinyint not null" : "varchar(255) not null";
+        String payment = compact ? "tinyint" : "varchar(255)";
+        String flag = mysql ? "bit not null" : "boolean not null";
+        try (Statement st = conn.createStatement()) {
+            st.execute("drop table if exists bookings");
+            st.execute("drop table if exists parking_slots");
+            st.execute("create table parking_slots (id bigint not null primary key, slot_number integer not null, " +
+                       "slot_type varchar(255) not null, is_available " + flag + ", is_occupied " + flag + ", " +
+                       "is_under_maintenance " + flag + ", city varchar(255), region varchar(255), country varchar(255), " +
+                       "location_name varchar(255))");
+            st.execute("create table bookings (id bigint not null primary key, vehicle_id bigint not null, " +
+                       "slot_id bigint not null, booking_number varchar(255) not null, entry_time timestamp(6) not null, " +
+                       "exit_time timestamp(6), status " + status + ", hourly_rate_paise bigint not null, " +
+                       "total_amount_paise bigint, payment_status " + payment + ")");
+            st.execute("create index idx_bookings_entry_time on bookings (entry_time)");
+            if (compact) {
+                st.execute("create index idx_bookings_status_entry_time on bookings (status, entry_time)");
+                st.execute("create index idx_slots_city_type_state on parking_slots " +
+                           "(city, slot_type, is_available, is_occupied, is_under_maintenance)");
+                st.execute("create index idx_slots_type_state on parking_slots (slot_type, is_available, is_occupied)");
+                st.execute("create index idx_slots_state on parking_slots (is_occupied, is_available)");
+            }
+        }
+    }
+
+    private static void fill(Connection conn, boolean compact, int bookings, int slots) throws Exception {
+        conn.setAutoCommit(false);
+        Random random = new Random(42);
+        try (PreparedStatement ps = conn.prepareStatement("insert into parking_slots values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= slots; i++) {
+                int city = random.nextInt(CITIES);
+                ps.setLong(1, i);
+                ps.setInt(2, i);
+                ps.setString(3, TYPES[random.nextInt(TYPES.length)]);
+                ps.setBoolean(4, random.nextInt(20) != 0);
+                ps.setBoolean(5, random.nextInt(3) == 0);
+                ps.setBoolean(6, random.nextInt(50) == 0);
+                ps.setString(7, "City " + city);
+                ps.setString(8, "Region " + city / 4);
+                ps.setString(9, "India");
+                ps.setString(10, "City " + city + " Parking " + i / 50 + " - Slot " + i);
+                ps.addBatch();
+                if (i % 5000 == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        try (PreparedStatement ps = conn.prepareStatement("insert into bookings values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= bookings; i++) {
+                LocalDateTime entry = start.plusSeconds(i * (365L * 86400 / bookings));
+                // Most bookings are completed and paid, a few are still active
+                int status = i > bookings - bookings / 50 ? 0 : random.nextInt(40) == 0 ? 2 : 1;
+                int payment = status == 1 ? 1 : 0;
+                ps.setLong(1, i);
+                ps.setLong(2, 1 + random.nextInt(bookings / 4 + 1));
+                ps.setLong(3, 1 + random.nextInt(slots));
+                ps.setString(4, "BK" + (1_700_000_000_000L + i));
+                ps.setTimestamp(5, Timestamp.valueOf(entry));
+                ps.setTimestamp(6, status == 0 ? null : Timestamp.valueOf(entry.plusHours(2)));
+                if (compact) {
+                    ps.setByte(7, (byte) (status + 1));
+                    ps.setByte(10, (byte) (payment + 1));
+                } else {
+                    ps.setString(7, STATUSES[status]);
+                    ps.setString(10, PAYMENTS[payment]);
+                }
+                ps.setLong(8, 4000);
+                ps.setLong(9, 8000);
+                ps.addBatch();
+                if (i % 5000 == 0) {
+                    ps.executeBatch();
+                    conn.commit();
+                }
+            }
+            ps.executeBatch();
+        }
+        conn.commit();
+        conn.setAutoCommit(true);
+        try (Statement st = conn.createStatement()) {
+            st.execute(conn.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql")
+                ? "analyze table bookings, parking_slots" : "analyze");
+        }
+    }
+
+    private static void sizes(Connection conn, boolean mysql, int bookings, int slots) throws Exception {
+        if (mysql) {
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("select table_name, data_length, index_length from information_schema.tables " +
+                     "where table_schema = database() and table_name in ('bookings', 'parking_slots')")) {
+                while (rs.next()) {
+                    int rows = "bookings".equalsIgnoreCase(rs.getString(1)) ? bookings : slots;
+                    System.out.printf("  %-14s data %,d bytes (%.1f per row), indexes %,d bytes%n",
+                        rs.getString(1), rs.getLong(2), rs.getLong(2) / (double) rows, rs.getLong(3));
+                }
+            }
+            return;
+        }
+        for (String table : new String[] { "bookings", "parking_slots" }) {
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("select disk_space_used('" + table + "')")) {
+                rs.next();
+                int rows = "bookings".equals(table) ? bookings : slots;
+                System.out.printf("  %-14s %,d bytes with indexes (%.1f per row)%n", table, rs.getLong(1), rs.getLong(1) / (double) rows);
+            }
+        }
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("select sum(octet_length(status)), sum(octet_length(payment_status)) from bookings")) {
+            rs.next();
+            System.out.printf("  status columns: %,d bytes (%.1f per booking)%n",
+                rs.getLong(1) + rs.getLong(2), (rs.getLong(1) + rs.getLong(2)) / (double) bookings);
+        }
+    }
+
+    private static void queries(Connection conn, boolean compact) throws Exception {
+        Object active = compact ? (Object) (byte) 1 : "ACTIVE";
+        Object completed = compact ? (Object) (byte) 2 : "COMPLETED";
+        LocalDateTime now = LocalDateTime.now();
+        time(conn, "count active bookings", "select count(*) from bookings where status = ?", active);
+        time(conn, "active bookings in a month", "select count(*) from bookings where status = ? and entry_time between ? and ?",
+            active, Timestamp.valueOf(now.minusDays(30)), Timestamp.valueOf(now));
+        time(conn, "archivable completed (1k)", "select id from bookings where status = ? and entry_time < ? " +
+            "and exit_time < ? order by id fetch first 1000 rows only",
+            completed, Timestamp.valueOf(now.minusDays(180)), Timestamp.valueOf(now.minusDays(180)));
+        time(conn, "available slots", "select count(*) from parking_slots where is_occupied = false");
+        time(conn, "bookable by city and type", "select slot_type, count(*) from parking_slots where city = ? " +
+            "and is_available = true and is_occupied = false and is_under_maintenance = false group by slot_type", "City 7");
+        time(conn, "slots of a city", "select * from parking_slots where city = ?", "City 7");
+    }
+
+    private static void time(Connection conn, String name, String sql, Object... params) throws Exception {
+        List<Long> micros = new ArrayList<>();
+        long rows = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            for (int run = 0; run < RUNS + 3; run++) {
+                long started = System.nanoTime();
+                rows = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                    }
+                }
+                if (run >= 3) {
+                    micros.add((System.nanoTime() - started) / 1000);
+                }
+            }
+        }
+        Collections.sort(micros);
+        System.out.printf("  %-28s median %8.2f ms  (%d rows)%n", name, micros.get(micros.size() / 2) / 1000.0, rows);
+    }
+}
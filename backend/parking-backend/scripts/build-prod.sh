@@ -0,0 +1,95 @@
+#!/bin/sh
+# Production build with class-data sharing and a startup measurement.
+#
+#  1. mvn -Pprod package (no DevTools)
+#  2. unpack the Boot jar into plain jars, since CDS cannot archive classes
+#     loaded from nested jars
+#  3. training run with the prod profile that exits once the context has
+#     refreshed (spring.context.exit=onRefresh) and dumps the loaded classes
+#     into target/prod/app.jsa
+#  4. boot twice more, without and with the archive, and report the time
+#     from launch to the first successful HTTP response
+#
+# The training and timing runs use an in-memory H2 database so the build
+# needs no MySQL; set TRAIN_ARGS to train against a real database instead.
+# Start the result with target/prod/run.sh.
+set -eu
+
+cd "$(dirname "$0")/.."
+OUT=target/prod
+PORT=${PORT:-18090}
+TRAIN_ARGS=${TRAIN_ARGS:-"--spring.datasource.url=jdbc:h2:mem:cds;DB_CLOSE_DELAY=-1 \
+--spring.datasource.driver-class-name=org.h2.Driver --spring.datasource.username=sa \
+--spring.datasource.password= --spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"}
+
+mvn -B -q -Pprod clean package -DskipTests
+JAR=$(ls target/*.jar | grep -v original | head -1)
+
+rm -rf "$OUT"
+mkdir -p "$OUT/boot"
+(cd "$OUT/boot" && jar xf "../../../$JAR")
+MAIN=$(sed -n 's/^Start-Class: *//p' "$OUT/boot/META-INF/MANIFEST.MF" | tr -d '\r')
+
+# Application classes as a jar of their own, libraries in classpath.idx order
+(cd "$OUT/boot/BOOT-INF/classes" && jar cf ../../../app.jar .)
+mkdir -p "$OUT/lib"
+CP=app.jar
+for lib in $(sed -n 's/^- "BOOT-INF\/lib\/\(.*\)"/\1/p' "$OUT/boot/BOOT-INF/classpath.idx"); do
+    mv "$OUT/boot/BOOT-INF/lib/$lib" "$OUT/lib/$lib"
+    CP="$CP:lib/$lib"
+done
+rm -rf "$OUT/boot"
+echo "$CP" > "$OUT/classpath"
+echo "$MAIN" > "$OUT/main-class"
+
+echo "Training run for the CDS archive..."
+# shellcheck disable=SC2086
+(cd "$OUT" && java -XX:ArchiveClassesAtExit=app.jsa -Dspring.context.exit=onRefresh \
+    -cp "$CP" "$MAIN" --spring.profiles.active=prod --server.port="$PORT" $TRAIN_ARGS > training.log 2>&1) || true
+[ -f "$OUT/app.jsa" ] || { echo "CDS archive was not created, see $OUT/training.log"; exit 1; }
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Milliseconds from launch to the first 200 from the health endpoint
+time_to_first_request() {
+    label=$1
+    shift
+    start=$(now_ms)
+    # shellcheck disable=SC2086
+    (cd "$OUT" && exec java "$@" -cp "$CP" "$MAIN" --spring.profiles.active=prod \
+        --server.port="$PORT" $TRAIN_ARGS > "startup-$label.log" 2>&1) &
+    pid=$!
+    elapsed=-1
+    i=0
+    while [ $i -lt 1200 ]; do
+        if curl -sf "http://localhost:$PORT/api/parking/health" > /dev/null 2>&1; then
+            elapsed=$(( $(now_ms) - start ))
+            break
+        fi
+        sleep 0.05
+        i=$((i + 1))
+    done
+    pkill -f "server.port=$PORT" 2>/dev/null || true
+    wait $pid 2>/dev/null || true
+    echo $elapsed
+}
+
+PLAIN=$(time_to_first_request plain -Xshare:auto)
+SHARED=$(time_to_first_request cds -XX:SharedArchiveFile=app.jsa)
+
+{
+    echo "Startup report $(date '+%Y-%m-%d %H:%M:%S')"
+    echo "jar:                            $(basename "$JAR")"
+    echo "CDS archive:                    $(du -h "$OUT/app.jsa" | cut -f1)"
+    echo "time to first request, no CDS:  ${PLAIN} ms"
+    echo "time to first request, CDS:     ${SHARED} ms"
+} | tee "$OUT/startup-report.txt"
+
+cat > "$OUT/run.sh" <<RUN
+#!/bin/sh
+cd "\$(dirname "\$0")"
+exec java -XX:SharedArchiveFile=app.jsa \${JAVA_OPTS:-} -cp "$CP" $MAIN --spring.profiles.active=\${SPRING_PROFILES_ACTIVE:-prod} "\$@"
+RUN
+chmod +x "$OUT/run.sh"
@@ -0,0 +1,106 @@
+package com.parking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * A completed booking moved out of the hot bookings table by
+ * BookingArchiveService. Same columns and ids as Booking, plus the time it
+ * was archived. Read-only: rows are only ever inserted by the archiver.
+ */
+@Entity
+@Table(name = "bookings_archive", indexes = {
+    @Index(name = "idx_bookings_archive_entry_time", columnList = "entry_time"),
+    @Index(name = "idx_bookings_archive_vehicle", columnList = "vehicle_id"),
+    @Index(name = "idx_bookings_archive_slot", columnList = "slot_id")
+})
+public class ArchivedBooking {
+
+    // Copied from bookings.id, not generated
+    @Id
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "vehicle_id", nullable = false)
+    private Vehicle vehicle;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "slot_id", nullable = false)
+    private ParkingSlot parkingSlot;
+
+    @Column(name = "booking_number", unique = true, nullable = false)
+    private String bookingNumber;
+
+    @Column(name = "entry_time", nullable = false)
+    private LocalDateTime entryTime;
+
+    @Column(name = "exit_time")
+    private LocalDateTime exitTime;
+
+    @Column(name = "start_time")
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+
+    @Column(name = "status", nullable = false)
+    @Convert(converter = BookingStatus.Converter.class)
+    private BookingStatus status;
+
+    @Column(name = "hourly_rate_paise", nullable = false)
+    private long hourlyRatePaise;
+
+    @Column(name = "total_amount_paise")
+    private Long totalAmountPaise;
+
+    @Column(name = "payment_status")
+    @Convert(converter = PaymentStatus.Converter.class)
+    private PaymentStatus paymentStatus;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * Detached Booking view of this row, so read paths can treat hot and
+     * archived bookings alike
+     */
+    public Booking toBooking() {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setVehicle(vehicle);
+        booking.setParkingSlot(parkingSlot);
+        booking.setBookingNumber(bookingNumber);
+        booking.setEntryTime(entryTime);
+        booking.setExitTime(exitTime);
+        booking.setStartTime(startTime);
+        booking.setEndTime(endTime);
+        booking.setStatus(status);
+        booking.setHourlyRatePaise(hourlyRatePaise);
+        booking.setTotalAmountPaise(totalAmountPaise);
+        booking.setPaymentStatus(paymentStatus);
+        return booking;
+    }
+
+    public Long getId() { return id; }
+    public Vehicle getVehicle() { return vehicle; }
+    public ParkingSlot getParkingSlot() { return parkingSlot; }
+    public String getBookingNumber() { return bookingNumber; }
+    public LocalDateTime getEntryTime() { return entryTime; }
+    public LocalDateTime getExitTime() { return exitTime; }
+    public LocalDateTime getStartTime() { return startTime; }
+    public LocalDateTime getEndTime() { return endTime; }
+    public BookingStatus getStatus() { return status; }
+    public long getHourlyRatePaise() { return hourlyRatePaise; }
+    public Long getTotalAmountPaise() { return totalAmountPaise; }
+    public PaymentStatus getPaymentStatus() { return paymentStatus; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+}
@@ -4,25 +4,34 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.parking.util.Money;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+    @Index(name = "idx_bookings_entry_time", columnList = "entry_time"),
+    @Index(name = "idx_bookings_status_entry_time", columnList = "status, entry_time")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Booking {
     
+    // GST percentage applied to pre-scheduled bookings
+    public static final int TAX_PERCENT = 18;
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -31,7 +40,8 @@ public class Booking {
     @JoinColumn(name = "vehicle_id", nullable = false)
     private Vehicle vehicle;
     
-    @OneToOne(fetch = FetchType.EAGER)
+    // A slot has many bookings over time; only ParkingSlot.currentBooking is one-to-one
+    @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "slot_id", nullable = false)
     @JsonIgnoreProperties({"currentBooking"})
     private ParkingSlot parkingSlot;
@@ -57,32 +67,35 @@ public class Booking {
     private LocalDateTime endTime;
     
     @Column(name = "status", nullable = false)
-    private String status; // ACTIVE, COMPLETED, CANCELLED
+    @Convert(converter = BookingStatus.Converter.class)
+    private BookingStatus status;
     
-    @Column(name = "hourly_rate", nullable = false)
-    private Double hourlyRate;
+    // Money is stored in paise (1/100 rupee)
+    @Column(name = "hourly_rate_paise", nullable = false, columnDefinition = "bigint default 0")
+    private long hourlyRatePaise;
     
-    @Column(name = "total_amount")
-    private Double totalAmount;
+    @Column(name = "total_amount_paise")
+    private Long totalAmountPaise;
     
     @Column(name = "payment_status")
-    private String paymentStatus; // PENDING, PAID
+    @Convert(converter = PaymentStatus.Converter.class)
+    private PaymentStatus paymentStatus;
     
     // Constructors
     public Booking() {
-        this.status = "ACTIVE";
-        this.paymentStatus = "PENDING";
+        this.status = BookingStatus.ACTIVE;
+        this.paymentStatus = PaymentStatus.PENDING;
         this.entryTime = LocalDateTime.now();
     }
     
-    public Booking(Vehicle vehicle, ParkingSlot parkingSlot, String bookingNumber) {
+    public Booking(Vehicle vehicle, ParkingSlot parkingSlot, String bookingNumber, long hourlyRatePaise) {
         this.vehicle = vehicle;
         this.parkingSlot = parkingSlot;
         this.bookingNumber = bookingNumber;
         this.entryTime = LocalDateTime.now();
-        this.status = "ACTIVE";
-        this.paymentStatus = "PENDING";
-        this.hourlyRate = calculateHourlyRate(vehicle.getVehicleType());
+        this.status = BookingStatus.ACTIVE;
+        this.paymentStatus = PaymentStatus.PENDING;
+        this.hourlyRatePaise = hourlyRatePaise;
     }
     
     // Ensure entryTime is set before persisting
@@ -92,25 +105,20 @@ public class Booking {
             entryTime = LocalDateTime.now();
         }
         if (status == null) {
-            status = "ACTIVE";
+            status = BookingStatus.ACTIVE;
         }
         if (paymentStatus == null) {
-            paymentStatus = "PENDING";
+            paymentStatus = PaymentStatus.PENDING;
         }
     }
     
     // Business Logic
-    private Double calculateHourlyRate(String vehicleType) {
-        return switch (vehicleType.toUpperCase()) {
-            case "BIKE" -> 10.0;
-            case "CAR" -> 20.0;
-            case "SUV" -> 30.0;
-            case "TRUCK" -> 50.0;
-            default -> 20.0;
-        };
-    }
-    
     public long getParkingDurationHours() {
+        return parkingDurationHours(entryTime, exitTime);
+    }
+
+    // Hours parked so far (until now while still inside)
+    public static long parkingDurationHours(LocalDateTime entryTime, LocalDateTime exitTime) {
         LocalDateTime end = (exitTime != null) ? exitTime : LocalDateTime.now();
         Duration duration = Duration.between(entryTime, end);
         long hours = duration.toHours();
@@ -127,21 +135,19 @@ public class Booking {
         return getParkingDurationHours();
     }
     
-    public Double calculateTotalAmount() {
+    public long calculateTotalAmountPaise() {
         // Use scheduled duration if available
         if (startTime != null && endTime != null) {
-            long hours = getScheduledDurationHours();
-            double baseFee = hours * hourlyRate;
-            double tax = baseFee * 0.18;
-            return baseFee + tax;
+            long baseFee = getScheduledDurationHours() * hourlyRatePaise;
+            return baseFee + Money.percentOf(baseFee, TAX_PERCENT);
         }
-        return getParkingDurationHours() * hourlyRate;
+        return getParkingDurationHours() * hourlyRatePaise;
     }
     
     public void completeBooking() {
         this.exitTime = LocalDateTime.now();
-        this.totalAmount = calculateTotalAmount();
-        this.status = "COMPLETED";
+        this.totalAmountPaise = calculateTotalAmountPaise();
+        this.status = BookingStatus.COMPLETED;
     }
     
     // Getters and Setters
@@ -210,35 +216,46 @@ public class Booking {
         this.endTime = endTime;
     }
     
-    public String getStatus() { 
+    public BookingStatus getStatus() { 
         return status; 
     }
     
-    public void setStatus(String status) { 
+    public void setStatus(BookingStatus status) { 
         this.status = status; 
     }
     
-    public Double getHourlyRate() { 
-        return hourlyRate; 
+    @JsonIgnore
+    public long getHourlyRatePaise() { 
+        return hourlyRatePaise; 
     }
     
-    public void setHourlyRate(Double hourlyRate) { 
-        this.hourlyRate = hourlyRate; 
+    public void setHourlyRatePaise(long hourlyRatePaise) { 
+        this.hourlyRatePaise = hourlyRatePaise; 
     }
     
-    public Double getTotalAmount() { 
-        return totalAmount; 
+    @JsonIgnore
+    public Long getTotalAmountPaise() { 
+        return totalAmountPaise; 
+    }
+    
+    public void setTotalAmountPaise(Long totalAmountPaise) { 
+        this.totalAmountPaise = totalAmountPaise; 
     }
     
-    public void setTotalAmount(Double totalAmount) { 
-        this.totalAmount = totalAmount; 
+    // Rupee values for JSON responses
+    public double getHourlyRate() { 
+        return Money.toRupees(hourlyRatePaise); 
+    }
+    
+    public Double getTotalAmount() { 
+        return totalAmountPaise != null ? Money.toRupees(totalAmountPaise) : null; 
     }
     
-    public String getPaymentStatus() { 
+    public PaymentStatus getPaymentStatus() { 
         return paymentStatus; 
     }
     
-    public void setPaymentStatus(String paymentStatus) { 
+    public void setPaymentStatus(PaymentStatus paymentStatus) { 
         this.paymentStatus = paymentStatus; 
     }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.parking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A slot or booking state change, written to the booking_outbox table in
+ * the same transaction as the change itself and delivered to
+ * BookingEventListeners by BookingEventBus once committed. The id orders
+ * events; ids of one slot increase in the order the changes committed.
+ */
+@Entity
+@Table(name = "booking_outbox")
+public class BookingEvent {
+
+    public enum Type {
+        VEHICLE_PARKED,
+        VEHICLE_EXITED,
+        BOOKING_CHECKED_OUT,
+        SLOT_ADDED,
+        SLOT_REMOVED,
+        SLOT_ENABLED,
+        SLOT_DISABLED,
+        MAINTENANCE_STARTED,
+        MAINTENANCE_ENDED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private Type type;
+
+    // Shard whose outbox holds the event (see ShardRouter)
+    @Column(name = "shard", nullable = false, length = 64)
+    private String shard;
+
+    @Column(name = "slot_id", nullable = false)
+    private Long slotId;
+
+    @Column(name = "slot_number")
+    private Integer slotNumber;
+
+    @Column(name = "city")
+    private String city;
+
+    @Column(name = "location_name")
+    private String location;
+
+    @Column(name = "booking_id")
+    private Long bookingId;
+
+    @Column(name = "booking_number")
+    private String bookingNumber;
+
+    @Column(name = "license_plate")
+    private String licensePlate;
+
+    @Column(name = "amount_paise")
+    private Long amountPaise;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    public BookingEvent() {
+    }
+
+    public BookingEvent(Type type, String shard, ParkingSlot slot, Booking booking) {
+        this.type = type;
+        this.shard = shard;
+        this.slotId = slot.getId();
+        this.slotNumber = slot.getSlotNumber();
+        this.city = slot.getCity();
+        this.location = slot.locationKey();
+        if (booking != null) {
+            this.bookingId = booking.getId();
+            this.bookingNumber = booking.getBookingNumber();
+            this.licensePlate = booking.getVehicle() != null ? booking.getVehicle().getLicensePlate() : null;
+            this.amountPaise = booking.getTotalAmountPaise();
+        }
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public String getShard() { return shard; }
+    public void setShard(String shard) { this.shard = shard; }
+
+    public Long getSlotId() { return slotId; }
+    public void setSlotId(Long slotId) { this.slotId = slotId; }
+
+    public Integer getSlotNumber() { return slotNumber; }
+    public void setSlotNumber(Integer slotNumber) { this.slotNumber = slotNumber; }
+
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+
+    public String getLocation() { return location; }
+    public void setLocation(String location) { this.location = location; }
+
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+
+    public String getBookingNumber() { return bookingNumber; }
+    public void setBookingNumber(String bookingNumber) { this.bookingNumber = bookingNumber; }
+
+    public String getLicensePlate() { return licensePlate; }
+    public void setLicensePlate(String licensePlate) { this.licensePlate = licensePlate; }
+
+    public Long getAmountPaise() { return amountPaise; }
+    public void setAmountPaise(Long amountPaise) { this.amountPaise = amountPaise; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+}
@@ -0,0 +1,44 @@
+package com.parking.entity;
+
+import jakarta.persistence.AttributeConverter;
+
+/**
+ * Lifecycle of a booking. Stored as a one-byte code; JSON and exports
+ * keep using the name.
+ */
+public enum BookingStatus {
+    ACTIVE(1),
+    COMPLETED(2),
+    CANCELLED(3);
+
+    private final byte code;
+
+    BookingStatus(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    public static BookingStatus fromCode(byte code) {
+        for (BookingStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown booking status code " + code);
+    }
+
+    public static class Converter implements AttributeConverter<BookingStatus, Byte> {
+        @Override
+        public Byte convertToDatabaseColumn(BookingStatus status) {
+            return status != null ? status.code : null;
+        }
+
+        @Override
+        public BookingStatus convertToEntityAttribute(Byte code) {
+            return code != null ? fromCode(code) : null;
+        }
+    }
+}
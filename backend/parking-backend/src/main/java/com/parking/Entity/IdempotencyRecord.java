@@ -0,0 +1,76 @@
+package com.parking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A park, exit or checkout request sent with an Idempotency-Key: claimed
+ * while it runs, then holding its response until it expires. Kept on the
+ * default shard.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_expires", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+
+    // operation + ":" + the client's key
+    @Id
+    @Column(name = "id", length = 200)
+    private String id;
+
+    // Hash of the request, so a key reused for another request is caught
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(name = "status", nullable = false, length = 16)
+    private String status;
+
+    // Response as JSON, once completed
+    @Column(name = "response_body", length = 8000)
+    private String responseBody;
+
+    @Column(name = "claimed_at", nullable = false)
+    private LocalDateTime claimedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String id, String fingerprint, LocalDateTime expiresAt) {
+        this.id = id;
+        this.fingerprint = fingerprint;
+        this.status = IN_PROGRESS;
+        this.claimedAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFingerprint() { return fingerprint; }
+    public void setFingerprint(String fingerprint) { this.fingerprint = fingerprint; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(LocalDateTime claimedAt) { this.claimedAt = claimedAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
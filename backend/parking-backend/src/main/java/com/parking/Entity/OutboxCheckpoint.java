@@ -0,0 +1,64 @@
+package com.parking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Last outbox event id a consumer has processed, per shard. Kept on the
+ * default shard.
+ */
+@Entity
+@Table(name = "outbox_checkpoints")
+public class OutboxCheckpoint {
+
+    // consumer + "@" + shard
+    @Id
+    private String id;
+
+    @Column(name = "consumer", nullable = false)
+    private String consumer;
+
+    @Column(name = "shard", nullable = false, length = 64)
+    private String shard;
+
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastEventId;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public OutboxCheckpoint() {
+    }
+
+    public OutboxCheckpoint(String consumer, String shard, Long lastEventId) {
+        this.id = key(consumer, shard);
+        this.consumer = consumer;
+        this.shard = shard;
+        this.lastEventId = lastEventId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public static String key(String consumer, String shard) {
+        return consumer + "@" + shard;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getConsumer() { return consumer; }
+    public void setConsumer(String consumer) { this.consumer = consumer; }
+
+    public String getShard() { return shard; }
+    public void setShard(String shard) { this.shard = shard; }
+
+    public Long getLastEventId() { return lastEventId; }
+    public void setLastEventId(Long lastEventId) { this.lastEventId = lastEventId; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
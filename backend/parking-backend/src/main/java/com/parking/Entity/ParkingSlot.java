@@ -2,6 +2,11 @@ package com.parking.entity;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.Column;
@@ -9,12 +14,21 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "parking_slots")
+@Table(name = "parking_slots", indexes = {
+    @Index(name = "idx_slots_city_type_state", columnList = "city, slot_type, is_available, is_occupied, is_under_maintenance"),
+    @Index(name = "idx_slots_type_state", columnList = "slot_type, is_available, is_occupied"),
+    @Index(name = "idx_slots_state", columnList = "is_occupied, is_available")
+})
+// Cached by id and slot number; occupancy decisions re-read the row under
+// lock (ParkingService.lockedSlot) rather than trusting the cached flags
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "slots")
+@NaturalIdCache(region = "slot-numbers")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class ParkingSlot {
     
@@ -22,6 +36,7 @@ public class ParkingSlot {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @NaturalId
     @Column(name = "slot_number", nullable = false, unique = true)
     private Integer slotNumber;
     
@@ -32,13 +47,13 @@ public class ParkingSlot {
     private String slotType;
     
     @Column(name = "is_occupied", nullable = false)
-    private Boolean isOccupied;
+    private boolean isOccupied;
     
     @Column(name = "is_available", nullable = false)
-    private Boolean isAvailable;
+    private boolean isAvailable;
 
     @Column(name = "is_under_maintenance", nullable = false)
-    private Boolean isUnderMaintenance;
+    private boolean isUnderMaintenance;
     
     @Column(name = "maintenance_reason")
     private String maintenanceReason;
@@ -136,6 +151,15 @@ private String country;
     public boolean isBookable() {
         return isAvailable && !isOccupied && !isUnderMaintenance;
     }
+
+    // Location name without the per-slot " - Slot N" suffix added by the seeder
+    public String locationKey() {
+        if (locationName == null) {
+            return null;
+        }
+        int idx = locationName.lastIndexOf(" - Slot ");
+        return idx > 0 ? locationName.substring(0, idx) : locationName;
+    }
     
     // Getters and Setters
     public Long getId() { return id; }
@@ -150,16 +174,16 @@ private String country;
     public String getSlotType() { return slotType; }
     public void setSlotType(String slotType) { this.slotType = slotType; }
     
-    public Boolean getIsOccupied() { return isOccupied; }
-    public void setIsOccupied(Boolean isOccupied) { this.isOccupied = isOccupied; }
+    public boolean getIsOccupied() { return isOccupied; }
+    public void setIsOccupied(boolean isOccupied) { this.isOccupied = isOccupied; }
     
-    public Boolean getIsAvailable() { return isAvailable; }
-    public void setIsAvailable(Boolean isAvailable) { this.isAvailable = isAvailable; }
+    public boolean getIsAvailable() { return isAvailable; }
+    public void setIsAvailable(boolean isAvailable) { this.isAvailable = isAvailable; }
 
 
     //  Maintenance Getters/Setters
-    public Boolean getIsUnderMaintenance() { return isUnderMaintenance; }
-    public void setIsUnderMaintenance(Boolean isUnderMaintenance) { 
+    public boolean getIsUnderMaintenance() { return isUnderMaintenance; }
+    public void setIsUnderMaintenance(boolean isUnderMaintenance) { 
         this.isUnderMaintenance = isUnderMaintenance; 
     }
     
@@ -0,0 +1,42 @@
+package com.parking.entity;
+
+import jakarta.persistence.AttributeConverter;
+
+/**
+ * Payment state of a booking, stored as a one-byte code like BookingStatus
+ */
+public enum PaymentStatus {
+    PENDING(1),
+    PAID(2);
+
+    private final byte code;
+
+    PaymentStatus(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    public static PaymentStatus fromCode(byte code) {
+        for (PaymentStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown payment status code " + code);
+    }
+
+    public static class Converter implements AttributeConverter<PaymentStatus, Byte> {
+        @Override
+        public Byte convertToDatabaseColumn(PaymentStatus status) {
+            return status != null ? status.code : null;
+        }
+
+        @Override
+        public PaymentStatus convertToEntityAttribute(Byte code) {
+            return code != null ? fromCode(code) : null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.parking.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * A single pricing rule. Null dimensions act as wildcards, so a rule with only
+ * city and vehicleType set applies to every location, slot type, day and hour
+ * in that city. Rules are compiled into lookup tables by PricingEngine.
+ */
+@Entity
+@Table(name = "rate_rules")
+public class RateRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "city")
+    private String city;
+
+    // Location key, e.g. "Bandra West Parking" (see ParkingSlot.locationKey())
+    @Column(name = "location_name")
+    private String locationName;
+
+    @Column(name = "slot_type")
+    private String slotType; // SMALL, MEDIUM, LARGE
+
+    @Column(name = "vehicle_type")
+    private String vehicleType; // BIKE, CAR, SUV, TRUCK
+
+    // Bit 0 = Monday ... bit 6 = Sunday. Null or 0 means every day.
+    @Column(name = "days_mask")
+    private Integer daysMask;
+
+    // Inclusive start hour, exclusive end hour. Wraps past midnight when start > end.
+    @Column(name = "start_hour")
+    private Integer startHour;
+
+    @Column(name = "end_hour")
+    private Integer endHour;
+
+    @Column(name = "hourly_rate", nullable = false)
+    private Double hourlyRate;
+
+    @Column(name = "active", nullable = false)
+    private Boolean active;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public RateRule() {
+        this.active = true;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Number of non-wildcard dimensions below the scope (city/location)
+    public int specificity() {
+        int s = 0;
+        if (slotType != null) s++;
+        if (vehicleType != null) s++;
+        if (daysMask != null && daysMask != 0) s++;
+        if (startHour != null || endHour != null) s++;
+        return s;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getCity() { return city; }
+    public void setCity(String city) { this.city = city; }
+
+    public String getLocationName() { return locationName; }
+    public void setLocationName(String locationName) { this.locationName = locationName; }
+
+    public String getSlotType() { return slotType; }
+    public void setSlotType(String slotType) {
+        this.slotType = slotType != null ? slotType.toUpperCase() : null;
+    }
+
+    public String getVehicleType() { return vehicleType; }
+    public void setVehicleType(String vehicleType) {
+        this.vehicleType = vehicleType != null ? vehicleType.toUpperCase() : null;
+    }
+
+    public Integer getDaysMask() { return daysMask; }
+    public void setDaysMask(Integer daysMask) { this.daysMask = daysMask; }
+
+    public Integer getStartHour() { return startHour; }
+    public void setStartHour(Integer startHour) { this.startHour = startHour; }
+
+    public Integer getEndHour() { return endHour; }
+    public void setEndHour(Integer endHour) { this.endHour = endHour; }
+
+    public Double getHourlyRate() { return hourlyRate; }
+    public void setHourlyRate(Double hourlyRate) { this.hourlyRate = hourlyRate; }
+
+    public Boolean getActive() { return active; }
+    public void setActive(Boolean active) { this.active = active; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
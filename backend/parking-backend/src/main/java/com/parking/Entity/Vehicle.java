@@ -2,6 +2,11 @@ package com.parking.entity;
 
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.Column;
@@ -16,6 +21,8 @@ import jakarta.persistence.Table;
 
 @Entity
 @Table(name = "vehicles")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vehicles")
+@NaturalIdCache(region = "license-plates")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Vehicle {
     
@@ -23,6 +30,7 @@ public class Vehicle {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @NaturalId
     @Column(name = "license_plate", nullable = false, unique = true)
     private String licensePlate;
     
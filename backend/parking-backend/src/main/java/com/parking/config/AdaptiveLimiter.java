@@ -0,0 +1,134 @@
+package com.parking.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows the latency of the work it guards
+ * (gradient style, as in TCP Vegas).
+ *
+ * Latencies are averaged over short windows. The lowest window average
+ * seen recently is taken as the no-load latency; when a window is slower
+ * than that times the tolerance, the limit shrinks in proportion, and
+ * while latency holds it grows by about sqrt(limit) per window. A window
+ * with failed requests (5xx, timeouts) cuts the limit by a fixed factor.
+ * The no-load latency is re-learned every baseline-reset, so the limit can
+ * recover when the database simply got slower.
+ *
+ * Requests over the limit are not queued: the caller rejects them, so
+ * excess load turns into fast 429s instead of a pile of waiting threads.
+ */
+public class AdaptiveLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+    private final long baselineResetNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Current window, guarded by this
+    private long windowStart = System.nanoTime();
+    private int samples;
+    private long rttSum;
+    private int peakInFlight;
+    private boolean dropped;
+
+    private long baselineNanos = Long.MAX_VALUE;
+    private long baselineSince = System.nanoTime();
+    private volatile long lastAverageNanos;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                           long windowMs, long baselineResetMs) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+        this.tolerance = Math.max(1.0, tolerance);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.baselineResetNanos = TimeUnit.MILLISECONDS.toNanos(baselineResetMs);
+    }
+
+    /**
+     * Take a place if fewer than limit - headroom requests are running.
+     * A successful call must be followed by onComplete.
+     */
+    public boolean tryAcquire(int headroom) {
+        int allowed = Math.max(1, getLimit() - headroom);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void onComplete(long rttNanos, boolean failed) {
+        int running = inFlight.getAndDecrement();
+        synchronized (this) {
+            samples++;
+            rttSum += rttNanos;
+            peakInFlight = Math.max(peakInFlight, running);
+            dropped |= failed;
+
+            long now = System.nanoTime();
+            if (now - windowStart < windowNanos || (samples < MIN_WINDOW_SAMPLES && !dropped)) {
+                return;
+            }
+            long average = rttSum / samples;
+            lastAverageNanos = average;
+            if (now - baselineSince > baselineResetNanos) {
+                baselineNanos = average;
+                baselineSince = now;
+            } else {
+                baselineNanos = Math.min(baselineNanos, average);
+            }
+
+            double current = limit;
+            double target;
+            if (dropped) {
+                target = current * BACKOFF;
+            } else {
+                double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * baselineNanos / (double) average));
+                target = current * gradient;
+                // Only probe upwards when the limit was actually reached
+                if (gradient >= 1.0 && peakInFlight >= current / 2) {
+                    target += Math.sqrt(current);
+                }
+            }
+            double next = dropped ? target : current * (1 - SMOOTHING) + target * SMOOTHING;
+            limit = Math.max(minLimit, Math.min(maxLimit, next));
+
+            windowStart = now;
+            samples = 0;
+            rttSum = 0;
+            peakInFlight = 0;
+            dropped = false;
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized long getBaselineMs() {
+        return baselineNanos == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMillis(baselineNanos);
+    }
+
+    public long getLastAverageMs() {
+        return TimeUnit.NANOSECONDS.toMillis(lastAverageNanos);
+    }
+}
@@ -0,0 +1,25 @@
+package com.parking.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Gate admission runs before any other interceptor, so a rejected request
+ * never takes a workload slot or a routing decision.
+ */
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final GateAdmission gateAdmission;
+
+    public AdmissionConfig(GateAdmission gateAdmission) {
+        this.gateAdmission = gateAdmission;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new GateAdmissionInterceptor(gateAdmission)).order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
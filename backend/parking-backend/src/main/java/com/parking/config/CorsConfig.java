@@ -32,7 +32,7 @@ public class CorsConfig {
         
         // Expose headers
         config.setExposedHeaders(Arrays.asList(
-            "Authorization", "Content-Type", "X-Requested-With"
+            "Authorization", "Content-Type", "X-Requested-With", "Retry-After"
         ));
         
         // Max age for preflight requests
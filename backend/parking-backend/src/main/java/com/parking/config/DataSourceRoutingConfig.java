@@ -0,0 +1,140 @@
+package com.parking.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Primary pool from spring.datasource.*, one pool per URL in
+ * parking.replica.urls, and one pool per city shard listed in
+ * parking.sharding.shards. Without replicas or shards the primary pool is
+ * used directly. Either way connections are handed out per workload class
+ * (WorkloadDataSource).
+ */
+@Configuration
+public class DataSourceRoutingConfig implements WebMvcConfigurer {
+
+    private final ReplicaRoutingDataSource router;
+    private final ShardRoutingDataSource shardRouter;
+    private final WorkloadGovernor workloads;
+
+    public DataSourceRoutingConfig(
+            DataSourceProperties properties,
+            WorkloadGovernor workloads,
+            Environment environment,
+            @Value("${parking.replica.urls:}") List<String> replicaUrls,
+            @Value("${parking.replica.username:}") String replicaUsername,
+            @Value("${parking.replica.password:}") String replicaPassword,
+            @Value("${parking.replica.pool-size:10}") int replicaPoolSize,
+            @Value("${parking.replica.max-lag-ms:5000}") long maxLagMs,
+            @Value("${parking.replica.read-your-writes-ms:60000}") long readYourWritesMs,
+            @Value("${parking.sharding.shards:}") List<String> shardNames) {
+
+        this.workloads = workloads;
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url.trim());
+            replica.setDriverClassName(primary.getDriverClassName());
+            replica.setUsername(replicaUsername.isEmpty() ? primary.getUsername() : replicaUsername);
+            replica.setPassword(replicaUsername.isEmpty() ? primary.getPassword() : replicaPassword);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setMinimumIdle(Math.min(2, replicaPoolSize));
+            replica.setConnectionTimeout(primary.getConnectionTimeout());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+
+        this.router = new ReplicaRoutingDataSource(primary, replicas, maxLagMs, readYourWritesMs);
+        this.router.afterPropertiesSet();
+        if (!replicas.isEmpty()) {
+            System.out.println("✅ Routing reads to " + replicas.size() + " replica pool(s), max lag " + maxLagMs + " ms");
+        }
+
+        // parking.sharding.shard.<name>.url / .cities / .username / .password / .pool-size
+        Map<String, HikariDataSource> shardPools = new LinkedHashMap<>();
+        Map<String, List<String>> shardCities = new HashMap<>();
+        for (String name : shardNames) {
+            name = name.trim();
+            if (name.isEmpty() || ShardContext.DEFAULT.equals(name)) {
+                continue;
+            }
+            String prefix = "parking.sharding.shard." + name + ".";
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + name);
+            pool.setJdbcUrl(environment.getRequiredProperty(prefix + "url"));
+            pool.setDriverClassName(primary.getDriverClassName());
+            String username = environment.getProperty(prefix + "username");
+            pool.setUsername(username != null ? username : primary.getUsername());
+            pool.setPassword(username != null ? environment.getProperty(prefix + "password", "") : primary.getPassword());
+            pool.setMaximumPoolSize(environment.getProperty(prefix + "pool-size", Integer.class, primary.getMaximumPoolSize()));
+            pool.setMinimumIdle(Math.min(2, pool.getMaximumPoolSize()));
+            pool.setConnectionTimeout(primary.getConnectionTimeout());
+            shardPools.put(name, pool);
+
+            List<String> cities = new ArrayList<>();
+            for (String city : environment.getProperty(prefix + "cities", "").split(",")) {
+                if (!city.isBlank()) {
+                    cities.add(city.trim());
+                }
+            }
+            shardCities.put(name, cities);
+            System.out.println("✅ Shard " + name + " owns " + cities);
+        }
+
+        this.shardRouter = new ShardRoutingDataSource(router, shardPools, shardCities);
+        this.shardRouter.afterPropertiesSet();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource() {
+        return router;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardRoutingDataSource shardRoutingDataSource() {
+        return shardRouter;
+    }
+
+    @Bean(destroyMethod = "")
+    @Primary
+    public DataSource dataSource() {
+        if (!router.hasReplicas() && !shardRouter.isSharded()) {
+            return new WorkloadDataSource(router.getPrimary(), workloads);
+        }
+        return new WorkloadDataSource(new LazyConnectionDataSourceProxy(shardRouter), workloads);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new WorkloadInterceptor(workloads));
+        registry.addInterceptor(new ReadRoutingInterceptor(router));
+    }
+}
@@ -0,0 +1,44 @@
+package com.parking.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Second-level cache for slots, vehicles and users (the entities marked
+ * with @Cache) and for their natural ids. Regions get their size and time
+ * to live from parking.cache.<region>.max-entries / ttl-seconds, falling
+ * back to parking.cache.max-entries / ttl-seconds.
+ */
+@Configuration
+public class EntityCacheConfig {
+
+    @Value("${parking.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${parking.cache.max-entries:10000}")
+    private int defaultMaxEntries;
+
+    @Value("${parking.cache.ttl-seconds:300}")
+    private long defaultTtlSeconds;
+
+    @Bean
+    public EntityCacheRegionFactory entityCacheRegionFactory(Environment environment) {
+        return new EntityCacheRegionFactory(region -> new EntityCacheRegionFactory.Limits(
+            environment.getProperty("parking.cache." + region + ".max-entries", Integer.class, defaultMaxEntries),
+            environment.getProperty("parking.cache." + region + ".ttl-seconds", Long.class, defaultTtlSeconds) * 1000));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheProperties(EntityCacheRegionFactory regionFactory) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            if (enabled) {
+                properties.put(AvailableSettings.CACHE_REGION_FACTORY, regionFactory);
+            }
+        };
+    }
+}
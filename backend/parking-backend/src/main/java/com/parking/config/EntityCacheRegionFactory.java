@@ -0,0 +1,234 @@
+package com.parking.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.cfg.spi.EntityDataCachingConfig;
+import org.hibernate.cache.cfg.spi.NaturalIdDataCachingConfig;
+import org.hibernate.cache.spi.DomainDataRegion;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.cache.spi.support.DomainDataRegionTemplate;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.EntityReadWriteAccess;
+import org.hibernate.cache.spi.support.NaturalIdReadWriteAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Hibernate second-level cache kept in this JVM: every region is an LRU map
+ * bounded by entry count, whose entries expire after a fixed time to live.
+ * Limits are looked up per region name when Hibernate builds the region.
+ *
+ * Hibernate's read-write strategies sit on top, so a row changed through
+ * the session is soft-locked in the cache until the change commits. Writes
+ * that bypass the session, or come from another node, are only seen once
+ * the entry is evicted or expires (EntityCache.evict*).
+ *
+ * Hits and misses are counted where Hibernate reads an entity by id or
+ * resolves a natural id, not on the storage, which read-write access also
+ * reads before each put.
+ */
+public class EntityCacheRegionFactory extends RegionFactoryTemplate {
+
+    public record Limits(int maxEntries, long ttlMs) {}
+
+    private final Function<String, Limits> limits;
+    private final Map<String, Store> stores = new ConcurrentHashMap<>();
+
+    // Set while a lookup by natural id runs on this thread, until its first cache read
+    private final ThreadLocal<Boolean> lookingUp = ThreadLocal.withInitial(() -> false);
+
+    public EntityCacheRegionFactory(Function<String, Limits> limits) {
+        this.limits = limits;
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        stores.values().forEach(Store::release);
+        stores.clear();
+    }
+
+    @Override
+    public DomainDataRegion buildDomainDataRegion(DomainDataRegionConfig config, DomainDataRegionBuildingContext context) {
+        verifyStarted();
+        Store store = store(config.getRegionName());
+        return new DomainDataRegionTemplate(config, this, store, getImplicitCacheKeysFactory(), context) {
+            @Override
+            protected EntityDataAccess generateReadWriteEntityAccess(EntityDataCachingConfig entityConfig) {
+                return new EntityReadWriteAccess(this, getEffectiveKeysFactory(), store, entityConfig) {
+                    @Override
+                    public Object get(SharedSessionContractImplementor session, Object key) {
+                        return store.counted(super.get(session, key));
+                    }
+                };
+            }
+
+            @Override
+            protected NaturalIdDataAccess generateReadWriteNaturalIdAccess(NaturalIdDataCachingConfig naturalIdConfig) {
+                return new NaturalIdReadWriteAccess(this, getEffectiveKeysFactory(), store, naturalIdConfig) {
+                    @Override
+                    public Object get(SharedSessionContractImplementor session, Object key) {
+                        Object value = super.get(session, key);
+                        if (lookingUp.get()) {
+                            lookingUp.set(false);
+                            store.counted(value);
+                        }
+                        return value;
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return store(regionName);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName, SessionFactoryImplementor sessionFactory) {
+        return store(regionName);
+    }
+
+    /**
+     * Run a lookup by natural id, counting its cache read as a hit or miss.
+     * Natural id regions are also read whenever Hibernate loads an entity
+     * some other way (before it puts the resolution), which is not a lookup.
+     */
+    public <T> T naturalIdLookup(Supplier<T> lookup) {
+        lookingUp.set(true);
+        try {
+            return lookup.get();
+        } finally {
+            lookingUp.set(false);
+        }
+    }
+
+    private Store store(String region) {
+        return stores.computeIfAbsent(region, r -> new Store(r, limits.apply(r)));
+    }
+
+    /**
+     * Regions built so far, by name
+     */
+    public Map<String, Store> stores() {
+        return stores;
+    }
+
+    /**
+     * One region: an access-ordered map, trimmed to maxEntries on insert
+     */
+    public static final class Store implements DomainDataStorageAccess {
+
+        private record Entry(Object value, long expiresAt) {}
+
+        private final String name;
+        private final Limits limits;
+        private final LinkedHashMap<Object, Entry> entries;
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evicted = new AtomicLong();
+        private final AtomicLong expired = new AtomicLong();
+        private final AtomicLong invalidated = new AtomicLong();
+
+        Store(String name, Limits limits) {
+            this.name = name;
+            this.limits = limits;
+            this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                    if (size() > Store.this.limits.maxEntries()) {
+                        evicted.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        Object counted(Object value) {
+            (value != null ? hits : misses).incrementAndGet();
+            return value;
+        }
+
+        @Override
+        public synchronized Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(key);
+                expired.incrementAndGet();
+                return null;
+            }
+            return entry.value();
+        }
+
+        @Override
+        public synchronized void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            entries.put(key, new Entry(value, System.currentTimeMillis() + limits.ttlMs()));
+        }
+
+        @Override
+        public synchronized boolean contains(Object key) {
+            Entry entry = entries.get(key);
+            return entry != null && entry.expiresAt() >= System.currentTimeMillis();
+        }
+
+        @Override
+        public synchronized void evictData() {
+            invalidated.addAndGet(entries.size());
+            entries.clear();
+        }
+
+        @Override
+        public synchronized void evictData(Object key) {
+            if (entries.remove(key) != null) {
+                invalidated.incrementAndGet();
+            }
+        }
+
+        @Override
+        public synchronized void release() {
+            entries.clear();
+        }
+
+        public Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            long h = hits.get();
+            long m = misses.get();
+            synchronized (this) {
+                stats.put("entries", entries.size());
+            }
+            stats.put("maxEntries", limits.maxEntries());
+            stats.put("ttlSeconds", limits.ttlMs() / 1000);
+            stats.put("hits", h);
+            stats.put("misses", m);
+            stats.put("hitRatio", h + m > 0 ? Math.round(1000.0 * h / (h + m)) / 1000.0 : 0.0);
+            stats.put("evicted", evicted.get());
+            stats.put("expired", expired.get());
+            stats.put("invalidated", invalidated.get());
+            return stats;
+        }
+
+        public String name() {
+            return name;
+        }
+    }
+}
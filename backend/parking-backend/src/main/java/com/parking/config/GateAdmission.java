@@ -0,0 +1,225 @@
+package com.parking.config;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.parking.config.GateTraffic.Direction;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Admission control for gate traffic (park, exit, checkout).
+ *
+ * Two checks, both answered at once so a surge gets fast 429s instead of
+ * threads waiting on slot row locks and the pool's connection timeout:
+ *  - a token bucket per gate device keeps one misbehaving or retrying gate
+ *    from using everyone's share. The device is the X-Gate-Id header only
+ *    when it names a gate listed in parking.admission.gates, otherwise the
+ *    client address, so a client cannot get a fresh bucket by sending a new
+ *    id each time. At most max-tracked-gates buckets are kept; past that,
+ *    new devices share one overflow bucket until idle ones are forgotten;
+ *  - an AdaptiveLimiter caps how many gate requests run together, moving
+ *    the cap with the latency they see.
+ * Entries may only use the limit minus exit-share of it; exits may use
+ * all of it, because an exit frees a slot for the next entry.
+ */
+@Component
+public class GateAdmission {
+
+    @Value("${parking.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${parking.admission.initial-limit:16}")
+    private int initialLimit;
+
+    @Value("${parking.admission.min-limit:4}")
+    private int minLimit;
+
+    @Value("${parking.admission.max-limit:64}")
+    private int maxLimit;
+
+    @Value("${parking.admission.latency-tolerance:1.5}")
+    private double latencyTolerance;
+
+    @Value("${parking.admission.window-ms:250}")
+    private long windowMs;
+
+    @Value("${parking.admission.baseline-reset-ms:30000}")
+    private long baselineResetMs;
+
+    @Value("${parking.admission.exit-share:0.25}")
+    private double exitShare;
+
+    @Value("${parking.admission.gate-rate-per-second:5}")
+    private double gateRate;
+
+    @Value("${parking.admission.gate-burst:20}")
+    private int gateBurst;
+
+    @Value("${parking.admission.gate-idle-minutes:10}")
+    private long gateIdleMinutes;
+
+    @Value("${parking.admission.gates:}")
+    private List<String> registeredGates;
+
+    @Value("${parking.admission.max-tracked-gates:10000}")
+    private int maxTrackedGates;
+
+    private static final String OVERFLOW = "overflow";
+
+    private final Set<String> gates = new HashSet<>();
+
+    private AdaptiveLimiter limiter;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final Map<Direction, Counters> counters = new EnumMap<>(Direction.class);
+
+    /**
+     * Outcome of an admission check; retryAfterMs is set when rejected
+     */
+    public record Verdict(boolean admitted, long retryAfterMs, String reason) {
+        static final Verdict ADMITTED = new Verdict(true, 0, null);
+    }
+
+    static final class Counters {
+        final AtomicLong admitted = new AtomicLong();
+        final AtomicLong rejectedByLimit = new AtomicLong();
+        final AtomicLong rejectedByRate = new AtomicLong();
+    }
+
+    /**
+     * Refills at gate-rate tokens per second up to gate-burst
+     */
+    static final class Bucket {
+        private final double rate;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+        volatile long lastUsed;
+
+        Bucket(double rate, double capacity, long now) {
+            this.rate = rate;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.refilledAt = now;
+            this.lastUsed = now;
+        }
+
+        // 0 when a token was taken, otherwise milliseconds until there is one
+        synchronized long take(long now) {
+            lastUsed = now;
+            tokens = Math.min(capacity, tokens + (now - refilledAt) / 1e9 * rate);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / rate * 1000));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        limiter = new AdaptiveLimiter(initialLimit, minLimit, maxLimit, latencyTolerance, windowMs, baselineResetMs);
+        for (Direction direction : Direction.values()) {
+            counters.put(direction, new Counters());
+        }
+        for (String gate : registeredGates) {
+            if (!gate.isBlank()) {
+                gates.add(gate.trim());
+            }
+        }
+    }
+
+    /**
+     * The bucket key of a request: its gate id if that is a registered
+     * gate, otherwise its client address
+     */
+    public String gateKey(String gateId, String remoteAddr) {
+        if (gateId != null && gates.contains(gateId.trim())) {
+            return "gate:" + gateId.trim();
+        }
+        return "addr:" + remoteAddr;
+    }
+
+    public Verdict admit(String gate, Direction direction) {
+        if (!enabled) {
+            return Verdict.ADMITTED;
+        }
+        Counters c = counters.get(direction);
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(gate);
+        if (bucket == null) {
+            String key = buckets.size() < maxTrackedGates ? gate : OVERFLOW;
+            bucket = buckets.computeIfAbsent(key, g -> new Bucket(gateRate, gateBurst, now));
+        }
+        long wait = bucket.take(now);
+        if (wait > 0) {
+            c.rejectedByRate.incrementAndGet();
+            return new Verdict(false, wait, "Too many requests from this gate");
+        }
+        int headroom = direction == Direction.EXIT ? 0 : (int) Math.ceil(limiter.getLimit() * exitShare);
+        if (!limiter.tryAcquire(headroom)) {
+            c.rejectedByLimit.incrementAndGet();
+            // Roughly when a running request will have finished
+            long retry = Math.max(100, 2 * Math.max(limiter.getLastAverageMs(), limiter.getBaselineMs()));
+            return new Verdict(false, retry, "Parking service is busy");
+        }
+        c.admitted.incrementAndGet();
+        return Verdict.ADMITTED;
+    }
+
+    /**
+     * Report how an admitted request went; failed means a server error
+     */
+    public void complete(long rttNanos, boolean failed) {
+        if (enabled) {
+            limiter.onComplete(rttNanos, failed);
+        }
+    }
+
+    // Forget gates that have been quiet long enough for their bucket to be full again
+    @Scheduled(fixedDelayString = "${parking.admission.gate-cleanup-ms:60000}")
+    public void forgetIdleGates() {
+        long cutoff = System.nanoTime() - TimeUnit.MINUTES.toNanos(gateIdleMinutes);
+        for (Iterator<Bucket> it = buckets.values().iterator(); it.hasNext(); ) {
+            if (it.next().lastUsed < cutoff) {
+                it.remove();
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("success", true);
+        stats.put("enabled", enabled);
+        stats.put("limit", limiter.getLimit());
+        stats.put("entryLimit", Math.max(1, limiter.getLimit() - (int) Math.ceil(limiter.getLimit() * exitShare)));
+        stats.put("inFlight", limiter.getInFlight());
+        stats.put("baselineLatencyMs", limiter.getBaselineMs());
+        stats.put("recentLatencyMs", limiter.getLastAverageMs());
+        stats.put("trackedGates", buckets.size());
+        stats.put("registeredGates", gates.size());
+        stats.put("overflowing", buckets.containsKey(OVERFLOW));
+        for (Map.Entry<Direction, Counters> e : counters.entrySet()) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("admitted", e.getValue().admitted.get());
+            m.put("rejectedByLimit", e.getValue().rejectedByLimit.get());
+            m.put("rejectedByRate", e.getValue().rejectedByRate.get());
+            stats.put(e.getKey().name().toLowerCase(), m);
+        }
+        return stats;
+    }
+}
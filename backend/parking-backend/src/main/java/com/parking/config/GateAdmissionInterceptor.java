@@ -0,0 +1,58 @@
+package com.parking.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Runs @GateTraffic requests through GateAdmission and reports their
+ * latency back to it. A rejected request gets 429 with Retry-After (whole
+ * seconds) and retryAfterMs in the body for clients that can do better.
+ */
+public class GateAdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String STARTED = GateAdmissionInterceptor.class.getName() + ".started";
+
+    private final GateAdmission admission;
+
+    public GateAdmissionInterceptor(GateAdmission admission) {
+        this.admission = admission;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        GateTraffic traffic = ((HandlerMethod) handler).getMethodAnnotation(GateTraffic.class);
+        if (traffic == null) {
+            return true;
+        }
+        String gate = admission.gateKey(request.getHeader("X-Gate-Id"), request.getRemoteAddr());
+        GateAdmission.Verdict verdict = admission.admit(gate, traffic.value());
+        if (!verdict.admitted()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(Math.max(1, (verdict.retryAfterMs() + 999) / 1000)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"success\":false,\"message\":\"" + verdict.reason() +
+                ", try again shortly\",\"retryAfterMs\":" + verdict.retryAfterMs() + "}");
+            return false;
+        }
+        request.setAttribute(STARTED, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object started = request.getAttribute(STARTED);
+        if (started != null) {
+            request.removeAttribute(STARTED);
+            admission.complete(System.nanoTime() - (Long) started, ex != null || response.getStatus() >= 500);
+        }
+    }
+}
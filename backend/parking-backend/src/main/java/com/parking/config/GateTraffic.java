@@ -0,0 +1,23 @@
+package com.parking.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an endpoint a gate device calls to let a vehicle in or out; such
+ * requests go through GateAdmission before anything else.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface GateTraffic {
+
+    Direction value();
+
+    enum Direction {
+        ENTRY,
+        // Exits free a slot, so they get headroom that entries cannot use
+        EXIT
+    }
+}
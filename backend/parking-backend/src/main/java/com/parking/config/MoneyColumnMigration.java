@@ -0,0 +1,80 @@
+package com.parking.config;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * One-off migration of booking money columns from DOUBLE rupees
+ * (hourly_rate, total_amount) to BIGINT paise (hourly_rate_paise,
+ * total_amount_paise). Runs after Hibernate has added the new columns and
+ * before the web server accepts requests. It is a no-op once the legacy
+ * columns are gone.
+ */
+@Component
+@Lazy(false)
+@DependsOn("entityManagerFactory")
+public class MoneyColumnMigration {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() throws Exception {
+        Set<String> columns = bookingColumns();
+        if (!columns.contains("hourly_rate") && !columns.contains("total_amount")) {
+            return;
+        }
+
+        System.out.println("=== MONEY COLUMN MIGRATION ===");
+
+        if (columns.contains("hourly_rate")) {
+            int rows = jdbcTemplate.update(
+                "UPDATE bookings SET hourly_rate_paise = ROUND(hourly_rate * 100) " +
+                "WHERE hourly_rate IS NOT NULL AND (hourly_rate_paise IS NULL OR hourly_rate_paise = 0)");
+            jdbcTemplate.execute("ALTER TABLE bookings DROP COLUMN hourly_rate");
+            System.out.println("Migrated hourly_rate for " + rows + " bookings");
+        }
+
+        if (columns.contains("total_amount")) {
+            int rows = jdbcTemplate.update(
+                "UPDATE bookings SET total_amount_paise = ROUND(total_amount * 100) " +
+                "WHERE total_amount IS NOT NULL AND total_amount_paise IS NULL");
+            jdbcTemplate.execute("ALTER TABLE bookings DROP COLUMN total_amount");
+            System.out.println("Migrated total_amount for " + rows + " bookings");
+        }
+
+        System.out.println("✅ Booking amounts now stored in paise");
+    }
+
+    private Set<String> bookingColumns() throws Exception {
+        Set<String> columns = new HashSet<>();
+        try (Connection conn = dataSource.getConnection()) {
+            DatabaseMetaData meta = conn.getMetaData();
+            for (String table : new String[] {"bookings", "BOOKINGS"}) {
+                try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, table, null)) {
+                    while (rs.next()) {
+                        columns.add(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+        return columns;
+    }
+}
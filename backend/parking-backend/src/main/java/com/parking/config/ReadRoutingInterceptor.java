@@ -0,0 +1,93 @@
+package com.parking.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Tells ReplicaRoutingDataSource what the current request is allowed to
+ * read from, and records successful write requests for read-your-writes.
+ *
+ * A request is identified by the userId parameter, X-User-Id header or
+ * /user/{id}/ path segment, and by its HTTP session if it has one, so a
+ * user's follow-up reads stay on the primary until a replica has caught up.
+ * Requests with neither are not pinned here: the client address is shared
+ * by everyone behind the same proxy or NAT, and keying on it would hold all
+ * of them on the primary after any one of them writes. Park, exit and
+ * checkout carry the user only in the body or the booking, so ParkingService
+ * records those owners itself when the change commits.
+ */
+public class ReadRoutingInterceptor implements HandlerInterceptor {
+
+    private static final Pattern USER_PATH = Pattern.compile("/user/(\\d+)(/|$)");
+
+    private final ReplicaRoutingDataSource router;
+
+    public ReadRoutingInterceptor(ReplicaRoutingDataSource router) {
+        this.router = router;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        boolean marked = false;
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod method = (HandlerMethod) handler;
+            marked = method.hasMethodAnnotation(ReplicaRead.class)
+                || method.getBeanType().isAnnotationPresent(ReplicaRead.class);
+        }
+        ReplicaRoutingDataSource.Route route;
+        if (marked) {
+            route = ReplicaRoutingDataSource.Route.REPLICA_PREFERRED;
+        } else if ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())) {
+            route = ReplicaRoutingDataSource.Route.READ_ONLY_TX;
+        } else {
+            route = ReplicaRoutingDataSource.Route.PRIMARY;
+        }
+        ReplicaRoutingDataSource.enter(route, owners(request));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        try {
+            String method = request.getMethod();
+            boolean write = !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+            if (write && ex == null && response.getStatus() < 400) {
+                router.recordWrite(owners(request));
+            }
+        } finally {
+            ReplicaRoutingDataSource.exit();
+        }
+    }
+
+    private static List<String> owners(HttpServletRequest request) {
+        List<String> owners = new ArrayList<>(2);
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            owners.add("session:" + session.getId());
+        }
+        String userId = request.getParameter("userId");
+        if (userId == null) {
+            userId = request.getHeader("X-User-Id");
+        }
+        if (userId == null) {
+            Matcher m = USER_PATH.matcher(request.getRequestURI());
+            if (m.find()) {
+                userId = m.group(1);
+            }
+        }
+        if (userId != null && !userId.isBlank()) {
+            owners.add("user:" + userId.trim());
+        }
+        return owners;
+    }
+}
@@ -0,0 +1,16 @@
+package com.parking.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller (or single endpoint) as a pure read: its queries may be
+ * served by a replica, within the staleness bound, even outside a
+ * read-only transaction. See ReplicaRoutingDataSource.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
@@ -0,0 +1,328 @@
+package com.parking.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sends reads to replica pools and everything else to the primary.
+ *
+ * A connection goes to a replica when either
+ *  - it is for a read-only transaction, outside a write request
+ *    (POST/PUT/DELETE) that is not marked @ReplicaRead, or
+ *  - the request is marked @ReplicaRead and no read-write transaction is
+ *    active.
+ *
+ * A replica is only used while it is fresh: the primary writes the current
+ * time into replica_heartbeat every parking.replica.heartbeat-ms, and a
+ * replica whose copy of that row is older than parking.replica.max-lag-ms
+ * (or that cannot be read) is skipped. After a client's write request, its
+ * reads stay on the primary until a replica has replicated a heartbeat
+ * written after that request (read-your-writes). Writes whose owner is only
+ * known from the request body (a park's userId) are recorded by the service
+ * that commits them, through recordUserWriteAfterCommit.
+ *
+ * Wrapped in a LazyConnectionDataSourceProxy, so the route is chosen when
+ * the first statement runs, after the transaction's read-only flag is set.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY_KEY = "primary";
+
+    enum Route {
+        // Unmarked write request: everything on the primary
+        PRIMARY,
+        // Read request or background thread: read-only transactions may use a replica
+        READ_ONLY_TX,
+        // @ReplicaRead endpoint: any read outside a read-write transaction may use a replica
+        REPLICA_PREFERRED
+    }
+
+    private static final class Context {
+        final Route route;
+        final List<String> owners;
+
+        Context(Route route, List<String> owners) {
+            this.route = route;
+            this.owners = owners;
+        }
+    }
+
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<>();
+
+    /**
+     * One replica pool and what the heartbeat last saw on it
+     */
+    static final class Replica {
+        final String name;
+        final HikariDataSource pool;
+        volatile boolean healthy;
+        volatile long visibleBeat;
+        volatile long lagMs = -1;
+        volatile String lastError;
+        final AtomicLong routed = new AtomicLong();
+
+        Replica(String name, HikariDataSource pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+    }
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMs;
+    private final long readYourWritesMs;
+
+    private final AtomicLong routedPrimary = new AtomicLong();
+    private final AtomicLong staleFallbacks = new AtomicLong();
+    private final AtomicLong pinnedFallbacks = new AtomicLong();
+    private final AtomicInteger next = new AtomicInteger();
+    // owner -> time of its last successful write request
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private volatile boolean heartbeatTableReady;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools,
+                                    long maxLagMs, long readYourWritesMs) {
+        this.primary = primary;
+        this.maxLagMs = maxLagMs;
+        this.readYourWritesMs = readYourWritesMs;
+
+        List<Replica> list = new ArrayList<>();
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY_KEY, primary);
+        for (HikariDataSource pool : replicaPools) {
+            Replica replica = new Replica(pool.getPoolName(), pool);
+            list.add(replica);
+            targets.put(replica.name, pool);
+        }
+        this.replicas = Collections.unmodifiableList(list);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    static void enter(Route route, List<String> owners) {
+        CONTEXT.set(new Context(route, owners));
+    }
+
+    static void exit() {
+        CONTEXT.remove();
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    void recordWrite(List<String> owners) {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (String owner : owners) {
+            lastWrites.put(owner, now);
+        }
+    }
+
+    /**
+     * Pin the user's reads to the primary once the current transaction
+     * commits (at once when there is none)
+     */
+    public void recordUserWriteAfterCommit(Long userId) {
+        if (userId == null || replicas.isEmpty()) {
+            return;
+        }
+        List<String> owners = List.of("user:" + userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordWrite(owners);
+                }
+            });
+        } else {
+            recordWrite(owners);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !wantsReplica()) {
+            routedPrimary.incrementAndGet();
+            return PRIMARY_KEY;
+        }
+
+        Context context = CONTEXT.get();
+        long pinnedUntilBeat = 0;
+        if (context != null) {
+            for (String owner : context.owners) {
+                Long written = lastWrites.get(owner);
+                if (written != null && written > pinnedUntilBeat) {
+                    pinnedUntilBeat = written;
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        boolean anyFresh = false;
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.healthy || now - replica.visibleBeat > maxLagMs) {
+                continue;
+            }
+            anyFresh = true;
+            if (replica.visibleBeat >= pinnedUntilBeat) {
+                replica.routed.incrementAndGet();
+                return replica.name;
+            }
+        }
+
+        if (anyFresh) {
+            pinnedFallbacks.incrementAndGet();
+        } else {
+            staleFallbacks.incrementAndGet();
+        }
+        routedPrimary.incrementAndGet();
+        return PRIMARY_KEY;
+    }
+
+    private static boolean wantsReplica() {
+        Context context = CONTEXT.get();
+        Route route = context != null ? context.route : Route.READ_ONLY_TX;
+        boolean readOnlyTx = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        switch (route) {
+            case REPLICA_PREFERRED:
+                return readOnlyTx || !TransactionSynchronizationManager.isActualTransactionActive();
+            case READ_ONLY_TX:
+                return readOnlyTx;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Write a heartbeat on the primary and read it back from every replica
+     */
+    @Scheduled(fixedDelayString = "${parking.replica.heartbeat-ms:1000}")
+    public void heartbeat() {
+        if (replicas.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (Connection conn = primary.getConnection()) {
+            conn.setAutoCommit(true);
+            if (!heartbeatTableReady) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+                }
+                heartbeatTableReady = true;
+            }
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1")) {
+                ps.setLong(1, now);
+                if (ps.executeUpdate() == 0) {
+                    try (PreparedStatement insert = conn.prepareStatement(
+                            "INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)")) {
+                        insert.setLong(1, now);
+                        insert.executeUpdate();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Replica heartbeat write failed: " + e.getMessage());
+            return;
+        }
+
+        for (Replica replica : replicas) {
+            try (Connection conn = replica.pool.getConnection();
+                 Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT beat_at FROM replica_heartbeat WHERE id = 1")) {
+                if (rs.next()) {
+                    replica.visibleBeat = rs.getLong(1);
+                    replica.lagMs = Math.max(0, System.currentTimeMillis() - replica.visibleBeat);
+                    replica.healthy = true;
+                    replica.lastError = null;
+                } else {
+                    replica.healthy = false;
+                    replica.lastError = "no heartbeat row";
+                }
+            } catch (Exception e) {
+                if (replica.healthy) {
+                    System.out.println("❌ Replica " + replica.name + " unavailable: " + e.getMessage());
+                }
+                replica.healthy = false;
+                replica.lastError = e.getMessage();
+            }
+        }
+
+        // Owners whose writes every replica has long since seen no longer need pinning
+        long expired = now - readYourWritesMs;
+        lastWrites.values().removeIf(written -> written < expired);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxLagMs", maxLagMs);
+        stats.put("routedToPrimary", routedPrimary.get());
+        stats.put("staleFallbacks", staleFallbacks.get());
+        stats.put("readYourWritesFallbacks", pinnedFallbacks.get());
+        stats.put("pinnedClients", lastWrites.size());
+        stats.put("primary", poolStats(primary));
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> r = poolStats(replica.pool);
+            r.put("healthy", replica.healthy);
+            r.put("lagMs", replica.lagMs);
+            r.put("routed", replica.routed.get());
+            if (replica.lastError != null) {
+                r.put("lastError", replica.lastError);
+            }
+            list.add(r);
+        }
+        stats.put("replicas", list);
+        return stats;
+    }
+
+    private static Map<String, Object> poolStats(HikariDataSource pool) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pool", pool.getPoolName());
+        stats.put("url", pool.getJdbcUrl());
+        stats.put("maxPoolSize", pool.getMaximumPoolSize());
+        if (pool.getHikariPoolMXBean() != null) {
+            stats.put("active", pool.getHikariPoolMXBean().getActiveConnections());
+            stats.put("idle", pool.getHikariPoolMXBean().getIdleConnections());
+            stats.put("waiting", pool.getHikariPoolMXBean().getThreadsAwaitingConnection());
+        }
+        return stats;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+        primary.close();
+    }
+}
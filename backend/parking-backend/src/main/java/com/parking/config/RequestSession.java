@@ -0,0 +1,39 @@
+package com.parking.config;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The open-in-view EntityManager of a request keeps its connection from the
+ * first query until the request ends. Work run detached() gets a fresh
+ * EntityManager per transaction instead, and gives the connection back at
+ * commit. For requests that wait on other threads which need connections
+ * themselves, such as the booking pipeline's writers.
+ */
+@Component
+public class RequestSession {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public <T> T detached(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        EntityManagerHolder shared = (EntityManagerHolder) TransactionSynchronizationManager
+            .unbindResourceIfPossible(entityManagerFactory);
+        try {
+            return work.get();
+        } finally {
+            if (shared != null) {
+                TransactionSynchronizationManager.bindResource(entityManagerFactory, shared);
+            }
+        }
+    }
+}
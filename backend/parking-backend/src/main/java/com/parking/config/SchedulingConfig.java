@@ -0,0 +1,12 @@
+package com.parking.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (nightly report precompute)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,269 @@
+package com.parking.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Versioned schema migrations, applied before Hibernate starts. Scripts
+ * live in db/migration/{h2,mysql}/V{version}__{description}.sql and run in
+ * version order, each once per database; applied versions and their
+ * checksums are kept in schema_history. Editing a script after it ran
+ * stops startup, since that database would no longer match the others.
+ *
+ * A database built earlier by ddl-auto has tables but no schema_history;
+ * it is recorded at V1 (the baseline) and only later versions run. Every
+ * shard is migrated, always against the primary, never a replica. On MySQL
+ * a named lock keeps instances in a rolling restart from migrating the
+ * same database at once.
+ */
+@Component
+@Lazy(false)
+public class SchemaMigrator {
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final int BASELINE_VERSION = 1;
+    private static final int LOCK_TIMEOUT_SECONDS = 300;
+
+    @Autowired
+    private ShardRoutingDataSource shards;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicas;
+
+    @Value("${parking.migrations.enabled:true}")
+    private boolean enabled;
+
+    @Value("${parking.migrations.location:db/migration}")
+    private String location;
+
+    private final Map<String, Integer> versions = new HashMap<>();
+
+    /**
+     * Hibernate must not see the schema before it is migrated
+     */
+    @Component
+    static class EntityManagerFactoryDependsOnMigrator extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependsOnMigrator() {
+            super("schemaMigrator");
+        }
+    }
+
+    record Migration(int version, String description, String script, long checksum) {
+    }
+
+    @PostConstruct
+    public void migrate() throws Exception {
+        if (!enabled) {
+            return;
+        }
+        for (ShardRoutingDataSource.Shard shard : shards.getShards()) {
+            DataSource dataSource = shard.index == 0 ? replicas.getPrimary() : shard.dataSource;
+            versions.put(shard.name, migrate(shard.name, dataSource));
+        }
+    }
+
+    // Current schema version per shard
+    public Map<String, Integer> versions() {
+        return new HashMap<>(versions);
+    }
+
+    private int migrate(String shard, DataSource dataSource) throws Exception {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(true);
+            String vendor = vendor(conn);
+            List<Migration> migrations = load(vendor);
+            boolean mysql = "mysql".equals(vendor);
+
+            if (mysql) {
+                lock(conn);
+            }
+            try {
+                Map<Integer, Long> applied = applied(conn, migrations);
+                int current = 0;
+                int ran = 0;
+                for (Migration m : migrations) {
+                    Long checksum = applied.get(m.version());
+                    if (checksum != null) {
+                        if (checksum != 0 && checksum != m.checksum()) {
+                            throw new IllegalStateException("Migration V" + m.version() + " (" + m.description()
+                                + ") was changed after it was applied to shard " + shard);
+                        }
+                        current = m.version();
+                        continue;
+                    }
+                    long started = System.currentTimeMillis();
+                    try (Statement st = conn.createStatement()) {
+                        for (String sql : statements(m.script())) {
+                            st.execute(sql);
+                        }
+                    }
+                    record(conn, m, System.currentTimeMillis() - started);
+                    System.out.println("✅ Applied migration V" + m.version() + " " + m.description() + " on shard " + shard);
+                    current = m.version();
+                    ran++;
+                }
+                if (ran == 0) {
+                    System.out.println("✅ Schema of shard " + shard + " is up to date at V" + current);
+                }
+                return current;
+            } finally {
+                if (mysql) {
+                    unlock(conn);
+                }
+            }
+        }
+    }
+
+    // Applied versions with their checksums; creates the history table (and the baseline) when missing
+    private Map<Integer, Long> applied(Connection conn, List<Migration> migrations) throws Exception {
+        Map<Integer, Long> applied = new HashMap<>();
+        if (!tableExists(conn, "schema_history")) {
+            boolean legacy = tableExists(conn, "parking_slots");
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE schema_history (version INT NOT NULL PRIMARY KEY, " +
+                           "description VARCHAR(200) NOT NULL, checksum BIGINT NOT NULL, " +
+                           "installed_on TIMESTAMP NOT NULL, execution_ms BIGINT NOT NULL)");
+            }
+            if (legacy) {
+                Migration baseline = migrations.stream()
+                    .filter(m -> m.version() == BASELINE_VERSION)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No V" + BASELINE_VERSION + " baseline script"));
+                // Checksum 0: the script never ran here, so there is nothing to compare against
+                record(conn, new Migration(BASELINE_VERSION, "<< baseline of existing schema >>", "", 0), 0);
+                applied.put(BASELINE_VERSION, 0L);
+                System.out.println("Existing schema recorded as baseline V" + baseline.version());
+            }
+            return applied;
+        }
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_history")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private void record(Connection conn, Migration m, long executionMs) throws Exception {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO schema_history (version, description, checksum, installed_on, execution_ms) VALUES (?, ?, ?, ?, ?)")) {
+            ps.setInt(1, m.version());
+            ps.setString(2, m.description());
+            ps.setLong(3, m.checksum());
+            ps.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            ps.setLong(5, executionMs);
+            ps.executeUpdate();
+        }
+    }
+
+    private List<Migration> load(String vendor) throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        Resource[] resources = new PathMatchingResourcePatternResolver()
+            .getResources("classpath*:" + location + "/" + vendor + "/V*__*.sql");
+        for (Resource resource : resources) {
+            Matcher m = SCRIPT_NAME.matcher(resource.getFilename());
+            if (!m.matches()) {
+                continue;
+            }
+            String script = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+            migrations.add(new Migration(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '), script, crc.getValue()));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new IllegalStateException("Two migrations with version " + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+
+    // Statements end with a semicolon at the end of a line; -- comment lines are dropped
+    static List<String> statements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\r?\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static String vendor(Connection conn) throws Exception {
+        String product = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        if (product.contains("mysql") || product.contains("mariadb")) {
+            return "mysql";
+        }
+        if (product.contains("h2")) {
+            return "h2";
+        }
+        throw new IllegalStateException("No migrations for database " + product);
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws Exception {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String name : new String[] { table, table.toUpperCase(Locale.ROOT) }) {
+            try (ResultSet rs = meta.getTables(conn.getCatalog(), null, name, new String[] { "TABLE" })) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void lock(Connection conn) throws Exception {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT GET_LOCK('parking_schema_migration', " + LOCK_TIMEOUT_SECONDS + ")")) {
+            if (!rs.next() || rs.getInt(1) != 1) {
+                throw new IllegalStateException("Timed out waiting for another instance to finish migrating");
+            }
+        }
+    }
+
+    private static void unlock(Connection conn) throws Exception {
+        try (Statement st = conn.createStatement()) {
+            st.execute("SELECT RELEASE_LOCK('parking_schema_migration')");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.parking.config;
+
+/**
+ * The shard the current thread talks to; unset means the default shard.
+ *
+ * The routing DataSource sits behind a LazyConnectionDataSourceProxy, so
+ * the shard is picked when a transaction runs its first statement. A
+ * service can therefore enter a shard at the top of a @Transactional
+ * method, as long as nothing has touched the database yet.
+ */
+public final class ShardContext {
+
+    public static final String DEFAULT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        String shard = CURRENT.get();
+        return shard != null ? shard : DEFAULT;
+    }
+
+    /**
+     * Switch this thread to a shard until the returned scope is closed
+     */
+    public static Scope use(String shard) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
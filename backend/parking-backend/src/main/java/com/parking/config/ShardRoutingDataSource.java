@@ -0,0 +1,99 @@
+package com.parking.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * One DataSource per city shard, chosen by ShardContext. The default shard
+ * is the primary (with its replicas); it also holds every city that no
+ * shard claims and the global tables (users, rate rules).
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    /**
+     * A shard and the cities it owns. Index 0 is the default shard.
+     */
+    public static final class Shard {
+        public final String name;
+        public final int index;
+        public final DataSource dataSource;
+        public final List<String> cities;
+
+        Shard(String name, int index, DataSource dataSource, List<String> cities) {
+            this.name = name;
+            this.index = index;
+            this.dataSource = dataSource;
+            this.cities = cities;
+        }
+    }
+
+    private final List<Shard> shards;
+    private final Map<String, Shard> byName = new HashMap<>();
+    private final Map<String, Shard> byCity = new HashMap<>();
+
+    public ShardRoutingDataSource(DataSource defaultDataSource, Map<String, HikariDataSource> shardPools,
+                                  Map<String, List<String>> shardCities) {
+        List<Shard> list = new ArrayList<>();
+        list.add(new Shard(ShardContext.DEFAULT, 0, defaultDataSource, Collections.emptyList()));
+        for (Map.Entry<String, HikariDataSource> e : shardPools.entrySet()) {
+            List<String> cities = shardCities.getOrDefault(e.getKey(), Collections.emptyList());
+            list.add(new Shard(e.getKey(), list.size(), e.getValue(), cities));
+        }
+        this.shards = Collections.unmodifiableList(list);
+
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        for (Shard shard : shards) {
+            targets.put(shard.name, shard.dataSource);
+            byName.put(shard.name, shard);
+            for (String city : shard.cities) {
+                byCity.put(city.toLowerCase(Locale.ROOT), shard);
+            }
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(defaultDataSource);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public Shard getShard(String name) {
+        return byName.get(name);
+    }
+
+    public boolean isSharded() {
+        return shards.size() > 1;
+    }
+
+    // Shard owning a city; unclaimed cities live on the default shard
+    public String shardForCity(String city) {
+        Shard shard = city != null ? byCity.get(city.toLowerCase(Locale.ROOT)) : null;
+        return shard != null ? shard.name : ShardContext.DEFAULT;
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            if (shard.index > 0 && shard.dataSource instanceof HikariDataSource) {
+                ((HikariDataSource) shard.dataSource).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.parking.config;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Startup behaviour for spring.main.lazy-initialization (prod profile).
+ * Lazy beans are created when first used, which is only safe for beans
+ * that wait to be asked. Beans with @Scheduled jobs or @EventListener
+ * methods act on their own, so they are kept eager; migrations mark
+ * themselves @Lazy(false).
+ */
+@Configuration
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter selfStartingBeans() {
+        return (beanName, definition, type) -> type.getName().startsWith("com.parking.") && startsItself(type);
+    }
+
+    private static boolean startsItself(Class<?> type) {
+        AtomicBoolean found = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(type, method -> {
+            if (AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)
+                    || AnnotatedElementUtils.hasAnnotation(method, EventListener.class)) {
+                found.set(true);
+            }
+        });
+        return found.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportStartup() {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.out.println("✅ Ready to serve " + uptime + " ms after JVM start");
+    }
+}
@@ -0,0 +1,16 @@
+package com.parking.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a controller (or single endpoint) in a workload class; unmarked
+ * endpoints are INTERACTIVE. See WorkloadGovernor.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Workload {
+    WorkloadClass value();
+}
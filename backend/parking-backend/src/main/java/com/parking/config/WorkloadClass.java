@@ -0,0 +1,45 @@
+package com.parking.config;
+
+/**
+ * Kinds of traffic that get their own share of request slots and database
+ * connections, so one kind cannot starve another. See WorkloadGovernor.
+ *
+ * The class of the current thread is set per request by WorkloadInterceptor
+ * and by background jobs through use(); a thread without one counts as
+ * INTERACTIVE.
+ */
+public enum WorkloadClass {
+    // Park, exit and checkout at the gates: short transactions, reserved capacity
+    BOOKING,
+    // Everything a user clicks through: lookups, slot admin, dashboards
+    INTERACTIVE,
+    // Reports, exports, analytics and admin batch jobs: long, few at a time
+    REPORTING;
+
+    private static final ThreadLocal<WorkloadClass> CURRENT = new ThreadLocal<>();
+
+    public static WorkloadClass current() {
+        WorkloadClass current = CURRENT.get();
+        return current != null ? current : INTERACTIVE;
+    }
+
+    /**
+     * Run this thread as the given class until the returned scope is closed
+     */
+    public static Scope use(WorkloadClass workload) {
+        WorkloadClass previous = CURRENT.get();
+        CURRENT.set(workload);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,77 @@
+package com.parking.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Hands out connections only against a permit of the current thread's
+ * workload class; closing the connection returns the permit.
+ */
+public class WorkloadDataSource extends DelegatingDataSource {
+
+    private final WorkloadGovernor governor;
+
+    public WorkloadDataSource(DataSource target, WorkloadGovernor governor) {
+        super(target);
+        this.governor = governor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Runnable release = governor.acquireConnection();
+        try {
+            return guard(obtainTargetDataSource().getConnection(), release);
+        } catch (SQLException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Runnable release = governor.acquireConnection();
+        try {
+            return guard(obtainTargetDataSource().getConnection(username, password), release);
+        } catch (SQLException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    private static Connection guard(Connection target, Runnable release) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "close":
+                        if (!closed.compareAndSet(false, true)) {
+                            return null;
+                        }
+                        try {
+                            target.close();
+                        } finally {
+                            release.run();
+                        }
+                        return null;
+                    default:
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                }
+            });
+    }
+}
@@ -0,0 +1,287 @@
+package com.parking.config;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps booking, interactive and reporting traffic out of each other's way.
+ *
+ * Each workload class is a lane with a fixed number of request slots and a
+ * bounded queue in front of them, much like a fixed thread pool: a request
+ * waits at most queue-wait-ms for a slot, and is turned away at once when
+ * the queue is full. Requests keep running on the servlet thread; only
+ * the lane decides how many of each class run together.
+ *
+ * Connections of the application DataSource are handed out the same way
+ * (WorkloadDataSource). reserved-connections of the primary pool can only
+ * be taken by BOOKING; the other classes share the rest, each up to its own
+ * max-connections. A slow export therefore never holds the connection a
+ * gate needs to park or release a vehicle.
+ *
+ * A thread that already holds a connection permit of a class does not
+ * take a second one for a nested connection of that class, so a class
+ * cannot deadlock on itself. The permit stays with the thread's open
+ * connections of that class and is given back when the last of them
+ * closes, in whatever order they close; a connection opened under another
+ * class takes and returns that class's own permit.
+ */
+@Component
+public class WorkloadGovernor {
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    @Value("${spring.datasource.hikari.connection-timeout:30000}")
+    private long connectionTimeoutMs;
+
+    @Value("${parking.workload.booking.reserved-connections:3}")
+    private int bookingReservedConnections;
+
+    @Value("${parking.workload.booking.max-concurrent:64}")
+    private int bookingMaxConcurrent;
+
+    @Value("${parking.workload.booking.queue:256}")
+    private int bookingQueue;
+
+    @Value("${parking.workload.booking.queue-wait-ms:5000}")
+    private long bookingQueueWaitMs;
+
+    @Value("${parking.workload.interactive.max-concurrent:32}")
+    private int interactiveMaxConcurrent;
+
+    @Value("${parking.workload.interactive.queue:64}")
+    private int interactiveQueue;
+
+    @Value("${parking.workload.interactive.queue-wait-ms:2000}")
+    private long interactiveQueueWaitMs;
+
+    @Value("${parking.workload.interactive.max-connections:6}")
+    private int interactiveMaxConnections;
+
+    @Value("${parking.workload.reporting.max-concurrent:2}")
+    private int reportingMaxConcurrent;
+
+    @Value("${parking.workload.reporting.queue:4}")
+    private int reportingQueue;
+
+    @Value("${parking.workload.reporting.queue-wait-ms:10000}")
+    private long reportingQueueWaitMs;
+
+    @Value("${parking.workload.reporting.max-connections:2}")
+    private int reportingMaxConnections;
+
+    // Open connections of this thread per class, for nested connections
+    private static final ThreadLocal<AtomicInteger[]> HELD = ThreadLocal.withInitial(() -> {
+        AtomicInteger[] held = new AtomicInteger[WorkloadClass.values().length];
+        for (int i = 0; i < held.length; i++) {
+            held[i] = new AtomicInteger();
+        }
+        return held;
+    });
+
+    private final Map<WorkloadClass, Lane> lanes = new EnumMap<>(WorkloadClass.class);
+
+    // Connections the non-booking classes may hold together
+    private Semaphore shared;
+    private int sharedLimit;
+
+    /**
+     * Request slots and connection permits of one workload class
+     */
+    static final class Lane {
+        final WorkloadClass workload;
+        final int maxConcurrent;
+        final int queueLimit;
+        final long queueWaitMs;
+        final Semaphore slots;
+        // 0 for BOOKING, which is only bounded by the pool
+        final int maxConnections;
+        final Semaphore connections;
+
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicInteger peakQueued = new AtomicInteger();
+        final AtomicInteger connectionsInUse = new AtomicInteger();
+        final AtomicInteger connectionWaiters = new AtomicInteger();
+        final AtomicLong admitted = new AtomicLong();
+        final AtomicLong rejectedQueueFull = new AtomicLong();
+        final AtomicLong rejectedTimeout = new AtomicLong();
+        final AtomicLong connectionsGranted = new AtomicLong();
+        final AtomicLong connectionRejections = new AtomicLong();
+
+        Lane(WorkloadClass workload, int maxConcurrent, int queueLimit, long queueWaitMs, int maxConnections) {
+            this.workload = workload;
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+            this.queueLimit = Math.max(0, queueLimit);
+            this.queueWaitMs = queueWaitMs;
+            this.slots = new Semaphore(this.maxConcurrent, true);
+            this.maxConnections = maxConnections;
+            this.connections = maxConnections > 0 ? new Semaphore(maxConnections, true) : null;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int reserved = Math.max(0, Math.min(bookingReservedConnections, poolSize - 1));
+        sharedLimit = poolSize - reserved;
+        shared = new Semaphore(sharedLimit, true);
+
+        lanes.put(WorkloadClass.BOOKING, new Lane(WorkloadClass.BOOKING,
+            bookingMaxConcurrent, bookingQueue, bookingQueueWaitMs, 0));
+        lanes.put(WorkloadClass.INTERACTIVE, new Lane(WorkloadClass.INTERACTIVE,
+            interactiveMaxConcurrent, interactiveQueue, interactiveQueueWaitMs,
+            Math.max(1, Math.min(interactiveMaxConnections, sharedLimit))));
+        lanes.put(WorkloadClass.REPORTING, new Lane(WorkloadClass.REPORTING,
+            reportingMaxConcurrent, reportingQueue, reportingQueueWaitMs,
+            Math.max(1, Math.min(reportingMaxConnections, sharedLimit))));
+
+        System.out.println("✅ Workload lanes: " + reserved + " of " + poolSize + " connections reserved for bookings, " +
+            "interactive up to " + lanes.get(WorkloadClass.INTERACTIVE).maxConnections + ", reporting up to " +
+            lanes.get(WorkloadClass.REPORTING).maxConnections);
+    }
+
+    /**
+     * Take a request slot of the class, waiting in its queue if needed.
+     * Returns false when the queue is full or the wait ran out; after true
+     * the caller must release(workload).
+     */
+    public boolean admit(WorkloadClass workload) {
+        Lane lane = lanes.get(workload);
+        if (lane.slots.tryAcquire()) {
+            lane.admitted.incrementAndGet();
+            return true;
+        }
+        int queued = lane.queued.incrementAndGet();
+        try {
+            if (queued > lane.queueLimit) {
+                lane.rejectedQueueFull.incrementAndGet();
+                return false;
+            }
+            lane.peakQueued.accumulateAndGet(queued, Math::max);
+            if (lane.slots.tryAcquire(lane.queueWaitMs, TimeUnit.MILLISECONDS)) {
+                lane.admitted.incrementAndGet();
+                return true;
+            }
+            lane.rejectedTimeout.incrementAndGet();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lane.rejectedTimeout.incrementAndGet();
+            return false;
+        } finally {
+            lane.queued.decrementAndGet();
+        }
+    }
+
+    public void release(WorkloadClass workload) {
+        lanes.get(workload).slots.release();
+    }
+
+    // Connections the class may hold at once
+    public int maxConnections(WorkloadClass workload) {
+        Lane lane = lanes.get(workload);
+        return lane.maxConnections > 0 ? lane.maxConnections : poolSize;
+    }
+
+    // Seconds a turned-away client should wait before trying again
+    public long retryAfterSeconds(WorkloadClass workload) {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(lanes.get(workload).queueWaitMs));
+    }
+
+    /**
+     * Take a connection permit for the current thread's class, waiting up
+     * to the pool's connection timeout. The returned runnable gives it back.
+     */
+    Runnable acquireConnection() throws SQLException {
+        Lane lane = lanes.get(WorkloadClass.current());
+        AtomicInteger held = HELD.get()[lane.workload.ordinal()];
+        // Join the permit of an open connection of the same class, unless the last one just closed
+        if (held.getAndUpdate(n -> n > 0 ? n + 1 : n) > 0) {
+            return releaseOnce(lane, held);
+        }
+
+        if (lane.connections != null) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMs);
+            lane.connectionWaiters.incrementAndGet();
+            boolean own = false;
+            boolean ok = false;
+            try {
+                own = lane.connections.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS);
+                ok = own && shared.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lane.connectionWaiters.decrementAndGet();
+                if (own && !ok) {
+                    lane.connections.release();
+                }
+            }
+            if (!ok) {
+                lane.connectionRejections.incrementAndGet();
+                throw new SQLTransientConnectionException("No database connection for " + lane.workload +
+                    " work within " + connectionTimeoutMs + " ms (limit " + lane.maxConnections + ")");
+            }
+        }
+
+        lane.connectionsGranted.incrementAndGet();
+        lane.connectionsInUse.incrementAndGet();
+        held.incrementAndGet();
+        return releaseOnce(lane, held);
+    }
+
+    // Gives the class's permit back when the thread's last connection of that class closes
+    private Runnable releaseOnce(Lane lane, AtomicInteger held) {
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (!released.compareAndSet(false, true) || held.decrementAndGet() > 0) {
+                return;
+            }
+            lane.connectionsInUse.decrementAndGet();
+            if (lane.connections != null) {
+                shared.release();
+                lane.connections.release();
+            }
+        };
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("success", true);
+        stats.put("poolSize", poolSize);
+        stats.put("reservedForBooking", poolSize - sharedLimit);
+        stats.put("sharedConnectionsFree", shared.availablePermits());
+
+        Map<String, Object> classes = new LinkedHashMap<>();
+        for (Lane lane : lanes.values()) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("maxConcurrent", lane.maxConcurrent);
+            m.put("running", lane.maxConcurrent - lane.slots.availablePermits());
+            m.put("queued", lane.queued.get());
+            m.put("queueLimit", lane.queueLimit);
+            m.put("peakQueued", lane.peakQueued.get());
+            m.put("admitted", lane.admitted.get());
+            m.put("rejectedQueueFull", lane.rejectedQueueFull.get());
+            m.put("rejectedTimeout", lane.rejectedTimeout.get());
+            m.put("maxConnections", lane.maxConnections > 0 ? lane.maxConnections : poolSize);
+            m.put("connectionsInUse", lane.connectionsInUse.get());
+            m.put("connectionWaiters", lane.connectionWaiters.get());
+            m.put("connectionsGranted", lane.connectionsGranted.get());
+            m.put("connectionRejections", lane.connectionRejections.get());
+            classes.put(lane.workload.name(), m);
+        }
+        stats.put("classes", classes);
+        return stats;
+    }
+}
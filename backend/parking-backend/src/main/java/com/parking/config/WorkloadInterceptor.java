@@ -0,0 +1,69 @@
+package com.parking.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Admits each request into the lane of its workload class (@Workload on
+ * the endpoint or controller, INTERACTIVE otherwise) and runs the request
+ * thread as that class. A request the lane turns away gets 503 with a
+ * Retry-After hint.
+ */
+public class WorkloadInterceptor implements HandlerInterceptor {
+
+    private static final String ADMITTED = WorkloadInterceptor.class.getName() + ".admitted";
+    private static final String SCOPE = WorkloadInterceptor.class.getName() + ".scope";
+
+    private final WorkloadGovernor governor;
+
+    public WorkloadInterceptor(WorkloadGovernor governor) {
+        this.governor = governor;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        WorkloadClass workload = classify((HandlerMethod) handler);
+        if (!governor.admit(workload)) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", String.valueOf(governor.retryAfterSeconds(workload)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"success\":false,\"workload\":\"" + workload +
+                "\",\"message\":\"Too many " + workload.name().toLowerCase() + " requests, try again shortly\"}");
+            return false;
+        }
+        request.setAttribute(ADMITTED, workload);
+        request.setAttribute(SCOPE, WorkloadClass.use(workload));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object scope = request.getAttribute(SCOPE);
+        if (scope != null) {
+            ((WorkloadClass.Scope) scope).close();
+            request.removeAttribute(SCOPE);
+        }
+        Object workload = request.getAttribute(ADMITTED);
+        if (workload != null) {
+            governor.release((WorkloadClass) workload);
+            request.removeAttribute(ADMITTED);
+        }
+    }
+
+    private static WorkloadClass classify(HandlerMethod method) {
+        Workload marked = method.getMethodAnnotation(Workload.class);
+        if (marked == null) {
+            marked = method.getBeanType().getAnnotation(Workload.class);
+        }
+        return marked != null ? marked.value() : WorkloadClass.INTERACTIVE;
+    }
+}
@@ -0,0 +1,76 @@
+package com.parking.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.parking.config.Workload;
+import com.parking.config.WorkloadClass;
+import com.parking.service.AnalyticsService;
+
+@RestController
+@Workload(WorkloadClass.REPORTING)
+@RequestMapping("/api/analytics")
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    /**
+     * Ad-hoc booking cuts from the columnar fact store
+     * GET /api/analytics/bookings?groupBy=city,hour&startDate=2024-01-01&endDate=2024-12-31&vehicleType=CAR
+     * groupBy: city, hour, weekday, slot_type, vehicle_type, duration, slot
+     */
+    @GetMapping("/bookings")
+    public ResponseEntity<Map<String, Object>> queryBookings(
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String vehicleType,
+            @RequestParam(required = false) String slotType) {
+        Map<String, Object> response = analyticsService.query(
+            groupBy, startDate, endDate, city, vehicleType, slotType
+        );
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Duration percentiles, distinct users/vehicles and busiest slots from booking sketches
+     * GET /api/analytics/sketches?startDate=2024-01-01&endDate=2024-12-31&city=Mumbai&top=10
+     */
+    @GetMapping("/sketches")
+    public ResponseEntity<Map<String, Object>> sketches(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String city,
+            @RequestParam(defaultValue = "10") int top) {
+        return ResponseEntity.ok(analyticsService.sketchMetrics(startDate, endDate, city, top));
+    }
+
+    // Rebuild booking sketches from the database
+    @PostMapping("/sketches/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildSketches() {
+        return ResponseEntity.ok(analyticsService.rebuildSketches());
+    }
+
+    // Fact store size
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(analyticsService.status());
+    }
+
+    // Rebuild fact store from the database
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        return ResponseEntity.ok(analyticsService.rebuild());
+    }
+}
@@ -0,0 +1,48 @@
+package com.parking.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.parking.service.BookingArchiveService;
+
+@RestController
+@RequestMapping("/api/archive")
+@CrossOrigin(origins = "*")
+public class ArchiveController {
+
+    @Autowired
+    private BookingArchiveService archiveService;
+
+    // Archive size, covered range and last run
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(archiveService.status());
+    }
+
+    /**
+     * Start an archival run in the background
+     * POST /api/archive/run
+     */
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Object>> run() {
+        Map<String, Object> response = new HashMap<>();
+        if (archiveService.isRunning()) {
+            response.put("success", false);
+            response.put("message", "Archival is already running");
+            return ResponseEntity.ok(response);
+        }
+        CompletableFuture.runAsync(archiveService::archive);
+        response.put("success", true);
+        response.put("message", "Archival started");
+        return ResponseEntity.ok(response);
+    }
+}
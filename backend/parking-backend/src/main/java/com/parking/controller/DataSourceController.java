@@ -0,0 +1,83 @@
+package com.parking.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.parking.config.ReplicaRoutingDataSource;
+import com.parking.config.SchemaMigrator;
+import com.parking.config.WorkloadGovernor;
+import com.parking.service.EntityCache;
+import com.parking.service.ShardRouter;
+
+@RestController
+@RequestMapping("/api/datasource")
+@CrossOrigin(origins = "*")
+public class DataSourceController {
+
+    @Autowired
+    private ReplicaRoutingDataSource router;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private SchemaMigrator schemaMigrator;
+
+    @Autowired
+    private WorkloadGovernor workloads;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    // Pool usage, replica lag and how many connections went where
+    @GetMapping("/routing")
+    public ResponseEntity<Map<String, Object>> getRouting() {
+        return ResponseEntity.ok(router.stats());
+    }
+
+    // City shards and their slot counts
+    @GetMapping("/shards")
+    public ResponseEntity<Map<String, Object>> getShards() {
+        return ResponseEntity.ok(shardRouter.status());
+    }
+
+    // Schema version of each shard, from the versioned migrations
+    @GetMapping("/migrations")
+    public ResponseEntity<Map<String, Object>> getMigrations() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("versions", schemaMigrator.versions());
+        return ResponseEntity.ok(response);
+    }
+
+    // Running, queued and rejected requests and connections per workload class
+    @GetMapping("/workloads")
+    public ResponseEntity<Map<String, Object>> getWorkloads() {
+        return ResponseEntity.ok(workloads.stats());
+    }
+
+    // Size, hits and misses of each second-level cache region
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCache() {
+        return ResponseEntity.ok(entityCache.stats());
+    }
+
+    // Drop one cache region, or all of them, after rows were changed outside this node
+    @PostMapping("/cache/evict")
+    public ResponseEntity<Map<String, Object>> evictCache(@RequestParam(required = false) String region) {
+        Map<String, Object> response = new HashMap<>();
+        boolean evicted = entityCache.evict(region);
+        response.put("success", evicted);
+        response.put("message", evicted ? "Cache evicted" : "Unknown cache region: " + region);
+        return ResponseEntity.ok(response);
+    }
+}
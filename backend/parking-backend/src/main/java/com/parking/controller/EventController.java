@@ -0,0 +1,56 @@
+package com.parking.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.parking.service.BookingEventBus;
+import com.parking.service.LiveEventFeed;
+
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "*")
+public class EventController {
+
+    @Autowired
+    private BookingEventBus eventBus;
+
+    @Autowired
+    private LiveEventFeed liveFeed;
+
+    // Outbox size, consumer checkpoints, lag and failures
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(eventBus.status());
+    }
+
+    // Wake the relay now instead of at the next poll
+    @PostMapping("/drain")
+    public ResponseEntity<Map<String, Object>> drain() {
+        eventBus.wake();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Relay woken");
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Recent events after a sequence number
+     * GET /api/events/feed?after=120&city=Mumbai&waitMs=20000
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<Map<String, Object>> getFeed(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(required = false) String city,
+            @RequestParam(defaultValue = "0") long waitMs) throws InterruptedException {
+        return ResponseEntity.ok(liveFeed.since(after, city, waitMs));
+    }
+}
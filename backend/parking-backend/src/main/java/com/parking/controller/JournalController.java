@@ -0,0 +1,77 @@
+package com.parking.controller;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.parking.service.SlotJournal;
+
+@RestController
+@RequestMapping("/api/journal")
+@CrossOrigin(origins = "*")
+public class JournalController {
+
+    @Autowired
+    private SlotJournal journal;
+
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(journal.status());
+    }
+
+    /**
+     * Slot state as of a moment, from the journal
+     * GET /api/journal/state?at=2024-06-01T18:30:00&slotNumber=12
+     */
+    @GetMapping("/state")
+    public ResponseEntity<Map<String, Object>> getState(
+            @RequestParam String at,
+            @RequestParam(required = false) Integer slotNumber) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<SlotJournal.Record> records = journal.stateAt(LocalDateTime.parse(at), slotNumber);
+            response.put("success", true);
+            response.put("at", at);
+            response.put("slots", records.stream().map(SlotJournal.Record::toMap).toList());
+            response.put("count", records.size());
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error replaying journal: " + e.getMessage());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Every transition and rejected park request of a slot
+     * GET /api/journal/history?slotNumber=12&from=2024-06-01T00:00:00&to=2024-06-02T00:00:00
+     */
+    @GetMapping("/history")
+    public ResponseEntity<Map<String, Object>> getHistory(
+            @RequestParam Integer slotNumber,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<SlotJournal.Record> records = journal.history(slotNumber,
+                from != null ? LocalDateTime.parse(from) : null,
+                to != null ? LocalDateTime.parse(to) : null);
+            response.put("success", true);
+            response.put("slotNumber", slotNumber);
+            response.put("records", records.stream().map(SlotJournal.Record::toMap).toList());
+            response.put("count", records.size());
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error reading journal: " + e.getMessage());
+        }
+        return ResponseEntity.ok(response);
+    }
+}
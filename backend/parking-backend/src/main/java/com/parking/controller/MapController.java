@@ -0,0 +1,42 @@
+package com.parking.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.parking.service.MapClusterIndex;
+
+@RestController
+@RequestMapping("/api/map")
+@CrossOrigin(origins = "*")
+public class MapController {
+
+    @Autowired
+    private MapClusterIndex mapIndex;
+
+    /**
+     * Slot clusters in a viewport, or the slots themselves at street zoom
+     * GET /api/map/clusters?south=18.8&west=72.7&north=19.3&east=73.1&zoom=11
+     */
+    @GetMapping("/clusters")
+    public ResponseEntity<Map<String, Object>> getClusters(
+            @RequestParam double south,
+            @RequestParam double west,
+            @RequestParam double north,
+            @RequestParam double east,
+            @RequestParam int zoom) {
+        return ResponseEntity.ok(mapIndex.query(south, west, north, east, zoom));
+    }
+
+    // Slots indexed and cells per zoom level
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(mapIndex.status());
+    }
+}
@@ -3,6 +3,7 @@ package com.parking.controller;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -13,11 +14,21 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.parking.config.GateAdmission;
+import com.parking.config.GateTraffic;
+import com.parking.config.GateTraffic.Direction;
+import com.parking.config.ReplicaRead;
+import com.parking.config.RequestSession;
+import com.parking.config.Workload;
+import com.parking.config.WorkloadClass;
 import com.parking.entity.ParkingSlot;
+import com.parking.service.BookingPipeline;
+import com.parking.service.IdempotencyService;
 import com.parking.service.ParkingService;
 
 @RestController
@@ -28,6 +39,18 @@ public class ParkingController {
     @Autowired
     private ParkingService parkingService;
 
+    @Autowired
+    private GateAdmission gateAdmission;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BookingPipeline bookingPipeline;
+
+    @Autowired
+    private RequestSession requestSession;
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, String>> healthCheck() {
         return ResponseEntity.ok(Map.of(
@@ -37,6 +60,24 @@ public class ParkingController {
         ));
     }
 
+    // Replays and conflicts of Idempotency-Key and gate event deduplication
+    @GetMapping("/idempotency")
+    public ResponseEntity<Map<String, Object>> getIdempotency() {
+        return ResponseEntity.ok(idempotencyService.stats());
+    }
+
+    // Queue depth, batch sizes and commit times of the booking writers
+    @GetMapping("/pipeline")
+    public ResponseEntity<Map<String, Object>> getPipeline() {
+        return ResponseEntity.ok(bookingPipeline.stats());
+    }
+
+    // Current gate concurrency limit, latency and rejections
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmission() {
+        return ResponseEntity.ok(gateAdmission.stats());
+    }
+
     //  Find nearby parking slots
     @GetMapping("/nearby")
     public ResponseEntity<Map<String, Object>> findNearbySlots(
@@ -52,8 +93,13 @@ public class ParkingController {
         return ResponseEntity.ok(response);
     }
 
+    @GateTraffic(Direction.ENTRY)
+    @Workload(WorkloadClass.BOOKING)
     @PostMapping("/park")
-    public ResponseEntity<Map<String, Object>> parkVehicle(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> parkVehicle(
+            @RequestBody Map<String, Object> request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "X-Gate-Id", required = false) String gateId) {
         System.out.println("=== PARK VEHICLE REQUEST ===");
         System.out.println("Request: " + request);
         
@@ -67,23 +113,49 @@ public class ParkingController {
         String startTimeStr = (String) request.get("startTime");
         String endTimeStr = (String) request.get("endTime");
         
-        Map<String, Object> response = parkingService.parkVehicle(
-            licensePlate, vehicleType, ownerName, phoneNumber, userId, slotNumber, startTimeStr, endTimeStr
-        );
+        IdempotencyService.Scope scope = idempotencyService.scope(
+            "park", idempotencyKey, gateId, licensePlate, new TreeMap<>(request));
+        // Detached: the request may wait on a booking writer, and must not sit on a connection meanwhile
+        IdempotencyService.Result result = requestSession.detached(() -> idempotencyService.execute(scope,
+            () -> bookingPipeline.park(licensePlate, vehicleType, ownerName, phoneNumber, userId, slotNumber,
+                startTimeStr, endTimeStr)));
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.status(result.status()).body(result.body());
     }
 
+    @GateTraffic(Direction.EXIT)
+    @Workload(WorkloadClass.BOOKING)
     @DeleteMapping("/remove/{licensePlate}")
-    public ResponseEntity<Map<String, Object>> removeVehicle(@PathVariable String licensePlate) {
-        Map<String, Object> response = parkingService.removeVehicle(licensePlate);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Map<String, Object>> removeVehicle(
+            @PathVariable String licensePlate,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "X-Gate-Id", required = false) String gateId) {
+        IdempotencyService.Scope scope = idempotencyService.scope(
+            "remove", idempotencyKey, gateId, licensePlate, licensePlate.toUpperCase());
+        IdempotencyService.Result result = requestSession.detached(
+            () -> idempotencyService.execute(scope, () -> bookingPipeline.remove(licensePlate)));
+        return ResponseEntity.status(result.status()).body(result.body());
     }
 
+    @GateTraffic(Direction.EXIT)
+    @Workload(WorkloadClass.BOOKING)
     @PutMapping("/checkout/{bookingId}")
-    public ResponseEntity<Map<String, Object>> checkoutBooking(@PathVariable Long bookingId) {
-        Map<String, Object> response = parkingService.checkoutBooking(bookingId);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Map<String, Object>> checkoutBooking(
+            @PathVariable Long bookingId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestHeader(value = "X-Gate-Id", required = false) String gateId) {
+        IdempotencyService.Scope scope = idempotencyService.scope(
+            "checkout", idempotencyKey, gateId, String.valueOf(bookingId), bookingId);
+        IdempotencyService.Result result = requestSession.detached(
+            () -> idempotencyService.execute(scope, () -> bookingPipeline.checkout(bookingId)));
+        return ResponseEntity.status(result.status()).body(result.body());
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> searchPlates(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(parkingService.searchPlates(query, limit));
     }
 
     @GetMapping("/search/{licensePlate}")
@@ -92,24 +164,28 @@ public class ParkingController {
         return ResponseEntity.ok(response);
     }
 
+    @ReplicaRead
     @GetMapping("/slots")
     public ResponseEntity<List<ParkingSlot>> getAllSlots() {
         List<ParkingSlot> slots = parkingService.getAllSlots();
         return ResponseEntity.ok(slots);
     }
 
+    @ReplicaRead
     @GetMapping("/slots/available")
     public ResponseEntity<Map<String, Long>> getAvailableSlots() {
         long available = parkingService.getAvailableSlots();
         return ResponseEntity.ok(Map.of("availableSlots", available, "total", 20L));
     }
 
+    @ReplicaRead
     @GetMapping("/slots/occupied")
     public ResponseEntity<Map<String, Long>> getOccupiedSlots() {
         long occupied = parkingService.getOccupiedSlots();
         return ResponseEntity.ok(Map.of("occupiedSlots", occupied));
     }
 
+    @ReplicaRead
     @GetMapping("/report")
     public ResponseEntity<Map<String, Object>> generateReport() {
         Map<String, Object> report = parkingService.generateReport();
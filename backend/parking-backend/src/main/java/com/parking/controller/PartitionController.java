@@ -0,0 +1,60 @@
+package com.parking.controller;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.parking.config.Workload;
+import com.parking.config.WorkloadClass;
+import com.parking.service.BookingPartitionManager;
+
+@RestController
+@RequestMapping("/api/partitions")
+@CrossOrigin(origins = "*")
+public class PartitionController {
+
+    @Autowired
+    private BookingPartitionManager partitionManager;
+
+    // Partitioning mode and, when partitioned, the monthly partitions
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(partitionManager.status());
+    }
+
+    /**
+     * Convert bookings to monthly partitions (MySQL, rebuilds the table)
+     * POST /api/partitions/convert
+     */
+    @Workload(WorkloadClass.REPORTING)
+    @PostMapping("/convert")
+    public ResponseEntity<Map<String, Object>> convert() {
+        return ResponseEntity.ok(partitionManager.convert());
+    }
+
+    // Run partition maintenance now instead of waiting for the nightly job
+    @Workload(WorkloadClass.REPORTING)
+    @PostMapping("/maintain")
+    public ResponseEntity<Map<String, Object>> maintain() {
+        return ResponseEntity.ok(partitionManager.maintain());
+    }
+
+    /**
+     * Pruned vs unpruned range scans on a synthetic table
+     * POST /api/partitions/benchmark?rows=10000000&runs=5
+     */
+    @Workload(WorkloadClass.REPORTING)
+    @PostMapping("/benchmark")
+    public ResponseEntity<Map<String, Object>> benchmark(
+            @RequestParam(defaultValue = "1000000") int rows,
+            @RequestParam(defaultValue = "5") int runs) {
+        return ResponseEntity.ok(partitionManager.benchmark(rows, runs));
+    }
+}
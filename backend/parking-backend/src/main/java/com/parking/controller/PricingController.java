@@ -0,0 +1,197 @@
+package com.parking.controller;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.parking.entity.ParkingSlot;
+import com.parking.entity.RateRule;
+import com.parking.repository.RateRuleRepository;
+import com.parking.service.EntityCache;
+import com.parking.service.OccupancyTracker;
+import com.parking.service.PricingEngine;
+import com.parking.service.ShardRouter;
+import com.parking.util.Money;
+
+@RestController
+@RequestMapping("/api/pricing")
+@CrossOrigin(origins = "*")
+public class PricingController {
+
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Autowired
+    private OccupancyTracker occupancyTracker;
+
+    @Autowired
+    private RateRuleRepository rateRuleRepository;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    /**
+     * Quote the current hourly rate for a slot
+     * GET /api/pricing/quote?slotNumber=12&vehicleType=CAR&at=2024-06-01T18:30:00
+     */
+    @GetMapping("/quote")
+    public ResponseEntity<Map<String, Object>> quote(
+            @RequestParam Integer slotNumber,
+            @RequestParam String vehicleType,
+            @RequestParam(required = false) String at) {
+        Map<String, Object> response = new HashMap<>();
+
+        Optional<ParkingSlot> slotOpt = shardRouter.call(shardRouter.shardForSlotNumber(slotNumber),
+                () -> entityCache.slotByNumber(slotNumber));
+        if (slotOpt.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "Slot not found!");
+            return ResponseEntity.ok(response);
+        }
+
+        ParkingSlot slot = slotOpt.get();
+        LocalDateTime when = at != null ? LocalDateTime.parse(at) : LocalDateTime.now();
+
+        response.put("success", true);
+        response.put("slotNumber", slotNumber);
+        response.put("vehicleType", vehicleType.toUpperCase());
+        response.put("hourlyRate", Money.toRupees(pricingEngine.quoteHourlyRate(slot, vehicleType, when)));
+        response.put("occupancyPercent", occupancyTracker.occupancyPercent(slot.getCity(), slot.locationKey()));
+        response.put("at", when.toString());
+        return ResponseEntity.ok(response);
+    }
+
+    // Get compiled table info
+    @GetMapping("/table")
+    public ResponseEntity<Map<String, Object>> describeTable() {
+        Map<String, Object> response = pricingEngine.describe();
+        response.put("occupancy", occupancyTracker.snapshot());
+        return ResponseEntity.ok(response);
+    }
+
+    // Recompile rules from the database
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reload() {
+        return ResponseEntity.ok(pricingEngine.reload());
+    }
+
+    // Get all rate rules
+    @GetMapping("/rules")
+    public ResponseEntity<List<RateRule>> getRules() {
+        return ResponseEntity.ok(rateRuleRepository.findAll());
+    }
+
+    // Add rate rule
+    @PostMapping("/rules")
+    public ResponseEntity<Map<String, Object>> addRule(@RequestBody RateRule rule) {
+        Map<String, Object> response = new HashMap<>();
+
+        String invalid = invalid(rule);
+        if (invalid != null) {
+            response.put("success", false);
+            response.put("message", invalid);
+            return ResponseEntity.ok(response);
+        }
+
+        rule.setId(null);
+        RateRule saved = rateRuleRepository.save(rule);
+        pricingEngine.reload();
+
+        response.put("success", true);
+        response.put("message", "Rate rule added!");
+        response.put("rule", saved);
+        return ResponseEntity.ok(response);
+    }
+
+    // Update rate rule
+    @PutMapping("/rules/{id}")
+    public ResponseEntity<Map<String, Object>> updateRule(@PathVariable Long id, @RequestBody RateRule rule) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!rateRuleRepository.existsById(id)) {
+            response.put("success", false);
+            response.put("message", "Rate rule not found!");
+            return ResponseEntity.ok(response);
+        }
+
+        String invalid = invalid(rule);
+        if (invalid != null) {
+            response.put("success", false);
+            response.put("message", invalid);
+            return ResponseEntity.ok(response);
+        }
+
+        rule.setId(id);
+        RateRule saved = rateRuleRepository.save(rule);
+        pricingEngine.reload();
+
+        response.put("success", true);
+        response.put("message", "Rate rule updated!");
+        response.put("rule", saved);
+        return ResponseEntity.ok(response);
+    }
+
+    // Delete rate rule
+    @DeleteMapping("/rules/{id}")
+    public ResponseEntity<Map<String, Object>> deleteRule(@PathVariable Long id) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!rateRuleRepository.existsById(id)) {
+            response.put("success", false);
+            response.put("message", "Rate rule not found!");
+            return ResponseEntity.ok(response);
+        }
+
+        rateRuleRepository.deleteById(id);
+        pricingEngine.reload();
+
+        response.put("success", true);
+        response.put("message", "Rate rule deleted!");
+        return ResponseEntity.ok(response);
+    }
+
+    // Why a rule cannot be saved, or null. The compiler would otherwise read
+    // bad hours as odd windows and an unknown type as the OTHER bucket.
+    private static String invalid(RateRule rule) {
+        if (rule.getHourlyRate() == null || rule.getHourlyRate() < 0) {
+            return "A non-negative hourlyRate is required!";
+        }
+        if (outside(rule.getStartHour(), 0, 24) || outside(rule.getEndHour(), 0, 24)) {
+            return "startHour and endHour must be between 0 and 24!";
+        }
+        if (outside(rule.getDaysMask(), 0, 0x7F)) {
+            return "daysMask must be between 0 and 127 (bit 0 = Monday ... bit 6 = Sunday)!";
+        }
+        if (rule.getVehicleType() != null
+                && PricingEngine.vehicleTypeCode(rule.getVehicleType()) == PricingEngine.VEHICLE_TYPES - 1) {
+            return "Unknown vehicleType: " + rule.getVehicleType() + " (BIKE, CAR, SUV or TRUCK)";
+        }
+        if (rule.getSlotType() != null
+                && PricingEngine.slotTypeCode(rule.getSlotType()) == PricingEngine.SLOT_TYPES - 1) {
+            return "Unknown slotType: " + rule.getSlotType() + " (SMALL, MEDIUM or LARGE)";
+        }
+        return null;
+    }
+
+    private static boolean outside(Integer value, int min, int max) {
+        return value != null && (value < min || value > max);
+    }
+}
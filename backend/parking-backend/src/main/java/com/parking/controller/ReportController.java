@@ -8,15 +8,22 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.parking.config.ReplicaRead;
+import com.parking.config.Workload;
+import com.parking.config.WorkloadClass;
 import com.parking.service.ExportService;
 import com.parking.service.ReportService;
 
 @RestController
+@ReplicaRead
+@Workload(WorkloadClass.REPORTING)
 @RequestMapping("/api/reports")
 @CrossOrigin(origins = "*")
 public class ReportController {
@@ -44,6 +51,49 @@ public class ReportController {
         return ResponseEntity.ok(report);
     }
     
+    /**
+     * Time-weighted utilization per slot, location, city and hour of day
+     * GET /api/reports/utilization?startDate=2024-01-01&endDate=2024-01-31&city=Mumbai
+     */
+    @GetMapping("/utilization")
+    public ResponseEntity<Map<String, Object>> getUtilization(
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestParam(required = false) String city) {
+        return ResponseEntity.ok(reportService.analyzeUtilization(startDate, endDate, city, false));
+    }
+    
+    /**
+     * Same, with every slot listed, most utilized first
+     * GET /api/reports/utilization/slots?startDate=2024-01-01&endDate=2024-01-31&city=Mumbai
+     */
+    @GetMapping("/utilization/slots")
+    public ResponseEntity<Map<String, Object>> getSlotUtilization(
+            @RequestParam String startDate,
+            @RequestParam String endDate,
+            @RequestParam(required = false) String city) {
+        return ResponseEntity.ok(reportService.analyzeUtilization(startDate, endDate, city, true));
+    }
+    
+    // Report cache hit rate and build times
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(reportService.getCacheStats());
+    }
+    
+    // Drop all cached reports (memory and disk)
+    @DeleteMapping("/cache")
+    public ResponseEntity<Map<String, Object>> clearCache() {
+        return ResponseEntity.ok(reportService.clearCache());
+    }
+    
+    // Run the nightly precompute now
+    @PostMapping("/cache/precompute")
+    public ResponseEntity<Map<String, Object>> precompute() {
+        reportService.precomputeClosedReports();
+        return ResponseEntity.ok(reportService.getCacheStats());
+    }
+    
     /**
      * Export bookings to CSV
      * GET /api/reports/export/bookings?startDate=2024-01-01&endDate=2024-12-31&slotId=1
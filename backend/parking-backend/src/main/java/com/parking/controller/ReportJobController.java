@@ -0,0 +1,78 @@
+package com.parking.controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.parking.config.Workload;
+import com.parking.config.WorkloadClass;
+import com.parking.service.ReportJob;
+import com.parking.service.ReportJobService;
+import com.parking.util.FileRangeSender;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/api/reports/jobs")
+@CrossOrigin(origins = "*")
+public class ReportJobController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    /**
+     * Submit a background report/export job
+     * POST /api/reports/jobs
+     * {"type": "BOOKINGS_CSV", "startDate": "2024-01-01", "endDate": "2024-12-31", "userId": 1}
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submitJob(
+            @RequestBody Map<String, Object> request,
+            HttpServletRequest httpRequest) {
+        Map<String, Object> response = reportJobService.submit(request, httpRequest.getRemoteAddr());
+        return ResponseEntity.ok(response);
+    }
+
+    // Jobs of a user (or of the calling address), newest first
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listJobs(
+            @RequestParam(required = false) Long userId,
+            HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(reportJobService.listJobs(userId, httpRequest.getRemoteAddr()));
+    }
+
+    // Job status and progress
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(reportJobService.getJobStatus(jobId));
+    }
+
+    /**
+     * Download a finished job result; supports Range requests for resuming
+     * GET /api/reports/jobs/{jobId}/download
+     */
+    @Workload(WorkloadClass.REPORTING)
+    @GetMapping("/{jobId}/download")
+    public void download(@PathVariable String jobId,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        ReportJob job = reportJobService.getJob(jobId);
+        if (job == null || job.getStatus() != ReportJob.Status.COMPLETED || !Files.exists(job.getFile())) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Job result not available");
+            return;
+        }
+        FileRangeSender.send(job.getFile(), job.getContentType(), job.getFilename(), request, response);
+    }
+}
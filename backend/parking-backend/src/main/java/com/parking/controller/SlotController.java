@@ -4,6 +4,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -17,8 +18,10 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.parking.config.ReplicaRead;
 import com.parking.entity.ParkingSlot;
 import com.parking.repository.ParkingSlotRepository;
+import com.parking.service.ShardRouter;
 import com.parking.service.SlotManagementService;
 
 @RestController
@@ -32,10 +35,14 @@ public class SlotController {
     @Autowired
     private ParkingSlotRepository slotRepository;
 
+    @Autowired
+    private ShardRouter shardRouter;
+
     // Get all slots
+    @ReplicaRead
     @GetMapping
     public ResponseEntity<List<ParkingSlot>> getAllSlots() {
-        List<ParkingSlot> slots = slotRepository.findAll();
+        List<ParkingSlot> slots = shardRouter.gather(() -> shardRouter.withSlotUsers(slotRepository.findAll()));
         return ResponseEntity.ok(slots);
     }
 
@@ -44,7 +51,7 @@ public class SlotController {
     public ResponseEntity<Map<String, Object>> getSlotById(@PathVariable Long id) {
         Map<String, Object> response = new HashMap<>();
         
-        Optional<ParkingSlot> slotOpt = slotRepository.findById(id);
+        Optional<ParkingSlot> slotOpt = shardRouter.call(shardRouter.shardForId(id), () -> slotRepository.findById(id));
         if (slotOpt.isPresent()) {
             response.put("success", true);
             response.put("slot", slotOpt.get());
@@ -87,6 +94,7 @@ public class SlotController {
     }
 
     // Get slot statistics
+    @ReplicaRead
     @GetMapping("/statistics")
     public ResponseEntity<Map<String, Object>> getSlotStatistics() {
         Map<String, Object> response = slotService.getSlotStatistics();
@@ -98,9 +106,10 @@ public class SlotController {
     public ResponseEntity<Map<String, Object>> getNextSlotNumber() {
         Map<String, Object> response = new HashMap<>();
         
-        List<ParkingSlot> allSlots = slotRepository.findAll();
-        int maxSlotNumber = allSlots.stream()
-            .mapToInt(ParkingSlot::getSlotNumber)
+        // Slot numbers are unique across shards
+        int maxSlotNumber = shardRouter.scatter(s -> slotRepository.findMaxSlotNumber()).values().stream()
+            .filter(n -> n != null)
+            .mapToInt(Integer::intValue)
             .max()
             .orElse(0);
         
@@ -110,12 +119,13 @@ public class SlotController {
         return ResponseEntity.ok(response);
     }
     // Get slots by city
+    @ReplicaRead
     @GetMapping("/by-city/{city}")
     public ResponseEntity<Map<String, Object>> getSlotsByCity(@PathVariable String city) {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            List<ParkingSlot> citySlots = slotRepository.findByCity(city);
+            List<ParkingSlot> citySlots = shardRouter.call(shardRouter.shardForCity(city), () -> slotRepository.findByCity(city));
             response.put("success", true);
             response.put("city", city);
             response.put("slots", citySlots);
@@ -128,15 +138,39 @@ public class SlotController {
         return ResponseEntity.ok(response);
     }
     
+    // Bookable slots in a city, per slot type
+    @ReplicaRead
+    @GetMapping("/availability/{city}")
+    public ResponseEntity<Map<String, Object>> getAvailabilityByCity(@PathVariable String city) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            Map<String, Long> byType = new TreeMap<>();
+            long total = 0;
+            for (Object[] row : shardRouter.call(shardRouter.shardForCity(city), () -> slotRepository.countBookableByType(city))) {
+                byType.put((String) row[0], (Long) row[1]);
+                total += (Long) row[1];
+            }
+            response.put("success", true);
+            response.put("city", city);
+            response.put("availableByType", byType);
+            response.put("available", total);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Error fetching availability for city: " + e.getMessage());
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+    
     //  Get all available cities
+    @ReplicaRead
     @GetMapping("/cities")
     public ResponseEntity<Map<String, Object>> getAllCities() {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            List<String> cities = slotRepository.findAll().stream()
-                .map(ParkingSlot::getCity)
-                .filter(city -> city != null && !city.isEmpty())
+            List<String> cities = shardRouter.gather(() -> slotRepository.findDistinctCities()).stream()
                 .distinct()
                 .sorted()
                 .toList();
@@ -162,12 +196,13 @@ public ResponseEntity<Map<String, Object>> toggleMaintenance(
 }
 
 //  Get all maintenance slots
+@ReplicaRead
 @GetMapping("/maintenance")
 public ResponseEntity<Map<String, Object>> getMaintenanceSlots() {
     Map<String, Object> response = new HashMap<>();
     
     try {
-        List<ParkingSlot> maintenanceSlots = slotRepository.findAll().stream()
+        List<ParkingSlot> maintenanceSlots = shardRouter.gather(() -> shardRouter.withSlotUsers(slotRepository.findAll())).stream()
             .filter(ParkingSlot::getIsUnderMaintenance)
             .toList();
         
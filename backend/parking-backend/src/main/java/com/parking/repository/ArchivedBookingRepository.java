@@ -0,0 +1,68 @@
+package com.parking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.parking.entity.ArchivedBooking;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    boolean existsByParkingSlotId(Long slotId);
+    List<ArchivedBooking> findByVehicleUserIdOrderByIdAsc(Long userId);
+    List<ArchivedBooking> findAllByOrderByIdAsc();
+
+    // Archived bookings entered in [start, end] with vehicle and slot loaded in the same query
+    @Query("SELECT a FROM ArchivedBooking a JOIN FETCH a.vehicle JOIN FETCH a.parkingSlot " +
+           "WHERE a.entryTime BETWEEN :start AND :end ORDER BY a.id")
+    List<ArchivedBooking> findForReport(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Archived bookings entered before :at that exited after it
+    @Query("SELECT a FROM ArchivedBooking a JOIN FETCH a.vehicle JOIN FETCH a.parkingSlot " +
+           "WHERE a.entryTime < :at AND a.exitTime > :at ORDER BY a.id")
+    List<ArchivedBooking> findParkedAcross(@Param("at") LocalDateTime at);
+
+    // Same rows and keyset as BookingRepository.findExportChunk
+    @Query("SELECT a.id, a.bookingNumber, v.licensePlate, v.vehicleType, v.ownerName, v.phoneNumber, " +
+           "s.slotNumber, s.slotType, s.city, a.entryTime, a.exitTime, a.hourlyRatePaise, a.totalAmountPaise, " +
+           "a.status, a.paymentStatus FROM ArchivedBooking a LEFT JOIN a.vehicle v LEFT JOIN a.parkingSlot s " +
+           "WHERE a.entryTime >= :afterTime AND a.entryTime < :to " +
+           "AND (a.entryTime > :afterTime OR a.id > :afterId) " +
+           "AND (:slotId IS NULL OR a.parkingSlot.id = :slotId) " +
+           "ORDER BY a.entryTime, a.id")
+    List<Object[]> findExportChunk(@Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId,
+                                   @Param("to") LocalDateTime to, @Param("slotId") Long slotId, Pageable page);
+
+    @Query("SELECT COUNT(a) FROM ArchivedBooking a WHERE a.entryTime >= :from AND a.entryTime < :to " +
+           "AND (:slotId IS NULL OR a.parkingSlot.id = :slotId)")
+    long countForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, @Param("slotId") Long slotId);
+
+    @Query("SELECT MIN(a.entryTime) FROM ArchivedBooking a")
+    LocalDateTime findMinEntryTime();
+
+    @Query("SELECT MAX(a.entryTime) FROM ArchivedBooking a")
+    LocalDateTime findMaxEntryTime();
+
+    @Query("SELECT COALESCE(SUM(a.totalAmountPaise), 0) FROM ArchivedBooking a")
+    long sumTotalAmountPaise();
+
+    // Copy completed bookings (status code 2, see BookingStatus) into the archive, keeping their ids
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "bookings_archive"))
+    @Query(value = "INSERT INTO bookings_archive (id, vehicle_id, slot_id, booking_number, entry_time, exit_time, " +
+                   "start_time, end_time, status, hourly_rate_paise, total_amount_paise, payment_status, archived_at) " +
+                   "SELECT id, vehicle_id, slot_id, booking_number, entry_time, exit_time, start_time, end_time, " +
+                   "status, hourly_rate_paise, total_amount_paise, payment_status, :archivedAt " +
+                   "FROM bookings WHERE status = 2 AND id IN (:ids)", nativeQuery = true)
+    int copyFromBookings(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+}
@@ -0,0 +1,27 @@
+package com.parking.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.parking.entity.BookingEvent;
+
+@Repository
+public interface BookingEventRepository extends JpaRepository<BookingEvent, Long> {
+
+    @Query("SELECT e FROM BookingEvent e WHERE e.id > :afterId ORDER BY e.id")
+    List<BookingEvent> findNext(@Param("afterId") Long afterId, Pageable page);
+
+    long countByIdGreaterThan(Long id);
+
+    // Events every consumer has processed and that are past retention
+    @Modifying
+    @Query("DELETE FROM BookingEvent e WHERE e.id <= :upTo AND e.occurredAt < :before")
+    int deleteDelivered(@Param("upTo") Long upTo, @Param("before") LocalDateTime before);
+}
@@ -1,19 +1,96 @@
 package com.parking.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.parking.entity.Booking;
+import com.parking.entity.BookingStatus;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     Optional<Booking> findByBookingNumber(String bookingNumber);
     List<Booking> findByVehicleId(Long vehicleId);
     List<Booking> findByParkingSlotId(Long slotId);
-    List<Booking> findByStatus(String status);
-    Optional<Booking> findByParkingSlotIdAndStatus(Long slotId, String status);
-    long countByStatus(String status);
+    List<Booking> findByStatus(BookingStatus status);
+    List<Booking> findByVehicleUserIdOrderByIdAsc(Long userId);
+    Optional<Booking> findByParkingSlotIdAndStatus(Long slotId, BookingStatus status);
+    long countByStatus(BookingStatus status);
+    long countByStatusAndEntryTimeBetween(BookingStatus status, LocalDateTime start, LocalDateTime end);
+
+    // Bookings entered in [start, end] with vehicle and slot loaded in the same query
+    @Query("SELECT b FROM Booking b JOIN FETCH b.vehicle JOIN FETCH b.parkingSlot " +
+           "WHERE b.entryTime BETWEEN :start AND :end ORDER BY b.id")
+    List<Booking> findForReport(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // Active bookings at a location, with their vehicles
+    @Query("SELECT b FROM Booking b JOIN FETCH b.vehicle JOIN FETCH b.parkingSlot s " +
+           "WHERE b.status = com.parking.entity.BookingStatus.ACTIVE AND (s.locationName = :location OR s.locationName LIKE CONCAT(:location, ' - Slot %'))")
+    List<Booking> findActiveAtLocation(@Param("location") String location);
+
+    @Query("SELECT s.slotNumber FROM Booking b JOIN b.parkingSlot s JOIN b.vehicle v " +
+           "WHERE b.status = com.parking.entity.BookingStatus.ACTIVE AND v.licensePlate = :plate")
+    List<Integer> findActiveSlotNumbersByPlate(@Param("plate") String plate);
+
+    @Query("SELECT b FROM Booking b JOIN FETCH b.vehicle v JOIN FETCH b.parkingSlot " +
+           "WHERE b.status = com.parking.entity.BookingStatus.ACTIVE AND v.licensePlate IN :plates")
+    List<Booking> findActiveByPlates(@Param("plates") List<String> plates);
+
+    // Export rows entered before :to that sort after the keyset position (afterTime, afterId), oldest
+    // first; start with (from, Long.MIN_VALUE). The outer joins and the bare range on entryTime keep the
+    // plan on idx_bookings_entry_time. Scalars rather than entities, so a long export does not fill
+    // the persistence context.
+    @Query("SELECT b.id, b.bookingNumber, v.licensePlate, v.vehicleType, v.ownerName, v.phoneNumber, " +
+           "s.slotNumber, s.slotType, s.city, b.entryTime, b.exitTime, b.hourlyRatePaise, b.totalAmountPaise, " +
+           "b.status, b.paymentStatus FROM Booking b LEFT JOIN b.vehicle v LEFT JOIN b.parkingSlot s " +
+           "WHERE b.entryTime >= :afterTime AND b.entryTime < :to " +
+           "AND (b.entryTime > :afterTime OR b.id > :afterId) " +
+           "AND (:slotId IS NULL OR b.parkingSlot.id = :slotId) " +
+           "ORDER BY b.entryTime, b.id")
+    List<Object[]> findExportChunk(@Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId,
+                                   @Param("to") LocalDateTime to, @Param("slotId") Long slotId, Pageable page);
+
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.entryTime >= :from AND b.entryTime < :to " +
+           "AND (:slotId IS NULL OR b.parkingSlot.id = :slotId)")
+    long countForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to, @Param("slotId") Long slotId);
+
+    @Query("SELECT s.slotNumber FROM Booking b JOIN b.parkingSlot s WHERE b.id = :id")
+    Optional<Integer> findSlotNumberOfBooking(@Param("id") Long id);
+
+    // Bookings entered before :at and still parked at it (active, or exited after it)
+    @Query("SELECT b FROM Booking b JOIN FETCH b.vehicle JOIN FETCH b.parkingSlot " +
+           "WHERE b.entryTime < :at AND (b.exitTime IS NULL OR b.exitTime > :at) ORDER BY b.id")
+    List<Booking> findParkedAcross(@Param("at") LocalDateTime at);
+
+    // Next chunk of completed bookings the archiver may move; slots still pointing at one keep it.
+    // entryTime < cutoff is implied by exitTime < cutoff but lets MySQL prune partitions.
+    @Query("SELECT b.id FROM Booking b WHERE b.status = com.parking.entity.BookingStatus.COMPLETED AND b.entryTime < :cutoff " +
+           "AND b.exitTime < :cutoff AND b.id > :afterId " +
+           "AND NOT EXISTS (SELECT s FROM ParkingSlot s WHERE s.currentBooking = b) ORDER BY b.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId, Pageable page);
+
+    @Query("SELECT MIN(b.entryTime) FROM Booking b WHERE b.id IN :ids")
+    LocalDateTime findMinEntryTime(@Param("ids") List<Long> ids);
+
+    @Query("SELECT MAX(b.entryTime) FROM Booking b WHERE b.id IN :ids")
+    LocalDateTime findMaxEntryTime(@Param("ids") List<Long> ids);
+
+    // Delete only the rows that already made it into the archive
+    // A native statement without query spaces would clear every second-level cache region
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "bookings"))
+    @Query(value = "DELETE FROM bookings WHERE id IN (:ids) " +
+                   "AND EXISTS (SELECT 1 FROM bookings_archive a WHERE a.id = bookings.id)", nativeQuery = true)
+    int deleteArchived(@Param("ids") List<Long> ids);
 }
\ No newline at end of file
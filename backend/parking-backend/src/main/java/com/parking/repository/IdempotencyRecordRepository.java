@@ -0,0 +1,46 @@
+package com.parking.repository;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.parking.entity.IdempotencyRecord;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Fails with a DataIntegrityViolationException when the key is already claimed
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "INSERT INTO idempotency_keys (id, fingerprint, status, claimed_at, expires_at) " +
+                   "VALUES (:id, :fingerprint, 'IN_PROGRESS', :now, :expiresAt)", nativeQuery = true)
+    int claim(@Param("id") String id, @Param("fingerprint") String fingerprint,
+              @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Take over a claim whose owner has not finished in time; 1 when taken
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.claimedAt = :now, r.fingerprint = :fingerprint " +
+           "WHERE r.id = :id AND r.status = 'IN_PROGRESS' AND r.claimedAt < :staleBefore")
+    int reclaim(@Param("id") String id, @Param("fingerprint") String fingerprint,
+                @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'COMPLETED', r.responseBody = :body WHERE r.id = :id")
+    int complete(@Param("id") String id, @Param("body") String body);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.status = 'IN_PROGRESS'")
+    int release(@Param("id") String id);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,10 @@
+package com.parking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.parking.entity.OutboxCheckpoint;
+
+@Repository
+public interface OutboxCheckpointRepository extends JpaRepository<OutboxCheckpoint, String> {
+}
@@ -6,6 +6,7 @@ import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.parking.entity.ParkingSlot;
@@ -20,6 +21,11 @@ public interface ParkingSlotRepository extends JpaRepository<ParkingSlot, Long>
     @Query("SELECT ps FROM ParkingSlot ps WHERE ps.slotNumber = :slotNumber")
     Optional<ParkingSlot> findBySlotNumberWithLock(Integer slotNumber);
     
+    // Same, by id. A query reads the row itself, never the second-level cache
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ps FROM ParkingSlot ps WHERE ps.id = :id")
+    Optional<ParkingSlot> findByIdWithLock(@Param("id") Long id);
+
     Optional<ParkingSlot> findBySlotNumber(Integer slotNumber);
     
     List<ParkingSlot> findByFloorNumber(Integer floorNumber);
@@ -30,9 +36,27 @@ public interface ParkingSlotRepository extends JpaRepository<ParkingSlot, Long>
     
     List<ParkingSlot> findByIsOccupiedAndIsAvailable(Boolean isOccupied, Boolean isAvailable);
     
+    // Slots of a location, named "<location>" or "<location> - Slot <n>" (see ParkingSlot.locationKey)
+    @Query("SELECT s FROM ParkingSlot s WHERE s.locationName = :location OR s.locationName LIKE CONCAT(:location, ' - Slot %')")
+    List<ParkingSlot> findByLocationKey(@Param("location") String location);
+
     // Find by city (for multi-city support)
     List<ParkingSlot> findByCity(String city);
     
+    // Bookable slots per slot type in a city; answered from idx_slots_city_type_state alone
+    @Query("SELECT s.slotType, COUNT(s) FROM ParkingSlot s WHERE s.city = :city AND s.isAvailable = true " +
+           "AND s.isOccupied = false AND s.isUnderMaintenance = false GROUP BY s.slotType")
+    List<Object[]> countBookableByType(@Param("city") String city);
+
     // Check if slot number exists
     boolean existsBySlotNumber(Integer slotNumber);
+
+    @Query("SELECT ps.slotNumber FROM ParkingSlot ps")
+    List<Integer> findAllSlotNumbers();
+
+    @Query("SELECT MAX(ps.slotNumber) FROM ParkingSlot ps")
+    Integer findMaxSlotNumber();
+
+    @Query("SELECT DISTINCT ps.city FROM ParkingSlot ps WHERE ps.city IS NOT NULL AND ps.city <> ''")
+    List<String> findDistinctCities();
 }
\ No newline at end of file
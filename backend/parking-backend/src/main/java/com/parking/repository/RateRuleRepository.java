@@ -0,0 +1,13 @@
+package com.parking.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.parking.entity.RateRule;
+
+@Repository
+public interface RateRuleRepository extends JpaRepository<RateRule, Long> {
+    List<RateRule> findByActive(Boolean active);
+}
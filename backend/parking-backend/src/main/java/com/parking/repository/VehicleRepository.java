@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.parking.entity.Vehicle;
@@ -14,4 +15,8 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     List<Vehicle> findByVehicleType(String vehicleType);
     List<Vehicle> findByOwnerName(String ownerName);
     boolean existsByLicensePlate(String licensePlate);
+    List<Vehicle> findByLicensePlateIn(List<String> licensePlates);
+
+    @Query("SELECT v.licensePlate FROM Vehicle v")
+    List<String> findAllLicensePlates();
 }
\ No newline at end of file
@@ -0,0 +1,242 @@
+package com.parking.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.parking.entity.Booking;
+import com.parking.entity.ParkingSlot;
+import com.parking.repository.ParkingSlotRepository;
+import com.parking.service.BookingFactStore.Dimension;
+import com.parking.util.Money;
+
+@Service
+public class AnalyticsService {
+
+    @Autowired
+    private BookingFactStore factStore;
+
+    @Autowired
+    private BookingSketchStore sketchStore;
+
+    @Autowired
+    private BookingArchiveService archiveService;
+
+    @Autowired
+    private ParkingSlotRepository slotRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    /**
+     * Ad-hoc group-by over the booking fact store
+     */
+    public Map<String, Object> query(String groupBy, String startDate, String endDate,
+                                     String city, String vehicleType, String slotType) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            List<Dimension> dims = new ArrayList<>();
+            if (groupBy != null && !groupBy.isBlank()) {
+                for (String name : groupBy.split(",")) {
+                    dims.add(Dimension.valueOf(name.trim().toUpperCase()));
+                }
+            }
+            Dimension[] dimensions = dims.toArray(new Dimension[0]);
+
+            BookingFactStore.Filter filter = new BookingFactStore.Filter();
+            if (startDate != null) {
+                filter.fromEpoch = BookingFactStore.toEpoch(LocalDate.parse(startDate).atStartOfDay());
+            }
+            if (endDate != null) {
+                filter.toEpoch = BookingFactStore.toEpoch(LocalDate.parse(endDate).atTime(23, 59, 59));
+            }
+            if (vehicleType != null) {
+                filter.vehicleTypeCode = PricingEngine.vehicleTypeCode(vehicleType);
+            }
+            if (slotType != null) {
+                filter.slotTypeCode = PricingEngine.slotTypeCode(slotType);
+            }
+            if (city != null) {
+                Integer cityId = factStore.cityIdOf(city);
+                // Unknown city: use an id that matches nothing
+                filter.cityId = cityId != null ? cityId : -1;
+            }
+
+            long started = System.nanoTime();
+            BookingFactStore.Result result = factStore.query(filter, dimensions);
+            long elapsedMicros = (System.nanoTime() - started) / 1_000;
+
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int key = 0; key < result.counts.length; key++) {
+                if (result.counts[key] == 0) {
+                    continue;
+                }
+                Map<String, Object> row = new HashMap<>();
+                int rest = key;
+                for (int d = dimensions.length - 1; d >= 0; d--) {
+                    int value = rest % result.cardinalities[d];
+                    rest /= result.cardinalities[d];
+                    row.put(dimensions[d].name().toLowerCase(), factStore.label(dimensions[d], value));
+                }
+                row.put("bookings", result.counts[key]);
+                row.put("parkingHours", Math.round(result.minutes[key] / 60.0 * 100.0) / 100.0);
+                row.put("revenue", Money.toRupees(result.amountPaise[key]));
+                rows.add(row);
+            }
+
+            response.put("success", true);
+            response.put("groupBy", dims);
+            response.put("rows", rows);
+            response.put("scannedRows", factStore.rowCount());
+            response.put("queryMicros", elapsedMicros);
+
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "Invalid query: " + e.getMessage());
+        }
+
+        return response;
+    }
+
+    /**
+     * Rebuild the fact store from completed bookings in the database
+     */
+    public Map<String, Object> rebuild() {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            factStore.truncate();
+            List<Booking> completed = archiveService.findAllCompleted();
+            for (Booking booking : completed) {
+                factStore.append(booking);
+            }
+
+            response.put("success", true);
+            response.put("message", "Fact store rebuilt!");
+            response.put("rows", factStore.rowCount());
+            response.put("segments", factStore.segmentCount());
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Rebuild failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return response;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("rows", factStore.rowCount());
+        response.put("segments", factStore.segmentCount());
+        response.put("cities", factStore.cities());
+        response.put("sketchDays", sketchStore.dayCount());
+        return response;
+    }
+
+    /**
+     * Duration percentiles, distinct users/vehicles and busiest slots for
+     * completed bookings, merged from the per-day, per-location sketches
+     */
+    public Map<String, Object> sketchMetrics(String startDate, String endDate, String city, int topSlots) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            LocalDate from = startDate != null ? LocalDate.parse(startDate) : LocalDate.MIN;
+            LocalDate to = endDate != null ? LocalDate.parse(endDate) : LocalDate.MAX;
+
+            long started = System.nanoTime();
+            BookingSketchStore.QueryResult result = sketchStore.query(from, to, city);
+
+            Map<String, Object> total = metrics(result.total);
+            total.put("topSlots", topSlots(result.total, topSlots));
+
+            List<Map<String, Object>> byCity = new ArrayList<>();
+            result.byCity.forEach((name, summary) -> {
+                Map<String, Object> row = metrics(summary);
+                row.put("city", name);
+                byCity.add(row);
+            });
+
+            List<Map<String, Object>> byDay = new ArrayList<>();
+            result.byDay.forEach((day, summary) -> {
+                Map<String, Object> row = metrics(summary);
+                row.put("date", day.toString());
+                byDay.add(row);
+            });
+
+            response.put("success", true);
+            response.put("total", total);
+            response.put("byCity", byCity);
+            response.put("byDay", byDay);
+            response.put("queryMicros", (System.nanoTime() - started) / 1_000);
+
+        } catch (DateTimeParseException e) {
+            response.put("success", false);
+            response.put("message", "Invalid date: " + e.getMessage());
+        }
+
+        return response;
+    }
+
+    public Map<String, Object> rebuildSketches() {
+        Map<String, Object> response = new HashMap<>();
+        int bookings = sketchStore.rebuild();
+        response.put("success", true);
+        response.put("message", "Booking sketches rebuilt!");
+        response.put("bookings", bookings);
+        response.put("days", sketchStore.dayCount());
+        return response;
+    }
+
+    /**
+     * Percentile and distinct-count fields of one merged summary
+     */
+    public static Map<String, Object> metrics(BookingSketchStore.Summary summary) {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("bookings", summary.bookings);
+        if (summary.bookings > 0) {
+            Map<String, Object> duration = new HashMap<>();
+            duration.put("p50", Math.round(summary.durations.quantile(0.50)));
+            duration.put("p90", Math.round(summary.durations.quantile(0.90)));
+            duration.put("p99", Math.round(summary.durations.quantile(0.99)));
+            metrics.put("durationMinutes", duration);
+        }
+        metrics.put("distinctUsers", summary.users.estimate());
+        metrics.put("distinctVehicles", summary.vehicles.estimate());
+        return metrics;
+    }
+
+    private List<Map<String, Object>> topSlots(BookingSketchStore.Summary summary, int n) {
+        List<long[]> top = summary.slots.top(n);
+        List<Long> ids = top.stream().map(t -> t[0]).collect(Collectors.toList());
+        Map<Long, ParkingSlot> slots = shardRouter.gather(() -> slotRepository.findAllById(ids)).stream()
+            .collect(Collectors.toMap(ParkingSlot::getId, Function.identity()));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (long[] t : top) {
+            Map<String, Object> row = new HashMap<>();
+            ParkingSlot slot = slots.get(t[0]);
+            row.put("slotId", t[0]);
+            if (slot != null) {
+                row.put("slotNumber", slot.getSlotNumber());
+                row.put("location", slot.locationKey());
+                row.put("city", slot.getCity());
+            }
+            row.put("bookings", t[1]);
+            // Space-Saving may overcount a slot by at most this much
+            row.put("maxOvercount", t[2]);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
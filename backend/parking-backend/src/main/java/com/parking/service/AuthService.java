@@ -11,15 +11,20 @@ import org.springframework.stereotype.Service;
 import com.parking.entity.User;
 import com.parking.repository.UserRepository;
 
-import jakarta.annotation.PostConstruct;
-
 @Service
 public class AuthService {
     
     @Autowired
     private UserRepository userRepository;
+
+    // Users live on the default shard and are copied to city shards
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private EntityCache entityCache;
     
-    @PostConstruct
+    // Called by the demo seeder
     public void initializeDemoUsers() {
         if (userRepository.count() == 0) {
             // Create Admin User
@@ -30,7 +35,7 @@ public class AuthService {
             admin.setFullName("Admin User");
             admin.setPhoneNumber("9999999999");
             admin.setUserType("ADMIN");
-            userRepository.save(admin);
+            shardRouter.replicateUser(userRepository.save(admin).getId());
             
             // Create Regular User
             User user = new User();
@@ -40,7 +45,7 @@ public class AuthService {
             user.setFullName("Regular User");
             user.setPhoneNumber("8888888888");
             user.setUserType("CUSTOMER");
-            userRepository.save(user);
+            shardRouter.replicateUser(userRepository.save(user).getId());
             
             System.out.println("✅ Demo users created:");
             System.out.println("   - admin / admin123 (ADMIN)");
@@ -69,6 +74,7 @@ public class AuthService {
             }
             
             User savedUser = userRepository.save(user);
+            shardRouter.replicateUser(savedUser.getId());
             savedUser.setPassword(null);
             
             response.put("success", true);
@@ -87,7 +93,7 @@ public class AuthService {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            Optional<User> userOpt = userRepository.findByUsername(username);
+            Optional<User> userOpt = entityCache.userByUsername(username);
             
             if (userOpt.isEmpty()) {
                 response.put("success", false);
@@ -189,6 +195,7 @@ public class AuthService {
             }
             
             User savedUser = userRepository.save(user);
+            shardRouter.replicateUser(savedUser.getId());
             savedUser.setPassword(null);
             
             response.put("success", true);
@@ -214,6 +221,7 @@ public class AuthService {
             }
             
             userRepository.deleteById(id);
+            shardRouter.replicateUser(id);
             
             response.put("success", true);
             response.put("message", "User deleted successfully!");
@@ -0,0 +1,298 @@
+package com.parking.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.parking.config.ShardContext;
+import com.parking.config.WorkloadClass;
+import com.parking.entity.ArchivedBooking;
+import com.parking.entity.Booking;
+import com.parking.entity.BookingStatus;
+import com.parking.repository.ArchivedBookingRepository;
+import com.parking.repository.BookingRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Hot/cold split of the bookings table. Completed bookings that exited more
+ * than parking.archive.horizon-days ago are moved to bookings_archive in
+ * small chunks, each its own short transaction (copy, then delete the
+ * copied rows), with a pause in between so the archiver never holds locks
+ * for long. A crash loses at most the chunk in flight, which rolls back;
+ * the next run simply continues with whatever is still eligible.
+ *
+ * Read paths go through the find* methods here, which only read the
+ * archive when the requested range overlaps what has been archived. When
+ * city sharding is on, every shard archives its own bookings and the find*
+ * methods gather from all shards.
+ */
+@Service
+public class BookingArchiveService {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ArchivedBookingRepository archiveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${parking.archive.horizon-days:180}")
+    private int horizonDays;
+
+    @Value("${parking.archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${parking.archive.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${parking.archive.max-chunks-per-run:1000}")
+    private int maxChunksPerRun;
+
+    // Entry-time range covered by the archive; null while it is empty.
+    // Widened before a chunk moves, so readers never skip rows in flight.
+    private volatile LocalDateTime archiveMinEntry;
+    private volatile LocalDateTime archiveMaxEntry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong movedTotal = new AtomicLong();
+    private volatile LocalDateTime lastRunStarted;
+    private volatile LocalDateTime lastRunFinished;
+    private volatile long lastRunMoved;
+    private volatile String lastError;
+
+    @PostConstruct
+    public void loadBounds() {
+        for (LocalDateTime[] bounds : shardRouter.scatter(s -> new LocalDateTime[] {
+                archiveRepository.findMinEntryTime(), archiveRepository.findMaxEntryTime()}).values()) {
+            widenBounds(bounds[0], bounds[1]);
+        }
+    }
+
+    @Scheduled(cron = "${parking.archive.cron:0 0 3 * * *}")
+    public void scheduledArchive() {
+        archive();
+    }
+
+    /**
+     * Move eligible completed bookings to the archive, chunk by chunk
+     */
+    public Map<String, Object> archive() {
+        Map<String, Object> response = new HashMap<>();
+        if (!running.compareAndSet(false, true)) {
+            response.put("success", false);
+            response.put("message", "Archival is already running");
+            return response;
+        }
+
+        lastRunStarted = LocalDateTime.now();
+        lastError = null;
+        long moved = 0;
+        int chunks = 0;
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(horizonDays);
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+            // One shard after the other; the chunk budget is shared
+            for (String shard : shardRouter.shardNames()) {
+                long cursor = 0;
+                try (ShardContext.Scope scope = ShardContext.use(shard);
+                     WorkloadClass.Scope workload = WorkloadClass.use(WorkloadClass.REPORTING)) {
+                    while (chunks < maxChunksPerRun) {
+                        List<Long> ids = bookingRepository.findArchivableIds(cutoff, cursor, PageRequest.of(0, chunkSize));
+                        if (ids.isEmpty()) {
+                            break;
+                        }
+
+                        widenBounds(bookingRepository.findMinEntryTime(ids), bookingRepository.findMaxEntryTime(ids));
+
+                        Integer count = tx.execute(status -> moveChunk(ids));
+                        moved += count != null ? count : 0;
+                        movedTotal.addAndGet(count != null ? count : 0);
+                        cursor = ids.get(ids.size() - 1);
+                        chunks++;
+
+                        if (pauseMs > 0) {
+                            Thread.sleep(pauseMs);
+                        }
+                    }
+                }
+            }
+
+            response.put("success", true);
+            response.put("message", "Archived " + moved + " bookings in " + chunks + " chunks");
+            if (moved > 0) {
+                System.out.println("✅ Archived " + moved + " bookings older than " + cutoff.toLocalDate());
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lastError = "interrupted";
+            response.put("success", false);
+            response.put("message", "Archival interrupted after " + moved + " bookings");
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            response.put("success", false);
+            response.put("message", "Archival failed after " + moved + " bookings: " + e.getMessage());
+            System.out.println("❌ Booking archival failed: " + e.getMessage());
+        } finally {
+            lastRunMoved = moved;
+            lastRunFinished = LocalDateTime.now();
+            running.set(false);
+        }
+        response.put("moved", moved);
+        return response;
+    }
+
+    // Copy the chunk, then delete only the rows that made it into the archive
+    private int moveChunk(List<Long> ids) {
+        archiveRepository.copyFromBookings(ids, LocalDateTime.now());
+        return bookingRepository.deleteArchived(ids);
+    }
+
+    private void widenBounds(LocalDateTime min, LocalDateTime max) {
+        synchronized (this) {
+            if (min != null && (archiveMinEntry == null || min.isBefore(archiveMinEntry))) {
+                archiveMinEntry = min;
+            }
+            if (max != null && (archiveMaxEntry == null || max.isAfter(archiveMaxEntry))) {
+                archiveMaxEntry = max;
+            }
+        }
+    }
+
+    /**
+     * Bookings entered in [start, end], hot and (when the range reaches it) archived, by id
+     */
+    public List<Booking> findInRange(LocalDateTime start, LocalDateTime end) {
+        List<Booking> hot = shardRouter.gather(() -> shardRouter.withUsers(bookingRepository.findForReport(start, end)));
+        if (!archiveOverlaps(start, end)) {
+            return hot;
+        }
+        return union(hot, shardRouter.gather(() -> toBookings(archiveRepository.findForReport(start, end))));
+    }
+
+    /**
+     * Bookings entered before the given time and still parked at it, hot and
+     * archived. Together with findInRange these are every booking that
+     * overlaps a period starting at that time.
+     */
+    public List<Booking> findParkedAcross(LocalDateTime at) {
+        List<Booking> hot = shardRouter.gather(() -> shardRouter.withUsers(bookingRepository.findParkedAcross(at)));
+        LocalDateTime min = archiveMinEntry;
+        if (min == null || !min.isBefore(at)) {
+            return hot;
+        }
+        return union(hot, shardRouter.gather(() -> toBookings(archiveRepository.findParkedAcross(at))));
+    }
+
+    /**
+     * Every booking of a user's vehicles, hot and archived, by id
+     */
+    public List<Booking> findByUserId(Long userId) {
+        List<Booking> hot = shardRouter.gather(() -> shardRouter.withUsers(bookingRepository.findByVehicleUserIdOrderByIdAsc(userId)));
+        if (archiveMaxEntry == null) {
+            return hot;
+        }
+        return union(hot, shardRouter.gather(() -> toBookings(archiveRepository.findByVehicleUserIdOrderByIdAsc(userId))));
+    }
+
+    /**
+     * All completed bookings, hot and archived (used by analytics rebuilds)
+     */
+    public List<Booking> findAllCompleted() {
+        List<Booking> hot = shardRouter.gather(() -> shardRouter.withUsers(bookingRepository.findByStatus(BookingStatus.COMPLETED)));
+        if (archiveMaxEntry == null) {
+            return hot;
+        }
+        return union(hot, shardRouter.gather(() -> toBookings(archiveRepository.findAllByOrderByIdAsc())));
+    }
+
+    private List<Booking> toBookings(List<ArchivedBooking> archived) {
+        List<Booking> bookings = new ArrayList<>(archived.size());
+        for (ArchivedBooking a : archived) {
+            bookings.add(a.toBooking());
+        }
+        return shardRouter.withUsers(bookings);
+    }
+
+    public boolean hasArchivedBookings(Long slotId) {
+        return archiveMaxEntry != null && archiveRepository.existsByParkingSlotId(slotId);
+    }
+
+    public long archivedCount() {
+        return archiveMaxEntry == null ? 0 : shardRouter.sum(() -> archiveRepository.count());
+    }
+
+    public long archivedRevenuePaise() {
+        return archiveMaxEntry == null ? 0 : shardRouter.sum(() -> archiveRepository.sumTotalAmountPaise());
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        status.put("archivedBookings", shardRouter.sum(() -> archiveRepository.count()));
+        status.put("hotBookings", shardRouter.sum(() -> bookingRepository.count()));
+        status.put("archiveFrom", archiveMinEntry);
+        status.put("archiveTo", archiveMaxEntry);
+        status.put("horizonDays", horizonDays);
+        status.put("chunkSize", chunkSize);
+        status.put("movedSinceStartup", movedTotal.get());
+        status.put("lastRunStarted", lastRunStarted);
+        status.put("lastRunFinished", lastRunFinished);
+        status.put("lastRunMoved", lastRunMoved);
+        status.put("lastError", lastError);
+        return status;
+    }
+
+    private boolean archiveOverlaps(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime min = archiveMinEntry;
+        LocalDateTime max = archiveMaxEntry;
+        return min != null && max != null && !start.isAfter(max) && !end.isBefore(min);
+    }
+
+    // Hot is read first, so a row moved in between shows up in both lists; keep one copy
+    private static List<Booking> union(List<Booking> hot, List<Booking> archived) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<Booking> all = new ArrayList<>(hot.size() + archived.size());
+        Set<Long> seen = new HashSet<>();
+        for (Booking b : hot) {
+            seen.add(b.getId());
+            all.add(b);
+        }
+        for (Booking b : archived) {
+            if (seen.add(b.getId())) {
+                all.add(b);
+            }
+        }
+        all.sort(Comparator.comparing(Booking::getId));
+        return Collections.unmodifiableList(all);
+    }
+}
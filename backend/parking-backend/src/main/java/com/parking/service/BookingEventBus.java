@@ -0,0 +1,376 @@
+package com.parking.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.parking.config.ShardContext;
+import com.parking.entity.Booking;
+import com.parking.entity.BookingEvent;
+import com.parking.entity.OutboxCheckpoint;
+import com.parking.entity.ParkingSlot;
+import com.parking.repository.BookingEventRepository;
+import com.parking.repository.OutboxCheckpointRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Transactional outbox for slot and booking events.
+ *
+ * publish() inserts the event into booking_outbox inside the caller's
+ * transaction, so it exists if and only if the change committed, and costs
+ * the locked transaction one insert. After commit a relay thread drains the
+ * outbox in id order, in batches, and hands each event to every
+ * BookingEventListener. A consumer's checkpoint only moves past an event
+ * once its handler returned, and is saved once per batch, so delivery is
+ * at-least-once. A failing consumer is retried after parking.outbox.retry-ms
+ * without holding up the others.
+ *
+ * Ids are assigned at insert, not commit, so a later id can become visible
+ * before an earlier one. The relay stops at such a gap until the missing
+ * id shows up, or until the event after it is parking.outbox.gap-wait-ms
+ * old (the missing insert was most likely rolled back). Skipped ids are
+ * re-checked for a while and delivered late if they do commit after all.
+ * Changes to one slot hold the slot's row lock, so apart from such late
+ * deliveries a slot's events are delivered in commit order.
+ */
+@Service
+public class BookingEventBus {
+
+    @Autowired
+    private BookingEventRepository eventRepository;
+
+    @Autowired
+    private OutboxCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectProvider<BookingEventListener> listenerProvider;
+
+    @Value("${parking.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${parking.outbox.poll-ms:1000}")
+    private long pollMs;
+
+    @Value("${parking.outbox.gap-wait-ms:5000}")
+    private long gapWaitMs;
+
+    @Value("${parking.outbox.retry-ms:5000}")
+    private long retryMs;
+
+    @Value("${parking.outbox.retention-hours:24}")
+    private int retentionHours;
+
+    /**
+     * A registered listener and its progress on each shard
+     */
+    private static final class Consumer {
+        final BookingEventListener listener;
+        final Map<String, Long> checkpoints = new ConcurrentHashMap<>();
+        final AtomicLong delivered = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        volatile long retryAt;
+        volatile String lastError;
+
+        Consumer(BookingEventListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    private final List<Consumer> consumers = new ArrayList<>();
+    // shard -> (skipped id -> give up re-checking at this time)
+    private final Map<String, Map<Long, Long>> skipped = new ConcurrentHashMap<>();
+    private final Object signal = new Object();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong lateDeliveries = new AtomicLong();
+    private volatile boolean woken;
+    private volatile boolean running;
+    private Thread relay;
+
+    /**
+     * Add an event to the outbox as part of the current transaction
+     */
+    public void publish(BookingEvent.Type type, ParkingSlot slot, Booking booking) {
+        eventRepository.save(new BookingEvent(type, ShardContext.current(), slot, booking));
+        published.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            wake();
+        }
+    }
+
+    public void wake() {
+        synchronized (signal) {
+            woken = true;
+            signal.notifyAll();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (BookingEventListener listener : listenerProvider.orderedStream().toList()) {
+            Consumer consumer = new Consumer(listener);
+            for (String shard : shardRouter.shardNames()) {
+                consumer.checkpoints.put(shard, shardRouter.call(ShardContext.DEFAULT, () ->
+                    checkpointRepository.findById(OutboxCheckpoint.key(listener.consumerName(), shard))
+                        .map(OutboxCheckpoint::getLastEventId)
+                        .orElse(shardRouter.idBase(shard))));
+            }
+            consumers.add(consumer);
+        }
+        if (consumers.isEmpty()) {
+            return;
+        }
+
+        running = true;
+        relay = new Thread(this::relayLoop, "outbox-relay");
+        relay.setDaemon(true);
+        relay.start();
+        System.out.println("✅ Outbox relay started for " + consumers.size() + " consumer(s)");
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (relay != null) {
+            relay.interrupt();
+        }
+    }
+
+    private void relayLoop() {
+        while (running) {
+            try {
+                boolean more = false;
+                for (String shard : shardRouter.shardNames()) {
+                    more |= drain(shard);
+                }
+                if (more) {
+                    continue;
+                }
+                synchronized (signal) {
+                    if (!woken) {
+                        signal.wait(pollMs);
+                    }
+                    woken = false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.out.println("❌ Outbox relay error: " + e.getMessage());
+                try {
+                    Thread.sleep(pollMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Deliver one batch from a shard's outbox; true if a full batch was read
+     */
+    private boolean drain(String shard) {
+        long from = Long.MAX_VALUE;
+        for (Consumer c : consumers) {
+            from = Math.min(from, c.checkpoints.get(shard));
+        }
+        long start = from;
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<BookingEvent> rows;
+        List<BookingEvent> late;
+        try (ShardContext.Scope scope = ShardContext.use(shard)) {
+            rows = tx.execute(status -> eventRepository.findNext(start, PageRequest.of(0, batchSize)));
+            late = recheckSkipped(shard, tx);
+        }
+
+        // Contiguous prefix, jumping gaps that have been open for too long
+        List<BookingEvent> ready = new ArrayList<>();
+        LocalDateTime gapCutoff = LocalDateTime.now().minusNanos(gapWaitMs * 1_000_000);
+        long prev = from;
+        for (BookingEvent e : rows) {
+            if (e.getId() != prev + 1) {
+                if (e.getOccurredAt().isAfter(gapCutoff)) {
+                    break;
+                }
+                Map<Long, Long> pending = skipped.computeIfAbsent(shard, k -> new ConcurrentHashMap<>());
+                long giveUpAt = System.currentTimeMillis() + 10 * gapWaitMs;
+                for (long id = prev + 1; id < e.getId() && pending.size() < 10_000; id++) {
+                    pending.put(id, giveUpAt);
+                }
+            }
+            ready.add(e);
+            prev = e.getId();
+        }
+
+        long now = System.currentTimeMillis();
+        boolean lateDone = true;
+        for (Consumer c : consumers) {
+            if (c.retryAt > now) {
+                lateDone = false;
+                continue;
+            }
+            long checkpoint = c.checkpoints.get(shard);
+            long reached = checkpoint;
+            boolean failed = false;
+            for (BookingEvent e : late) {
+                // Consumers that have not got that far yet see it in order below
+                if (e.getId() > checkpoint) {
+                    continue;
+                }
+                failed = !deliver(c, e);
+                if (failed) {
+                    lateDone = false;
+                    break;
+                }
+                lateDeliveries.incrementAndGet();
+            }
+            for (BookingEvent e : ready) {
+                if (failed) {
+                    break;
+                }
+                if (e.getId() <= checkpoint) {
+                    continue;
+                }
+                failed = !deliver(c, e);
+                if (!failed) {
+                    reached = e.getId();
+                }
+            }
+            if (reached > checkpoint) {
+                saveCheckpoint(c, shard, reached);
+            }
+        }
+        if (lateDone && !late.isEmpty()) {
+            Map<Long, Long> pending = skipped.get(shard);
+            for (BookingEvent e : late) {
+                pending.remove(e.getId());
+            }
+        }
+        return rows.size() == batchSize && ready.size() == rows.size();
+    }
+
+    private boolean deliver(Consumer c, BookingEvent e) {
+        try {
+            c.listener.onEvent(e);
+            c.delivered.incrementAndGet();
+            return true;
+        } catch (Exception ex) {
+            c.failures.incrementAndGet();
+            c.lastError = "event " + e.getId() + ": " + ex.getMessage();
+            c.retryAt = System.currentTimeMillis() + retryMs;
+            System.out.println("❌ Consumer " + c.listener.consumerName() + " failed on " + c.lastError);
+            return false;
+        }
+    }
+
+    // Skipped ids that have turned up since, in id order
+    private List<BookingEvent> recheckSkipped(String shard, TransactionTemplate tx) {
+        Map<Long, Long> pending = skipped.get(shard);
+        if (pending == null || pending.isEmpty()) {
+            return List.of();
+        }
+        long now = System.currentTimeMillis();
+        pending.values().removeIf(giveUpAt -> giveUpAt < now);
+        List<Long> ids = new ArrayList<>(pending.keySet());
+        List<BookingEvent> found = new ArrayList<>(tx.execute(status -> eventRepository.findAllById(ids)));
+        found.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        return found;
+    }
+
+    private void saveCheckpoint(Consumer c, String shard, long lastEventId) {
+        c.checkpoints.put(shard, lastEventId);
+        shardRouter.call(ShardContext.DEFAULT, () ->
+            checkpointRepository.save(new OutboxCheckpoint(c.listener.consumerName(), shard, lastEventId)));
+    }
+
+    /**
+     * Remove events that every consumer has processed and that are older than the retention
+     */
+    @Scheduled(cron = "${parking.outbox.cleanup-cron:0 15 * * * *}")
+    public void cleanup() {
+        if (consumers.isEmpty()) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (String shard : shardRouter.shardNames()) {
+            long upTo = Long.MAX_VALUE;
+            for (Consumer c : consumers) {
+                upTo = Math.min(upTo, c.checkpoints.get(shard));
+            }
+            long limit = upTo;
+            try (ShardContext.Scope scope = ShardContext.use(shard)) {
+                Integer removed = tx.execute(status -> eventRepository.deleteDelivered(limit, before));
+                if (removed != null && removed > 0) {
+                    System.out.println("✅ Removed " + removed + " delivered outbox events on shard " + shard);
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("relayRunning", relay != null && relay.isAlive());
+        status.put("publishedSinceStartup", published.get());
+        status.put("lateDeliveries", lateDeliveries.get());
+        int openGaps = 0;
+        for (Map<Long, Long> pending : skipped.values()) {
+            openGaps += pending.size();
+        }
+        status.put("skippedIdsWatched", openGaps);
+
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Consumer c : consumers) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("consumer", c.listener.consumerName());
+            m.put("checkpoints", new HashMap<>(c.checkpoints));
+            long lag = 0;
+            for (Map.Entry<String, Long> cp : c.checkpoints.entrySet()) {
+                lag += shardRouter.call(cp.getKey(), () -> eventRepository.countByIdGreaterThan(cp.getValue()));
+            }
+            m.put("pendingEvents", lag);
+            m.put("delivered", c.delivered.get());
+            m.put("failures", c.failures.get());
+            if (c.lastError != null) {
+                m.put("lastError", c.lastError);
+            }
+            list.add(m);
+        }
+        status.put("consumers", list);
+        status.put("outboxRows", shardRouter.scatter(s -> eventRepository.count()));
+        return status;
+    }
+}
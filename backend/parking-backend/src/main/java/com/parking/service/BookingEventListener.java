@@ -0,0 +1,19 @@
+package com.parking.service;
+
+import com.parking.entity.BookingEvent;
+
+/**
+ * Consumer of committed slot and booking events. Any bean implementing this
+ * is picked up by BookingEventBus.
+ *
+ * Delivery is at-least-once: after a crash or a thrown exception the same
+ * event comes again, so handlers must tolerate repeats (the event id is a
+ * natural dedupe key). Events of one slot arrive in commit order.
+ */
+public interface BookingEventListener {
+
+    // Stable name; the consumer's checkpoint is stored under it
+    String consumerName();
+
+    void onEvent(BookingEvent event) throws Exception;
+}
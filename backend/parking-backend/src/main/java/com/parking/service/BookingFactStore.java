@@ -0,0 +1,526 @@
+package com.parking.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.parking.entity.Booking;
+import com.parking.entity.ParkingSlot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only columnar store of completed bookings for ad-hoc analytics.
+ * Rows live in fixed-capacity memory-mapped segment files, one contiguous
+ * region per primitive column, so group-by scans run as tight loops over
+ * primitive arrays in parallel across segments without touching the database.
+ *
+ * Cities and slots are stored as dense codes from append-only dictionaries
+ * (cities.dict, slots.dict), so slot ids of any size (sharded ids start at
+ * shard * ShardRouter.ID_STRIDE) group into arrays sized by the number of
+ * distinct slots.
+ */
+@Component
+public class BookingFactStore {
+
+    // Asia/Kolkata has a fixed +05:30 offset, so hour and weekday are plain arithmetic
+    public static final ZoneOffset IST = ZoneOffset.ofHoursMinutes(5, 30);
+    private static final int IST_OFFSET_SECONDS = 19_800;
+
+    static final int SEGMENT_ROWS = 1 << 18;
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC = 0x42464331; // "BFC1"
+    // 1: slot column held slot ids; 2: codes from slots.dict
+    private static final int VERSION = 2;
+    private static final int BLOCK = 4096;
+
+    // Column layout: byte offsets of each region within a segment file
+    private static final long COL_SLOT = HEADER_BYTES;
+    private static final long COL_CITY = COL_SLOT + 4L * SEGMENT_ROWS;
+    private static final long COL_VEHICLE = COL_CITY + 2L * SEGMENT_ROWS;
+    private static final long COL_SLOT_TYPE = COL_VEHICLE + SEGMENT_ROWS;
+    private static final long COL_ENTRY = COL_SLOT_TYPE + SEGMENT_ROWS;
+    private static final long COL_EXIT = COL_ENTRY + 8L * SEGMENT_ROWS;
+    private static final long COL_MINUTES = COL_EXIT + 8L * SEGMENT_ROWS;
+    private static final long COL_AMOUNT = COL_MINUTES + 4L * SEGMENT_ROWS;
+    private static final long SEGMENT_BYTES = COL_AMOUNT + 8L * SEGMENT_ROWS;
+
+    // Duration buckets in minutes: <1h, 1-2h, 2-4h, 4-8h, 8-24h, 24h+
+    private static final int[] DURATION_BOUNDS = {60, 120, 240, 480, 1440};
+    static final String[] DURATION_LABELS = {"<1h", "1-2h", "2-4h", "4-8h", "8-24h", "24h+"};
+    private static final String[] SLOT_TYPE_LABELS = {"SMALL", "MEDIUM", "LARGE", "OTHER"};
+    private static final String[] VEHICLE_TYPE_LABELS = {"BIKE", "CAR", "SUV", "TRUCK", "OTHER"};
+
+    @Value("${parking.analytics.store-dir:./data/analytics}")
+    private String storeDir;
+
+    // Largest group-by (product of the dimensions' cardinalities) a query may ask for
+    @Value("${parking.analytics.max-groups:262144}")
+    private int maxGroups;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final List<String> cities = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> cityIds = new HashMap<>();
+    private final List<Long> slotIds = new CopyOnWriteArrayList<>();
+    private final Map<Long, Integer> slotCodes = new HashMap<>();
+
+    /**
+     * Group-by dimensions supported by queries
+     */
+    public enum Dimension {
+        CITY, HOUR, WEEKDAY, SLOT_TYPE, VEHICLE_TYPE, DURATION, SLOT
+    }
+
+    /**
+     * Filters for a query; null means no filter
+     */
+    public static class Filter {
+        public Long fromEpoch;
+        public Long toEpoch;
+        public Integer cityId;
+        public Integer vehicleTypeCode;
+        public Integer slotTypeCode;
+    }
+
+    /**
+     * Dense aggregation result: one slot per combination of dimension values
+     */
+    public static class Result {
+        public final Dimension[] dimensions;
+        public final int[] cardinalities;
+        public final long[] counts;
+        public final long[] minutes;
+        public final long[] amountPaise;
+
+        Result(Dimension[] dimensions, int[] cardinalities, int size) {
+            this.dimensions = dimensions;
+            this.cardinalities = cardinalities;
+            this.counts = new long[size];
+            this.minutes = new long[size];
+            this.amountPaise = new long[size];
+        }
+
+        Result merge(Result other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+                minutes[i] += other.minutes[i];
+                amountPaise[i] += other.amountPaise[i];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * One memory-mapped segment file
+     */
+    static final class Segment {
+        final Path path;
+        final MappedByteBuffer buf;
+        volatile int size;
+
+        Segment(Path path, MappedByteBuffer buf, int size) {
+            this.path = path;
+            this.buf = buf;
+            this.size = size;
+        }
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path dir = Paths.get(storeDir);
+        Files.createDirectories(dir);
+
+        Path dictionary = dir.resolve("cities.dict");
+        if (Files.exists(dictionary)) {
+            for (String city : Files.readAllLines(dictionary, StandardCharsets.UTF_8)) {
+                if (!city.isEmpty()) {
+                    cityIds.put(city, cities.size());
+                    cities.add(city);
+                }
+            }
+        }
+
+        Path slotDictionary = dir.resolve("slots.dict");
+        if (Files.exists(slotDictionary)) {
+            for (String id : Files.readAllLines(slotDictionary, StandardCharsets.UTF_8)) {
+                if (!id.isEmpty()) {
+                    slotCodes.put(Long.valueOf(id), slotIds.size());
+                    slotIds.add(Long.valueOf(id));
+                }
+            }
+        }
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(p -> p.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+        for (Path file : files) {
+            Segment segment = map(file, false);
+            if (segment.buf.getInt(0) == MAGIC) {
+                if (segment.buf.getInt(4) < VERSION) {
+                    upgrade(segment);
+                }
+                segments.add(segment);
+            }
+        }
+        System.out.println("✅ Booking fact store opened: " + rowCount() + " rows in " + segments.size() + " segments");
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Segment segment : segments) {
+            segment.buf.force();
+        }
+    }
+
+    /**
+     * Append a completed booking once the surrounding transaction commits
+     */
+    public void appendAfterCommit(Booking booking) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(booking);
+                }
+            });
+        } else {
+            append(booking);
+        }
+    }
+
+    /**
+     * Append a completed booking
+     */
+    public synchronized void append(Booking booking) {
+        if (booking.getEntryTime() == null || booking.getExitTime() == null) {
+            return;
+        }
+        try {
+            Segment segment = writableSegment();
+            int row = segment.size;
+            ParkingSlot slot = booking.getParkingSlot();
+            long entry = booking.getEntryTime().toEpochSecond(IST);
+            long exit = booking.getExitTime().toEpochSecond(IST);
+
+            MappedByteBuffer buf = segment.buf;
+            buf.putInt((int) (COL_SLOT + 4L * row), slot != null ? slotCode(slot.getId()) : -1);
+            buf.putShort((int) (COL_CITY + 2L * row), (short) cityId(slot != null ? slot.getCity() : null));
+            buf.put((int) (COL_VEHICLE + row), (byte) PricingEngine.vehicleTypeCode(
+                booking.getVehicle() != null ? booking.getVehicle().getVehicleType() : null));
+            buf.put((int) (COL_SLOT_TYPE + row), (byte) PricingEngine.slotTypeCode(
+                slot != null ? slot.getSlotType() : null));
+            buf.putLong((int) (COL_ENTRY + 8L * row), entry);
+            buf.putLong((int) (COL_EXIT + 8L * row), exit);
+            buf.putInt((int) (COL_MINUTES + 4L * row), (int) ((exit - entry) / 60));
+            buf.putLong((int) (COL_AMOUNT + 8L * row),
+                booking.getTotalAmountPaise() != null ? booking.getTotalAmountPaise() : 0L);
+
+            // Publish the row: header count first, then the volatile size
+            buf.putInt(8, row + 1);
+            segment.size = row + 1;
+        } catch (IOException e) {
+            System.err.println("❌ Failed to append booking " + booking.getBookingNumber() + " to fact store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drop every segment and start over (used by rebuilds)
+     */
+    public synchronized void truncate() throws IOException {
+        List<Segment> old = new ArrayList<>(segments);
+        segments.clear();
+        for (Segment segment : old) {
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    public long rowCount() {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.size;
+        }
+        return total;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public List<String> cities() {
+        return List.copyOf(cities);
+    }
+
+    public Integer cityIdOf(String city) {
+        synchronized (this) {
+            return cityIds.get(city);
+        }
+    }
+
+    /**
+     * Run a filtered group-by over all segments in parallel. Each worker
+     * folds its share of the segments into one accumulator, so memory is
+     * workers * groups whatever the number of segments. Throws
+     * IllegalArgumentException when the group-by has more than max-groups
+     * combinations.
+     */
+    public Result query(Filter filter, Dimension... dimensions) {
+        // Slots appended after this point fall outside the result
+        int slotCardinality = Math.max(1, slotIds.size());
+        int[] cardinalities = new int[dimensions.length];
+        long groups = 1;
+        for (int i = 0; i < dimensions.length; i++) {
+            cardinalities[i] = cardinality(dimensions[i], slotCardinality);
+            groups *= cardinalities[i];
+            if (groups > maxGroups) {
+                throw new IllegalArgumentException("grouping by " + List.of(dimensions) + " gives more than " +
+                    maxGroups + " groups; group by fewer dimensions");
+            }
+        }
+        int size = (int) groups;
+
+        List<Segment> scanned = List.copyOf(segments);
+        int workers = Math.max(1, Math.min(scanned.size(), ForkJoinPool.getCommonPoolParallelism() + 1));
+        return IntStream.range(0, workers).parallel()
+            .mapToObj(worker -> {
+                Result result = new Result(dimensions, cardinalities, size);
+                for (int s = worker; s < scanned.size(); s += workers) {
+                    scan(scanned.get(s), filter, dimensions, cardinalities, slotCardinality, result);
+                }
+                return result;
+            })
+            .reduce(Result::merge)
+            .orElseThrow();
+    }
+
+    public String label(Dimension dimension, int value) {
+        return switch (dimension) {
+            case CITY -> value < cities.size() ? cities.get(value) : "UNKNOWN";
+            case HOUR -> String.format("%02d:00", value);
+            case WEEKDAY -> DayOfWeek.of(value + 1).toString();
+            case SLOT_TYPE -> SLOT_TYPE_LABELS[value];
+            case VEHICLE_TYPE -> VEHICLE_TYPE_LABELS[value];
+            case DURATION -> DURATION_LABELS[value];
+            case SLOT -> value < slotIds.size() ? String.valueOf(slotIds.get(value)) : "UNKNOWN";
+        };
+    }
+
+    public static long toEpoch(LocalDateTime time) {
+        return time.toEpochSecond(IST);
+    }
+
+    // Add the segment's matching rows to result
+    private void scan(Segment segment, Filter filter, Dimension[] dimensions, int[] cardinalities, int slotCard,
+                      Result result) {
+        MappedByteBuffer buf = segment.buf;
+        int size = segment.size;
+
+        int[] keys = new int[BLOCK];
+        long[] entry = new long[BLOCK];
+        int[] minutes = new int[BLOCK];
+        long[] amount = new long[BLOCK];
+
+        long from = filter.fromEpoch != null ? filter.fromEpoch : Long.MIN_VALUE;
+        long to = filter.toEpoch != null ? filter.toEpoch : Long.MAX_VALUE;
+
+        for (int base = 0; base < size; base += BLOCK) {
+            int n = Math.min(BLOCK, size - base);
+
+            // Load the columns every query needs
+            for (int i = 0; i < n; i++) {
+                entry[i] = buf.getLong((int) (COL_ENTRY + 8L * (base + i)));
+                minutes[i] = buf.getInt((int) (COL_MINUTES + 4L * (base + i)));
+                amount[i] = buf.getLong((int) (COL_AMOUNT + 8L * (base + i)));
+                keys[i] = entry[i] >= from && entry[i] <= to ? 0 : -1;
+            }
+
+            // Filters: mark rejected rows with -1
+            if (filter.cityId != null) {
+                int city = filter.cityId;
+                for (int i = 0; i < n; i++) {
+                    if (buf.getShort((int) (COL_CITY + 2L * (base + i))) != city) keys[i] = -1;
+                }
+            }
+            if (filter.vehicleTypeCode != null) {
+                int code = filter.vehicleTypeCode;
+                for (int i = 0; i < n; i++) {
+                    if (buf.get((int) (COL_VEHICLE + base + i)) != code) keys[i] = -1;
+                }
+            }
+            if (filter.slotTypeCode != null) {
+                int code = filter.slotTypeCode;
+                for (int i = 0; i < n; i++) {
+                    if (buf.get((int) (COL_SLOT_TYPE + base + i)) != code) keys[i] = -1;
+                }
+            }
+
+            // Fold each dimension into a dense group key
+            for (int d = 0; d < dimensions.length; d++) {
+                int card = cardinalities[d];
+                switch (dimensions[d]) {
+                    case CITY -> {
+                        for (int i = 0; i < n; i++) {
+                            keys[i] = keys[i] < 0 ? -1 : keys[i] * card + buf.getShort((int) (COL_CITY + 2L * (base + i)));
+                        }
+                    }
+                    case HOUR -> {
+                        for (int i = 0; i < n; i++) {
+                            int hour = (int) (Math.floorMod(entry[i] + IST_OFFSET_SECONDS, 86_400L) / 3_600);
+                            keys[i] = keys[i] < 0 ? -1 : keys[i] * card + hour;
+                        }
+                    }
+                    case WEEKDAY -> {
+                        for (int i = 0; i < n; i++) {
+                            // 1970-01-01 was a Thursday (Monday = 0)
+                            int day = (int) Math.floorMod(Math.floorDiv(entry[i] + IST_OFFSET_SECONDS, 86_400L) + 3, 7L);
+                            keys[i] = keys[i] < 0 ? -1 : keys[i] * card + day;
+                        }
+                    }
+                    case SLOT_TYPE -> {
+                        for (int i = 0; i < n; i++) {
+                            keys[i] = keys[i] < 0 ? -1 : keys[i] * card + buf.get((int) (COL_SLOT_TYPE + base + i));
+                        }
+                    }
+                    case VEHICLE_TYPE -> {
+                        for (int i = 0; i < n; i++) {
+                            keys[i] = keys[i] < 0 ? -1 : keys[i] * card + buf.get((int) (COL_VEHICLE + base + i));
+                        }
+                    }
+                    case DURATION -> {
+                        for (int i = 0; i < n; i++) {
+                            keys[i] = keys[i] < 0 ? -1 : keys[i] * card + durationBucket(minutes[i]);
+                        }
+                    }
+                    case SLOT -> {
+                        for (int i = 0; i < n; i++) {
+                            int slot = buf.getInt((int) (COL_SLOT + 4L * (base + i)));
+                            keys[i] = keys[i] < 0 || slot < 0 || slot >= slotCard ? -1 : keys[i] * card + slot;
+                        }
+                    }
+                }
+            }
+
+            // Accumulate measures
+            for (int i = 0; i < n; i++) {
+                int k = keys[i];
+                if (k >= 0) {
+                    result.counts[k]++;
+                    result.minutes[k] += minutes[i];
+                    result.amountPaise[k] += amount[i];
+                }
+            }
+        }
+    }
+
+    private int cardinality(Dimension dimension, int slotCardinality) {
+        return switch (dimension) {
+            case CITY -> Math.max(1, cities.size());
+            case HOUR -> 24;
+            case WEEKDAY -> 7;
+            case SLOT_TYPE -> PricingEngine.SLOT_TYPES;
+            case VEHICLE_TYPE -> PricingEngine.VEHICLE_TYPES;
+            case DURATION -> DURATION_LABELS.length;
+            case SLOT -> slotCardinality;
+        };
+    }
+
+    private static int durationBucket(int minutes) {
+        int bucket = 0;
+        for (int bound : DURATION_BOUNDS) {
+            if (minutes >= bound) {
+                bucket++;
+            }
+        }
+        return bucket;
+    }
+
+    private int cityId(String city) throws IOException {
+        String key = city != null ? city : "UNKNOWN";
+        Integer id = cityIds.get(key);
+        if (id == null) {
+            id = cities.size();
+            cityIds.put(key, id);
+            cities.add(key);
+            Files.writeString(Paths.get(storeDir, "cities.dict"), key + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return id;
+    }
+
+    private int slotCode(Long slotId) throws IOException {
+        Integer code = slotCodes.get(slotId);
+        if (code == null) {
+            code = slotIds.size();
+            slotCodes.put(slotId, code);
+            slotIds.add(slotId);
+            Files.writeString(Paths.get(storeDir, "slots.dict"), slotId + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return code;
+    }
+
+    /**
+     * Rewrite a version 1 segment, whose slot column held int slot ids, to
+     * slot codes. Those ids were only whole when unsharded; a sharded store
+     * written by version 1 needs a rebuild (POST /api/analytics/rebuild).
+     */
+    private void upgrade(Segment segment) throws IOException {
+        MappedByteBuffer buf = segment.buf;
+        for (int i = 0; i < segment.size; i++) {
+            int at = (int) (COL_SLOT + 4L * i);
+            int slotId = buf.getInt(at);
+            buf.putInt(at, slotId >= 0 ? slotCode((long) slotId) : -1);
+        }
+        buf.putInt(4, VERSION);
+        buf.force();
+        System.out.println("Upgraded fact segment " + segment.path.getFileName() + " to slot codes");
+    }
+
+    private Segment writableSegment() throws IOException {
+        if (!segments.isEmpty()) {
+            Segment last = segments.get(segments.size() - 1);
+            if (last.size < SEGMENT_ROWS) {
+                return last;
+            }
+        }
+        Path file = Paths.get(storeDir, String.format("bookings-%06d.seg", segments.size()));
+        Segment segment = map(file, true);
+        segments.add(segment);
+        return segment;
+    }
+
+    private Segment map(Path file, boolean create) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES);
+            if (create) {
+                buf.putInt(0, MAGIC);
+                buf.putInt(4, VERSION);
+                buf.putInt(8, 0);
+            }
+            return new Segment(file, buf, create ? 0 : buf.getInt(8));
+        }
+    }
+}
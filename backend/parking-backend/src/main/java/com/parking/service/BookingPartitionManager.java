@@ -0,0 +1,451 @@
+package com.parking.service;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Monthly RANGE partitions of bookings on entry_time (MySQL only).
+ *
+ * The one-off conversion (POST /api/partitions/convert) rebuilds the table,
+ * so run it in a maintenance window. MySQL requires every unique key of a
+ * partitioned table to contain the partitioning column and does not allow
+ * foreign keys on it, so the conversion:
+ *  - drops foreign keys from and to bookings (vehicle, slot and anything
+ *    referencing a booking are no longer checked by the database),
+ *  - turns the primary key into (id, entry_time),
+ *  - appends entry_time to every other unique key.
+ * The response lists each of these so they can be reviewed.
+ *
+ * booking_number would then only be unique per entry time, so it moves to
+ * booking_numbers, an unpartitioned table with booking_number as its
+ * primary key. The conversion fills it from bookings and the archive, and
+ * from then on every new booking claims its number there in the same
+ * transaction (claimBookingNumber). Rows are never removed, so numbers
+ * stay unique across archiving too.
+ *
+ * Afterwards the maintenance job keeps parking.partitioning.premake-months
+ * of empty future partitions ahead of the clock and drops partitions older
+ * than the retention once the archiver has emptied them.
+ *
+ * On H2 (and on MySQL with partitioning disabled) the entry_time index on
+ * bookings is the fallback; range queries stay the same either way, as
+ * long as they compare entry_time directly so the optimizer can prune.
+ */
+@Service
+public class BookingPartitionManager {
+
+    private static final String TABLE = "bookings";
+    private static final String NUMBERS = "booking_numbers";
+    private static final String ARCHIVE = "bookings_archive";
+    private static final String FUTURE = "p_future";
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final String BENCH_TABLE = "bookings_partition_bench";
+    private static final int BENCH_MONTHS = 24;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${parking.partitioning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${parking.partitioning.premake-months:3}")
+    private int premakeMonths;
+
+    // 0 keeps every partition
+    @Value("${parking.partitioning.retention-months:0}")
+    private int retentionMonths;
+
+    private volatile boolean mysql;
+
+    // Checked on every park, so kept here rather than asked of information_schema.
+    // Other instances see a conversion on restart or at the next maintenance run.
+    private volatile boolean partitioned;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try (Connection conn = dataSource.getConnection()) {
+            mysql = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+        } catch (Exception e) {
+            System.out.println("❌ Could not detect database for partitioning: " + e.getMessage());
+            return;
+        }
+        partitioned = isPartitioned();
+        if (enabled && mysql && partitioned) {
+            maintain();
+        } else if (enabled && mysql) {
+            System.out.println("⚠️ Booking partitioning enabled but bookings is not partitioned yet " +
+                               "(POST /api/partitions/convert)");
+        }
+    }
+
+    /**
+     * Convert bookings to monthly partitions (MySQL, one-off)
+     */
+    public synchronized Map<String, Object> convert() {
+        Map<String, Object> response = new HashMap<>();
+        if (!mysql) {
+            response.put("success", false);
+            response.put("message", "Partitioning needs MySQL; this database uses the entry_time index instead");
+            return response;
+        }
+        if (isPartitioned()) {
+            response.put("success", false);
+            response.put("message", "Bookings table is already partitioned");
+            return response;
+        }
+
+        try {
+            System.out.println("=== BOOKING PARTITION CONVERSION ===");
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + NUMBERS +
+                                 " (booking_number VARCHAR(255) NOT NULL PRIMARY KEY)");
+            int claimed = jdbcTemplate.update("INSERT IGNORE INTO " + NUMBERS + " SELECT booking_number FROM " + TABLE);
+            if (tableExists(ARCHIVE)) {
+                claimed += jdbcTemplate.update("INSERT IGNORE INTO " + NUMBERS +
+                                               " SELECT booking_number FROM " + ARCHIVE);
+            }
+
+            List<Map<String, Object>> foreignKeys = jdbcTemplate.queryForList(
+                "SELECT TABLE_NAME, CONSTRAINT_NAME, REFERENCED_TABLE_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS " +
+                "WHERE CONSTRAINT_SCHEMA = DATABASE() AND (TABLE_NAME = ? OR REFERENCED_TABLE_NAME = ?)",
+                TABLE, TABLE);
+            List<String> droppedForeignKeys = new ArrayList<>();
+            for (Map<String, Object> fk : foreignKeys) {
+                jdbcTemplate.execute("ALTER TABLE " + fk.get("TABLE_NAME") +
+                                     " DROP FOREIGN KEY " + fk.get("CONSTRAINT_NAME"));
+                droppedForeignKeys.add(fk.get("TABLE_NAME") + "." + fk.get("CONSTRAINT_NAME") +
+                                       " -> " + fk.get("REFERENCED_TABLE_NAME"));
+            }
+
+            List<String> keyChanges = new ArrayList<>();
+            List<String> widenedUniqueKeys = new ArrayList<>();
+            keyChanges.add("DROP PRIMARY KEY, ADD PRIMARY KEY (id, entry_time)");
+            List<Map<String, Object>> uniqueKeys = jdbcTemplate.queryForList(
+                "SELECT INDEX_NAME, GROUP_CONCAT(COLUMN_NAME ORDER BY SEQ_IN_INDEX) AS COLS " +
+                "FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? " +
+                "AND NON_UNIQUE = 0 AND INDEX_NAME <> 'PRIMARY' GROUP BY INDEX_NAME",
+                TABLE);
+            for (Map<String, Object> key : uniqueKeys) {
+                String name = (String) key.get("INDEX_NAME");
+                String cols = (String) key.get("COLS");
+                if (!Arrays.asList(cols.split(",")).contains("entry_time")) {
+                    cols += ",entry_time";
+                }
+                widenedUniqueKeys.add(name + " (" + cols + ")");
+                keyChanges.add("DROP INDEX " + name + ", ADD UNIQUE INDEX " + name + " (" + cols + ")");
+            }
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " " + String.join(", ", keyChanges));
+
+            YearMonth first = YearMonth.now();
+            LocalDate oldest = jdbcTemplate.queryForObject(
+                "SELECT DATE(MIN(entry_time)) FROM " + TABLE, LocalDate.class);
+            if (oldest != null && YearMonth.from(oldest).isBefore(first)) {
+                first = YearMonth.from(oldest);
+            }
+            YearMonth last = YearMonth.now().plusMonths(premakeMonths);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " PARTITION BY RANGE COLUMNS(entry_time) (" +
+                                 partitionDefinitions(first, last) + ")");
+            partitioned = true;
+
+            response.put("success", true);
+            response.put("message", "Bookings partitioned monthly from " + first + " to " + last);
+            response.put("droppedForeignKeys", droppedForeignKeys);
+            response.put("widenedUniqueKeys", widenedUniqueKeys);
+            response.put("bookingNumbersClaimed", claimed);
+            response.put("warnings", List.of(
+                "Foreign keys from and to bookings were dropped; the database no longer checks " +
+                "vehicle_id, slot_id or references to bookings",
+                "The primary key is now (id, entry_time) and every unique key includes entry_time",
+                "booking_number uniqueness is enforced through " + NUMBERS + ", not by a unique key on bookings"
+            ));
+            System.out.println("✅ Bookings partitioned monthly from " + first + " to " + last);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Partition conversion failed: " + e.getMessage());
+            System.out.println("❌ Partition conversion failed: " + e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * Keep future partitions ahead of the clock and drop emptied expired ones
+     */
+    @Scheduled(cron = "${parking.partitioning.cron:0 30 2 * * *}")
+    public synchronized Map<String, Object> maintain() {
+        Map<String, Object> response = new HashMap<>();
+        partitioned = isPartitioned();
+        if (!enabled || !mysql || !partitioned) {
+            response.put("success", false);
+            response.put("message", "Bookings table is not partitioned");
+            return response;
+        }
+
+        List<String> created = new ArrayList<>();
+        List<String> dropped = new ArrayList<>();
+        List<String> kept = new ArrayList<>();
+        try {
+            List<YearMonth> months = monthPartitions();
+            YearMonth next = months.isEmpty() ? YearMonth.now() : months.get(months.size() - 1).plusMonths(1);
+            YearMonth last = YearMonth.now().plusMonths(premakeMonths);
+            if (!next.isAfter(last)) {
+                // p_future is empty as long as the premade months stay ahead of the clock,
+                // so splitting it only touches metadata
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE + " INTO (" +
+                                     partitionDefinitions(next, last) + ")");
+                for (YearMonth m = next; !m.isAfter(last); m = m.plusMonths(1)) {
+                    created.add(partitionName(m));
+                }
+            }
+
+            if (retentionMonths > 0) {
+                YearMonth expiredBefore = YearMonth.now().minusMonths(retentionMonths);
+                for (YearMonth month : months) {
+                    if (!month.isBefore(expiredBefore)) {
+                        break;
+                    }
+                    String name = partitionName(month);
+                    // Rows are only ever removed by the archiver; never drop live data
+                    Long rows = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM " + TABLE + " PARTITION (" + name + ")", Long.class);
+                    if (rows != null && rows == 0) {
+                        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + name);
+                        dropped.add(name);
+                    } else {
+                        kept.add(name);
+                    }
+                }
+            }
+
+            response.put("success", true);
+            response.put("created", created);
+            response.put("dropped", dropped);
+            response.put("expiredNotArchived", kept);
+            if (!created.isEmpty() || !dropped.isEmpty()) {
+                System.out.println("✅ Booking partitions created " + created + ", dropped " + dropped);
+            }
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Partition maintenance failed: " + e.getMessage());
+            System.out.println("❌ Partition maintenance failed: " + e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * Reserve a new booking number. Once bookings is partitioned its own
+     * unique key only covers (booking_number, entry_time), so the number is
+     * inserted into booking_numbers, in the caller's transaction; a number
+     * already taken fails with DuplicateKeyException. Before conversion
+     * the unique key on bookings does this and nothing happens here.
+     */
+    public void claimBookingNumber(String bookingNumber) {
+        if (partitioned) {
+            jdbcTemplate.update("INSERT INTO " + NUMBERS + " (booking_number) VALUES (?)", bookingNumber);
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("database", mysql ? "MySQL" : "other");
+        status.put("enabled", enabled);
+        status.put("premakeMonths", premakeMonths);
+        status.put("retentionMonths", retentionMonths);
+        if (mysql && isPartitioned()) {
+            status.put("mode", "PARTITIONED");
+            status.put("partitions", jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME AS name, PARTITION_DESCRIPTION AS lessThan, TABLE_ROWS AS approxRows " +
+                "FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? " +
+                "ORDER BY PARTITION_ORDINAL_POSITION", TABLE));
+        } else {
+            status.put("mode", "INDEX");
+        }
+        return status;
+    }
+
+    /**
+     * Pruned vs unpruned range scans over a synthetic copy of the bookings
+     * layout: rows spread over 24 months, one month queried per run (a
+     * different month each time, so no run is answered from a query cache).
+     *
+     * The pruned query compares entry_time directly; the unpruned one wraps
+     * it in CAST(... AS DATE), which defeats both partition pruning and the
+     * index. On MySQL the scratch table is partitioned like bookings; on
+     * other databases it carries the entry_time index fallback instead.
+     */
+    public synchronized Map<String, Object> benchmark(int rows, int runs) {
+        Map<String, Object> response = new HashMap<>();
+        YearMonth firstMonth = YearMonth.now().minusMonths(BENCH_MONTHS - 1);
+        runs = Math.max(1, Math.min(runs, BENCH_MONTHS - 2));
+
+        // Bounds are bound as strings: the column holds wall-clock time,
+        // so no JDBC time-zone shift is wanted here
+        String pruned = "SELECT COUNT(*) FROM " + BENCH_TABLE +
+                        " WHERE entry_time >= ? AND entry_time < ?";
+        String unpruned = "SELECT COUNT(*) FROM " + BENCH_TABLE +
+                          " WHERE CAST(entry_time AS DATE) >= ? AND CAST(entry_time AS DATE) < ?";
+
+        try {
+            long started = System.currentTimeMillis();
+            createBenchTable(firstMonth);
+            fillBenchTable(rows, firstMonth);
+            response.put("loadMs", System.currentTimeMillis() - started);
+
+            long[] prunedMs = new long[runs];
+            long[] unprunedMs = new long[runs];
+            long prunedRows = 0;
+            long unprunedRows = 0;
+            for (int i = 0; i < runs; i++) {
+                YearMonth month = firstMonth.plusMonths(1 + i);
+                String from = month.atDay(1).toString();
+                String to = month.plusMonths(1).atDay(1).toString();
+
+                long t0 = System.nanoTime();
+                prunedRows += jdbcTemplate.queryForObject(pruned, Long.class, from + " 00:00:00", to + " 00:00:00");
+                long t1 = System.nanoTime();
+                unprunedRows += jdbcTemplate.queryForObject(unpruned, Long.class, from, to);
+                long t2 = System.nanoTime();
+                prunedMs[i] = (t1 - t0) / 1_000_000;
+                unprunedMs[i] = (t2 - t1) / 1_000_000;
+            }
+
+            response.put("pruned", timings(prunedMs, prunedRows));
+            response.put("unpruned", timings(unprunedMs, unprunedRows));
+            if (mysql) {
+                YearMonth month = firstMonth.plusMonths(1);
+                String from = month.atDay(1).toString();
+                String to = month.plusMonths(1).atDay(1).toString();
+                response.put("prunedPartitions", explainPartitions(pruned, from + " 00:00:00", to + " 00:00:00"));
+                response.put("unprunedPartitions", explainPartitions(unpruned, from, to));
+            }
+
+            response.put("success", true);
+            response.put("mode", mysql ? "PARTITIONED" : "INDEX");
+            response.put("rows", rows);
+            response.put("runs", runs);
+
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "Benchmark failed: " + e.getMessage());
+            System.out.println("❌ Partition benchmark failed: " + e.getMessage());
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + BENCH_TABLE);
+        }
+        return response;
+    }
+
+    private void createBenchTable(YearMonth firstMonth) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + BENCH_TABLE);
+        String columns = "id BIGINT NOT NULL, entry_time " + (mysql ? "DATETIME(6)" : "TIMESTAMP(6)") +
+                         " NOT NULL, total_amount_paise BIGINT, PRIMARY KEY (id, entry_time)";
+        if (mysql) {
+            jdbcTemplate.execute("CREATE TABLE " + BENCH_TABLE + " (" + columns + ") " +
+                                 "PARTITION BY RANGE COLUMNS(entry_time) (" +
+                                 partitionDefinitions(firstMonth, firstMonth.plusMonths(BENCH_MONTHS - 1)) + ")");
+        } else {
+            jdbcTemplate.execute("CREATE TABLE " + BENCH_TABLE + " (" + columns + ")");
+            jdbcTemplate.execute("CREATE INDEX idx_" + BENCH_TABLE + "_entry_time ON " + BENCH_TABLE + " (entry_time)");
+        }
+    }
+
+    // Doubling inserts work on both MySQL and H2 without generator functions
+    private void fillBenchTable(int rows, YearMonth firstMonth) {
+        long spanSeconds = (long) BENCH_MONTHS * 30 * 24 * 3600;
+        String base = firstMonth.atDay(1) + " 00:00:00";
+        jdbcTemplate.update("INSERT INTO " + BENCH_TABLE + " VALUES (1, ?, 5000)", base);
+        long count = 1;
+        while (count < rows) {
+            long batch = Math.min(count, rows - count);
+            jdbcTemplate.update(
+                "INSERT INTO " + BENCH_TABLE + " (id, entry_time, total_amount_paise) " +
+                "SELECT id + ?, TIMESTAMPADD(SECOND, MOD((id + ?) * 7919, ?), CAST(? AS DATETIME)), " +
+                "MOD(id * 31, 90000) FROM " + BENCH_TABLE + " WHERE id <= ?",
+                count, count, spanSeconds, base, batch);
+            count += batch;
+        }
+    }
+
+    private static Map<String, Object> timings(long[] millis, long matchedRows) {
+        long total = 0;
+        for (long ms : millis) {
+            total += ms;
+        }
+        Arrays.sort(millis);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("matchedRows", matchedRows);
+        result.put("minMs", millis[0]);
+        result.put("medianMs", millis[millis.length / 2]);
+        result.put("totalMs", total);
+        return result;
+    }
+
+    private Object explainPartitions(String sql, String from, String to) {
+        return jdbcTemplate.queryForMap("EXPLAIN " + sql, from, to).get("partitions");
+    }
+
+    private boolean tableExists(String table) {
+        Long count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+            Long.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean isPartitioned() {
+        if (!mysql) {
+            return false;
+        }
+        Long count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() " +
+            "AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL", Long.class, TABLE);
+        return count != null && count > 0;
+    }
+
+    // Monthly partitions currently defined, oldest first (p_future excluded)
+    private List<YearMonth> monthPartitions() {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() " +
+                "AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION",
+                String.class, TABLE)) {
+            if (!FUTURE.equals(name)) {
+                months.add(YearMonth.parse(name.substring(1), DateTimeFormatter.ofPattern("yyyyMM")));
+            }
+        }
+        return months;
+    }
+
+    private static String partitionDefinitions(YearMonth first, YearMonth last) {
+        StringBuilder sb = new StringBuilder();
+        for (YearMonth m = first; !m.isAfter(last); m = m.plusMonths(1)) {
+            sb.append("PARTITION ").append(partitionName(m))
+              .append(" VALUES LESS THAN ('").append(m.plusMonths(1).atDay(1)).append(" 00:00:00'), ");
+        }
+        return sb.append("PARTITION ").append(FUTURE).append(" VALUES LESS THAN (MAXVALUE)").toString();
+    }
+
+    private static String partitionName(YearMonth month) {
+        return month.atDay(1).format(NAME);
+    }
+}
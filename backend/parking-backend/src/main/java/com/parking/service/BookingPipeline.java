@@ -0,0 +1,641 @@
+package com.parking.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.parking.config.ShardContext;
+import com.parking.config.WorkloadClass;
+import com.parking.entity.Booking;
+import com.parking.entity.BookingEvent;
+import com.parking.entity.ParkingSlot;
+import com.parking.repository.BookingRepository;
+import com.parking.repository.ParkingSlotRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Optional single-writer path for park, exit and checkout
+ * (parking.pipeline.enabled).
+ *
+ * Every slot belongs to one partition, chosen by its location, and each
+ * partition has a ring buffer with one writer thread. Request threads put
+ * their command in the ring and wait on a future; the writer takes what
+ * has arrived (up to max-batch, waiting at most max-delay-ms for more) and
+ * handles it in order, so commands for a slot never overtake each other
+ * and never wait on each other's row locks.
+ *
+ * The writer keeps which plate occupies which slot of the locations it has
+ * seen. Commands the model already knows will fail (slot taken, vehicle
+ * already parked, nothing to release) are answered without the database.
+ * The rest run through ParkingService, all in one transaction per batch,
+ * and their futures complete after that commit. The database stays the
+ * judge: a rejection it gives (slot occupied after all) is just that
+ * command's answer, and the batch commits as it would for the command on
+ * its own; only when a command throws or leaves the transaction
+ * rollback-only is the batch rolled back and every command in it run again
+ * on its own. A location whose model turned out wrong is reloaded.
+ *
+ * A request that is not answered within await-ms gets IN_PROGRESS rather
+ * than a failure, since its command may still commit, along with the
+ * PENDING answer it will get so IdempotencyService can keep that.
+ */
+@Service
+public class BookingPipeline implements BookingEventListener {
+
+    private static final int FREE = -1;
+
+    @Autowired
+    private ParkingService parkingService;
+
+    @Autowired
+    private ParkingSlotRepository slotRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${parking.pipeline.enabled:false}")
+    private boolean enabled;
+
+    @Value("${parking.pipeline.partitions:4}")
+    private int partitionCount;
+
+    @Value("${parking.pipeline.ring-size:1024}")
+    private int ringSize;
+
+    @Value("${parking.pipeline.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${parking.pipeline.max-delay-ms:2}")
+    private long maxDelayMs;
+
+    @Value("${parking.pipeline.await-ms:10000}")
+    private long awaitMs;
+
+    private Partition[] partitions;
+
+    // Slot number -> where its commands go; only dropped when the slot moves or is deleted (slotChanged)
+    private final Map<Integer, Route> routes = new ConcurrentHashMap<>();
+
+    // Plate -> slot number it occupies, as committed by the writers
+    private final Map<String, Integer> parkedAt = new ConcurrentHashMap<>();
+
+    // Locations changed outside the pipeline; their model is read again before the next command
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+
+    enum Type { PARK, REMOVE, CHECKOUT }
+
+    record Route(String location, String shard, int partition) {
+    }
+
+    /**
+     * One park, exit or checkout waiting for its writer
+     */
+    static final class Command {
+        final Type type;
+        final Route route;
+        final Integer slotNumber;
+        final String plate;
+        final Long bookingId;
+        // PARK: vehicleType, ownerName, phoneNumber, startTime, endTime
+        final String[] details;
+        final Long userId;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+        Map<String, Object> result;
+        // Answered from the model, without the database
+        boolean fromModel;
+
+        Command(Type type, Route route, Integer slotNumber, String plate, Long bookingId, String[] details, Long userId) {
+            this.type = type;
+            this.route = route;
+            this.slotNumber = slotNumber;
+            this.plate = plate;
+            this.bookingId = bookingId;
+            this.details = details;
+            this.userId = userId;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        int size = Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1;
+        partitions = new Partition[Math.max(1, partitionCount)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i, size);
+            partitions[i].thread.start();
+        }
+        System.out.println("✅ Booking pipeline: " + partitions.length + " writers, ring size " + size +
+            ", batches of up to " + maxBatch + " every " + maxDelayMs + " ms");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (partitions == null) {
+            return;
+        }
+        for (Partition p : partitions) {
+            p.running = false;
+            LockSupport.unpark(p.thread);
+        }
+        for (Partition p : partitions) {
+            p.thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @Override
+    public String consumerName() {
+        return "booking-pipeline";
+    }
+
+    /**
+     * Committed changes the model does not already show (admin edits,
+     * direct calls, expiry) make their location stale.
+     */
+    @Override
+    public void onEvent(BookingEvent event) {
+        if (partitions == null) {
+            return;
+        }
+        String location = event.getLocation() != null ? event.getLocation() : "";
+        String plate = event.getLicensePlate() != null ? event.getLicensePlate().toUpperCase(Locale.ROOT) : null;
+        switch (event.getType()) {
+            case VEHICLE_PARKED:
+                if (plate == null || !event.getSlotNumber().equals(parkedAt.get(plate))) {
+                    stale.add(location);
+                }
+                break;
+            case VEHICLE_EXITED:
+            case BOOKING_CHECKED_OUT:
+                if (plate == null || event.getSlotNumber().equals(parkedAt.get(plate))) {
+                    stale.add(location);
+                }
+                break;
+            default:
+                stale.add(location);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A slot moved to another location or was deleted. Once that commits,
+     * its next command routes from the database again and the location it
+     * left is reloaded. Slots are only moved or deleted while free, so no
+     * command of theirs is waiting in the old partition.
+     */
+    public void slotChanged(Integer slotNumber) {
+        if (partitions == null || slotNumber == null) {
+            return;
+        }
+        afterCommit(() -> {
+            Route old = routes.remove(slotNumber);
+            if (old != null) {
+                stale.add(old.location());
+            }
+        });
+    }
+
+    public Map<String, Object> park(String licensePlate, String vehicleType, String ownerName, String phoneNumber,
+                                    Long userId, Integer slotNumber, String startTime, String endTime) {
+        Route route = enabled && licensePlate != null && !licensePlate.isBlank() ? route(slotNumber) : null;
+        if (route == null) {
+            return parkingService.parkVehicle(licensePlate, vehicleType, ownerName, phoneNumber,
+                userId, slotNumber, startTime, endTime);
+        }
+        return submit(new Command(Type.PARK, route, slotNumber, licensePlate.toUpperCase(Locale.ROOT), null,
+            new String[] { vehicleType, ownerName, phoneNumber, startTime, endTime }, userId));
+    }
+
+    public Map<String, Object> remove(String licensePlate) {
+        if (!enabled) {
+            return parkingService.removeVehicle(licensePlate);
+        }
+        String plate = licensePlate.toUpperCase(Locale.ROOT);
+        Integer slotNumber = parkedAt.get(plate);
+        if (slotNumber == null) {
+            List<Integer> active = shardRouter.call(shardRouter.shardForPlate(plate),
+                () -> bookingRepository.findActiveSlotNumbersByPlate(plate));
+            slotNumber = active.isEmpty() ? null : active.get(0);
+        }
+        Route route = route(slotNumber);
+        if (route == null) {
+            // Not parked anywhere: the service gives the usual answer
+            return parkingService.removeVehicle(licensePlate);
+        }
+        return submit(new Command(Type.REMOVE, route, slotNumber, plate, null, null, null));
+    }
+
+    public Map<String, Object> checkout(Long bookingId) {
+        if (!enabled) {
+            return parkingService.checkoutBooking(bookingId);
+        }
+        Integer slotNumber = shardRouter.call(shardRouter.shardForId(bookingId),
+            () -> bookingRepository.findSlotNumberOfBooking(bookingId).orElse(null));
+        Route route = route(slotNumber);
+        if (route == null) {
+            return parkingService.checkoutBooking(bookingId);
+        }
+        return submit(new Command(Type.CHECKOUT, route, slotNumber, null, bookingId, null, null));
+    }
+
+    private Route route(Integer slotNumber) {
+        if (slotNumber == null) {
+            return null;
+        }
+        Route route = routes.get(slotNumber);
+        if (route != null) {
+            return route;
+        }
+        String shard = shardRouter.shardForSlotNumber(slotNumber);
+        ParkingSlot slot = shardRouter.call(shard, () -> slotRepository.findBySlotNumber(slotNumber).orElse(null));
+        if (slot == null) {
+            return null;
+        }
+        String location = slot.locationKey() != null ? slot.locationKey() : "";
+        int partition = Math.floorMod(location.hashCode(), partitions.length);
+        Route created = new Route(location, shard, partition);
+        route = routes.putIfAbsent(slotNumber, created);
+        return route != null ? route : created;
+    }
+
+    private Map<String, Object> submit(Command command) {
+        Partition partition = partitions[command.route.partition()];
+        if (!partition.offer(command)) {
+            partition.rejectedFull.incrementAndGet();
+            return failure("Parking service is busy, please try again");
+        }
+        try {
+            return command.future.get(awaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Map<String, Object> response = failure("Request is still being processed, check the vehicle status before retrying");
+            response.put(IdempotencyService.IN_PROGRESS, true);
+            response.put(IdempotencyService.PENDING, command.future);
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failure("Request was interrupted");
+        } catch (ExecutionException e) {
+            return failure("Booking failed: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Ring buffer, writer thread and slot model of one partition
+     */
+    final class Partition implements Runnable {
+        final int index;
+        final Command[] ring;
+        // Sequence last published into each cell, -1 when never
+        final AtomicLongArray published;
+        final int mask;
+        final AtomicLong claimed = new AtomicLong();
+        volatile long consumed;
+        volatile boolean running = true;
+        final Thread thread;
+
+        // Writer thread only: locations loaded into the model and the plate on each of their slots
+        final Set<String> loaded = new HashSet<>();
+        final Map<Integer, String> occupant = new HashMap<>();
+
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong batches = new AtomicLong();
+        final AtomicLong fastRejections = new AtomicLong();
+        final AtomicLong failedBatches = new AtomicLong();
+        final AtomicLong rejectedFull = new AtomicLong();
+        final AtomicLong commitNanos = new AtomicLong();
+        final AtomicLong waitNanos = new AtomicLong();
+        volatile int largestBatch;
+
+        Partition(int index, int size) {
+            this.index = index;
+            this.ring = new Command[size];
+            this.published = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                published.set(i, -1);
+            }
+            this.mask = size - 1;
+            this.thread = new Thread(this, "booking-writer-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        // Any number of request threads may offer; false when the ring is full
+        boolean offer(Command command) {
+            while (true) {
+                long seq = claimed.get();
+                if (seq - consumed >= ring.length) {
+                    return false;
+                }
+                if (claimed.compareAndSet(seq, seq + 1)) {
+                    int cell = (int) (seq & mask);
+                    ring[cell] = command;
+                    published.set(cell, seq);
+                    LockSupport.unpark(thread);
+                    return true;
+                }
+            }
+        }
+
+        // Move published commands into the batch, in sequence order
+        private int drain(List<Command> batch) {
+            long seq = consumed;
+            int taken = 0;
+            while (batch.size() < maxBatch) {
+                int cell = (int) (seq & mask);
+                if (published.get(cell) != seq) {
+                    break;
+                }
+                batch.add(ring[cell]);
+                ring[cell] = null;
+                seq++;
+                taken++;
+            }
+            consumed = seq;
+            return taken;
+        }
+
+        @Override
+        public void run() {
+            // For the life of the thread, so its connections come from the booking reserve
+            WorkloadClass.use(WorkloadClass.BOOKING);
+            List<Command> batch = new ArrayList<>(maxBatch);
+            long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+            while (running || consumed < claimed.get()) {
+                if (drain(batch) == 0) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+                    continue;
+                }
+                // Give the group commit a moment to fill up
+                long deadline = batch.get(0).enqueuedAt + maxDelayNanos;
+                while (batch.size() < maxBatch && running && System.nanoTime() < deadline) {
+                    if (drain(batch) == 0) {
+                        LockSupport.parkNanos(this, 100_000);
+                    }
+                }
+                try {
+                    process(batch);
+                } catch (RuntimeException e) {
+                    System.out.println("❌ Booking writer " + index + " failed a batch: " + e.getMessage());
+                    for (Command c : batch) {
+                        c.future.completeExceptionally(e);
+                    }
+                }
+                batch.clear();
+            }
+        }
+
+        private void process(List<Command> batch) {
+            long started = System.nanoTime();
+            for (Command c : batch) {
+                waitNanos.addAndGet(started - c.enqueuedAt);
+            }
+
+            // Changes the batch makes, on top of the model, until they are committed
+            Map<Integer, String> slotChanges = new HashMap<>();
+            Map<String, Integer> plateChanges = new HashMap<>();
+            Map<String, List<Command>> byShard = new LinkedHashMap<>();
+            for (Command c : batch) {
+                load(c.route);
+                Map<String, Object> rejection = check(c, slotChanges, plateChanges);
+                if (rejection != null) {
+                    c.result = rejection;
+                    c.fromModel = true;
+                    fastRejections.incrementAndGet();
+                    continue;
+                }
+                byShard.computeIfAbsent(c.route.shard(), s -> new ArrayList<>()).add(c);
+            }
+
+            long committing = System.nanoTime();
+            for (Map.Entry<String, List<Command>> group : byShard.entrySet()) {
+                commit(group.getKey(), group.getValue());
+            }
+            commitNanos.addAndGet(System.nanoTime() - committing);
+
+            for (Command c : batch) {
+                publish(c);
+                c.future.complete(c.result);
+            }
+            processed.addAndGet(batch.size());
+            batches.incrementAndGet();
+            largestBatch = Math.max(largestBatch, batch.size());
+        }
+
+        // Answer from the model when the command cannot succeed, else record its effect on the batch
+        private Map<String, Object> check(Command c, Map<Integer, String> slotChanges, Map<String, Integer> plateChanges) {
+            switch (c.type) {
+                case PARK: {
+                    Integer parked = plateChanges.containsKey(c.plate) ? plateChanges.get(c.plate) : parkedAt.get(c.plate);
+                    if (parked != null && parked != FREE) {
+                        return failure("Vehicle is already parked!");
+                    }
+                    String taken = slotChanges.containsKey(c.slotNumber) ? slotChanges.get(c.slotNumber) : occupant.get(c.slotNumber);
+                    if (taken != null) {
+                        return failure("Slot #" + c.slotNumber + " is already occupied! Please select another slot.");
+                    }
+                    slotChanges.put(c.slotNumber, c.plate);
+                    plateChanges.put(c.plate, c.slotNumber);
+                    return null;
+                }
+                case REMOVE: {
+                    Integer parked = plateChanges.containsKey(c.plate) ? plateChanges.get(c.plate) : parkedAt.get(c.plate);
+                    if (parked == null || parked == FREE) {
+                        return failure("No active parking found!");
+                    }
+                    slotChanges.put(parked, null);
+                    plateChanges.put(c.plate, FREE);
+                    return null;
+                }
+                default: {
+                    String plate = slotChanges.containsKey(c.slotNumber) ? slotChanges.get(c.slotNumber) : occupant.get(c.slotNumber);
+                    slotChanges.put(c.slotNumber, null);
+                    if (plate != null) {
+                        plateChanges.put(plate, FREE);
+                    }
+                    return null;
+                }
+            }
+        }
+
+        // Run a shard's commands in one transaction; on an error, run each one on its own
+        private void commit(String shard, List<Command> commands) {
+            try (ShardContext.Scope scope = ShardContext.use(shard)) {
+                TransactionTemplate tx = new TransactionTemplate(transactionManager);
+                try {
+                    tx.executeWithoutResult(status -> {
+                        for (Command c : commands) {
+                            c.result = execute(c);
+                            // A business rejection is an answer and commits with the batch, as it
+                            // would alone; ParkingService marks the transaction rollback-only when
+                            // it turns an error into a failure answer, and that must not commit
+                            if (status.isRollbackOnly()) {
+                                throw new IllegalStateException("command " + c.type + " failed: " + c.result.get("message"));
+                            }
+                        }
+                    });
+                    return;
+                } catch (RuntimeException e) {
+                    failedBatches.incrementAndGet();
+                    System.out.println("❌ Batch of " + commands.size() + " on writer " + index +
+                        " rolled back (" + e.getMessage() + "), running its commands one by one");
+                }
+                for (Command c : commands) {
+                    loaded.remove(c.route.location());
+                    try {
+                        c.result = execute(c);
+                    } catch (RuntimeException e) {
+                        c.result = failure("Booking failed: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        private Map<String, Object> execute(Command c) {
+            switch (c.type) {
+                case PARK:
+                    return parkingService.parkVehicle(c.plate, c.details[0], c.details[1], c.details[2],
+                        c.userId, c.slotNumber, c.details[3], c.details[4]);
+                case REMOVE:
+                    return parkingService.removeVehicle(c.plate);
+                default:
+                    return parkingService.checkoutBooking(c.bookingId);
+            }
+        }
+
+        // Apply a committed result to the model; a surprise means the model is stale
+        private void publish(Command c) {
+            if (!Boolean.TRUE.equals(c.result.get("success"))) {
+                if (!c.fromModel) {
+                    // The model expected this to work
+                    loaded.remove(c.route.location());
+                }
+                return;
+            }
+            switch (c.type) {
+                case PARK:
+                    occupant.put(c.slotNumber, c.plate);
+                    parkedAt.put(c.plate, c.slotNumber);
+                    break;
+                case REMOVE:
+                    Object slot = c.result.get("slotNumber");
+                    occupant.remove(slot instanceof Integer ? (Integer) slot : c.slotNumber);
+                    parkedAt.remove(c.plate);
+                    break;
+                default:
+                    String plate = occupant.remove(c.slotNumber);
+                    if (plate != null) {
+                        parkedAt.remove(plate);
+                    }
+            }
+        }
+
+        // Read a location's slots and active bookings into the model, once
+        private void load(Route route) {
+            if (stale.remove(route.location())) {
+                loaded.remove(route.location());
+            }
+            if (loaded.contains(route.location())) {
+                return;
+            }
+            shardRouter.call(route.shard(), () -> new TransactionTemplate(transactionManager).execute(status -> {
+                Set<Integer> slots = new HashSet<>();
+                for (ParkingSlot slot : slotRepository.findByLocationKey(route.location())) {
+                    slots.add(slot.getSlotNumber());
+                    occupant.remove(slot.getSlotNumber());
+                }
+                parkedAt.values().removeIf(slots::contains);
+                for (Booking b : bookingRepository.findActiveAtLocation(route.location())) {
+                    String plate = b.getVehicle().getLicensePlate().toUpperCase(Locale.ROOT);
+                    occupant.put(b.getParkingSlot().getSlotNumber(), plate);
+                    parkedAt.put(plate, b.getParkingSlot().getSlotNumber());
+                }
+                return null;
+            }));
+            loaded.add(route.location());
+        }
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private static Map<String, Object> failure(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("success", true);
+        stats.put("enabled", enabled);
+        if (partitions == null) {
+            return stats;
+        }
+        stats.put("routedSlots", routes.size());
+        stats.put("parkedVehicles", parkedAt.size());
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Partition p : partitions) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            long batches = p.batches.get();
+            long processed = p.processed.get();
+            m.put("partition", p.index);
+            m.put("queued", p.claimed.get() - p.consumed);
+            m.put("processed", processed);
+            m.put("batches", batches);
+            m.put("averageBatch", batches > 0 ? Math.round(processed * 10.0 / batches) / 10.0 : 0);
+            m.put("largestBatch", p.largestBatch);
+            m.put("answeredFromModel", p.fastRejections.get());
+            m.put("failedBatches", p.failedBatches.get());
+            m.put("rejectedRingFull", p.rejectedFull.get());
+            m.put("averageCommitMs", batches > 0 ? Math.round(p.commitNanos.get() / 1e4 / batches) / 100.0 : 0);
+            m.put("averageQueueMs", processed > 0 ? Math.round(p.waitNanos.get() / 1e4 / processed) / 100.0 : 0);
+            list.add(m);
+        }
+        stats.put("partitions", list);
+        return stats;
+    }
+}
@@ -0,0 +1,314 @@
+package com.parking.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.parking.entity.Booking;
+import com.parking.entity.BookingStatus;
+import com.parking.entity.ParkingSlot;
+import com.parking.repository.BookingRepository;
+import com.parking.util.HyperLogLog;
+import com.parking.util.SpaceSaving;
+import com.parking.util.TDigest;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Mergeable sketches of completed bookings, one set per (entry day,
+ * location): a t-digest of parking minutes, HyperLogLogs of distinct users
+ * and vehicles, and a Space-Saving summary of the busiest slots. Queries
+ * merge the cells in range, so percentiles and distinct counts for any
+ * period come back in bounded memory without touching the bookings table.
+ *
+ * Each day is persisted as one file under parking.sketches.dir; changed
+ * days are flushed periodically and on shutdown.
+ */
+@Component
+public class BookingSketchStore {
+
+    private static final int FILE_VERSION = 1;
+    static final double COMPRESSION = 100;
+    static final int CELL_TOP_SLOTS = 16;
+    static final int MERGED_TOP_SLOTS = 64;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingArchiveService archiveService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${parking.sketches.dir:./data/sketches}")
+    private String sketchDir;
+
+    // day -> location -> cell
+    private final ConcurrentSkipListMap<LocalDate, Map<String, Cell>> days = new ConcurrentSkipListMap<>();
+    private final Set<LocalDate> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Sketches of one location on one day
+     */
+    static final class Cell {
+        final String city;
+        long bookings;
+        final TDigest durations = new TDigest(COMPRESSION);
+        final HyperLogLog users = new HyperLogLog();
+        final HyperLogLog vehicles = new HyperLogLog();
+        SpaceSaving slots = new SpaceSaving(CELL_TOP_SLOTS);
+
+        Cell(String city) {
+            this.city = city;
+        }
+    }
+
+    /**
+     * Merged sketches for a query
+     */
+    public static final class Summary {
+        public long bookings;
+        public final TDigest durations = new TDigest(COMPRESSION);
+        public final HyperLogLog users = new HyperLogLog();
+        public final HyperLogLog vehicles = new HyperLogLog();
+        public final SpaceSaving slots = new SpaceSaving(MERGED_TOP_SLOTS);
+
+        void merge(Cell cell) {
+            bookings += cell.bookings;
+            durations.merge(cell.durations);
+            users.merge(cell.users);
+            vehicles.merge(cell.vehicles);
+            slots.merge(cell.slots);
+        }
+    }
+
+    public static final class QueryResult {
+        public final Summary total = new Summary();
+        public final Map<String, Summary> byCity = new TreeMap<>();
+        public final Map<LocalDate, Summary> byDay = new TreeMap<>();
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        Path dir = Paths.get(sketchDir);
+        Files.createDirectories(dir);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(p -> p.getFileName().toString().endsWith(".sketch")).sorted().toList();
+        }
+        for (Path file : files) {
+            try {
+                readDay(file);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("❌ Skipping unreadable sketch file " + file + ": " + e.getMessage());
+            }
+        }
+        System.out.println("✅ Booking sketches loaded for " + days.size() + " days");
+    }
+
+    /**
+     * First start with an empty sketch directory: build from completed bookings
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialBuild() {
+        if (days.isEmpty() && (shardRouter.sum(() -> bookingRepository.countByStatus(BookingStatus.COMPLETED)) > 0 || archiveService.archivedCount() > 0)) {
+            rebuild();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Record a completed booking once the surrounding transaction commits
+     */
+    public void recordAfterCommit(Booking booking) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(booking);
+                }
+            });
+        } else {
+            record(booking);
+        }
+    }
+
+    public void record(Booking booking) {
+        if (booking.getEntryTime() == null || booking.getExitTime() == null) {
+            return;
+        }
+        ParkingSlot slot = booking.getParkingSlot();
+        LocalDate day = booking.getEntryTime().toLocalDate();
+        String location = slot != null ? slot.locationKey() : "Unknown";
+        String city = slot != null && slot.getCity() != null ? slot.getCity() : "Unknown";
+
+        Cell cell = days.computeIfAbsent(day, d -> new ConcurrentHashMap<>())
+            .computeIfAbsent(location, l -> new Cell(city));
+        synchronized (cell) {
+            cell.bookings++;
+            cell.durations.add(ChronoUnit.MINUTES.between(booking.getEntryTime(), booking.getExitTime()));
+            if (booking.getVehicle() != null) {
+                cell.vehicles.addString(booking.getVehicle().getLicensePlate());
+                if (booking.getVehicle().getUser() != null) {
+                    cell.users.addLong(booking.getVehicle().getUser().getId());
+                }
+            }
+            if (slot != null) {
+                cell.slots.add(slot.getId());
+            }
+        }
+        dirty.add(day);
+    }
+
+    /**
+     * Merge every cell with entry day in [from, to], optionally for one city
+     */
+    public QueryResult query(LocalDate from, LocalDate to, String city) {
+        QueryResult result = new QueryResult();
+        for (Map.Entry<LocalDate, Map<String, Cell>> day : days.subMap(from, true, to, true).entrySet()) {
+            for (Cell cell : day.getValue().values()) {
+                if (city != null && !city.equalsIgnoreCase(cell.city)) {
+                    continue;
+                }
+                synchronized (cell) {
+                    result.total.merge(cell);
+                    result.byCity.computeIfAbsent(cell.city, c -> new Summary()).merge(cell);
+                    result.byDay.computeIfAbsent(day.getKey(), d -> new Summary()).merge(cell);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drop all sketches and rebuild them from completed bookings
+     */
+    public synchronized int rebuild() {
+        days.clear();
+        dirty.clear();
+        deleteFiles();
+        List<Booking> completed = archiveService.findAllCompleted();
+        for (Booking booking : completed) {
+            record(booking);
+        }
+        flush();
+        System.out.println("✅ Booking sketches rebuilt from " + completed.size() + " completed bookings");
+        return completed.size();
+    }
+
+    public int dayCount() {
+        return days.size();
+    }
+
+    /**
+     * Write every changed day to disk
+     */
+    @Scheduled(fixedDelayString = "${parking.sketches.flush-interval-ms:60000}")
+    public synchronized void flush() {
+        for (LocalDate day : new ArrayList<>(dirty)) {
+            dirty.remove(day);
+            try {
+                writeDay(day);
+            } catch (IOException e) {
+                dirty.add(day);
+                System.out.println("❌ Could not write sketches for " + day + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void writeDay(LocalDate day) throws IOException {
+        Map<String, Cell> cells = days.get(day);
+        if (cells == null) {
+            return;
+        }
+        Path file = file(day);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(cells.size());
+            for (Map.Entry<String, Cell> e : cells.entrySet()) {
+                Cell cell = e.getValue();
+                synchronized (cell) {
+                    out.writeUTF(e.getKey());
+                    out.writeUTF(cell.city);
+                    out.writeLong(cell.bookings);
+                    cell.durations.write(out);
+                    cell.users.write(out);
+                    cell.vehicles.write(out);
+                    cell.slots.write(out);
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void readDay(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        LocalDate day = LocalDate.parse(name.substring(0, name.length() - ".sketch".length()));
+        Map<String, Cell> cells = new ConcurrentHashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_VERSION) {
+                throw new IOException("unsupported version");
+            }
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String location = in.readUTF();
+                Cell cell = new Cell(in.readUTF());
+                cell.bookings = in.readLong();
+                cell.durations.merge(TDigest.read(in, COMPRESSION));
+                cell.users.merge(HyperLogLog.read(in));
+                cell.vehicles.merge(HyperLogLog.read(in));
+                cell.slots = SpaceSaving.read(in, CELL_TOP_SLOTS);
+                cells.put(location, cell);
+            }
+        }
+        days.put(day, cells);
+    }
+
+    private void deleteFiles() {
+        try (Stream<Path> list = Files.list(Paths.get(sketchDir))) {
+            for (Path path : (Iterable<Path>) list::iterator) {
+                if (path.getFileName().toString().endsWith(".sketch")) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Could not clear sketch directory: " + e.getMessage());
+        }
+    }
+
+    private Path file(LocalDate day) {
+        return Paths.get(sketchDir, day + ".sketch");
+    }
+}
@@ -0,0 +1,107 @@
+package com.parking.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.parking.config.EntityCacheRegionFactory;
+import com.parking.entity.ParkingSlot;
+import com.parking.entity.User;
+import com.parking.entity.Vehicle;
+import com.parking.repository.VehicleRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Slot, vehicle and user lookups by natural id (slot number, plate,
+ * username) that are answered from the second-level cache when possible,
+ * plus eviction and hit/miss counts per cache region.
+ *
+ * Changes made through Hibernate update the cache when they commit; evict
+ * is for rows written around it (by hand, or by another node).
+ */
+@Service
+public class EntityCache {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EntityCacheRegionFactory regionFactory;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Value("${parking.cache.enabled:true}")
+    private boolean enabled;
+
+    public Optional<ParkingSlot> slotByNumber(Integer slotNumber) {
+        return byNaturalId(ParkingSlot.class, slotNumber);
+    }
+
+    public Optional<Vehicle> vehicleByPlate(String licensePlate) {
+        // The same plate can have a vehicle row on several shards, and cache keys carry no shard
+        if (shardRouter.isSharded()) {
+            return vehicleRepository.findByLicensePlate(licensePlate);
+        }
+        return byNaturalId(Vehicle.class, licensePlate);
+    }
+
+    public Optional<User> userByUsername(String username) {
+        return byNaturalId(User.class, username);
+    }
+
+    private <T> Optional<T> byNaturalId(Class<T> type, Object naturalId) {
+        if (naturalId == null) {
+            return Optional.empty();
+        }
+        return regionFactory.naturalIdLookup(
+            () -> entityManager.unwrap(Session.class).bySimpleNaturalId(type).loadOptional(naturalId));
+    }
+
+    /**
+     * Drop one region ("slots", "license-plates", ...), or all of them
+     */
+    public boolean evict(String region) {
+        if (region == null || region.isBlank()) {
+            cache().evictAllRegions();
+            return true;
+        }
+        if (!regionFactory.stores().containsKey(region)) {
+            return false;
+        }
+        cache().evictRegion(region);
+        return true;
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        Map<String, Object> regions = new TreeMap<>();
+        for (EntityCacheRegionFactory.Store store : regionFactory.stores().values()) {
+            regions.put(store.name(), store.stats());
+        }
+        stats.put("regions", regions);
+        return stats;
+    }
+}
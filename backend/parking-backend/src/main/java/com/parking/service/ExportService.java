@@ -1,22 +1,53 @@
 package com.parking.service;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parking.config.WorkloadClass;
+import com.parking.config.WorkloadGovernor;
 import com.parking.entity.Booking;
+import com.parking.entity.BookingStatus;
 import com.parking.entity.ParkingSlot;
+import com.parking.repository.ArchivedBookingRepository;
 import com.parking.repository.BookingRepository;
 import com.parking.repository.ParkingSlotRepository;
+import com.parking.util.CsvWriter;
+import com.parking.util.ParquetWriter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 @Service
 public class ExportService {
@@ -26,34 +57,166 @@ public class ExportService {
     
     @Autowired
     private ParkingSlotRepository slotRepository;
+
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    private BookingArchiveService archiveService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private WorkloadGovernor workloadGovernor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
     
     private static final DateTimeFormatter DATE_FORMATTER = 
         DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
+    // Report progress every this many rows
+    private static final int PROGRESS_INTERVAL = 1_000;
+
+    @Value("${parking.export.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${parking.export.parquet.row-group-rows:100000}")
+    private int rowGroupRows;
+
+    @Value("${parking.export.parquet.codec:GZIP}")
+    private ParquetWriter.Codec parquetCodec;
+
+    @Value("${parking.export.parquet.partition:MONTH}")
+    private Partitioning partitioning;
+
+    @Value("${parking.export.parallel.partition:MONTH}")
+    private Partitioning partPartitioning;
+
+    @Value("${parking.export.parallel.max-workers:4}")
+    private int maxPartWorkers;
+
+    private static final String BOOKINGS_CSV_HEADER =
+        "Booking Number,Vehicle Number,Vehicle Type,Owner Name,Phone Number," +
+        "Slot Number,Slot Type,Entry Time,Exit Time,Duration (Hours)," +
+        "Hourly Rate,Total Amount,Status,Payment Status";
+
+    private static final int PART_BUFFER_SIZE = 64 * 1024;
+
+    // Encode the partitions of parallel exports
+    private ExecutorService partWorkers;
+
+    private static final List<ParquetWriter.Column> BOOKING_COLUMNS = List.of(
+        ParquetWriter.int64("booking_id", false),
+        ParquetWriter.string("booking_number", false),
+        ParquetWriter.string("license_plate", false),
+        ParquetWriter.dictionaryString("vehicle_type", true),
+        ParquetWriter.string("owner_name", true),
+        ParquetWriter.string("phone_number", true),
+        ParquetWriter.int32("slot_number", false),
+        ParquetWriter.dictionaryString("slot_type", false),
+        ParquetWriter.dictionaryString("city", true),
+        ParquetWriter.timestamp("entry_time", false),
+        ParquetWriter.timestamp("exit_time", true),
+        ParquetWriter.decimal("hourly_rate", 2, false),
+        ParquetWriter.decimal("total_amount", 2, true),
+        ParquetWriter.dictionaryString("status", false),
+        ParquetWriter.dictionaryString("payment_status", true));
+
+    private static final List<ParquetWriter.Column> SLOT_COLUMNS = List.of(
+        ParquetWriter.int64("slot_id", false),
+        ParquetWriter.int32("slot_number", false),
+        ParquetWriter.dictionaryString("slot_type", false),
+        ParquetWriter.int32("floor_number", true),
+        ParquetWriter.string("location_name", true),
+        ParquetWriter.string("address", true),
+        ParquetWriter.dictionaryString("city", true),
+        ParquetWriter.dictionaryString("region", true),
+        ParquetWriter.dictionaryString("country", true),
+        ParquetWriter.float64("latitude", true),
+        ParquetWriter.float64("longitude", true),
+        ParquetWriter.bool("is_occupied", false),
+        ParquetWriter.bool("is_available", false),
+        ParquetWriter.bool("is_under_maintenance", false),
+        ParquetWriter.string("maintenance_reason", true));
+
+    /**
+     * How bookings exports are split into files, by entry date
+     * (Hive-style directory names, e.g. entry_month=2024-01)
+     */
+    public enum Partitioning {
+        DAY("entry_date", "yyyy-MM-dd"),
+        MONTH("entry_month", "yyyy-MM"),
+        YEAR("entry_year", "yyyy");
+
+        private final String key;
+        private final DateTimeFormatter format;
+
+        Partitioning(String key, String pattern) {
+            this.key = key;
+            this.format = DateTimeFormatter.ofPattern(pattern);
+        }
+
+        LocalDate start(LocalDate date) {
+            switch (this) {
+                case DAY: return date;
+                case MONTH: return date.withDayOfMonth(1);
+                default: return date.withDayOfYear(1);
+            }
+        }
+
+        LocalDate next(LocalDate start) {
+            switch (this) {
+                case DAY: return start.plusDays(1);
+                case MONTH: return start.plusMonths(1);
+                default: return start.plusYears(1);
+            }
+        }
+
+        String name(LocalDate start) {
+            return key + "=" + start.format(format);
+        }
+    }
+    
+    @PostConstruct
+    public void init() {
+        // Never more partitions in flight than reporting may hold connections
+        int workers = Math.max(1, Math.min(maxPartWorkers, workloadGovernor.maxConnections(WorkloadClass.REPORTING)));
+        AtomicInteger threadCount = new AtomicInteger();
+        partWorkers = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(() -> {
+                WorkloadClass.use(WorkloadClass.REPORTING);
+                r.run();
+            }, "export-part-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partWorkers.shutdownNow();
+    }
+
+    /**
+     * Receives (rows done, rows total) while an export is being written
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        ProgressListener NONE = (done, total) -> { };
+        
+        void onProgress(long done, long total);
+    }
+    
     /**
      * Export bookings to CSV
      */
     public byte[] exportBookingsToCSV(String startDate, String endDate, Integer slotId) {
         try {
-            LocalDateTime start = LocalDate.parse(startDate).atStartOfDay();
-            LocalDateTime end = LocalDate.parse(endDate).atTime(23, 59, 59);
-            
-            // Fetch bookings
-            List<Booking> allBookings = bookingRepository.findAll();
-            List<Booking> bookings = allBookings.stream()
-                .filter(b -> {
-                    if (b.getEntryTime() == null) return false;
-                    boolean inDateRange = !b.getEntryTime().isBefore(start) && 
-                                         !b.getEntryTime().isAfter(end);
-                    
-                    if (slotId != null && b.getParkingSlot() != null) {
-                        return inDateRange && b.getParkingSlot().getId().equals(slotId.longValue());
-                    }
-                    return inDateRange;
-                })
-                .collect(Collectors.toList());
-            
-            return generateBookingsCSV(bookings);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            writeBookingsCSV(startDate, endDate, slotId, baos, ProgressListener.NONE);
+            return baos.toByteArray();
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -61,91 +224,386 @@ public class ExportService {
         }
     }
     
+    /**
+     * Stream the bookings CSV to out (used by export jobs writing to a file)
+     */
+    public void writeBookingsCSV(String startDate, String endDate, Integer slotId,
+                                 OutputStream out, ProgressListener progress) throws Exception {
+        LocalDateTime start = LocalDate.parse(startDate).atStartOfDay();
+        LocalDateTime end = LocalDate.parse(endDate).atTime(23, 59, 59);
+        
+        // Fetch bookings in range
+        List<Booking> bookings = archiveService.findInRange(start, end);
+        if (slotId != null) {
+            bookings = bookings.stream()
+                .filter(b -> b.getParkingSlot() == null || 
+                             b.getParkingSlot().getId().equals(slotId.longValue()))
+                .collect(Collectors.toList());
+        }
+        
+        generateBookingsCSV(bookings, out, progress);
+    }
+    
     /**
      * Generate CSV content for bookings
      */
-    private byte[] generateBookingsCSV(List<Booking> bookings) throws Exception {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PrintWriter writer = new PrintWriter(new OutputStreamWriter(baos, StandardCharsets.UTF_8));
+    private void generateBookingsCSV(List<Booking> bookings, OutputStream out,
+                                     ProgressListener progress) throws Exception {
+        CsvWriter csv = new CsvWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
         
         // Write header
-        writer.println("Booking Number,Vehicle Number,Vehicle Type,Owner Name,Phone Number," +
-                      "Slot Number,Slot Type,Entry Time,Exit Time,Duration (Hours)," +
-                      "Hourly Rate,Total Amount,Status,Payment Status");
+        csv.line(BOOKINGS_CSV_HEADER);
         
         // Write data rows
+        long total = bookings.size();
+        long done = 0;
         for (Booking booking : bookings) {
-            writer.println(buildBookingCSVRow(booking));
+            writeBookingCSVRow(csv, booking);
+            if (++done % PROGRESS_INTERVAL == 0) {
+                progress.onProgress(done, total);
+            }
         }
         
-        writer.flush();
-        writer.close();
-        
-        return baos.toByteArray();
+        csv.close();
+        progress.onProgress(total, total);
     }
     
     /**
-     * Build CSV row for a booking
+     * Write CSV row for a booking
      */
-    private String buildBookingCSVRow(Booking booking) {
-        StringBuilder row = new StringBuilder();
-        
+    private void writeBookingCSVRow(CsvWriter csv, Booking booking) throws Exception {
         // Booking Number
-        row.append(escapeCSV(booking.getBookingNumber())).append(",");
+        csv.text(booking.getBookingNumber());
         
         // Vehicle details
         if (booking.getVehicle() != null) {
-            row.append(escapeCSV(booking.getVehicle().getLicensePlate())).append(",");
-            row.append(escapeCSV(booking.getVehicle().getVehicleType())).append(",");
-            row.append(escapeCSV(booking.getVehicle().getOwnerName())).append(",");
-            row.append(escapeCSV(booking.getVehicle().getPhoneNumber())).append(",");
+            csv.text(booking.getVehicle().getLicensePlate())
+               .text(booking.getVehicle().getVehicleType())
+               .text(booking.getVehicle().getOwnerName())
+               .text(booking.getVehicle().getPhoneNumber());
         } else {
-            row.append("N/A,N/A,N/A,N/A,");
+            csv.raw("N/A").raw("N/A").raw("N/A").raw("N/A");
         }
         
         // Slot details
         if (booking.getParkingSlot() != null) {
-            row.append(booking.getParkingSlot().getSlotNumber()).append(",");
-            row.append(escapeCSV(booking.getParkingSlot().getSlotType())).append(",");
+            csv.number(booking.getParkingSlot().getSlotNumber())
+               .text(booking.getParkingSlot().getSlotType());
         } else {
-            row.append("N/A,N/A,");
+            csv.raw("N/A").raw("N/A");
         }
         
         // Timing
-        row.append(booking.getEntryTime() != null ? 
-            booking.getEntryTime().format(DATE_FORMATTER) : "N/A").append(",");
-        row.append(booking.getExitTime() != null ? 
-            booking.getExitTime().format(DATE_FORMATTER) : "N/A").append(",");
-        row.append(booking.getParkingDurationHours()).append(",");
+        csv.raw(booking.getEntryTime() != null ? 
+            booking.getEntryTime().format(DATE_FORMATTER) : "N/A");
+        csv.raw(booking.getExitTime() != null ? 
+            booking.getExitTime().format(DATE_FORMATTER) : "N/A");
+        csv.number(booking.getParkingDurationHours());
         
         // Payment
-        row.append(booking.getHourlyRate() != null ? booking.getHourlyRate() : "0").append(",");
-        row.append(booking.getTotalAmount() != null ? booking.getTotalAmount() : "0").append(",");
-        row.append(escapeCSV(booking.getStatus())).append(",");
-        row.append(escapeCSV(booking.getPaymentStatus()));
+        csv.money(booking.getHourlyRatePaise());
+        csv.money(booking.getTotalAmountPaise() != null ? booking.getTotalAmountPaise() : 0L);
+        csv.text(booking.getStatus().name());
+        csv.text(booking.getPaymentStatus() != null ? booking.getPaymentStatus().name() : null);
         
-        return row.toString();
+        csv.endRow();
+    }
+
+    // Same columns as above, from a findExportChunk row
+    private void writeBookingCSVRow(CsvWriter csv, Object[] row) throws Exception {
+        csv.text((String) row[1]);
+        if (row[2] != null) {
+            csv.text((String) row[2])
+               .text((String) row[3])
+               .text((String) row[4])
+               .text((String) row[5]);
+        } else {
+            csv.raw("N/A").raw("N/A").raw("N/A").raw("N/A");
+        }
+        if (row[6] != null) {
+            csv.number((Integer) row[6])
+               .text((String) row[7]);
+        } else {
+            csv.raw("N/A").raw("N/A");
+        }
+
+        LocalDateTime entryTime = (LocalDateTime) row[9];
+        LocalDateTime exitTime = (LocalDateTime) row[10];
+        csv.raw(entryTime.format(DATE_FORMATTER));
+        csv.raw(exitTime != null ? exitTime.format(DATE_FORMATTER) : "N/A");
+        csv.number(Booking.parkingDurationHours(entryTime, exitTime));
+
+        csv.money((Long) row[11]);
+        csv.money(row[12] != null ? (Long) row[12] : 0L);
+        csv.text(((Enum<?>) row[13]).name());
+        csv.text(row[14] != null ? ((Enum<?>) row[14]).name() : null);
+
+        csv.endRow();
     }
     
+    /**
+     * Stream bookings entered between the dates (inclusive) to out as a ZIP
+     * of Parquet files, one per partition of entry dates:
+     * bookings/entry_month=2024-01/bookings.parquet. Rows are read in
+     * keyset chunks of fetch-size from every shard, hot table then
+     * archive, so memory stays at one row group per open file.
+     */
+    public void writeBookingsParquet(String startDate, String endDate, Integer slotId,
+                                     OutputStream out, ProgressListener progress) throws Exception {
+        LocalDate first = LocalDate.parse(startDate);
+        LocalDate last = LocalDate.parse(endDate);
+        LocalDateTime from = first.atStartOfDay();
+        LocalDateTime to = last.plusDays(1).atStartOfDay();
+        Long slot = slotId != null ? slotId.longValue() : null;
+
+        long total = shardRouter.sum(() -> bookingRepository.countForExport(from, to, slot)
+            + archivedBookingRepository.countForExport(from, to, slot));
+        long[] done = new long[1];
+        progress.onProgress(0, total);
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // Parquet pages are compressed already
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        for (LocalDate partition = partitioning.start(first); !partition.isAfter(last); partition = partitioning.next(partition)) {
+            LocalDateTime partitionFrom = max(from, partition.atStartOfDay());
+            LocalDateTime partitionTo = min(to, partitioning.next(partition).atStartOfDay());
+            String name = partitioning.name(partition);
+            ParquetWriter[] writer = new ParquetWriter[1];
+
+            for (String shard : shardRouter.shardNames()) {
+                for (boolean archived : new boolean[] { false, true }) {
+                    readExportRows(shard, archived, partitionFrom, partitionTo, slot, row -> {
+                        if (writer[0] == null) {
+                            // Partitions without bookings get no file
+                            zip.putNextEntry(new ZipEntry("bookings/" + name + "/bookings.parquet"));
+                            writer[0] = new ParquetWriter(zip, BOOKING_COLUMNS, parquetCodec, rowGroupRows,
+                                Map.of("parking.export", "bookings", "parking.partition", name));
+                        }
+                        writeBookingParquetRow(writer[0], row);
+                        if (++done[0] % PROGRESS_INTERVAL == 0) {
+                            progress.onProgress(done[0], Math.max(total, done[0]));
+                        }
+                    });
+                }
+            }
+            if (writer[0] != null) {
+                writer[0].finish();
+                zip.closeEntry();
+            }
+        }
+        zip.finish();
+        progress.onProgress(done[0], done[0]);
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void accept(Object[] row) throws Exception;
+    }
+
+    // Walk export rows in [from, to) of one shard's hot or archive table, fetch-size rows per query
+    private void readExportRows(String shard, boolean archived, LocalDateTime from, LocalDateTime to,
+                                Long slotId, RowHandler handler) throws Exception {
+        LocalDateTime afterTime = from;
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            LocalDateTime keyTime = afterTime;
+            long keyId = afterId;
+            List<Object[]> chunk = shardRouter.call(shard, () -> archived
+                ? archivedBookingRepository.findExportChunk(keyTime, keyId, to, slotId, PageRequest.of(0, fetchSize))
+                : bookingRepository.findExportChunk(keyTime, keyId, to, slotId, PageRequest.of(0, fetchSize)));
+            for (Object[] row : chunk) {
+                handler.accept(row);
+            }
+            if (chunk.size() < fetchSize) {
+                return;
+            }
+            Object[] lastRow = chunk.get(chunk.size() - 1);
+            afterTime = (LocalDateTime) lastRow[9];
+            afterId = (Long) lastRow[0];
+        }
+    }
+
+    // Columns in the order of BOOKING_COLUMNS and of the findExportChunk select list
+    private void writeBookingParquetRow(ParquetWriter parquet, Object[] row) throws Exception {
+        parquet.number((Long) row[0])
+               .text((String) row[1])
+               .text((String) row[2])
+               .text((String) row[3])
+               .text((String) row[4])
+               .text((String) row[5])
+               .number((Integer) row[6])
+               .text((String) row[7])
+               .text((String) row[8])
+               .timestamp((LocalDateTime) row[9])
+               .timestamp((LocalDateTime) row[10])
+               .number((Long) row[11])
+               .number((Long) row[12])
+               .text(((Enum<?>) row[13]).name())
+               .text(row[14] != null ? ((Enum<?>) row[14]).name() : null);
+        parquet.endRow();
+    }
+
+    private static LocalDateTime max(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    // One encoded partition of a parallel export, waiting in workDir to be appended
+    private record Part(String name, LocalDate startDate, LocalDate endDate, Path file, long rows) {}
+
+    /**
+     * Write bookings entered between the dates (inclusive) as gzip CSV,
+     * split into parts by entry date (parking.export.parallel.partition).
+     * Each part is read through its own keyset queries and encoded into a
+     * file under workDir on an export-part worker; there are only as many
+     * workers as reporting may hold connections. Parts are appended to out
+     * in date order as they finish: either back to back as gzip members,
+     * which read as one .csv.gz with the header of the first part, or as
+     * the entries of a ZIP, each with its own header, followed by
+     * manifest.json.
+     */
+    public void writeBookingsCsvParts(String startDate, String endDate, Integer slotId, boolean zipped,
+                                      OutputStream out, Path workDir, ProgressListener progress) throws Exception {
+        LocalDate first = LocalDate.parse(startDate);
+        LocalDate last = LocalDate.parse(endDate);
+        LocalDateTime from = first.atStartOfDay();
+        LocalDateTime to = last.plusDays(1).atStartOfDay();
+        Long slot = slotId != null ? slotId.longValue() : null;
+
+        long total = shardRouter.sum(() -> bookingRepository.countForExport(from, to, slot)
+            + archivedBookingRepository.countForExport(from, to, slot));
+        AtomicLong done = new AtomicLong();
+        progress.onProgress(0, total);
+
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<Future<Part>> parts = new ArrayList<>();
+        for (LocalDate partition = partPartitioning.start(first); !partition.isAfter(last); partition = partPartitioning.next(partition)) {
+            LocalDate partStart = partition.isBefore(first) ? first : partition;
+            LocalDate partEnd = partPartitioning.next(partition).minusDays(1);
+            LocalDate partLast = partEnd.isAfter(last) ? last : partEnd;
+            boolean header = zipped || parts.isEmpty();
+            parts.add(partWorkers.submit(() -> {
+                return writeCsvPart(partStart, partLast, slot, header, workDir, aborted, rows -> {
+                    long sum = done.addAndGet(rows);
+                    progress.onProgress(sum, Math.max(total, sum));
+                });
+            }));
+        }
+
+        ZipOutputStream zip = null;
+        if (zipped) {
+            zip = new ZipOutputStream(out);
+            // The parts are gzip already
+            zip.setLevel(Deflater.NO_COMPRESSION);
+        }
+        List<Map<String, Object>> entries = new ArrayList<>();
+        try {
+            for (Future<Part> future : parts) {
+                Part part = future.get();
+                try {
+                    if (zip != null) {
+                        zip.putNextEntry(new ZipEntry(part.name()));
+                        Files.copy(part.file(), zip);
+                        zip.closeEntry();
+                        Map<String, Object> entry = new LinkedHashMap<>();
+                        entry.put("file", part.name());
+                        entry.put("startDate", part.startDate().toString());
+                        entry.put("endDate", part.endDate().toString());
+                        entry.put("rows", part.rows());
+                        entry.put("bytes", Files.size(part.file()));
+                        entries.add(entry);
+                    } else {
+                        Files.copy(part.file(), out);
+                    }
+                } finally {
+                    Files.deleteIfExists(part.file());
+                }
+            }
+        } catch (Exception e) {
+            // Stop the other parts and remove what they wrote
+            aborted.set(true);
+            for (Future<Part> future : parts) {
+                try {
+                    Files.deleteIfExists(future.get().file());
+                } catch (Exception ignored) {
+                    // failed parts delete their own file
+                }
+            }
+            throw e;
+        }
+
+        if (zip != null) {
+            Map<String, Object> manifest = new LinkedHashMap<>();
+            manifest.put("export", "bookings");
+            manifest.put("format", "csv+gzip");
+            manifest.put("startDate", startDate);
+            manifest.put("endDate", endDate);
+            manifest.put("slotId", slotId);
+            manifest.put("partition", partPartitioning.name());
+            manifest.put("rows", done.get());
+            manifest.put("createdAt", LocalDateTime.now().toString());
+            manifest.put("parts", entries);
+            zip.putNextEntry(new ZipEntry("manifest.json"));
+            zip.write(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(manifest));
+            zip.closeEntry();
+            zip.finish();
+        }
+        progress.onProgress(done.get(), done.get());
+    }
+
+    // Encode the bookings entered on startDate..endDate into a gzip file, reporting rows done in batches
+    private Part writeCsvPart(LocalDate startDate, LocalDate endDate, Long slotId, boolean header, Path workDir,
+                              AtomicBoolean aborted, LongConsumer rowsDone) throws Exception {
+        String name = "bookings_" + startDate + "_to_" + endDate + ".csv.gz";
+        LocalDateTime from = startDate.atStartOfDay();
+        LocalDateTime to = endDate.plusDays(1).atStartOfDay();
+        Path file = Files.createTempFile(workDir, "bookings-", ".csv.gz.part");
+        long[] rows = new long[2];
+        boolean written = false;
+        try {
+            try (CsvWriter csv = new CsvWriter(new OutputStreamWriter(new GZIPOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file), PART_BUFFER_SIZE), PART_BUFFER_SIZE),
+                    StandardCharsets.UTF_8))) {
+                if (header) {
+                    csv.line(BOOKINGS_CSV_HEADER);
+                }
+                for (String shard : shardRouter.shardNames()) {
+                    for (boolean archived : new boolean[] { false, true }) {
+                        readExportRows(shard, archived, from, to, slotId, row -> {
+                            if (aborted.get()) {
+                                throw new CancellationException("Export aborted");
+                            }
+                            writeBookingCSVRow(csv, row);
+                            rows[0]++;
+                            if (++rows[1] == PROGRESS_INTERVAL) {
+                                rowsDone.accept(rows[1]);
+                                rows[1] = 0;
+                            }
+                        });
+                    }
+                }
+            }
+            rowsDone.accept(rows[1]);
+            written = true;
+            return new Part(name, startDate, endDate, file, rows[0]);
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
     /**
      * Export slots to CSV
      */
     public byte[] exportSlotsToCSV(String city, String slotType) {
         try {
-            List<ParkingSlot> allSlots = slotRepository.findAll();
-            
-            // Apply filters
-            List<ParkingSlot> slots = allSlots.stream()
-                .filter(slot -> {
-                    boolean matchCity = city == null || city.equals("ALL") || 
-                                      (slot.getCity() != null && slot.getCity().equals(city));
-                    boolean matchType = slotType == null || slotType.equals("ALL") || 
-                                      slot.getSlotType().equals(slotType);
-                    return matchCity && matchType;
-                })
-                .collect(Collectors.toList());
-            
-            return generateSlotsCSV(slots);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            writeSlotsCSV(city, slotType, baos, ProgressListener.NONE);
+            return baos.toByteArray();
             
         } catch (Exception e) {
             e.printStackTrace();
@@ -153,142 +611,201 @@ public class ExportService {
         }
     }
     
+    /**
+     * Stream the slots CSV to out
+     */
+    public void writeSlotsCSV(String city, String slotType, OutputStream out,
+                              ProgressListener progress) throws Exception {
+        List<ParkingSlot> allSlots = shardRouter.gather(() -> slotRepository.findAll());
+        
+        // Apply filters
+        List<ParkingSlot> slots = allSlots.stream()
+            .filter(slot -> {
+                boolean matchCity = city == null || city.equals("ALL") || 
+                                  (slot.getCity() != null && slot.getCity().equals(city));
+                boolean matchType = slotType == null || slotType.equals("ALL") || 
+                                  slot.getSlotType().equals(slotType);
+                return matchCity && matchType;
+            })
+            .collect(Collectors.toList());
+        
+        generateSlotsCSV(slots, out, progress);
+    }
+    
     /**
      * Generate CSV content for slots
      */
-    private byte[] generateSlotsCSV(List<ParkingSlot> slots) throws Exception {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        PrintWriter writer = new PrintWriter(new OutputStreamWriter(baos, StandardCharsets.UTF_8));
+    private void generateSlotsCSV(List<ParkingSlot> slots, OutputStream out,
+                                  ProgressListener progress) throws Exception {
+        CsvWriter csv = new CsvWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
         
         // Write header
-        writer.println("Slot Number,Slot Type,Floor Number,Location Name,Address," +
-                      "City,Region,Country,Latitude,Longitude,Is Occupied,Is Available," +
-                      "Is Under Maintenance,Maintenance Reason");
+        csv.line("Slot Number,Slot Type,Floor Number,Location Name,Address," +
+                 "City,Region,Country,Latitude,Longitude,Is Occupied,Is Available," +
+                 "Is Under Maintenance,Maintenance Reason");
         
         // Write data rows
+        long total = slots.size();
+        long done = 0;
         for (ParkingSlot slot : slots) {
-            writer.println(buildSlotCSVRow(slot));
+            writeSlotCSVRow(csv, slot);
+            if (++done % PROGRESS_INTERVAL == 0) {
+                progress.onProgress(done, total);
+            }
         }
         
-        writer.flush();
-        writer.close();
-        
-        return baos.toByteArray();
+        csv.close();
+        progress.onProgress(total, total);
     }
     
     /**
-     * Build CSV row for a slot
+     * Write CSV row for a slot
      */
-    private String buildSlotCSVRow(ParkingSlot slot) {
-        StringBuilder row = new StringBuilder();
-        
-        row.append(slot.getSlotNumber()).append(",");
-        row.append(escapeCSV(slot.getSlotType())).append(",");
-        row.append(slot.getFloorNumber() != null ? slot.getFloorNumber() : "N/A").append(",");
-        row.append(escapeCSV(slot.getLocationName())).append(",");
-        row.append(escapeCSV(slot.getAddress())).append(",");
-        row.append(escapeCSV(slot.getCity())).append(",");
-        row.append(escapeCSV(slot.getRegion())).append(",");
-        row.append(escapeCSV(slot.getCountry())).append(",");
-        row.append(slot.getLatitude() != null ? slot.getLatitude() : "N/A").append(",");
-        row.append(slot.getLongitude() != null ? slot.getLongitude() : "N/A").append(",");
-        row.append(slot.getIsOccupied() ? "Yes" : "No").append(",");
-        row.append(slot.getIsAvailable() ? "Yes" : "No").append(",");
-        row.append(slot.getIsUnderMaintenance() ? "Yes" : "No").append(",");
-        row.append(escapeCSV(slot.getMaintenanceReason()));
-        
-        return row.toString();
+    private void writeSlotCSVRow(CsvWriter csv, ParkingSlot slot) throws Exception {
+        csv.number(slot.getSlotNumber())
+           .text(slot.getSlotType())
+           .number(slot.getFloorNumber())
+           .text(slot.getLocationName())
+           .text(slot.getAddress())
+           .text(slot.getCity())
+           .text(slot.getRegion())
+           .text(slot.getCountry())
+           .number(slot.getLatitude())
+           .number(slot.getLongitude())
+           .flag(slot.getIsOccupied())
+           .flag(slot.getIsAvailable())
+           .flag(slot.getIsUnderMaintenance())
+           .text(slot.getMaintenanceReason());
+        csv.endRow();
     }
     
+    /**
+     * Stream the slots (same filters as the CSV) to out as one Parquet file
+     */
+    public void writeSlotsParquet(String city, String slotType, OutputStream out,
+                                  ProgressListener progress) throws Exception {
+        List<ParkingSlot> slots = shardRouter.gather(() -> slotRepository.findAll()).stream()
+            .filter(slot -> city == null || city.equals("ALL") || city.equals(slot.getCity()))
+            .filter(slot -> slotType == null || slotType.equals("ALL") || slot.getSlotType().equals(slotType))
+            .collect(Collectors.toList());
+
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("parking.export", "parking_slots");
+        ParquetWriter parquet = new ParquetWriter(out, SLOT_COLUMNS, parquetCodec, rowGroupRows, metadata);
+        long total = slots.size();
+        long done = 0;
+        for (ParkingSlot slot : slots) {
+            parquet.number(slot.getId())
+                   .number(slot.getSlotNumber())
+                   .text(slot.getSlotType())
+                   .number(slot.getFloorNumber())
+                   .text(slot.getLocationName())
+                   .text(slot.getAddress())
+                   .text(slot.getCity())
+                   .text(slot.getRegion())
+                   .text(slot.getCountry())
+                   .number(slot.getLatitude())
+                   .number(slot.getLongitude())
+                   .flag(slot.getIsOccupied())
+                   .flag(slot.getIsAvailable())
+                   .flag(slot.getIsUnderMaintenance())
+                   .text(slot.getMaintenanceReason());
+            parquet.endRow();
+            if (++done % PROGRESS_INTERVAL == 0) {
+                progress.onProgress(done, total);
+            }
+        }
+        parquet.finish();
+        progress.onProgress(total, total);
+    }
+
     /**
      * Export monthly report summary to CSV
      */
     public byte[] exportReportSummaryToCSV(String startDate, String endDate) {
         try {
-            LocalDateTime start = LocalDate.parse(startDate).atStartOfDay();
-            LocalDateTime end = LocalDate.parse(endDate).atTime(23, 59, 59);
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            writeReportSummaryCSV(startDate, endDate, baos, ProgressListener.NONE);
+            return baos.toByteArray();
             
-            List<Booking> allBookings = bookingRepository.findAll();
-            List<Booking> bookings = allBookings.stream()
-                .filter(b -> b.getEntryTime() != null &&  !b.getEntryTime().isBefore(start) && 
-                        !b.getEntryTime().isAfter(end))
-            .collect(Collectors.toList());
-        
-        return generateReportSummaryCSV(bookings, startDate, endDate);
-        
-    } catch (Exception e) {
-        e.printStackTrace();
-        return new byte[0];
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new byte[0];
+        }
     }
-}
-
-/**
- * Generate report summary CSV
- */
-private byte[] generateReportSummaryCSV(List<Booking> bookings, 
-                                        String startDate, 
-                                        String endDate) throws Exception {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    PrintWriter writer = new PrintWriter(new OutputStreamWriter(baos, StandardCharsets.UTF_8));
-    
-    // Report header
-    writer.println("PARKING SYSTEM - MONTHLY USAGE REPORT");
-    writer.println("Report Period," + startDate + " to " + endDate);
-    writer.println("");
-    
-    // Summary statistics
-    writer.println("SUMMARY STATISTICS");
-    writer.println("Metric,Value");
-    
-    long totalBookings = bookings.size();
-    long completed = bookings.stream().filter(b -> "COMPLETED".equals(b.getStatus())).count();
-    long active = bookings.stream().filter(b -> "ACTIVE".equals(b.getStatus())).count();
-    double totalRevenue = bookings.stream()
-        .mapToDouble(b -> b.getTotalAmount() != null ? b.getTotalAmount() : 0)
-        .sum();
-    
-    writer.println("Total Bookings," + totalBookings);
-    writer.println("Completed Bookings," + completed);
-    writer.println("Active Bookings," + active);
-    writer.println("Total Revenue (₹)," + String.format("%.2f", totalRevenue));
-    writer.println("Average Revenue per Booking (₹)," + 
-        String.format("%.2f", totalBookings > 0 ? totalRevenue / totalBookings : 0));
-    writer.println("");
-    
-    // Vehicle type distribution
-    writer.println("VEHICLE TYPE DISTRIBUTION");
-    writer.println("Vehicle Type,Count,Revenue (₹)");
-    
-    bookings.stream()
-        .filter(b -> b.getVehicle() != null)
-        .collect(Collectors.groupingBy(b -> b.getVehicle().getVehicleType()))
-        .forEach((type, typeBookings) -> {
-            long count = typeBookings.size();
-            double revenue = typeBookings.stream()
-                .mapToDouble(b -> b.getTotalAmount() != null ? b.getTotalAmount() : 0)
-                .sum();
-            writer.println(type + "," + count + "," + String.format("%.2f", revenue));
-        });
-    
-    writer.flush();
-    writer.close();
     
-    return baos.toByteArray();
-}
-
-/**
- * Escape special characters in CSV
- */
-private String escapeCSV(String value) {
-    if (value == null) {
-        return "N/A";
+    /**
+     * Stream the report summary CSV to out
+     */
+    public void writeReportSummaryCSV(String startDate, String endDate, OutputStream out,
+                                      ProgressListener progress) throws Exception {
+        LocalDateTime start = LocalDate.parse(startDate).atStartOfDay();
+        LocalDateTime end = LocalDate.parse(endDate).atTime(23, 59, 59);
+        
+        List<Booking> bookings = archiveService.findInRange(start, end);
+        
+        generateReportSummaryCSV(bookings, startDate, endDate, out, progress);
     }
     
-    // If contains comma, quote, or newline, wrap in quotes and escape quotes
-    if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-        return "\"" + value.replace("\"", "\"\"") + "\"";
+    /**
+     * Generate report summary CSV
+     */
+    private void generateReportSummaryCSV(List<Booking> bookings, 
+                                          String startDate, 
+                                          String endDate,
+                                          OutputStream out,
+                                          ProgressListener progress) throws Exception {
+        CsvWriter csv = new CsvWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        
+        // Report header
+        csv.line("PARKING SYSTEM - MONTHLY USAGE REPORT");
+        csv.line("Report Period," + startDate + " to " + endDate);
+        csv.line("");
+        
+        // Summary statistics
+        csv.line("SUMMARY STATISTICS");
+        csv.line("Metric,Value");
+        
+        long totalBookings = bookings.size();
+        long completed = 0;
+        long active = 0;
+        long totalRevenuePaise = 0;
+        Map<String, long[]> byType = new TreeMap<>();
+        
+        for (Booking b : bookings) {
+            long amount = b.getTotalAmountPaise() != null ? b.getTotalAmountPaise() : 0L;
+            if (b.getStatus() == BookingStatus.COMPLETED) {
+                completed++;
+            } else if (b.getStatus() == BookingStatus.ACTIVE) {
+                active++;
+            }
+            totalRevenuePaise += amount;
+            
+            if (b.getVehicle() != null) {
+                long[] counters = byType.computeIfAbsent(b.getVehicle().getVehicleType(), k -> new long[2]);
+                counters[0]++;
+                counters[1] += amount;
+            }
+        }
+        
+        csv.raw("Total Bookings").number(totalBookings).endRow();
+        csv.raw("Completed Bookings").number(completed).endRow();
+        csv.raw("Active Bookings").number(active).endRow();
+        csv.raw("Total Revenue (₹)").money(totalRevenuePaise).endRow();
+        csv.raw("Average Revenue per Booking (₹)")
+           .money(totalBookings > 0 ? Math.round((double) totalRevenuePaise / totalBookings) : 0L)
+           .endRow();
+        csv.line("");
+        
+        // Vehicle type distribution
+        csv.line("VEHICLE TYPE DISTRIBUTION");
+        csv.line("Vehicle Type,Count,Revenue (₹)");
+        
+        for (Map.Entry<String, long[]> e : byType.entrySet()) {
+            csv.raw(e.getKey()).number(e.getValue()[0]).money(e.getValue()[1]).endRow();
+        }
+        
+        csv.close();
+        progress.onProgress(totalBookings, totalBookings);
     }
-    
-    return value;
 }
-}
\ No newline at end of file
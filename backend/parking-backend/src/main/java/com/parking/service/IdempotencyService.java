@@ -0,0 +1,449 @@
+package com.parking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parking.config.WorkloadClass;
+import com.parking.entity.IdempotencyRecord;
+import com.parking.repository.IdempotencyRecordRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Runs park, exit and checkout at most once per request, however often the
+ * request is sent.
+ *
+ * Two kinds of duplicates are caught:
+ *  - requests with the same Idempotency-Key header (per operation). The key
+ *    is claimed in idempotency_keys before the work runs and the response
+ *    stored there after it, so a retry after a restart or on another
+ *    instance still gets the original answer. Reusing a key for a
+ *    different request is refused;
+ *  - camera events without a key: the same operation for the same plate
+ *    (or booking) from the same gate within gate-window-seconds. These are
+ *    only remembered in memory.
+ *
+ * Successful responses are kept in a bounded in-memory map until their TTL
+ * runs out, so most replays return without touching the database. A
+ * duplicate that arrives while the original is still running waits for its
+ * result. Failed attempts are not remembered, so the client may retry them.
+ *
+ * An action may answer IN_PROGRESS instead (the booking pipeline does when
+ * its wait runs out): the work was handed off and may still commit. That is
+ * answered with 202 and the key stays claimed. When the action also hands
+ * over the PENDING answer, that is stored under the key once it arrives,
+ * as if it had come in time, or the key released when it is a failure;
+ * duplicates meanwhile wait for it here or get "not finished" elsewhere.
+ * Without one, or when this instance dies first, the claim goes stale after
+ * claim-timeout-ms and running the work again is judged by the database.
+ *
+ * Only stored answers are marked replayed.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    // Body flag: accepted but not finished, so neither stored nor released
+    public static final String IN_PROGRESS = "inProgress";
+
+    // Body entry next to IN_PROGRESS: CompletableFuture of the final body, taken out before answering
+    public static final String PENDING = "pending";
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${parking.idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${parking.idempotency.key-ttl-hours:24}")
+    private long keyTtlHours;
+
+    @Value("${parking.idempotency.gate-window-seconds:30}")
+    private long gateWindowSeconds;
+
+    @Value("${parking.idempotency.memory-entries:10000}")
+    private int memoryEntries;
+
+    // A claim older than this is taken to belong to a crashed attempt
+    @Value("${parking.idempotency.claim-timeout-ms:60000}")
+    private long claimTimeoutMs;
+
+    // How long a duplicate waits for the original to finish
+    @Value("${parking.idempotency.wait-ms:10000}")
+    private long waitMs;
+
+    private Map<String, Stored> memory;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong memoryReplays = new AtomicLong();
+    private final AtomicLong durableReplays = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();
+    private final AtomicLong keyConflicts = new AtomicLong();
+    private final AtomicLong stillRunning = new AtomicLong();
+    private final AtomicLong finishedLater = new AtomicLong();
+
+    /**
+     * HTTP status and body to answer with
+     */
+    public record Result(int status, Map<String, Object> body) {
+    }
+
+    /**
+     * What identifies a request for deduplication
+     */
+    public static final class Scope {
+        final String id;
+        final String fingerprint;
+        // Idempotency-Key: stored in the database, reuse for another request is an error
+        final boolean keyed;
+        final long ttlMs;
+
+        Scope(String id, String fingerprint, boolean keyed, long ttlMs) {
+            this.id = id;
+            this.fingerprint = fingerprint;
+            this.keyed = keyed;
+            this.ttlMs = ttlMs;
+        }
+    }
+
+    private record Stored(String fingerprint, Map<String, Object> body, long expiresAt) {
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<Result> result) {
+    }
+
+    @PostConstruct
+    public void init() {
+        memory = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > memoryEntries;
+            }
+        });
+    }
+
+    /**
+     * Deduplication scope of a request, or null when it has neither an
+     * Idempotency-Key nor a gate and subject (plate or booking id)
+     */
+    public Scope scope(String operation, String idempotencyKey, String gate, String subject, Object request) {
+        if (!enabled) {
+            return null;
+        }
+        String fingerprint = sha256(operation + "|" + request);
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            String key = idempotencyKey.trim();
+            if (key.length() > MAX_KEY_LENGTH) {
+                key = sha256(key);
+            }
+            return new Scope(operation + ":" + key, fingerprint, true, TimeUnit.HOURS.toMillis(keyTtlHours));
+        }
+        if (gate != null && !gate.isBlank() && subject != null && !subject.isBlank()) {
+            return new Scope("gate:" + operation + ":" + gate.trim() + ":" + subject.trim().toUpperCase(),
+                fingerprint, false, TimeUnit.SECONDS.toMillis(gateWindowSeconds));
+        }
+        return null;
+    }
+
+    /**
+     * Run the action unless this request was already answered
+     */
+    public Result execute(Scope scope, Supplier<Map<String, Object>> action) {
+        if (scope == null) {
+            return answer(action.get());
+        }
+
+        Stored stored = memory.get(scope.id);
+        if (stored != null && stored.expiresAt() > System.currentTimeMillis()) {
+            if (stored.fingerprint().equals(scope.fingerprint)) {
+                memoryReplays.incrementAndGet();
+                return replay(stored.body());
+            }
+            if (scope.keyed) {
+                return keyConflict();
+            }
+        }
+
+        InFlight mine = new InFlight(scope.fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(scope.id, mine);
+        if (running != null) {
+            if (!running.fingerprint().equals(scope.fingerprint)) {
+                if (scope.keyed) {
+                    return keyConflict();
+                }
+                return answer(action.get());
+            }
+            return join(running);
+        }
+
+        boolean claimed = false;
+        boolean handedOff = false;
+        try {
+            if (scope.keyed) {
+                Result earlier = claim(scope);
+                if (earlier != null) {
+                    mine.result().complete(earlier);
+                    return earlier;
+                }
+                claimed = true;
+            }
+
+            executed.incrementAndGet();
+            Map<String, Object> body = action.get();
+            CompletableFuture<Map<String, Object>> pending = pending(body);
+            if (succeeded(body)) {
+                store(scope, body, claimed);
+                claimed = false;
+            } else if (Boolean.TRUE.equals(body.get(IN_PROGRESS))) {
+                // May still commit; keep the key until the answer arrives, or else until the claim goes stale
+                if (pending != null) {
+                    finishLater(scope, mine, claimed, pending);
+                    handedOff = true;
+                }
+                claimed = false;
+            }
+            Result result = answer(body);
+            if (!handedOff) {
+                mine.result().complete(result);
+            }
+            return result;
+
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            if (claimed) {
+                release(scope);
+            }
+            if (!handedOff) {
+                inFlight.remove(scope.id, mine);
+            }
+        }
+    }
+
+    // Once handed-off work answers: store a success under the key, release it otherwise, and answer the duplicates that joined
+    private void finishLater(Scope scope, InFlight mine, boolean claimed, CompletableFuture<Map<String, Object>> pending) {
+        WorkloadClass workload = WorkloadClass.current();
+        pending.whenCompleteAsync((body, error) -> {
+            try (WorkloadClass.Scope lane = WorkloadClass.use(workload)) {
+                finishedLater.incrementAndGet();
+                if (error == null && succeeded(body)) {
+                    store(scope, body, claimed);
+                } else if (claimed) {
+                    release(scope);
+                }
+                if (error != null) {
+                    mine.result().completeExceptionally(error);
+                } else {
+                    mine.result().complete(answer(body));
+                }
+            } finally {
+                inFlight.remove(scope.id, mine);
+            }
+        });
+    }
+
+    private void store(Scope scope, Map<String, Object> body, boolean claimed) {
+        memory.put(scope.id, new Stored(scope.fingerprint, body, System.currentTimeMillis() + scope.ttlMs));
+        if (claimed) {
+            complete(scope, body);
+        }
+    }
+
+    // Claim the key in the database; a result when the request was answered before or is running elsewhere
+    private Result claim(Scope scope) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(scope.ttlMs));
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                tx.executeWithoutResult(status -> repository.claim(scope.id, scope.fingerprint, now, expiresAt));
+                return null;
+            } catch (DataIntegrityViolationException e) {
+                IdempotencyRecord existing = tx.execute(status -> repository.findById(scope.id).orElse(null));
+                if (existing == null) {
+                    continue;
+                }
+                if (existing.getExpiresAt().isBefore(now)) {
+                    tx.executeWithoutResult(status -> repository.deleteById(scope.id));
+                    continue;
+                }
+                if (!existing.getFingerprint().equals(scope.fingerprint)) {
+                    return keyConflict();
+                }
+                if (IdempotencyRecord.COMPLETED.equals(existing.getStatus())) {
+                    Map<String, Object> body = fromJson(existing.getResponseBody());
+                    memory.put(scope.id, new Stored(scope.fingerprint, body, System.currentTimeMillis() + scope.ttlMs));
+                    durableReplays.incrementAndGet();
+                    return replay(body);
+                }
+                LocalDateTime staleBefore = now.minusNanos(TimeUnit.MILLISECONDS.toNanos(claimTimeoutMs));
+                Integer taken = tx.execute(status -> repository.reclaim(scope.id, scope.fingerprint, now, staleBefore));
+                if (taken != null && taken == 1) {
+                    return null;
+                }
+                return stillRunning();
+            }
+        }
+        return stillRunning();
+    }
+
+    private void complete(Scope scope, Map<String, Object> body) {
+        try {
+            String json = objectMapper.writeValueAsString(body);
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository.complete(scope.id, json));
+        } catch (Exception e) {
+            // The memory entry still answers retries here; elsewhere the claim times out
+            System.out.println("❌ Could not store response for " + scope.id + ": " + e.getMessage());
+        }
+    }
+
+    private void release(Scope scope) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> repository.release(scope.id));
+        } catch (Exception e) {
+            System.out.println("❌ Could not release " + scope.id + ": " + e.getMessage());
+        }
+    }
+
+    // Wait for the original request and answer with its result; only a stored one is a replay
+    private Result join(InFlight running) {
+        joined.incrementAndGet();
+        try {
+            Result result = running.result().get(waitMs, TimeUnit.MILLISECONDS);
+            return succeeded(result.body()) ? replay(result.body()) : result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return stillRunning();
+        } catch (ExecutionException | TimeoutException e) {
+            return stillRunning();
+        }
+    }
+
+    private static Result answer(Map<String, Object> body) {
+        body.remove(PENDING);
+        return new Result(Boolean.TRUE.equals(body.get(IN_PROGRESS)) ? 202 : 200, body);
+    }
+
+    private static boolean succeeded(Map<String, Object> body) {
+        return Boolean.TRUE.equals(body.get("success"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Map<String, Object>> pending(Map<String, Object> body) {
+        return body.remove(PENDING) instanceof CompletableFuture<?> future
+            ? (CompletableFuture<Map<String, Object>>) future : null;
+    }
+
+    private Result replay(Map<String, Object> body) {
+        Map<String, Object> copy = new LinkedHashMap<>(body);
+        copy.put("replayed", true);
+        return new Result(200, copy);
+    }
+
+    private Result keyConflict() {
+        keyConflicts.incrementAndGet();
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        body.put("message", "Idempotency-Key was already used for a different request");
+        return new Result(422, body);
+    }
+
+    private Result stillRunning() {
+        stillRunning.incrementAndGet();
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        body.put("message", "The original request has not finished, retry shortly");
+        return new Result(409, body);
+    }
+
+    /**
+     * Drop expired responses from memory and the database
+     */
+    @Scheduled(fixedDelayString = "${parking.idempotency.cleanup-ms:300000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            for (Iterator<Stored> it = memory.values().iterator(); it.hasNext(); ) {
+                if (it.next().expiresAt() <= now) {
+                    it.remove();
+                }
+            }
+        }
+        try {
+            Integer removed = new TransactionTemplate(transactionManager)
+                .execute(status -> repository.deleteExpired(LocalDateTime.now()));
+            if (removed != null && removed > 0) {
+                System.out.println("✅ Removed " + removed + " expired idempotency keys");
+            }
+        } catch (Exception e) {
+            System.out.println("❌ Idempotency key cleanup failed: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("success", true);
+        stats.put("enabled", enabled);
+        stats.put("inMemory", memory.size());
+        stats.put("running", inFlight.size());
+        stats.put("executed", executed.get());
+        stats.put("memoryReplays", memoryReplays.get());
+        stats.put("durableReplays", durableReplays.get());
+        stats.put("joinedWhileRunning", joined.get());
+        stats.put("keyConflicts", keyConflicts.get());
+        stats.put("stillRunning", stillRunning.get());
+        stats.put("finishedLater", finishedLater.get());
+        return stats;
+    }
+
+    private Map<String, Object> fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, new TypeReference<LinkedHashMap<String, Object>>() {});
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable stored response", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.parking.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.stereotype.Component;
+
+import com.parking.entity.BookingEvent;
+
+/**
+ * The most recent slot and booking events, for clients that poll or
+ * long-poll /api/events/feed instead of re-reading every slot. Each event
+ * gets a local sequence number on arrival; clients pass back the last one
+ * they saw. Redelivered events are dropped by event id.
+ */
+@Component
+public class LiveEventFeed implements BookingEventListener {
+
+    private static final int CAPACITY = 1000;
+    private static final long MAX_WAIT_MS = 25_000;
+
+    private final Deque<Map.Entry<Long, BookingEvent>> recent = new ArrayDeque<>();
+    private final Set<String> recentKeys = new HashSet<>();
+    private long sequence;
+
+    @Override
+    public String consumerName() {
+        return "live-feed";
+    }
+
+    @Override
+    public synchronized void onEvent(BookingEvent event) {
+        // Ids are unique per shard only
+        String key = event.getShard() + ":" + event.getId();
+        if (!recentKeys.add(key)) {
+            return;
+        }
+        recent.addLast(Map.entry(++sequence, event));
+        if (recent.size() > CAPACITY) {
+            BookingEvent dropped = recent.removeFirst().getValue();
+            recentKeys.remove(dropped.getShard() + ":" + dropped.getId());
+        }
+        notifyAll();
+    }
+
+    /**
+     * Events after a sequence number, optionally for one city. Waits up to
+     * waitMs for the first one when there is nothing new yet.
+     */
+    public synchronized Map<String, Object> since(long after, String city, long waitMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + Math.min(Math.max(waitMs, 0), MAX_WAIT_MS);
+        while (sequence <= after && System.currentTimeMillis() < deadline) {
+            wait(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+
+        List<Map<String, Object>> events = new ArrayList<>();
+        long oldest = recent.isEmpty() ? sequence + 1 : recent.peekFirst().getKey();
+        for (Map.Entry<Long, BookingEvent> e : recent) {
+            if (e.getKey() <= after) {
+                continue;
+            }
+            if (city != null && !city.equalsIgnoreCase(e.getValue().getCity())) {
+                continue;
+            }
+            events.add(Map.of("seq", e.getKey(), "event", e.getValue()));
+        }
+        return Map.of(
+            "success", true,
+            "events", events,
+            "last", sequence,
+            // The client fell behind the buffer and should reload the slots
+            "missed", after + 1 < oldest && after > 0
+        );
+    }
+}
@@ -0,0 +1,334 @@
+package com.parking.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.parking.entity.ParkingSlot;
+
+/**
+ * Pre-aggregated map clusters for the slot map. Slots are bucketed into
+ * square screen cells of the Web Mercator grid at every cluster zoom level;
+ * each cell keeps its slot count, free count and coordinate sums, so a
+ * viewport query reads at most the cells on screen and never the slots
+ * behind them. From street zoom on, individual slots are returned instead,
+ * found through the cells of the street level.
+ *
+ * OccupancyTracker feeds every committed slot change in here. An update
+ * takes the slot's previous contribution out of one cell per level and
+ * adds the new one, so it costs O(levels) whatever the number of slots.
+ */
+@Component
+public class MapClusterIndex {
+
+    // Cells per tile side: 256 px tiles, 64 px cells
+    private static final int CELLS_PER_TILE = 4;
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    @Value("${parking.map.min-zoom:3}")
+    private int minZoom;
+
+    @Value("${parking.map.street-zoom:16}")
+    private int streetZoom;
+
+    // Upper bound on clusters or slots in one response
+    @Value("${parking.map.max-items:1000}")
+    private int maxItems;
+
+    // Slot state as last seen, by slot id
+    private final Map<Long, SlotPoint> points = new HashMap<>();
+
+    // levels[z - minZoom] maps a cell key to its aggregate; the last level is the street level
+    private List<Map<Long, Cell>> levels = new ArrayList<>();
+
+    // Slot ids per street-level cell
+    private final Map<Long, Set<Long>> streetCells = new HashMap<>();
+
+    private long version;
+    private long updates;
+
+    /**
+     * What the map needs of a slot, copied when the change is recorded
+     */
+    static final class SlotPoint {
+        final Long id;
+        final Integer slotNumber;
+        final String slotType;
+        final String locationName;
+        final String city;
+        final double latitude;
+        final double longitude;
+        final boolean occupied;
+        final boolean available;
+        final boolean maintenance;
+
+        SlotPoint(ParkingSlot slot) {
+            this.id = slot.getId();
+            this.slotNumber = slot.getSlotNumber();
+            this.slotType = slot.getSlotType();
+            this.locationName = slot.getLocationName();
+            this.city = slot.getCity();
+            this.latitude = slot.getLatitude();
+            this.longitude = slot.getLongitude();
+            this.occupied = Boolean.TRUE.equals(slot.getIsOccupied());
+            this.available = Boolean.TRUE.equals(slot.getIsAvailable());
+            this.maintenance = Boolean.TRUE.equals(slot.getIsUnderMaintenance());
+        }
+
+        boolean free() {
+            return available && !occupied && !maintenance;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", id);
+            m.put("slotNumber", slotNumber);
+            m.put("slotType", slotType);
+            m.put("locationName", locationName);
+            m.put("city", city);
+            m.put("latitude", latitude);
+            m.put("longitude", longitude);
+            m.put("isOccupied", occupied);
+            m.put("isAvailable", available);
+            m.put("isUnderMaintenance", maintenance);
+            return m;
+        }
+    }
+
+    static final class Cell {
+        int count;
+        int free;
+        int maintenance;
+        double latSum;
+        double lngSum;
+
+        void add(SlotPoint p, int sign) {
+            count += sign;
+            free += p.free() ? sign : 0;
+            maintenance += p.maintenance ? sign : 0;
+            latSum += sign * p.latitude;
+            lngSum += sign * p.longitude;
+        }
+    }
+
+    /**
+     * Replace the whole index, e.g. with the slots loaded at startup
+     */
+    public synchronized void rebuild(List<ParkingSlot> slots) {
+        points.clear();
+        streetCells.clear();
+        levels = new ArrayList<>();
+        for (int z = minZoom; z <= streetZoom; z++) {
+            levels.add(new HashMap<>());
+        }
+        for (ParkingSlot slot : slots) {
+            if (hasPosition(slot)) {
+                put(new SlotPoint(slot));
+            }
+        }
+        version++;
+        System.out.println("✅ Map clusters built for " + points.size() + " slots, zoom " + minZoom + "-" + streetZoom);
+    }
+
+    /**
+     * Apply a committed slot change (new, moved, parked, freed, disabled)
+     */
+    public void update(SlotPoint point) {
+        synchronized (this) {
+            SlotPoint old = points.get(point.id);
+            if (old != null) {
+                remove(old);
+            }
+            put(point);
+            version++;
+            updates++;
+        }
+    }
+
+    public synchronized void remove(Long slotId) {
+        SlotPoint old = points.get(slotId);
+        if (old != null) {
+            remove(old);
+            version++;
+            updates++;
+        }
+    }
+
+    static SlotPoint snapshot(ParkingSlot slot) {
+        return hasPosition(slot) ? new SlotPoint(slot) : null;
+    }
+
+    /**
+     * Clusters, or individual slots at street zoom, inside a viewport
+     */
+    public synchronized Map<String, Object> query(double south, double west, double north, double east, int zoom) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        int z = Math.max(minZoom, Math.min(zoom, streetZoom));
+        boolean street = zoom >= streetZoom;
+
+        // A viewport across the antimeridian is split in two
+        List<double[]> boxes = new ArrayList<>();
+        if (west <= east) {
+            boxes.add(new double[] { west, east });
+        } else {
+            boxes.add(new double[] { west, 180 });
+            boxes.add(new double[] { -180, east });
+        }
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        int inView = 0;
+        int freeInView = 0;
+        boolean truncated = false;
+        Map<Long, Cell> level = levels.get(z - minZoom);
+
+        for (double[] box : boxes) {
+            long x0 = cellX(box[0], z);
+            long x1 = cellX(box[1], z);
+            long y0 = cellY(north, z);
+            long y1 = cellY(south, z);
+            long range = (x1 - x0 + 1) * (y1 - y0 + 1);
+
+            // Walk the cell range when it is small, otherwise the occupied cells
+            List<Long> keys = new ArrayList<>();
+            if (range <= level.size()) {
+                for (long x = x0; x <= x1; x++) {
+                    for (long y = y0; y <= y1; y++) {
+                        long key = key(x, y);
+                        if (level.containsKey(key)) {
+                            keys.add(key);
+                        }
+                    }
+                }
+            } else {
+                for (Long key : level.keySet()) {
+                    long x = key >>> 32;
+                    long y = key & 0xFFFFFFFFL;
+                    if (x >= x0 && x <= x1 && y >= y0 && y <= y1) {
+                        keys.add(key);
+                    }
+                }
+            }
+
+            for (Long key : keys) {
+                Cell cell = level.get(key);
+                if (street) {
+                    for (Long id : streetCells.getOrDefault(key, Set.of())) {
+                        SlotPoint p = points.get(id);
+                        if (p.latitude < south || p.latitude > north || p.longitude < box[0] || p.longitude > box[1]) {
+                            continue;
+                        }
+                        inView++;
+                        freeInView += p.free() ? 1 : 0;
+                        if (items.size() < maxItems) {
+                            items.add(p.toMap());
+                        } else {
+                            truncated = true;
+                        }
+                    }
+                } else {
+                    inView += cell.count;
+                    freeInView += cell.free;
+                    if (items.size() < maxItems) {
+                        Map<String, Object> cluster = new LinkedHashMap<>();
+                        cluster.put("latitude", cell.latSum / cell.count);
+                        cluster.put("longitude", cell.lngSum / cell.count);
+                        cluster.put("count", cell.count);
+                        cluster.put("free", cell.free);
+                        cluster.put("maintenance", cell.maintenance);
+                        items.add(cluster);
+                    } else {
+                        truncated = true;
+                    }
+                }
+            }
+        }
+
+        response.put("success", true);
+        response.put("zoom", zoom);
+        response.put("mode", street ? "slots" : "clusters");
+        response.put(street ? "slots" : "clusters", items);
+        response.put("totalInView", inView);
+        response.put("freeInView", freeInView);
+        response.put("truncated", truncated);
+        response.put("version", version);
+        return response;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("slots", points.size());
+        status.put("minZoom", minZoom);
+        status.put("streetZoom", streetZoom);
+        List<Map<String, Object>> cells = new ArrayList<>();
+        for (int i = 0; i < levels.size(); i++) {
+            cells.add(Map.of("zoom", minZoom + i, "cells", levels.get(i).size()));
+        }
+        status.put("levels", cells);
+        status.put("updatesSinceBuild", updates);
+        status.put("version", version);
+        return status;
+    }
+
+    private void put(SlotPoint p) {
+        points.put(p.id, p);
+        for (int z = minZoom; z <= streetZoom; z++) {
+            long key = key(cellX(p.longitude, z), cellY(p.latitude, z));
+            levels.get(z - minZoom).computeIfAbsent(key, k -> new Cell()).add(p, 1);
+            if (z == streetZoom) {
+                streetCells.computeIfAbsent(key, k -> new HashSet<>()).add(p.id);
+            }
+        }
+    }
+
+    private void remove(SlotPoint p) {
+        points.remove(p.id);
+        for (int z = minZoom; z <= streetZoom; z++) {
+            long key = key(cellX(p.longitude, z), cellY(p.latitude, z));
+            Map<Long, Cell> level = levels.get(z - minZoom);
+            Cell cell = level.get(key);
+            if (cell == null) {
+                continue;
+            }
+            cell.add(p, -1);
+            if (cell.count <= 0) {
+                level.remove(key);
+            }
+            if (z == streetZoom) {
+                Set<Long> ids = streetCells.get(key);
+                if (ids != null && ids.remove(p.id) && ids.isEmpty()) {
+                    streetCells.remove(key);
+                }
+            }
+        }
+    }
+
+    private static boolean hasPosition(ParkingSlot slot) {
+        return slot.getId() != null && slot.getLatitude() != null && slot.getLongitude() != null;
+    }
+
+    private static long cells(int zoom) {
+        return (1L << zoom) * CELLS_PER_TILE;
+    }
+
+    private static long cellX(double longitude, int zoom) {
+        double x = (Math.max(-180, Math.min(180, longitude)) + 180) / 360;
+        return Math.min(cells(zoom) - 1, (long) (x * cells(zoom)));
+    }
+
+    private static long cellY(double latitude, int zoom) {
+        double rad = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        double y = (1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2;
+        return Math.max(0, Math.min(cells(zoom) - 1, (long) (y * cells(zoom))));
+    }
+
+    private static long key(long x, long y) {
+        return (x << 32) | y;
+    }
+}
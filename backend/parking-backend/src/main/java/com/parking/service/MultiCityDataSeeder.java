@@ -2,26 +2,61 @@ package com.parking.service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import com.parking.entity.ParkingSlot;
 import com.parking.repository.ParkingSlotRepository;
 
+/**
+ * Demo users and slots for an empty database. Only with the demo profile
+ * (the default when no profile is active), and on its own thread once the
+ * application is ready, so it never delays startup.
+ */
 @Component
-public class MultiCityDataSeeder implements CommandLineRunner {
+@Profile("demo")
+public class MultiCityDataSeeder {
     
     @Autowired
     private ParkingSlotRepository slotRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private OccupancyTracker occupancyTracker;
+
+    @Autowired
+    private ReportCache reportCache;
     
-    @Override
-    public void run(String... args) throws Exception {
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedInBackground() {
+        Thread seeder = new Thread(() -> {
+            try {
+                authService.initializeDemoUsers();
+                run();
+            } catch (Exception e) {
+                System.err.println("❌ Demo seeding failed: " + e.getMessage());
+            }
+        }, "demo-seeder");
+        seeder.setDaemon(true);
+        seeder.start();
+    }
+    
+    private void run() {
         // Only seed if database is empty
-        long count = slotRepository.count();
+        long count = shardRouter.sum(() -> slotRepository.count());
         System.out.println("=== MULTI-CITY SEEDER ===");
         System.out.println("Current slot count: " + count);
         
@@ -152,20 +187,33 @@ public class MultiCityDataSeeder implements CommandLineRunner {
         allSlots.addAll(createSlots(slotNumber, "Kakinada", "Andhra Pradesh",
             16.9850, 82.2450, "Railway Station Parking", "Near Kakinada Town Station"));
         
-        // Save all slots
-        slotRepository.saveAll(allSlots);
+        // Save all slots, each city on its shard
+        Map<String, List<ParkingSlot>> byShard = new LinkedHashMap<>();
+        for (ParkingSlot slot : allSlots) {
+            byShard.computeIfAbsent(shardRouter.shardForCity(slot.getCity()), s -> new ArrayList<>()).add(slot);
+        }
+        for (Map.Entry<String, List<ParkingSlot>> e : byShard.entrySet()) {
+            shardRouter.call(e.getKey(), () -> slotRepository.saveAll(e.getValue()));
+            for (ParkingSlot slot : e.getValue()) {
+                shardRouter.slotAdded(slot.getSlotNumber(), e.getKey());
+            }
+        }
         
         System.out.println("✅ Successfully seeded " + allSlots.size() + " parking slots across 7 cities!");
         System.out.println("📍 Cities: Mumbai, Delhi, Bangalore, Hyderabad, Chennai, Pune, Kakinada");
          //Mark some random slots as under maintenance
         System.out.println("\n🔧 Adding maintenance demo slots...");
         markRandomSlotsForMaintenance();
+        
+        // Counters and map clusters were loaded before the slots existed
+        occupancyTracker.rebuild();
+        reportCache.slotsChanged();
     }
     
     //  Method to mark random slots as under maintenance
     private void markRandomSlotsForMaintenance() {
         try {
-            List<ParkingSlot> allSlots = slotRepository.findAll();
+            List<ParkingSlot> allSlots = shardRouter.gather(() -> slotRepository.findAll());
             
             if (allSlots.size() < 10) {
                 System.out.println("⚠️ Not enough slots to mark for maintenance");
@@ -191,7 +239,7 @@ public class MultiCityDataSeeder implements CommandLineRunner {
                 if (!slot.getIsOccupied() && !slot.getIsUnderMaintenance()) {
                     String reason = maintenanceReasons[random.nextInt(maintenanceReasons.length)];
                     slot.startMaintenance(reason);
-                    slotRepository.save(slot);
+                    shardRouter.call(shardRouter.shardForId(slot.getId()), () -> slotRepository.save(slot));
                     
                     System.out.println("🔧 Slot #" + slot.getSlotNumber() + 
                                      " (" + slot.getCity() + ") marked as under maintenance: " + reason);
@@ -0,0 +1,202 @@
+package com.parking.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.parking.entity.ParkingSlot;
+import com.parking.repository.ParkingSlotRepository;
+
+/**
+ * In-process occupancy counters per city and per location, a location being
+ * a name within its city.
+ * Loaded once at startup and then kept current by the booking and slot
+ * management paths, so pricing can read live occupancy without a DB query.
+ * The same changes keep the map clusters in MapClusterIndex current.
+ */
+@Component
+public class OccupancyTracker {
+
+    @Autowired
+    private ParkingSlotRepository slotRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private MapClusterIndex mapIndex;
+
+    private final Map<String, Counter> byCity = new ConcurrentHashMap<>();
+    // City ("" when none) -> location name -> counter
+    private final Map<String, Map<String, Counter>> byLocation = new ConcurrentHashMap<>();
+
+    static final class Counter {
+        final AtomicInteger capacity = new AtomicInteger();
+        final AtomicInteger occupied = new AtomicInteger();
+
+        int percent() {
+            int cap = capacity.get();
+            if (cap <= 0) {
+                return 0;
+            }
+            int pct = occupied.get() * 100 / cap;
+            return pct < 0 ? 0 : Math.min(pct, 100);
+        }
+    }
+
+    /**
+     * Rebuild all counters from the slot table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<ParkingSlot> slots = shardRouter.gather(() -> slotRepository.findAll());
+        byCity.clear();
+        byLocation.clear();
+        for (ParkingSlot slot : slots) {
+            int capacity = inService(slot) ? 1 : 0;
+            applyCity(slot.getCity(), capacity, occupiedFlag(slot));
+            applyLocation(slot.getCity(), slot.locationKey(), capacity, occupiedFlag(slot));
+        }
+        mapIndex.rebuild(slots);
+        System.out.println("✅ Occupancy counters loaded for " + slots.size() + " slots");
+    }
+
+    /**
+     * Record a slot state change. Call after mutating the slot, passing its previous flags.
+     * Inside a transaction the counters are only updated once it commits.
+     */
+    public void record(ParkingSlot slot, boolean wasInService, boolean wasOccupied) {
+        record(slot, slot.getCity(), slot.locationKey(), wasInService, wasOccupied);
+    }
+
+    /**
+     * Record a slot state change that may also have moved the slot to another
+     * city or location: its previous flags come off the old counters and its
+     * current ones go onto the new.
+     */
+    public void record(ParkingSlot slot, String wasCity, String wasLocation,
+                       boolean wasInService, boolean wasOccupied) {
+        String city = slot.getCity();
+        String location = slot.locationKey();
+        int capacity = inService(slot) ? 1 : 0;
+        int occupied = occupiedFlag(slot);
+        int wasCapacity = wasInService ? 1 : 0;
+        int wasOccupiedCount = wasOccupied ? 1 : 0;
+        // A location moves with its city, even when the name stays
+        boolean cityMoved = !Objects.equals(city, wasCity);
+        boolean locationMoved = cityMoved || !Objects.equals(location, wasLocation);
+        // The map also needs changes that leave the counters alone, e.g. a moved slot
+        Long slotId = slot.getId();
+        MapClusterIndex.SlotPoint point = MapClusterIndex.snapshot(slot);
+        afterCommit(() -> {
+            // Keys that did not change only see the difference
+            int capacityDelta = capacity - wasCapacity;
+            int occupiedDelta = occupied - wasOccupiedCount;
+            if (cityMoved) {
+                applyCity(wasCity, -wasCapacity, -wasOccupiedCount);
+                applyCity(city, capacity, occupied);
+            } else {
+                applyCity(city, capacityDelta, occupiedDelta);
+            }
+            if (locationMoved) {
+                applyLocation(wasCity, wasLocation, -wasCapacity, -wasOccupiedCount);
+                applyLocation(city, location, capacity, occupied);
+            } else {
+                applyLocation(city, location, capacityDelta, occupiedDelta);
+            }
+            if (point != null) {
+                mapIndex.update(point);
+            } else {
+                mapIndex.remove(slotId);
+            }
+        });
+    }
+
+    /**
+     * Record a slot that was removed entirely
+     */
+    public void recordRemoved(ParkingSlot slot) {
+        int capacityDelta = inService(slot) ? -1 : 0;
+        int occupiedDelta = -occupiedFlag(slot);
+        String city = slot.getCity();
+        String location = slot.locationKey();
+        Long slotId = slot.getId();
+        afterCommit(() -> {
+            applyCity(city, capacityDelta, occupiedDelta);
+            applyLocation(city, location, capacityDelta, occupiedDelta);
+            mapIndex.remove(slotId);
+        });
+    }
+
+    /**
+     * Occupancy percentage (0-100) of a location in its city, falling back to the city
+     */
+    public int occupancyPercent(String city, String locationKey) {
+        Map<String, Counter> locations = locationKey != null ? byLocation.get(city != null ? city : "") : null;
+        Counter counter = locations != null ? locations.get(locationKey) : null;
+        if (counter == null && city != null) {
+            counter = byCity.get(city);
+        }
+        return counter != null ? counter.percent() : 0;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> cities = new HashMap<>();
+        byCity.forEach((city, c) -> cities.put(city, Map.of(
+            "capacity", c.capacity.get(),
+            "occupied", c.occupied.get(),
+            "occupancyPercent", c.percent()
+        )));
+        return cities;
+    }
+
+    public static boolean inService(ParkingSlot slot) {
+        return Boolean.TRUE.equals(slot.getIsAvailable())
+            && !Boolean.TRUE.equals(slot.getIsUnderMaintenance());
+    }
+
+    private static int occupiedFlag(ParkingSlot slot) {
+        return Boolean.TRUE.equals(slot.getIsOccupied()) ? 1 : 0;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private void applyCity(String city, int capacityDelta, int occupiedDelta) {
+        if (city != null) {
+            add(byCity.computeIfAbsent(city, k -> new Counter()), capacityDelta, occupiedDelta);
+        }
+    }
+
+    private void applyLocation(String city, String location, int capacityDelta, int occupiedDelta) {
+        if (location != null) {
+            add(byLocation.computeIfAbsent(city != null ? city : "", k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(location, k -> new Counter()), capacityDelta, occupiedDelta);
+        }
+    }
+
+    private static void add(Counter c, int capacityDelta, int occupiedDelta) {
+        c.capacity.addAndGet(capacityDelta);
+        c.occupied.addAndGet(occupiedDelta);
+    }
+}
@@ -7,19 +7,32 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import com.parking.config.ReplicaRoutingDataSource;
+import com.parking.config.ShardContext;
 import com.parking.entity.Booking;
+import com.parking.entity.BookingStatus;
+import com.parking.entity.BookingEvent;
 import com.parking.entity.ParkingSlot;
 import com.parking.entity.Vehicle;
 import com.parking.repository.BookingRepository;
 import com.parking.repository.ParkingSlotRepository;
 import com.parking.repository.UserRepository;
 import com.parking.repository.VehicleRepository;
+import com.parking.util.Money;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 public class ParkingService {
@@ -36,8 +49,53 @@ public class ParkingService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Autowired
+    private OccupancyTracker occupancyTracker;
+
+    @Autowired
+    private BookingFactStore factStore;
+
+    @Autowired
+    private BookingSketchStore sketchStore;
+
+    @Autowired
+    private BookingArchiveService archiveService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private BookingEventBus eventBus;
+
+    @Autowired
+    private SlotJournal journal;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private PlateIndex plateIndex;
+
+    @Autowired
+    private BookingPartitionManager partitionManager;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRouting;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${parking.plate-search.max-results:50}")
+    private int maxSearchResults;
+
     private static final int TOTAL_SLOTS = 20;
 
+    // Last booking number handed out, as epoch millis
+    private static final AtomicLong lastBookingNumber = new AtomicLong();
+
     /**
      * ✅ FIXED: Park vehicle with pessimistic locking to prevent race conditions
      */
@@ -53,6 +111,8 @@ public class ParkingService {
             String endTimeStr) {
 
         Map<String, Object> response = new HashMap<>();
+        // The booking lives on the slot's shard, with the vehicle
+        ShardContext.Scope shard = ShardContext.use(shardRouter.shardForSlotNumber(slotNumber));
 
         try {
             System.out.println("=== PARKING SERVICE DEBUG ===");
@@ -67,8 +127,8 @@ public class ParkingService {
             final String normalizedVehicleType = vehicleType.toUpperCase();
 
             // Get or create vehicle
-            Vehicle vehicle = vehicleRepository
-                    .findByLicensePlate(normalizedLicensePlate)
+            Vehicle vehicle = entityCache
+                    .vehicleByPlate(normalizedLicensePlate)
                     .orElseGet(() -> {
                         Vehicle v = new Vehicle(
                                 normalizedLicensePlate,
@@ -80,7 +140,9 @@ public class ParkingService {
                             userRepository.findById(userId)
                                     .ifPresent(v::setUser);
                         }
-                        return vehicleRepository.save(v);
+                        Vehicle saved = vehicleRepository.save(v);
+                        plateIndex.added(saved.getLicensePlate());
+                        return saved;
                     });
 
             System.out.println("Vehicle ID: " + vehicle.getId());
@@ -88,10 +150,12 @@ public class ParkingService {
             // Check if vehicle is already parked
             List<Booking> activeBookings = bookingRepository.findByVehicleId(vehicle.getId());
             boolean alreadyParked = activeBookings.stream()
-                    .anyMatch(b -> "ACTIVE".equals(b.getStatus()));
+                    .anyMatch(b -> b.getStatus() == BookingStatus.ACTIVE)
+                    || (shardRouter.isSharded() && shardRouter.isParked(normalizedLicensePlate));
 
             if (alreadyParked) {
                 System.out.println("Vehicle already parked!");
+                journal.rejected(slotNumber, null, normalizedLicensePlate, SlotJournal.Reason.ALREADY_PARKED);
                 response.put("success", false);
                 response.put("message", "Vehicle is already parked!");
                 return response;
@@ -104,9 +168,10 @@ public class ParkingService {
             }
 
             // ✅ CRITICAL FIX: Use pessimistic write lock to prevent concurrent bookings
-            Optional<ParkingSlot> slotOpt = slotRepository.findBySlotNumberWithLock(slotNumber);
+            Optional<ParkingSlot> slotOpt = entityCache.slotByNumber(slotNumber).map(this::lockedSlot);
 
             if (slotOpt.isEmpty()) {
+                journal.rejected(slotNumber, null, normalizedLicensePlate, SlotJournal.Reason.SLOT_NOT_FOUND);
                 response.put("success", false);
                 response.put("message", "Slot not found!");
                 return response;
@@ -116,6 +181,7 @@ public class ParkingService {
 
             // ✅ Check maintenance status
             if (slot.getIsUnderMaintenance()) {
+                journal.rejected(slotNumber, slot, normalizedLicensePlate, SlotJournal.Reason.UNDER_MAINTENANCE);
                 response.put("success", false);
                 response.put("message", "Slot #" + slotNumber + " is under maintenance! Reason: " + slot.getMaintenanceReason());
                 return response;
@@ -124,6 +190,7 @@ public class ParkingService {
             // ✅ CRITICAL: Re-check availability after acquiring lock
             if (slot.getIsOccupied() || !slot.getIsAvailable()) {
                 System.out.println("Slot #" + slotNumber + " is no longer available after lock acquisition");
+                journal.rejected(slotNumber, slot, normalizedLicensePlate, SlotJournal.Reason.SLOT_OCCUPIED);
                 response.put("success", false);
                 response.put("message", "Slot #" + slotNumber + " is already occupied! Please select another slot.");
                 return response;
@@ -132,8 +199,9 @@ public class ParkingService {
             System.out.println("Using slot: " + slot.getSlotNumber());
 
             // Create booking
-            String bookingNumber = "BK" + System.currentTimeMillis();
-            Booking booking = new Booking(vehicle, slot, bookingNumber);
+            String bookingNumber = claimBookingNumber();
+            long hourlyRatePaise = pricingEngine.quoteHourlyRate(slot, vehicle.getVehicleType(), LocalDateTime.now());
+            Booking booking = new Booking(vehicle, slot, bookingNumber, hourlyRatePaise);
             
             // Parse start and end times
             DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
@@ -153,12 +221,18 @@ public class ParkingService {
                     System.err.println("Error parsing end time: " + e.getMessage());
                 }
             }
+
+            // A pre-scheduled booking is charged at the rules in force when it starts
+            if (booking.getStartTime() != null) {
+                booking.setHourlyRatePaise(
+                    pricingEngine.quoteHourlyRate(slot, vehicle.getVehicleType(), booking.getStartTime()));
+            }
             
             // Calculate total amount if start/end times are provided
             if (booking.getStartTime() != null && booking.getEndTime() != null) {
-                Double calculatedAmount = booking.calculateTotalAmount();
-                booking.setTotalAmount(calculatedAmount);
-                System.out.println("Calculated amount: " + calculatedAmount);
+                long calculatedAmount = booking.calculateTotalAmountPaise();
+                booking.setTotalAmountPaise(calculatedAmount);
+                System.out.println("Calculated amount: " + Money.format(calculatedAmount));
             }
             
             // Save booking first
@@ -166,10 +240,19 @@ public class ParkingService {
             System.out.println("Booking created: " + bookingNumber);
 
             // Then update slot
+            boolean wasInService = OccupancyTracker.inService(slot);
             slot.occupy();
             slot.setCurrentBooking(booking);
             slot = slotRepository.save(slot);
             slotRepository.flush(); // Force immediate database sync
+            occupancyTracker.record(slot, wasInService, false);
+            eventBus.publish(BookingEvent.Type.VEHICLE_PARKED, slot, booking);
+            journal.record(SlotJournal.Type.PARKED, slot, booking);
+            // The user's next /user/{id} reads must see this booking
+            replicaRouting.recordUserWriteAfterCommit(userId);
+            if (vehicle.getUser() != null && !vehicle.getUser().getId().equals(userId)) {
+                replicaRouting.recordUserWriteAfterCommit(vehicle.getUser().getId());
+            }
 
             System.out.println("Slot occupied successfully");
 
@@ -202,6 +285,8 @@ public class ParkingService {
             response.put("message", "Booking failed: " + e.getMessage());
             // Rethrow to trigger transaction rollback
             throw new RuntimeException("Transaction rolled back due to error", e);
+        } finally {
+            shard.close();
         }
 
         return response;
@@ -213,10 +298,11 @@ public class ParkingService {
     @Transactional
     public Map<String, Object> removeVehicle(String licensePlate) {
         Map<String, Object> response = new HashMap<>();
+        ShardContext.Scope shard = ShardContext.use(shardRouter.shardForPlate(licensePlate));
 
         try {
             licensePlate = licensePlate.toUpperCase();
-            Vehicle vehicle = vehicleRepository.findByLicensePlate(licensePlate).orElse(null);
+            Vehicle vehicle = entityCache.vehicleByPlate(licensePlate).orElse(null);
 
             if (vehicle == null) {
                 response.put("success", false);
@@ -226,7 +312,7 @@ public class ParkingService {
 
             Booking activeBooking = bookingRepository.findByVehicleId(vehicle.getId())
                     .stream()
-                    .filter(b -> "ACTIVE".equals(b.getStatus()))
+                    .filter(b -> b.getStatus() == BookingStatus.ACTIVE)
                     .findFirst()
                     .orElse(null);
 
@@ -239,11 +325,21 @@ public class ParkingService {
             // Complete booking
             activeBooking.completeBooking();
             bookingRepository.save(activeBooking);
+            factStore.appendAfterCommit(activeBooking);
+            sketchStore.recordAfterCommit(activeBooking);
 
             // Vacate slot
-            ParkingSlot slot = activeBooking.getParkingSlot();
+            ParkingSlot slot = lockedSlot(activeBooking.getParkingSlot());
+            boolean wasInService = OccupancyTracker.inService(slot);
+            boolean wasOccupied = slot.getIsOccupied();
             slot.vacate();
             slotRepository.save(slot);
+            occupancyTracker.record(slot, wasInService, wasOccupied);
+            eventBus.publish(BookingEvent.Type.VEHICLE_EXITED, slot, activeBooking);
+            journal.record(SlotJournal.Type.EXITED, slot, activeBooking);
+            if (vehicle.getUser() != null) {
+                replicaRouting.recordUserWriteAfterCommit(vehicle.getUser().getId());
+            }
 
             response.put("success", true);
             response.put("message", "Vehicle removed successfully!");
@@ -258,6 +354,10 @@ public class ParkingService {
             response.put("success", false);
             response.put("message", "Error: " + e.getMessage());
             e.printStackTrace();
+            // Answered as a failure, but whatever was written before the error must not commit
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        } finally {
+            shard.close();
         }
 
         return response;
@@ -269,6 +369,7 @@ public class ParkingService {
     @Transactional
     public Map<String, Object> checkoutBooking(Long bookingId) {
         Map<String, Object> response = new HashMap<>();
+        ShardContext.Scope shard = ShardContext.use(shardRouter.shardForId(bookingId));
 
         try {
             Optional<Booking> bookingOpt = bookingRepository.findById(bookingId);
@@ -281,7 +382,7 @@ public class ParkingService {
 
             Booking booking = bookingOpt.get();
 
-            if (!"ACTIVE".equals(booking.getStatus())) {
+            if (booking.getStatus() != BookingStatus.ACTIVE) {
                 response.put("success", false);
                 response.put("message", "Booking is not active!");
                 return response;
@@ -290,11 +391,21 @@ public class ParkingService {
             // Complete booking
             booking.completeBooking();
             bookingRepository.save(booking);
+            factStore.appendAfterCommit(booking);
+            sketchStore.recordAfterCommit(booking);
 
             // Vacate slot
-            ParkingSlot slot = booking.getParkingSlot();
+            ParkingSlot slot = lockedSlot(booking.getParkingSlot());
+            boolean wasInService = OccupancyTracker.inService(slot);
+            boolean wasOccupied = slot.getIsOccupied();
             slot.vacate();
             slotRepository.save(slot);
+            occupancyTracker.record(slot, wasInService, wasOccupied);
+            eventBus.publish(BookingEvent.Type.BOOKING_CHECKED_OUT, slot, booking);
+            journal.record(SlotJournal.Type.CHECKED_OUT, slot, booking);
+            if (booking.getVehicle() != null && booking.getVehicle().getUser() != null) {
+                replicaRouting.recordUserWriteAfterCommit(booking.getVehicle().getUser().getId());
+            }
 
             response.put("success", true);
             response.put("message", "Booking completed successfully!");
@@ -306,30 +417,77 @@ public class ParkingService {
             response.put("success", false);
             response.put("message", "Error: " + e.getMessage());
             e.printStackTrace();
+            // Answered as a failure, but whatever was written before the error must not commit
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        } finally {
+            shard.close();
         }
 
         return response;
     }
 
+    /**
+     * The slot as it is in the database, locked until the transaction ends.
+     * Slots found by number or through a booking may come from the
+     * second-level cache, and occupancy must not be decided on a cached
+     * copy. Pending changes are flushed first so the refresh cannot drop
+     * them (the booking pipeline runs several commands per transaction).
+     */
+    private ParkingSlot lockedSlot(ParkingSlot slot) {
+        entityManager.flush();
+        entityManager.refresh(slot, LockModeType.PESSIMISTIC_WRITE);
+        return slot;
+    }
+
+    // "BK" + epoch millis, bumped by one when two bookings land in the same millisecond
+    private static String nextBookingNumber() {
+        long now = System.currentTimeMillis();
+        return "BK" + lastBookingNumber.accumulateAndGet(now, (last, n) -> Math.max(last + 1, n));
+    }
+
+    /**
+     * A number no other booking has. Another instance may have handed out
+     * the same millisecond; on a partitioned bookings table that is only
+     * caught by the claim, so a taken number moves on to the next one.
+     */
+    private String claimBookingNumber() {
+        for (int attempt = 1; ; attempt++) {
+            String bookingNumber = nextBookingNumber();
+            try {
+                partitionManager.claimBookingNumber(bookingNumber);
+                return bookingNumber;
+            } catch (DuplicateKeyException e) {
+                if (attempt == 3) {
+                    throw e;
+                }
+                System.out.println("Booking number " + bookingNumber + " already taken, trying the next one");
+            }
+        }
+    }
+
     /**
      * Search for vehicle by license plate
      */
     public Map<String, Object> searchVehicle(String licensePlate) {
         Map<String, Object> response = new HashMap<>();
+        ShardContext.Scope shard = ShardContext.use(shardRouter.shardForPlate(licensePlate));
 
         try {
             licensePlate = licensePlate.toUpperCase();
-            Vehicle vehicle = vehicleRepository.findByLicensePlate(licensePlate).orElse(null);
+            Vehicle vehicle = entityCache.vehicleByPlate(licensePlate).orElse(null);
 
             if (vehicle == null) {
                 response.put("success", false);
                 response.put("message", "Vehicle not found!");
+                // Plates it may have been misread or mistyped from
+                response.put("suggestions", plateIndex.search(licensePlate, 5).stream()
+                        .map(PlateIndex.Match::plate).toList());
                 return response;
             }
 
             Booking activeBooking = bookingRepository.findByVehicleId(vehicle.getId())
                     .stream()
-                    .filter(b -> "ACTIVE".equals(b.getStatus()))
+                    .filter(b -> b.getStatus() == BookingStatus.ACTIVE)
                     .findFirst()
                     .orElse(null);
 
@@ -345,8 +503,64 @@ public class ParkingService {
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Error: " + e.getMessage());
+        } finally {
+            shard.close();
+        }
+
+        return response;
+    }
+
+    /**
+     * Plates matching a partial or misread plate, best first, each with its
+     * vehicle and active booking if parked
+     */
+    public Map<String, Object> searchPlates(String query, int limit) {
+        Map<String, Object> response = new HashMap<>();
+        long started = System.nanoTime();
+        List<PlateIndex.Match> matches = plateIndex.search(query, Math.max(1, Math.min(limit, maxSearchResults)));
+        long indexMicros = (System.nanoTime() - started) / 1000;
+
+        Map<String, Vehicle> vehicles = new HashMap<>();
+        Map<String, Booking> activeBookings = new HashMap<>();
+        if (!matches.isEmpty()) {
+            List<String> plates = matches.stream().map(PlateIndex.Match::plate).toList();
+            // A plate known on several shards shows the vehicle where it is parked
+            for (Booking booking : shardRouter.gather(() -> bookingRepository.findActiveByPlates(plates))) {
+                activeBookings.put(booking.getVehicle().getLicensePlate(), booking);
+                vehicles.put(booking.getVehicle().getLicensePlate(), booking.getVehicle());
+            }
+            for (Vehicle vehicle : shardRouter.gather(() -> vehicleRepository.findByLicensePlateIn(plates))) {
+                vehicles.putIfAbsent(vehicle.getLicensePlate(), vehicle);
+            }
         }
 
+        List<Map<String, Object>> candidates = new ArrayList<>();
+        for (PlateIndex.Match match : matches) {
+            Vehicle vehicle = vehicles.get(match.plate());
+            if (vehicle == null) {
+                continue;
+            }
+            Booking booking = activeBookings.get(match.plate());
+            Map<String, Object> candidate = new HashMap<>();
+            candidate.put("licensePlate", match.plate());
+            candidate.put("matchType", match.type());
+            candidate.put("distance", match.distance());
+            candidate.put("vehicle", vehicle);
+            candidate.put("isParked", booking != null);
+            if (booking != null) {
+                candidate.put("booking", booking);
+                candidate.put("slotNumber", booking.getParkingSlot().getSlotNumber());
+            }
+            candidates.add(candidate);
+        }
+
+        response.put("success", true);
+        response.put("query", PlateIndex.normalize(query));
+        response.put("candidates", candidates);
+        response.put("count", candidates.size());
+        response.put("indexMicros", indexMicros);
+        response.put("index", plateIndex.stats());
+        response.put("tookMs", (System.nanoTime() - started) / 1_000_000);
         return response;
     }
 
@@ -354,21 +568,21 @@ public class ParkingService {
      * Get all parking slots
      */
     public List<ParkingSlot> getAllSlots() {
-        return slotRepository.findAll();
+        return shardRouter.gather(() -> shardRouter.withSlotUsers(slotRepository.findAll()));
     }
 
     /**
      * Get count of available slots
      */
     public long getAvailableSlots() {
-        return slotRepository.countByIsOccupied(false);
+        return shardRouter.sum(() -> slotRepository.countByIsOccupied(false));
     }
 
     /**
      * Get count of occupied slots
      */
     public long getOccupiedSlots() {
-        return slotRepository.countByIsOccupied(true);
+        return shardRouter.sum(() -> slotRepository.countByIsOccupied(true));
     }
 
     /**
@@ -380,17 +594,22 @@ public class ParkingService {
         report.put("availableSlots", getAvailableSlots());
         report.put("occupiedSlots", getOccupiedSlots());
 
-        List<Booking> activeBookings = bookingRepository.findByStatus("ACTIVE");
-        List<Booking> completedBookings = bookingRepository.findByStatus("COMPLETED");
+        List<Booking> activeBookings = shardRouter.gather(() -> shardRouter.withUsers(bookingRepository.findByStatus(BookingStatus.ACTIVE)));
+        List<Booking> completedBookings = shardRouter.gather(() -> shardRouter.withUsers(bookingRepository.findByStatus(BookingStatus.COMPLETED)));
         
         report.put("activeBookings", activeBookings);
         report.put("completedBookings", completedBookings);
         report.put("totalActiveBookings", activeBookings.size());
 
-        double totalRevenue = completedBookings.stream()
-                .mapToDouble(b -> b.getTotalAmount() != null ? b.getTotalAmount() : 0)
-                .sum();
-        report.put("totalRevenue", totalRevenue);
+        // Archived bookings are not listed, but still count towards revenue
+        long totalRevenuePaise = archiveService.archivedRevenuePaise();
+        for (Booking b : completedBookings) {
+            if (b.getTotalAmountPaise() != null) {
+                totalRevenuePaise += b.getTotalAmountPaise();
+            }
+        }
+        report.put("totalRevenue", Money.toRupees(totalRevenuePaise));
+        report.put("archivedBookings", archiveService.archivedCount());
 
         return report;
     }
@@ -402,11 +621,7 @@ public class ParkingService {
         Map<String, Object> response = new HashMap<>();
 
         try {
-            List<Booking> userBookings = bookingRepository.findAll()
-                    .stream()
-                    .filter(b -> b.getVehicle().getUser() != null &&
-                                b.getVehicle().getUser().getId().equals(userId))
-                    .toList();
+            List<Booking> userBookings = archiveService.findByUserId(userId);
 
             response.put("success", true);
             response.put("bookings", userBookings);
@@ -426,7 +641,7 @@ public class ParkingService {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            List<ParkingSlot> allSlots = slotRepository.findAll();
+            List<ParkingSlot> allSlots = getAllSlots();
             List<Map<String, Object>> nearbySlots = new ArrayList<>();
             
             for (ParkingSlot slot : allSlots) {
@@ -0,0 +1,550 @@
+package com.parking.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.parking.repository.VehicleRepository;
+
+/**
+ * In-memory index of every license plate, for the admin vehicle search:
+ * plates starting with the query, plates containing it, and plates a few
+ * edits away from it, where characters that OCR and people mix up (O/0,
+ * I/1, B/8, S/5, Z/2, G/6) cost a fraction of other substitutions.
+ *
+ * Plates are normalized to letters and digits and packed base-37 into a
+ * long (up to 12 characters), numbered in the order they were added.
+ * Prefix search is a binary search over the packed plates kept sorted,
+ * which order like the strings do, so the sorted array is a flattened
+ * trie at 8 bytes a plate. Fuzzy and fragment search read trigram
+ * postings built over each plate's skeleton, the plate with confusable
+ * characters folded together, so a plate misread only in those shares
+ * every trigram with the query; the candidates with enough trigrams in
+ * common are then scored by weighted edit distance.
+ *
+ * Loaded at startup from every shard; vehicles created later are added
+ * once their transaction commits. New plates go to a small sorted buffer,
+ * merged into the sorted array when it fills, so adding one does not copy
+ * the whole array.
+ */
+@Component
+public class PlateIndex {
+
+    public enum MatchType { EXACT, OCR, PREFIX, FUZZY, CONTAINS }
+
+    public record Match(String plate, MatchType type, double distance) {}
+
+    static final int MAX_LENGTH = 12;
+    private static final int RADIX = 37;
+    private static final int TRIGRAMS = RADIX * RADIX * RADIX;
+    private static final int BUFFER_SIZE = 4096;
+    private static final double CONFUSION_COST = 0.3;
+
+    private static final long[] POWERS = new long[MAX_LENGTH + 1];
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i <= MAX_LENGTH; i++) {
+            POWERS[i] = POWERS[i - 1] * RADIX;
+        }
+    }
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Value("${parking.plate-search.max-distance:2}")
+    private int maxDistance;
+
+    // Packed plates by number, and the same plates in order
+    private long[] plates = new long[0];
+    private int size;
+    private long[] sorted = new long[0];
+    private int sortedSize;
+    private final long[] buffer = new long[BUFFER_SIZE];
+    private int bufferSize;
+
+    // Plate numbers per skeleton trigram, ascending
+    private int[][] postings = new int[TRIGRAMS][];
+    private int[] postingSizes = new int[TRIGRAMS];
+    private long postingEntries;
+
+    // Every stored spelling of plates stored at least once not normalized, e.g. "KA 01 AB 1234"
+    private final Map<Long, String[]> spellings = new HashMap<>();
+    private int unindexed;
+
+    /**
+     * Rebuild the index from the vehicle table of every shard
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<String> stored = shardRouter.gather(() -> vehicleRepository.findAllLicensePlates());
+        spellings.clear();
+        unindexed = 0;
+        long[] packed = new long[stored.size()];
+        int n = 0;
+        for (String plate : stored) {
+            long p = pack(plate);
+            if (p < 0) {
+                unindexed++;
+                continue;
+            }
+            packed[n++] = p;
+            if (!plate.equals(unpack(p))) {
+                spellings.merge(p, new String[] { plate }, PlateIndex::union);
+            }
+        }
+        if (!spellings.isEmpty()) {
+            // Those plates may also be stored normalized
+            for (String plate : stored) {
+                long p = pack(plate);
+                if (p >= 0 && spellings.containsKey(p) && plate.equals(unpack(p))) {
+                    spellings.merge(p, new String[] { plate }, PlateIndex::union);
+                }
+            }
+        }
+        Arrays.sort(packed, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || packed[i] != packed[unique - 1]) {
+                packed[unique++] = packed[i];
+            }
+        }
+
+        plates = Arrays.copyOf(packed, Math.max(unique, 16));
+        size = 0;
+        sorted = Arrays.copyOf(packed, unique);
+        sortedSize = unique;
+        bufferSize = 0;
+        postings = new int[TRIGRAMS][];
+        postingSizes = new int[TRIGRAMS];
+        postingEntries = 0;
+        for (int i = 0; i < unique; i++) {
+            index(size++, sorted[i]);
+        }
+        System.out.println("✅ Plate index loaded: " + size + " plates, " + postingEntries + " trigram postings"
+            + (unindexed > 0 ? ", " + unindexed + " not indexable" : ""));
+    }
+
+    /**
+     * Add a plate once the current transaction commits
+     */
+    public void added(String licensePlate) {
+        afterCommit(() -> add(licensePlate));
+    }
+
+    synchronized void add(String licensePlate) {
+        long p = pack(licensePlate);
+        if (p < 0) {
+            unindexed++;
+            return;
+        }
+        boolean known = contains(p);
+        spelling(p, licensePlate, known);
+        if (known) {
+            return;
+        }
+        if (size == plates.length) {
+            plates = Arrays.copyOf(plates, Math.max(16, size + (size >> 1)));
+        }
+        plates[size] = p;
+        index(size++, p);
+
+        int at = -Arrays.binarySearch(buffer, 0, bufferSize, p) - 1;
+        System.arraycopy(buffer, at, buffer, at + 1, bufferSize - at);
+        buffer[at] = p;
+        if (++bufferSize == BUFFER_SIZE) {
+            mergeBuffer();
+        }
+    }
+
+    private void mergeBuffer() {
+        long[] merged = new long[sortedSize + bufferSize];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < sortedSize && j < bufferSize) {
+            merged[k++] = sorted[i] < buffer[j] ? sorted[i++] : buffer[j++];
+        }
+        while (i < sortedSize) {
+            merged[k++] = sorted[i++];
+        }
+        while (j < bufferSize) {
+            merged[k++] = buffer[j++];
+        }
+        sorted = merged;
+        sortedSize = merged.length;
+        bufferSize = 0;
+    }
+
+    private boolean contains(long p) {
+        return Arrays.binarySearch(sorted, 0, sortedSize, p) >= 0
+            || Arrays.binarySearch(buffer, 0, bufferSize, p) >= 0;
+    }
+
+    // Remember a stored spelling that differs from the normalized plate
+    private void spelling(long p, String stored, boolean known) {
+        String plate = unpack(p);
+        String[] seen = spellings.get(p);
+        if (seen == null) {
+            if (stored.equals(plate)) {
+                return;
+            }
+            // A plate already indexed without an entry was stored normalized
+            seen = known ? new String[] { plate } : new String[0];
+        }
+        spellings.put(p, union(seen, new String[] { stored }));
+    }
+
+    private static String[] union(String[] a, String[] b) {
+        String[] all = a;
+        for (String s : b) {
+            if (!Arrays.asList(all).contains(s)) {
+                all = Arrays.copyOf(all, all.length + 1);
+                all[all.length - 1] = s;
+            }
+        }
+        return all;
+    }
+
+    private void index(int id, long p) {
+        for (int trigram : trigrams(skeleton(unpack(p)), true)) {
+            int[] list = postings[trigram];
+            int n = postingSizes[trigram];
+            if (list == null) {
+                list = postings[trigram] = new int[4];
+            } else if (n == list.length) {
+                list = postings[trigram] = Arrays.copyOf(list, n + (n >> 1));
+            }
+            list[n] = id;
+            postingSizes[trigram] = n + 1;
+            postingEntries++;
+        }
+    }
+
+    /**
+     * Plates matching a query, best first: exact, misread only in
+     * confusable characters, starting with it, within the edit distance,
+     * then containing it
+     */
+    public synchronized List<Match> search(String query, int limit) {
+        String q = normalize(query);
+        // Longer than any indexed plate plus the edits allowed
+        if (q.isEmpty() || limit <= 0 || q.length() > MAX_LENGTH + maxDistance) {
+            return List.of();
+        }
+        Map<Long, Match> found = new HashMap<>();
+        if (q.length() <= MAX_LENGTH) {
+            prefixed(q, limit, found);
+        }
+        similar(q, found);
+        if (q.length() >= 3) {
+            containing(q, limit, found);
+        }
+
+        List<Match> ranked = new ArrayList<>();
+        for (Map.Entry<Long, Match> e : found.entrySet()) {
+            Match m = e.getValue();
+            for (String spelling : spellingsOf(e.getKey())) {
+                ranked.add(new Match(spelling, m.type(), m.distance()));
+            }
+        }
+        ranked.sort(Comparator.comparing(Match::type)
+            .thenComparingDouble(Match::distance)
+            .thenComparing(Match::plate));
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+
+    // The first plates in order that start with the query
+    private void prefixed(String q, int limit, Map<Long, Match> found) {
+        long low = pack(q);
+        long high = low + POWERS[MAX_LENGTH - q.length()];
+        List<Long> hits = new ArrayList<>();
+        collectRange(sorted, sortedSize, low, high, limit, hits);
+        collectRange(buffer, bufferSize, low, high, limit, hits);
+        hits.sort(null);
+        for (int i = 0; i < hits.size() && i < limit; i++) {
+            long p = hits.get(i);
+            keep(found, p, new Match(unpack(p), p == low ? MatchType.EXACT : MatchType.PREFIX, 0));
+        }
+    }
+
+    private static void collectRange(long[] values, int n, long low, long high, int limit, List<Long> into) {
+        int at = Arrays.binarySearch(values, 0, n, low);
+        if (at < 0) {
+            at = -at - 1;
+        }
+        for (int taken = 0; at < n && values[at] < high && taken < limit; at++, taken++) {
+            into.add(values[at]);
+        }
+    }
+
+    // Plates within the edit distance, found through the trigrams they share with the query
+    private void similar(String q, Map<Long, Match> found) {
+        int edits = Math.min(maxDistance, q.length() / 4);
+        int[] grams = rarestFirst(trigrams(skeleton(q), true));
+        // Each edit changes at most three trigrams, and a plate sharing `needed`
+        // of them has one among the rarest grams.length - needed + 1
+        int needed = Math.max(1, grams.length - 3 * edits);
+        int probed = grams.length - needed + 1;
+        byte[] counts = new byte[size];
+        int[] touched = count(grams, probed, counts);
+        // The other lists can only add to plates already seen. Walking a list
+        // is cheaper than binary searching it per plate unless it is much longer
+        int scanned = probed;
+        while (scanned < grams.length && postingSizes[grams[scanned]] <= 8L * touched.length) {
+            int[] list = postings[grams[scanned]];
+            for (int i = 0; i < postingSizes[grams[scanned]]; i++) {
+                if (counts[list[i]] > 0) {
+                    counts[list[i]]++;
+                }
+            }
+            scanned++;
+        }
+        for (int id : touched) {
+            int shared = counts[id];
+            for (int g = scanned; g < grams.length && shared < needed && shared + grams.length - g >= needed; g++) {
+                if (has(grams[g], id)) {
+                    shared++;
+                }
+            }
+            if (shared < needed) {
+                continue;
+            }
+            String plate = unpack(plates[id]);
+            if (Math.abs(plate.length() - q.length()) > edits) {
+                continue;
+            }
+            double d = distance(q, plate, edits);
+            if (d <= edits) {
+                MatchType type = d == 0 ? MatchType.EXACT : d < 1 ? MatchType.OCR : MatchType.FUZZY;
+                keep(found, plates[id], new Match(plate, type, round(d)));
+            }
+        }
+    }
+
+    // Plates whose skeleton contains the query's: walk the rarest of its inner trigrams
+    private void containing(String q, int limit, Map<Long, Match> found) {
+        String fragment = skeleton(q);
+        int[] grams = rarestFirst(trigrams(fragment, false));
+        int[] list = postings[grams[0]];
+        int taken = 0;
+        for (int i = 0; i < postingSizes[grams[0]] && taken < limit; i++) {
+            int id = list[i];
+            if (found.containsKey(plates[id])) {
+                continue;
+            }
+            boolean all = true;
+            for (int g = 1; g < grams.length && all; g++) {
+                all = has(grams[g], id);
+            }
+            String plate = unpack(plates[id]);
+            if (all && skeleton(plate).contains(fragment)) {
+                keep(found, plates[id], new Match(plate, MatchType.CONTAINS, plate.length() - q.length()));
+                taken++;
+            }
+        }
+    }
+
+    private int[] rarestFirst(int[] grams) {
+        return Arrays.stream(grams).boxed()
+            .sorted(Comparator.comparingInt(g -> postingSizes[g]))
+            .mapToInt(Integer::intValue).toArray();
+    }
+
+    // Plates are numbered as they are added, so every posting list is ascending
+    private boolean has(int trigram, int id) {
+        return postings[trigram] != null && Arrays.binarySearch(postings[trigram], 0, postingSizes[trigram], id) >= 0;
+    }
+
+    // Count how many of the first n trigrams each plate has, returning the plates seen
+    private int[] count(int[] grams, int n, byte[] counts) {
+        int[] touched = new int[64];
+        int seen = 0;
+        for (int g = 0; g < n; g++) {
+            int[] list = postings[grams[g]];
+            for (int i = 0; i < postingSizes[grams[g]]; i++) {
+                int id = list[i];
+                if (counts[id]++ == 0) {
+                    if (seen == touched.length) {
+                        touched = Arrays.copyOf(touched, seen * 2);
+                    }
+                    touched[seen++] = id;
+                }
+            }
+        }
+        return Arrays.copyOf(touched, seen);
+    }
+
+    private static void keep(Map<Long, Match> found, long p, Match match) {
+        Match previous = found.get(p);
+        if (previous == null || match.type().compareTo(previous.type()) < 0
+                || (match.type() == previous.type() && match.distance() < previous.distance())) {
+            found.put(p, match);
+        }
+    }
+
+    private String[] spellingsOf(long p) {
+        String[] stored = spellings.get(p);
+        return stored != null ? stored : new String[] { unpack(p) };
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("plates", size);
+        stats.put("unindexed", unindexed);
+        stats.put("buffered", bufferSize);
+        stats.put("trigramPostings", postingEntries);
+        stats.put("approxBytes", 8L * (plates.length + sorted.length) + 4L * postingEntries);
+        return stats;
+    }
+
+    /**
+     * Edit distance where substituting one confusable character for
+     * another costs CONFUSION_COST; gives up once every path exceeds max
+     */
+    static double distance(String a, String b, int max) {
+        double[] previous = new double[b.length() + 1];
+        double[] current = new double[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            double best = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                char cb = b.charAt(j - 1);
+                double substitute = ca == cb ? 0 : fold(ca) == fold(cb) ? CONFUSION_COST : 1;
+                current[j] = Math.min(previous[j - 1] + substitute, Math.min(previous[j], current[j - 1]) + 1);
+                best = Math.min(best, current[j]);
+            }
+            if (best > max) {
+                return best;
+            }
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static double round(double d) {
+        return Math.round(d * 100) / 100.0;
+    }
+
+    /**
+     * Upper case letters and digits only
+     */
+    public static String normalize(String plate) {
+        if (plate == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(plate.length());
+        for (int i = 0; i < plate.length(); i++) {
+            char c = Character.toUpperCase(plate.charAt(i));
+            if ((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z')) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    // Normalized plate as a base-37 number, padded on the right so numbers order like strings; -1 if it does not fit
+    static long pack(String plate) {
+        String p = normalize(plate);
+        if (p.isEmpty() || p.length() > MAX_LENGTH) {
+            return -1;
+        }
+        long packed = 0;
+        for (int i = 0; i < MAX_LENGTH; i++) {
+            packed = packed * RADIX + (i < p.length() ? code(p.charAt(i)) : 0);
+        }
+        return packed;
+    }
+
+    static String unpack(long packed) {
+        char[] chars = new char[MAX_LENGTH];
+        int n = 0;
+        for (int i = MAX_LENGTH - 1; i >= 0; i--) {
+            int c = (int) (packed / POWERS[i] % RADIX);
+            if (c == 0) {
+                break;
+            }
+            chars[n++] = symbol(c);
+        }
+        return new String(chars, 0, n);
+    }
+
+    // 0 is padding, digits are 1-10 and letters 11-36, keeping ASCII order
+    private static int code(char c) {
+        return c <= '9' ? c - '0' + 1 : c - 'A' + 11;
+    }
+
+    private static char symbol(int code) {
+        return (char) (code <= 10 ? '0' + code - 1 : 'A' + code - 11);
+    }
+
+    private static char fold(char c) {
+        switch (c) {
+            case 'O': case 'Q': case 'D': return '0';
+            case 'I': case 'L': return '1';
+            case 'Z': return '2';
+            case 'S': return '5';
+            case 'G': return '6';
+            case 'B': return '8';
+            default: return c;
+        }
+    }
+
+    static String skeleton(String plate) {
+        char[] chars = plate.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    // Distinct trigram ids of a skeleton, optionally with padding marking both ends
+    private static int[] trigrams(String skeleton, boolean padded) {
+        int[] codes = new int[skeleton.length() + (padded ? 2 : 0)];
+        int offset = padded ? 1 : 0;
+        for (int i = 0; i < skeleton.length(); i++) {
+            codes[i + offset] = code(skeleton.charAt(i));
+        }
+        if (codes.length < 3) {
+            return new int[0];
+        }
+        int[] grams = new int[codes.length - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (codes[i] * RADIX + codes[i + 1]) * RADIX + codes[i + 2];
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
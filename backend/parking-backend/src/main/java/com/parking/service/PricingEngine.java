@@ -0,0 +1,334 @@
+package com.parking.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.parking.entity.ParkingSlot;
+import com.parking.entity.RateRule;
+import com.parking.repository.RateRuleRepository;
+import com.parking.util.Money;
+
+/**
+ * Table-driven pricing. Active RateRules are compiled into an immutable
+ * RateTable of paise rates indexed by (row, vehicle, slot type, day, hour),
+ * where a row is the global default, a city or a location. A location is a
+ * name within a city, since the same name can exist in several; a location
+ * rule without a city applies to that name wherever it has no row of its
+ * own. The current table is swapped atomically on reload, so quotes never
+ * read the database.
+ */
+@Service
+public class PricingEngine {
+
+    public static final int VEHICLE_TYPES = 5;   // BIKE, CAR, SUV, TRUCK, OTHER
+    public static final int SLOT_TYPES = 4;      // SMALL, MEDIUM, LARGE, OTHER
+    private static final int DAYS = 7;
+    private static final int HOURS = 24;
+    private static final int ROW_STRIDE = VEHICLE_TYPES * SLOT_TYPES * DAYS * HOURS;
+
+    // Base hourly rates in paise per vehicle code, used where no rule applies
+    private static final long[] DEFAULT_RATES = {1_000, 2_000, 3_000, 5_000, 2_000};
+
+    @Autowired
+    private RateRuleRepository rateRuleRepository;
+
+    @Autowired
+    private OccupancyTracker occupancyTracker;
+
+    // Format: "occupancyPercent:multiplier,..." e.g. "80:1.25,95:1.5"
+    @Value("${parking.pricing.surge-tiers:}")
+    private String surgeTiers;
+
+    private volatile RateTable table = RateTable.compile(List.of(), "");
+
+    /**
+     * A location name in a city; city is null for location rules without one
+     */
+    record Place(String city, String location) {
+        @Override
+        public String toString() {
+            return city != null ? location + " (" + city + ")" : location;
+        }
+    }
+
+    /**
+     * Immutable compiled rate lookup table
+     */
+    static final class RateTable {
+        final long[] rates;
+        final int[] surgeBasisPoints;
+        final Map<String, Integer> cityRows;
+        final Map<Place, Integer> locationRows;
+        // The same rows as city -> location -> row, "" for no city: quotes look up without a key object
+        private final Map<String, Map<String, Integer>> locationRowsByCity;
+        final int ruleCount;
+        final LocalDateTime compiledAt;
+
+        private RateTable(long[] rates, int[] surgeBasisPoints, Map<String, Integer> cityRows,
+                          Map<Place, Integer> locationRows, int ruleCount) {
+            this.rates = rates;
+            this.surgeBasisPoints = surgeBasisPoints;
+            this.cityRows = cityRows;
+            this.locationRows = locationRows;
+            Map<String, Map<String, Integer>> byCity = new HashMap<>();
+            locationRows.forEach((place, row) -> byCity
+                .computeIfAbsent(place.city() != null ? place.city() : "", c -> new HashMap<>())
+                .put(place.location(), row));
+            this.locationRowsByCity = byCity;
+            this.ruleCount = ruleCount;
+            this.compiledAt = LocalDateTime.now();
+        }
+
+        int row(String city, String locationKey) {
+            Integer row = null;
+            if (locationKey != null) {
+                Map<String, Integer> rows = locationRowsByCity.get(city != null ? city : "");
+                row = rows != null ? rows.get(locationKey) : null;
+                if (row == null && city != null) {
+                    rows = locationRowsByCity.get("");
+                    row = rows != null ? rows.get(locationKey) : null;
+                }
+            }
+            if (row == null && city != null) {
+                row = cityRows.get(city);
+            }
+            return row != null ? row : 0;
+        }
+
+        static RateTable compile(List<RateRule> rules, String surgeTiers) {
+            // Assign rows: 0 = global, then one per city, then one per location
+            Map<String, Integer> cityRows = new HashMap<>();
+            Map<Place, Integer> locationRows = new HashMap<>();
+            int rows = 1;
+            for (RateRule rule : rules) {
+                if (rule.getCity() != null && !cityRows.containsKey(rule.getCity())) {
+                    cityRows.put(rule.getCity(), rows++);
+                }
+            }
+            for (RateRule rule : rules) {
+                if (rule.getLocationName() != null) {
+                    Place place = new Place(rule.getCity(), rule.getLocationName());
+                    if (!locationRows.containsKey(place)) {
+                        locationRows.put(place, rows++);
+                    }
+                }
+            }
+
+            long[] rates = new long[rows * ROW_STRIDE];
+
+            // Global row: built-in defaults, then global rules
+            for (int v = 0; v < VEHICLE_TYPES; v++) {
+                int from = v * SLOT_TYPES * DAYS * HOURS;
+                Arrays.fill(rates, from, from + SLOT_TYPES * DAYS * HOURS, DEFAULT_RATES[v]);
+            }
+            List<RateRule> sorted = new ArrayList<>(rules);
+            sorted.sort(Comparator.comparingInt(RateRule::specificity)
+                .thenComparing(r -> r.getId() != null ? r.getId() : Long.MAX_VALUE));
+
+            for (RateRule rule : sorted) {
+                if (rule.getCity() == null && rule.getLocationName() == null) {
+                    applyRule(rates, 0, rule);
+                }
+            }
+
+            // City rows inherit the global row
+            for (Map.Entry<String, Integer> e : cityRows.entrySet()) {
+                int row = e.getValue();
+                System.arraycopy(rates, 0, rates, row * ROW_STRIDE, ROW_STRIDE);
+                for (RateRule rule : sorted) {
+                    if (rule.getLocationName() == null && e.getKey().equals(rule.getCity())) {
+                        applyRule(rates, row, rule);
+                    }
+                }
+            }
+
+            // Location rows inherit their city row (or global), then take the
+            // rules for the name without a city before their own
+            for (Map.Entry<Place, Integer> e : locationRows.entrySet()) {
+                int row = e.getValue();
+                Place place = e.getKey();
+                int parent = place.city() != null ? cityRows.get(place.city()) : 0;
+                System.arraycopy(rates, parent * ROW_STRIDE, rates, row * ROW_STRIDE, ROW_STRIDE);
+                for (RateRule rule : sorted) {
+                    if (rule.getCity() == null && place.location().equals(rule.getLocationName())) {
+                        applyRule(rates, row, rule);
+                    }
+                }
+                if (place.city() != null) {
+                    for (RateRule rule : sorted) {
+                        if (place.city().equals(rule.getCity()) && place.location().equals(rule.getLocationName())) {
+                            applyRule(rates, row, rule);
+                        }
+                    }
+                }
+            }
+
+            return new RateTable(rates, compileSurge(surgeTiers), Map.copyOf(cityRows),
+                Map.copyOf(locationRows), rules.size());
+        }
+
+        private static void applyRule(long[] rates, int row, RateRule rule) {
+            int vFrom = 0, vTo = VEHICLE_TYPES;
+            if (rule.getVehicleType() != null) {
+                vFrom = vehicleTypeCode(rule.getVehicleType());
+                vTo = vFrom + 1;
+            }
+            int sFrom = 0, sTo = SLOT_TYPES;
+            if (rule.getSlotType() != null) {
+                sFrom = slotTypeCode(rule.getSlotType());
+                sTo = sFrom + 1;
+            }
+            int mask = rule.getDaysMask() != null && rule.getDaysMask() != 0 ? rule.getDaysMask() : 0x7F;
+            int startHour = rule.getStartHour() != null ? rule.getStartHour() : 0;
+            int endHour = rule.getEndHour() != null ? rule.getEndHour() : HOURS;
+            long rate = Money.toPaise(rule.getHourlyRate());
+
+            for (int v = vFrom; v < vTo; v++) {
+                for (int s = sFrom; s < sTo; s++) {
+                    for (int d = 0; d < DAYS; d++) {
+                        if ((mask & (1 << d)) == 0) {
+                            continue;
+                        }
+                        for (int h = 0; h < HOURS; h++) {
+                            boolean inWindow = startHour <= endHour
+                                ? h >= startHour && h < endHour
+                                : h >= startHour || h < endHour;
+                            if (inWindow) {
+                                rates[index(row, v, s, d, h)] = rate;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private static int[] compileSurge(String tiers) {
+            int[] surge = new int[101];
+            Arrays.fill(surge, 10_000);
+            if (tiers == null || tiers.isBlank()) {
+                return surge;
+            }
+            List<double[]> parsed = new ArrayList<>();
+            for (String tier : tiers.split(",")) {
+                String[] parts = tier.trim().split(":");
+                if (parts.length == 2) {
+                    parsed.add(new double[] {
+                        Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim())
+                    });
+                }
+            }
+            parsed.sort(Comparator.comparingDouble(t -> t[0]));
+            for (double[] tier : parsed) {
+                for (int pct = Math.max(0, (int) tier[0]); pct <= 100; pct++) {
+                    surge[pct] = (int) Math.round(tier[1] * 10_000);
+                }
+            }
+            return surge;
+        }
+    }
+
+    /**
+     * Compile the initial table once the schema is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reload();
+    }
+
+    /**
+     * Recompile all active rules and swap the table in atomically
+     */
+    public Map<String, Object> reload() {
+        List<RateRule> rules = rateRuleRepository.findByActive(true);
+        RateTable compiled = RateTable.compile(rules, surgeTiers);
+        table = compiled;
+
+        System.out.println("✅ Pricing table compiled: " + rules.size() + " rules, "
+            + (compiled.rates.length / ROW_STRIDE) + " rows");
+        return describe();
+    }
+
+    /**
+     * Quote the hourly rate in paise for a slot, including occupancy surge
+     */
+    public long quoteHourlyRate(ParkingSlot slot, String vehicleType, LocalDateTime at) {
+        RateTable t = table;
+        String city = slot.getCity();
+        String location = slot.locationKey();
+        return quote(t, t.row(city, location),
+            vehicleTypeCode(vehicleType),
+            slotTypeCode(slot.getSlotType()),
+            at.getDayOfWeek().getValue() - 1,
+            at.getHour(),
+            occupancyTracker.occupancyPercent(city, location));
+    }
+
+    /**
+     * Allocation-free quote against pre-resolved primitive indices
+     */
+    public long quote(int row, int vehicleCode, int slotTypeCode, int dayOfWeek, int hour, int occupancyPercent) {
+        return quote(table, row, vehicleCode, slotTypeCode, dayOfWeek, hour, occupancyPercent);
+    }
+
+    public int resolveRow(String city, String locationKey) {
+        return table.row(city, locationKey);
+    }
+
+    private static long quote(RateTable t, int row, int vehicleCode, int slotTypeCode,
+                              int dayOfWeek, int hour, int occupancyPercent) {
+        long base = t.rates[index(row, vehicleCode, slotTypeCode, dayOfWeek, hour)];
+        int surge = t.surgeBasisPoints[occupancyPercent < 0 ? 0 : Math.min(occupancyPercent, 100)];
+        return Money.applyBasisPoints(base, surge);
+    }
+
+    public Map<String, Object> describe() {
+        RateTable t = table;
+        Map<String, Object> info = new HashMap<>();
+        info.put("ruleCount", t.ruleCount);
+        info.put("rows", t.rates.length / ROW_STRIDE);
+        info.put("cities", t.cityRows.keySet());
+        info.put("locations", t.locationRows.keySet().stream().map(Place::toString).sorted().toList());
+        info.put("compiledAt", t.compiledAt.toString());
+        return info;
+    }
+
+    private static int index(int row, int v, int s, int d, int h) {
+        return row * ROW_STRIDE + ((v * SLOT_TYPES + s) * DAYS + d) * HOURS + h;
+    }
+
+    public static int vehicleTypeCode(String vehicleType) {
+        if (vehicleType == null) {
+            return 4;
+        }
+        return switch (vehicleType.toUpperCase()) {
+            case "BIKE" -> 0;
+            case "CAR" -> 1;
+            case "SUV" -> 2;
+            case "TRUCK" -> 3;
+            default -> 4;
+        };
+    }
+
+    public static int slotTypeCode(String slotType) {
+        if (slotType == null) {
+            return 3;
+        }
+        return switch (slotType.toUpperCase()) {
+            case "SMALL" -> 0;
+            case "MEDIUM" -> 1;
+            case "LARGE" -> 2;
+            default -> 3;
+        };
+    }
+}
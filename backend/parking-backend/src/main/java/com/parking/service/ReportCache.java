@@ -0,0 +1,253 @@
+package com.parking.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache of finished monthly reports keyed by (start, end, reportType).
+ * Only closed periods are stored: their bookings can no longer change.
+ * Entries are written to local disk as JSON and survive restarts; the most
+ * recently used ones are also kept in memory.
+ *
+ * A report still depends on more than its bookings. Utilization is taken
+ * over the slots that exist when it is built, so adding, removing or
+ * moving a slot drops every entry (slotsChanged). Keys carry
+ * FORMAT_VERSION, so reports written before a section was added or
+ * changed are never served; files of other versions are deleted on
+ * startup.
+ */
+@Component
+public class ReportCache {
+
+    private static final int MEMORY_ENTRIES = 256;
+
+    // Bump whenever a report section is added, removed or computed differently
+    static final int FORMAT_VERSION = 2;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${parking.reports.cache-dir:./data/report-cache}")
+    private String cacheDir;
+
+    private final Map<String, Map<String, Object>> memory = Collections.synchronizedMap(
+        new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+                return size() > MEMORY_ENTRIES;
+            }
+        });
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong uncacheable = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong buildNanos = new AtomicLong();
+    private final AtomicLong maxBuildNanos = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Bumped on every invalidation; a build that started before one is not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void dropOtherVersions() {
+        int removed = delete(name -> !name.startsWith(keyPrefix()));
+        if (removed > 0) {
+            System.out.println("✅ Dropped " + removed + " cached reports from older report formats");
+        }
+    }
+
+    /**
+     * Return the cached report for a closed period, building and storing it
+     * on a miss. Open periods are always built.
+     */
+    public Map<String, Object> get(String startDate, String endDate, String reportType,
+                                   boolean closed, Supplier<Map<String, Object>> builder) {
+        if (!closed) {
+            uncacheable.incrementAndGet();
+            return timedBuild(builder);
+        }
+
+        String key = key(startDate, endDate, reportType);
+        Map<String, Object> report = memory.get(key);
+        if (report != null) {
+            memoryHits.incrementAndGet();
+            return report;
+        }
+
+        report = readFromDisk(key);
+        if (report != null) {
+            diskHits.incrementAndGet();
+            memory.put(key, report);
+            return report;
+        }
+
+        misses.incrementAndGet();
+        long builtAt = generation.get();
+        report = timedBuild(builder);
+        if (Boolean.TRUE.equals(report.get("success")) && generation.get() == builtAt) {
+            memory.put(key, report);
+            writeToDisk(key, report);
+        }
+        return report;
+    }
+
+    public boolean contains(String startDate, String endDate, String reportType) {
+        String key = key(startDate, endDate, reportType);
+        return memory.containsKey(key) || Files.exists(file(key));
+    }
+
+    /**
+     * Drop every entry, in memory and on disk
+     */
+    public int clear() {
+        generation.incrementAndGet();
+        memory.clear();
+        return delete(name -> true);
+    }
+
+    /**
+     * A slot was added, removed or moved to another location. Every cached
+     * report was built over the old set of slots, so all of them are
+     * dropped once the change commits.
+     */
+    public void slotsChanged() {
+        afterCommit(() -> {
+            invalidations.incrementAndGet();
+            int removed = clear();
+            System.out.println("✅ Slots changed, dropped " + removed + " cached reports");
+        });
+    }
+
+    public Map<String, Object> stats() {
+        long hits = memoryHits.get() + diskHits.get();
+        long lookups = hits + misses.get();
+        long buildCount = builds.get();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("openPeriodRequests", uncacheable.get());
+        stats.put("hitRate", lookups == 0 ? 0 : Math.round(hits * 10000.0 / lookups) / 100.0);
+        stats.put("builds", buildCount);
+        stats.put("averageBuildMs", buildCount == 0 ? 0 :
+            Math.round(buildNanos.get() / 1e4 / buildCount) / 100.0);
+        stats.put("maxBuildMs", Math.round(maxBuildNanos.get() / 1e4) / 100.0);
+        stats.put("invalidations", invalidations.get());
+        stats.put("formatVersion", FORMAT_VERSION);
+        stats.put("memoryEntries", memory.size());
+        stats.put("cacheDir", cacheDir);
+        return stats;
+    }
+
+    private Map<String, Object> timedBuild(Supplier<Map<String, Object>> builder) {
+        long started = System.nanoTime();
+        Map<String, Object> report = builder.get();
+        long elapsed = System.nanoTime() - started;
+        builds.incrementAndGet();
+        buildNanos.addAndGet(elapsed);
+        maxBuildNanos.accumulateAndGet(elapsed, Math::max);
+        return report;
+    }
+
+    private Map<String, Object> readFromDisk(String key) {
+        Path path = file(key);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(path.toFile(), new TypeReference<LinkedHashMap<String, Object>>() {});
+        } catch (IOException e) {
+            System.out.println("❌ Discarding unreadable cached report " + path + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // rebuilt and overwritten below
+            }
+            return null;
+        }
+    }
+
+    // Write to a temp file and move it in place so readers never see a partial report
+    private void writeToDisk(String key, Map<String, Object> report) {
+        Path path = file(key);
+        try {
+            Files.createDirectories(path.getParent());
+            Path tmp = Files.createTempFile(path.getParent(), key, ".tmp");
+            objectMapper.writeValue(tmp.toFile(), report);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("❌ Could not persist cached report " + key + ": " + e.getMessage());
+        }
+    }
+
+    private int delete(Predicate<String> matching) {
+        int removed = 0;
+        Path dir = Paths.get(cacheDir);
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".json") && matching.test(name) && Files.deleteIfExists(path)) {
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Could not clear report cache: " + e.getMessage());
+        }
+        return removed;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private Path file(String key) {
+        return Paths.get(cacheDir, key + ".json");
+    }
+
+    // Dates are already validated ISO dates; only "admin" changes the report shape
+    private static String key(String startDate, String endDate, String reportType) {
+        String type = "admin".equalsIgnoreCase(reportType) ? "admin" : "user";
+        return keyPrefix() + startDate + "_" + endDate + "_" + type;
+    }
+
+    private static String keyPrefix() {
+        return "v" + FORMAT_VERSION + "_";
+    }
+}
@@ -0,0 +1,147 @@
+package com.parking.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * One submitted report/export job. Status and progress fields are written
+ * by the worker thread and read by status polls, hence volatile.
+ */
+public class ReportJob {
+
+    public enum Kind {
+        MONTHLY_REPORT("application/json", "json"),
+        BOOKINGS_CSV("text/csv", "csv"),
+        SLOTS_CSV("text/csv", "csv"),
+        SUMMARY_CSV("text/csv", "csv"),
+        BOOKINGS_PARQUET("application/zip", "zip"),
+        SLOTS_PARQUET("application/vnd.apache.parquet", "parquet"),
+        BOOKINGS_CSV_GZIP("application/gzip", "csv.gz"),
+        BOOKINGS_CSV_PARTS("application/zip", "zip");
+
+        final String contentType;
+        final String extension;
+
+        Kind(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final Kind kind;
+    private final Map<String, String> params;
+    private final String owner;
+    private final String dedupeKey;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long progressDone;
+    private volatile long progressTotal;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile Path file;
+    private volatile long sizeBytes;
+    private volatile String error;
+    private volatile Future<?> future;
+
+    ReportJob(String id, Kind kind, Map<String, String> params, String owner, String dedupeKey) {
+        this.id = id;
+        this.kind = kind;
+        this.params = params;
+        this.owner = owner;
+        this.dedupeKey = dedupeKey;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    /**
+     * Suggested download filename, e.g. bookings_2024-01-01_to_2024-12-31.csv
+     */
+    public String getFilename() {
+        String base;
+        switch (kind) {
+            case BOOKINGS_CSV:
+            case BOOKINGS_PARQUET:
+            case BOOKINGS_CSV_GZIP:
+            case BOOKINGS_CSV_PARTS: base = "bookings"; break;
+            case SLOTS_CSV:
+            case SLOTS_PARQUET: base = "parking_slots"; break;
+            case SUMMARY_CSV: base = "report_summary"; break;
+            default: base = "monthly_report"; break;
+        }
+        if (params.containsKey("startDate") && params.containsKey("endDate")) {
+            base += "_" + params.get("startDate") + "_to_" + params.get("endDate");
+        }
+        return base + "." + kind.extension;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("jobId", id);
+        map.put("type", kind.name());
+        map.put("params", params);
+        map.put("status", status.name());
+        map.put("progressDone", progressDone);
+        map.put("progressTotal", progressTotal);
+        map.put("progressPercent", status == Status.COMPLETED ? 100.0 :
+            progressTotal == 0 ? 0.0 : Math.round(progressDone * 1000.0 / progressTotal) / 10.0);
+        map.put("createdAt", createdAt);
+        map.put("startedAt", startedAt);
+        map.put("finishedAt", finishedAt);
+        if (status == Status.COMPLETED) {
+            map.put("sizeBytes", sizeBytes);
+            map.put("filename", getFilename());
+            map.put("downloadUrl", "/api/reports/jobs/" + id + "/download");
+        }
+        map.put("error", error);
+        return map;
+    }
+
+    public String getId() { return id; }
+    public Kind getKind() { return kind; }
+    public Map<String, String> getParams() { return params; }
+    public String getOwner() { return owner; }
+    public String getDedupeKey() { return dedupeKey; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public Status getStatus() { return status; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public Path getFile() { return file; }
+    public long getSizeBytes() { return sizeBytes; }
+    public String getContentType() { return kind.contentType; }
+    public String getError() { return error; }
+
+    void markRunning() {
+        startedAt = LocalDateTime.now();
+        status = Status.RUNNING;
+    }
+
+    void updateProgress(long done, long total) {
+        progressDone = done;
+        progressTotal = total;
+    }
+
+    void markCompleted(Path file, long sizeBytes) {
+        this.file = file;
+        this.sizeBytes = sizeBytes;
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+
+    Future<?> getFuture() { return future; }
+    void setFuture(Future<?> future) { this.future = future; }
+}
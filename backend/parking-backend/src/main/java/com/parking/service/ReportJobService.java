@@ -0,0 +1,358 @@
+package com.parking.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parking.config.WorkloadClass;
+import com.parking.service.ReportJob.Kind;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs monthly reports and CSV exports in the background so long periods
+ * do not hold a request thread (and its DB connection) until the browser
+ * gives up. Jobs run on a small bounded pool with a per-user limit, write
+ * their result to a local file, and are forgotten after a TTL.
+ * Submitting the same parameters while a job is queued or running returns
+ * that job instead of starting another one.
+ */
+@Service
+public class ReportJobService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${parking.jobs.threads:2}")
+    private int threads;
+
+    @Value("${parking.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${parking.jobs.per-user-limit:2}")
+    private int perUserLimit;
+
+    @Value("${parking.jobs.result-dir:./data/job-results}")
+    private String resultDir;
+
+    @Value("${parking.jobs.result-ttl-minutes:60}")
+    private long resultTtlMinutes;
+
+    private ThreadPoolExecutor executor;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ReportJob> activeByKey = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> activeByOwner = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        Path dir = Paths.get(resultDir);
+        Files.createDirectories(dir);
+        // Job metadata lives in memory, so results from a previous run are unreachable
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+            threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                // Job threads take their connections from the reporting share
+                Thread t = new Thread(() -> {
+                    WorkloadClass.use(WorkloadClass.REPORTING);
+                    r.run();
+                }, "report-job-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Submit a job. Request keys: type (MONTHLY_REPORT, BOOKINGS_CSV,
+     * SLOTS_CSV, SUMMARY_CSV, BOOKINGS_PARQUET, SLOTS_PARQUET,
+     * BOOKINGS_CSV_GZIP, BOOKINGS_CSV_PARTS), startDate, endDate,
+     * reportType, slotId, city, slotType, userId.
+     */
+    public synchronized Map<String, Object> submit(Map<String, Object> request, String clientAddress) {
+        Map<String, Object> response = new HashMap<>();
+
+        Kind kind;
+        Map<String, String> params;
+        try {
+            kind = Kind.valueOf(String.valueOf(request.get("type")).trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "Unknown job type " + request.get("type") +
+                ", expected one of " + Arrays.toString(Kind.values()));
+            return response;
+        }
+        try {
+            params = params(kind, request);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            response.put("success", false);
+            response.put("message", "Invalid job request: " + e.getMessage());
+            return response;
+        }
+
+        String dedupeKey = kind + params.toString();
+        ReportJob running = activeByKey.get(dedupeKey);
+        if (running != null && !running.isFinished()) {
+            response.put("success", true);
+            response.put("message", "Attached to running job");
+            response.put("attached", true);
+            response.put("job", running.toMap());
+            return response;
+        }
+
+        String owner = request.get("userId") != null ?
+            "user:" + request.get("userId") : "ip:" + clientAddress;
+        AtomicInteger ownerActive = activeByOwner.computeIfAbsent(owner, k -> new AtomicInteger());
+        if (ownerActive.get() >= perUserLimit) {
+            response.put("success", false);
+            response.put("message", "Too many running jobs (limit " + perUserLimit + "), wait for one to finish");
+            return response;
+        }
+
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), kind, params, owner, dedupeKey);
+        jobs.put(job.getId(), job);
+        activeByKey.put(dedupeKey, job);
+        ownerActive.incrementAndGet();
+        try {
+            job.setFuture(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            activeByKey.remove(dedupeKey, job);
+            ownerActive.decrementAndGet();
+            response.put("success", false);
+            response.put("message", "Job queue is full, try again later");
+            return response;
+        }
+
+        System.out.println("Queued " + kind + " job " + job.getId() + " for " + owner);
+
+        response.put("success", true);
+        response.put("message", "Job submitted");
+        response.put("attached", false);
+        response.put("job", job.toMap());
+        return response;
+    }
+
+    public ReportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public Map<String, Object> getJobStatus(String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            response.put("success", false);
+            response.put("message", "Job not found or expired");
+            return response;
+        }
+        response.put("success", true);
+        response.put("job", job.toMap());
+        return response;
+    }
+
+    /**
+     * Jobs of one user (or of one client address when no userId is given), newest first
+     */
+    public Map<String, Object> listJobs(Long userId, String clientAddress) {
+        String owner = userId != null ? "user:" + userId : "ip:" + clientAddress;
+        List<Map<String, Object>> list = jobs.values().stream()
+            .filter(j -> j.getOwner().equals(owner))
+            .sorted(Comparator.comparing(ReportJob::getCreatedAt).reversed())
+            .map(ReportJob::toMap)
+            .collect(Collectors.toList());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobs", list);
+        response.put("runningJobs", executor.getActiveCount());
+        response.put("queuedJobs", executor.getQueue().size());
+        return response;
+    }
+
+    private void run(ReportJob job) {
+        job.markRunning();
+        Path dir = Paths.get(resultDir);
+        Path part = dir.resolve(job.getId() + ".part");
+        Path result = dir.resolve(job.getId() + "." + job.getKind().extension);
+        Map<String, String> p = job.getParams();
+        ExportService.ProgressListener progress = job::updateProgress;
+
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), BUFFER_SIZE)) {
+                switch (job.getKind()) {
+                    case MONTHLY_REPORT:
+                        progress.onProgress(0, 1);
+                        Map<String, Object> report = reportService.generateMonthlyReport(
+                            p.get("startDate"), p.get("endDate"), p.get("reportType"));
+                        if (!Boolean.TRUE.equals(report.get("success"))) {
+                            throw new IllegalStateException(String.valueOf(report.get("message")));
+                        }
+                        objectMapper.writeValue(out, report);
+                        progress.onProgress(1, 1);
+                        break;
+                    case BOOKINGS_CSV:
+                        exportService.writeBookingsCSV(p.get("startDate"), p.get("endDate"),
+                            p.containsKey("slotId") ? Integer.valueOf(p.get("slotId")) : null, out, progress);
+                        break;
+                    case SLOTS_CSV:
+                        exportService.writeSlotsCSV(p.get("city"), p.get("slotType"), out, progress);
+                        break;
+                    case SUMMARY_CSV:
+                        exportService.writeReportSummaryCSV(p.get("startDate"), p.get("endDate"), out, progress);
+                        break;
+                    case BOOKINGS_PARQUET:
+                        exportService.writeBookingsParquet(p.get("startDate"), p.get("endDate"),
+                            p.containsKey("slotId") ? Integer.valueOf(p.get("slotId")) : null, out, progress);
+                        break;
+                    case SLOTS_PARQUET:
+                        exportService.writeSlotsParquet(p.get("city"), p.get("slotType"), out, progress);
+                        break;
+                    case BOOKINGS_CSV_GZIP:
+                    case BOOKINGS_CSV_PARTS:
+                        // Parts are encoded in the result dir, which is emptied at startup
+                        exportService.writeBookingsCsvParts(p.get("startDate"), p.get("endDate"),
+                            p.containsKey("slotId") ? Integer.valueOf(p.get("slotId")) : null,
+                            job.getKind() == Kind.BOOKINGS_CSV_PARTS, out, dir, progress);
+                        break;
+                }
+            }
+            Files.move(part, result, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.markCompleted(result, Files.size(result));
+            System.out.println("✅ Job " + job.getId() + " completed (" + job.getSizeBytes() + " bytes)");
+
+        } catch (Exception e) {
+            job.markFailed(e.getMessage());
+            System.out.println("❌ Job " + job.getId() + " failed: " + e.getMessage());
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
+                // removed again by the TTL cleanup
+            }
+        } finally {
+            activeByKey.remove(job.getDedupeKey(), job);
+            activeByOwner.get(job.getOwner()).decrementAndGet();
+        }
+    }
+
+    /**
+     * Forget finished jobs older than the TTL and delete their result files
+     */
+    @Scheduled(fixedDelayString = "${parking.jobs.cleanup-interval-ms:300000}")
+    public void purgeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(resultTtlMinutes);
+        List<ReportJob> expired = new ArrayList<>();
+        for (ReportJob job : jobs.values()) {
+            if (job.isFinished() && job.getFinishedAt().isBefore(cutoff)) {
+                expired.add(job);
+            }
+        }
+        for (ReportJob job : expired) {
+            jobs.remove(job.getId());
+            if (job.getFile() != null) {
+                try {
+                    Files.deleteIfExists(job.getFile());
+                } catch (IOException e) {
+                    System.out.println("❌ Could not delete job result " + job.getFile() + ": " + e.getMessage());
+                }
+            }
+        }
+        activeByOwner.values().removeIf(count -> count.get() == 0);
+        if (!expired.isEmpty()) {
+            System.out.println("Removed " + expired.size() + " expired report jobs");
+        }
+    }
+
+    // Validated, canonical (sorted) parameters for a job kind
+    private static Map<String, String> params(Kind kind, Map<String, Object> request) {
+        Map<String, String> params = new TreeMap<>();
+        switch (kind) {
+            case MONTHLY_REPORT:
+                dateRange(params, request);
+                params.put("reportType", request.get("reportType") != null ?
+                    request.get("reportType").toString() : "admin");
+                break;
+            case BOOKINGS_CSV:
+            case BOOKINGS_PARQUET:
+            case BOOKINGS_CSV_GZIP:
+            case BOOKINGS_CSV_PARTS:
+                dateRange(params, request);
+                if (request.get("slotId") != null) {
+                    params.put("slotId", String.valueOf(Integer.parseInt(request.get("slotId").toString())));
+                }
+                break;
+            case SLOTS_CSV:
+            case SLOTS_PARQUET:
+                if (request.get("city") != null) {
+                    params.put("city", request.get("city").toString());
+                }
+                if (request.get("slotType") != null) {
+                    params.put("slotType", request.get("slotType").toString());
+                }
+                break;
+            case SUMMARY_CSV:
+                dateRange(params, request);
+                break;
+        }
+        return params;
+    }
+
+    private static void dateRange(Map<String, String> params, Map<String, Object> request) {
+        Object start = request.get("startDate");
+        Object end = request.get("endDate");
+        if (start == null || end == null) {
+            throw new IllegalArgumentException("startDate and endDate are required");
+        }
+        params.put("startDate", LocalDate.parse(start.toString()).toString());
+        params.put("endDate", LocalDate.parse(end.toString()).toString());
+    }
+}
@@ -0,0 +1,463 @@
+package com.parking.service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.parking.config.ShardContext;
+import com.parking.config.WorkloadClass;
+import com.parking.config.ShardRoutingDataSource;
+import com.parking.config.ShardRoutingDataSource.Shard;
+import com.parking.entity.Booking;
+import com.parking.entity.BookingStatus;
+import com.parking.entity.ParkingSlot;
+import com.parking.entity.User;
+import com.parking.entity.Vehicle;
+import com.parking.repository.BookingRepository;
+import com.parking.repository.ParkingSlotRepository;
+import com.parking.repository.VehicleRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * City sharding: which shard a city, slot number, plate or id lives on,
+ * and parallel scatter-gather over all shards for global reads.
+ *
+ * Every shard has the full schema. Slots, vehicles and bookings live on the
+ * shard of their city; users are replicated to every shard so vehicles can
+ * reference them locally. Identity columns on shard n start at
+ * n * ID_STRIDE, so any slot, vehicle or booking id names its shard.
+ *
+ * Without parking.sharding.shards everything is the default shard and the
+ * helpers here run inline on the calling thread.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+public class ShardRouter {
+
+    public static final long ID_STRIDE = 1_000_000_000_000L;
+
+    private static final String[] SHARDED_TABLES = {"parking_slots", "bookings", "vehicles", "booking_outbox"};
+
+    @Autowired
+    private ShardRoutingDataSource shards;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ParkingSlotRepository slotRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    // slot number -> shard, filled at startup and on lookups that miss
+    private final Map<Integer, String> slotShards = new ConcurrentHashMap<>();
+    private ExecutorService scatterPool;
+
+    @PostConstruct
+    public void init() throws Exception {
+        if (!shards.isSharded()) {
+            return;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        scatterPool = Executors.newFixedThreadPool(shards.getShards().size() * 2, r -> {
+            Thread t = new Thread(r, "shard-scatter-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (Shard shard : shards.getShards()) {
+            if (shard.index == 0) {
+                continue;
+            }
+            if (!tableExists(shard.dataSource, "parking_slots")) {
+                try (ShardContext.Scope scope = ShardContext.use(shard.name)) {
+                    entityManagerFactory.unwrap(SessionFactoryImplementor.class).getSchemaManager()
+                        .exportMappedObjects(true);
+                }
+                System.out.println("✅ Created schema on shard " + shard.name);
+            }
+            setIdentityStart(shard);
+            copyUsers(shard);
+        }
+
+        for (Map.Entry<String, List<Integer>> e : scatter(s -> slotRepository.findAllSlotNumbers()).entrySet()) {
+            for (Integer slotNumber : e.getValue()) {
+                slotShards.put(slotNumber, e.getKey());
+            }
+        }
+        System.out.println("✅ Sharding enabled: " + shards.getShards().size() + " shards, "
+                           + slotShards.size() + " slots mapped");
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scatterPool != null) {
+            scatterPool.shutdownNow();
+        }
+    }
+
+    public boolean isSharded() {
+        return shards.isSharded();
+    }
+
+    public List<String> shardNames() {
+        List<String> names = new ArrayList<>();
+        for (Shard shard : shards.getShards()) {
+            names.add(shard.name);
+        }
+        return names;
+    }
+
+    /**
+     * Shards, their cities and how many slots each holds
+     */
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("sharded", isSharded());
+        Map<String, Long> slots = scatter(s -> slotRepository.count());
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Shard shard : shards.getShards()) {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("name", shard.name);
+            s.put("cities", shard.index == 0 ? "unassigned cities" : shard.cities);
+            s.put("slots", slots.get(shard.name));
+            s.put("idsFrom", shard.index * ID_STRIDE + 1);
+            list.add(s);
+        }
+        status.put("shards", list);
+        status.put("mappedSlotNumbers", slotShards.size());
+        return status;
+    }
+
+    public String shardForCity(String city) {
+        return shards.shardForCity(city);
+    }
+
+    // Ids generated on a shard are above this
+    public long idBase(String shard) {
+        ShardRoutingDataSource.Shard s = shards.getShard(shard);
+        return s != null ? s.index * ID_STRIDE : 0;
+    }
+
+    public String shardForId(Long id) {
+        if (!isSharded() || id == null) {
+            return ShardContext.DEFAULT;
+        }
+        long index = id / ID_STRIDE;
+        List<Shard> all = shards.getShards();
+        return index >= 0 && index < all.size() ? all.get((int) index).name : ShardContext.DEFAULT;
+    }
+
+    public String shardForSlotNumber(Integer slotNumber) {
+        if (!isSharded() || slotNumber == null) {
+            return ShardContext.DEFAULT;
+        }
+        String shard = slotShards.get(slotNumber);
+        if (shard != null) {
+            return shard;
+        }
+        // Added through another node since startup
+        for (Map.Entry<String, Boolean> e : scatter(s -> slotRepository.findBySlotNumber(slotNumber).isPresent()).entrySet()) {
+            if (e.getValue()) {
+                slotShards.put(slotNumber, e.getKey());
+                return e.getKey();
+            }
+        }
+        return ShardContext.DEFAULT;
+    }
+
+    /**
+     * Shard where a plate is parked right now, else where it was last seen
+     */
+    public String shardForPlate(String licensePlate) {
+        if (!isSharded()) {
+            return ShardContext.DEFAULT;
+        }
+        String plate = licensePlate.toUpperCase(Locale.ROOT);
+        String best = ShardContext.DEFAULT;
+        int bestRank = 0;
+        for (Map.Entry<String, Integer> e : scatter(s -> plateRank(plate)).entrySet()) {
+            if (e.getValue() > bestRank) {
+                best = e.getKey();
+                bestRank = e.getValue();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Whether a plate has an active booking on any shard
+     */
+    public boolean isParked(String licensePlate) {
+        String plate = licensePlate.toUpperCase(Locale.ROOT);
+        return scatter(s -> plateRank(plate)).containsValue(2);
+    }
+
+    // 2 = parked here, 1 = known here, 0 = unknown
+    private int plateRank(String plate) {
+        Vehicle vehicle = vehicleRepository.findByLicensePlate(plate).orElse(null);
+        if (vehicle == null) {
+            return 0;
+        }
+        boolean parked = bookingRepository.findByVehicleId(vehicle.getId()).stream()
+            .anyMatch(b -> b.getStatus() == BookingStatus.ACTIVE);
+        return parked ? 2 : 1;
+    }
+
+    public void slotAdded(Integer slotNumber, String shard) {
+        if (isSharded()) {
+            slotShards.put(slotNumber, shard);
+        }
+    }
+
+    public void slotRemoved(Integer slotNumber) {
+        slotShards.remove(slotNumber);
+    }
+
+    /**
+     * Run a task on one shard from the calling thread
+     */
+    public <T> T call(String shard, Supplier<T> task) {
+        try (ShardContext.Scope scope = ShardContext.use(shard)) {
+            return task.get();
+        }
+    }
+
+    /**
+     * Run a read on every shard in parallel, each in its own read-only
+     * transaction and in the caller's workload class, so a report fanned out
+     * over shards still counts against the reporting lane. Results are keyed
+     * by shard, default shard first.
+     */
+    public <T> Map<String, T> scatter(Function<String, T> task) {
+        Map<String, T> results = new LinkedHashMap<>();
+        if (!isSharded()) {
+            results.put(ShardContext.DEFAULT, task.apply(ShardContext.DEFAULT));
+            return results;
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        WorkloadClass workload = WorkloadClass.current();
+        Map<String, Future<T>> futures = new LinkedHashMap<>();
+        for (Shard shard : shards.getShards()) {
+            futures.put(shard.name, scatterPool.submit(() -> {
+                try (WorkloadClass.Scope lane = WorkloadClass.use(workload);
+                     ShardContext.Scope scope = ShardContext.use(shard.name)) {
+                    return tx.execute(status -> task.apply(shard.name));
+                }
+            }));
+        }
+        for (Map.Entry<String, Future<T>> e : futures.entrySet()) {
+            try {
+                results.put(e.getKey(), e.getValue().get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for shard " + e.getKey(), ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Shard " + e.getKey() + " failed: " + ex.getCause().getMessage(), ex.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Concatenate a list-valued read over all shards
+     */
+    public <T> List<T> gather(Supplier<List<T>> task) {
+        List<T> all = new ArrayList<>();
+        for (List<T> part : scatter(s -> task.get()).values()) {
+            all.addAll(part);
+        }
+        return all;
+    }
+
+    public long sum(Supplier<Long> task) {
+        long total = 0;
+        for (Long part : scatter(s -> task.get()).values()) {
+            total += part != null ? part : 0;
+        }
+        return total;
+    }
+
+    /**
+     * Load the (lazy) user of each booking's vehicle while the shard's
+     * session is still open, so bookings gathered on scatter threads can
+     * still be serialized. No-op when not sharded.
+     */
+    public List<Booking> withUsers(List<Booking> bookings) {
+        if (isSharded()) {
+            for (Booking b : bookings) {
+                if (b.getVehicle() != null) {
+                    Hibernate.initialize(b.getVehicle().getUser());
+                }
+            }
+        }
+        return bookings;
+    }
+
+    /**
+     * Same as withUsers, for the current booking of each slot
+     */
+    public List<ParkingSlot> withSlotUsers(List<ParkingSlot> slots) {
+        if (isSharded()) {
+            for (ParkingSlot slot : slots) {
+                Booking current = slot.getCurrentBooking();
+                if (current != null && current.getVehicle() != null) {
+                    Hibernate.initialize(current.getVehicle().getUser());
+                }
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Copy a user row from the default shard to every other shard (or
+     * remove it there once it is gone from the default shard)
+     */
+    public void replicateUser(Long userId) {
+        if (!isSharded() || userId == null) {
+            return;
+        }
+        List<Map<String, Object>> rows = new JdbcTemplate(defaultShard().dataSource)
+            .queryForList("SELECT * FROM users WHERE id = ?", userId);
+        for (Shard shard : shards.getShards()) {
+            if (shard.index == 0) {
+                continue;
+            }
+            JdbcTemplate jdbc = new JdbcTemplate(shard.dataSource);
+            if (rows.isEmpty()) {
+                jdbc.update("DELETE FROM users WHERE id = ?", userId);
+            } else if (jdbc.update(updateSql(rows.get(0)), updateArgs(rows.get(0))) == 0) {
+                jdbc.update(insertSql(rows.get(0)), rows.get(0).values().toArray());
+            }
+        }
+        // A shard session may have cached the copy these statements just replaced
+        entityManagerFactory.getCache().evict(User.class, userId);
+    }
+
+    private void copyUsers(Shard shard) {
+        JdbcTemplate jdbc = new JdbcTemplate(shard.dataSource);
+        Set<Long> present = new HashSet<>(jdbc.queryForList("SELECT id FROM users", Long.class));
+        int copied = 0;
+        for (Map<String, Object> row : new JdbcTemplate(defaultShard().dataSource).queryForList("SELECT * FROM users")) {
+            if (!present.contains(((Number) idOf(row)).longValue())) {
+                jdbc.update(insertSql(row), row.values().toArray());
+                copied++;
+            }
+        }
+        if (copied > 0) {
+            System.out.println("✅ Copied " + copied + " users to shard " + shard.name);
+        }
+    }
+
+    private static Object idOf(Map<String, Object> row) {
+        for (Map.Entry<String, Object> e : row.entrySet()) {
+            if ("id".equalsIgnoreCase(e.getKey())) {
+                return e.getValue();
+            }
+        }
+        throw new IllegalStateException("users row without id");
+    }
+
+    private static String insertSql(Map<String, Object> row) {
+        String columns = String.join(", ", row.keySet());
+        String values = String.join(", ", Collections.nCopies(row.size(), "?"));
+        return "INSERT INTO users (" + columns + ") VALUES (" + values + ")";
+    }
+
+    private static String updateSql(Map<String, Object> row) {
+        List<String> sets = new ArrayList<>();
+        for (String column : row.keySet()) {
+            if (!"id".equalsIgnoreCase(column)) {
+                sets.add(column + " = ?");
+            }
+        }
+        return "UPDATE users SET " + String.join(", ", sets) + " WHERE id = ?";
+    }
+
+    private static Object[] updateArgs(Map<String, Object> row) {
+        List<Object> args = new ArrayList<>();
+        for (Map.Entry<String, Object> e : row.entrySet()) {
+            if (!"id".equalsIgnoreCase(e.getKey())) {
+                args.add(e.getValue());
+            }
+        }
+        args.add(idOf(row));
+        return args.toArray();
+    }
+
+    // Move the shard's identity sequences into its own id range (idempotent)
+    private void setIdentityStart(Shard shard) throws Exception {
+        long start = shard.index * ID_STRIDE + 1;
+        boolean mysql;
+        try (Connection conn = shard.dataSource.getConnection()) {
+            mysql = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(shard.dataSource);
+        for (String table : SHARDED_TABLES) {
+            Long max = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            if (max != null && max >= start) {
+                continue;
+            }
+            jdbc.execute(mysql
+                ? "ALTER TABLE " + table + " AUTO_INCREMENT = " + start
+                : "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + start);
+        }
+    }
+
+    private static boolean tableExists(DataSource dataSource, String table) throws Exception {
+        try (Connection conn = dataSource.getConnection()) {
+            DatabaseMetaData meta = conn.getMetaData();
+            for (String name : new String[] {table, table.toUpperCase(Locale.ROOT)}) {
+                try (ResultSet rs = meta.getTables(conn.getCatalog(), null, name, null)) {
+                    if (rs.next()) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private Shard defaultShard() {
+        return shards.getShards().get(0);
+    }
+}
@@ -0,0 +1,631 @@
+package com.parking.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.parking.entity.Booking;
+import com.parking.entity.ParkingSlot;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only binary journal of slot and booking state transitions, for
+ * replaying disputes ("the app showed the slot free but I was rejected").
+ *
+ * Records are fixed 64-byte entries in memory-mapped segment files. An
+ * append is a handful of absolute puts into the mapping under a lock;
+ * dirty ranges are forced to disk every parking.journal.flush-ms, so a
+ * crash loses at most that window (a torn last record fails its checksum
+ * and is dropped on open). Full segments roll over to a new file and old
+ * ones are deleted after parking.journal.retention-days.
+ *
+ * Every record carries the slot's flags after the transition, so the state
+ * of a slot at time T is simply its last record at or before T. Times are
+ * strictly increasing within the journal, which lets readers binary-search
+ * segments by time. The main method replays a journal directory offline.
+ *
+ * Record layout:
+ *   0 seq (long)         8 time, epoch micros (long)   16 slot id (long)
+ *  24 booking id (long) 32 slot number (int)           36 type (byte)
+ *  37 flags (byte)      38 reason (byte)               39 plate length (byte)
+ *  40 plate, ASCII (16 bytes)                          56 reserved (int)
+ *  60 checksum of bytes 0-59 (int)
+ */
+@Component
+public class SlotJournal {
+
+    static final int RECORD_BYTES = 64;
+    static final int HEADER_BYTES = 64;
+    private static final int MAGIC = 0x534A4E31; // "SJN1"
+    private static final int PLATE_BYTES = 16;
+
+    // Flag bits: the slot's state after the transition
+    static final int OCCUPIED = 1;
+    static final int AVAILABLE = 2;
+    static final int MAINTENANCE = 4;
+
+    // Stored by ordinal: only ever add new values at the end
+    public enum Type {
+        PARKED, EXITED, CHECKED_OUT, SLOT_ADDED, SLOT_UPDATED, SLOT_REMOVED,
+        SLOT_ENABLED, SLOT_DISABLED, MAINTENANCE_STARTED, MAINTENANCE_ENDED, PARK_REJECTED
+    }
+
+    // Why a park request was turned down
+    public enum Reason {
+        NONE, SLOT_OCCUPIED, UNDER_MAINTENANCE, ALREADY_PARKED, SLOT_NOT_FOUND
+    }
+
+    /**
+     * One decoded record
+     */
+    public static final class Record {
+        public final long seq;
+        public final long timeMicros;
+        public final long slotId;
+        public final long bookingId;
+        public final int slotNumber;
+        public final Type type;
+        public final int flags;
+        public final Reason reason;
+        public final String licensePlate;
+
+        Record(long seq, long timeMicros, long slotId, long bookingId, int slotNumber,
+               Type type, int flags, Reason reason, String licensePlate) {
+            this.seq = seq;
+            this.timeMicros = timeMicros;
+            this.slotId = slotId;
+            this.bookingId = bookingId;
+            this.slotNumber = slotNumber;
+            this.type = type;
+            this.flags = flags;
+            this.reason = reason;
+            this.licensePlate = licensePlate;
+        }
+
+        public LocalDateTime time() {
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(timeMicros, 1_000_000L),
+                (int) Math.floorMod(timeMicros, 1_000_000L) * 1000, BookingFactStore.IST);
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("seq", seq);
+            m.put("time", time().toString());
+            m.put("type", type.name());
+            m.put("slotId", slotId);
+            m.put("slotNumber", slotNumber);
+            m.put("occupied", (flags & OCCUPIED) != 0);
+            m.put("available", (flags & AVAILABLE) != 0);
+            m.put("underMaintenance", (flags & MAINTENANCE) != 0);
+            if (bookingId != 0) {
+                m.put("bookingId", bookingId);
+            }
+            if (reason != Reason.NONE) {
+                m.put("reason", reason.name());
+            }
+            if (!licensePlate.isEmpty()) {
+                m.put("licensePlate", licensePlate);
+            }
+            return m;
+        }
+    }
+
+    /**
+     * One memory-mapped segment file
+     */
+    static final class Segment {
+        final Path path;
+        final MappedByteBuffer buf;
+        final int capacity;
+        volatile int count;
+        volatile long firstMicros;
+        volatile long lastMicros;
+
+        Segment(Path path, MappedByteBuffer buf, int capacity) {
+            this.path = path;
+            this.buf = buf;
+            this.capacity = capacity;
+        }
+    }
+
+    @Value("${parking.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${parking.journal.dir:./data/journal}")
+    private String journalDir;
+
+    @Value("${parking.journal.segment-records:1048576}")
+    private int segmentRecords;
+
+    @Value("${parking.journal.retention-days:90}")
+    private int retentionDays;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private Segment current;
+    private long nextSeq = 1;
+    private long lastMicros;
+    // Unforced byte range of the current segment
+    private int dirtyFrom = -1;
+    private int dirtyTo;
+
+    // Written under the lock
+    private long appends;
+    private long appendNanos;
+    private final AtomicLong forces = new AtomicLong();
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+        segments.addAll(openSegments(dir, true));
+        if (!segments.isEmpty()) {
+            Segment last = segments.get(segments.size() - 1);
+            if (last.count > 0) {
+                Record r = read(last.buf, last.count - 1);
+                nextSeq = r.seq + 1;
+                lastMicros = r.timeMicros;
+            } else {
+                // Rolled but never written to
+                nextSeq = last.buf.getLong(16);
+                for (Segment segment : segments) {
+                    lastMicros = Math.max(lastMicros, segment.lastMicros);
+                }
+            }
+            if (last.count < last.capacity) {
+                current = last;
+            }
+        }
+        // Have a segment ready so the first append does not pay for mapping one
+        if (current == null) {
+            synchronized (this) {
+                roll();
+            }
+        }
+        System.out.println("✅ Slot journal opened: " + (nextSeq - 1) + " records in " + segments.size() + " segments");
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /**
+     * Journal a committed transition. Inside a transaction the record is
+     * written once it commits, with the slot's state as of this call.
+     */
+    public void record(Type type, ParkingSlot slot, Booking booking) {
+        if (!enabled) {
+            return;
+        }
+        long slotId = slot.getId() != null ? slot.getId() : 0;
+        int slotNumber = slot.getSlotNumber() != null ? slot.getSlotNumber() : 0;
+        int flags = flags(slot);
+        long bookingId = booking != null && booking.getId() != null ? booking.getId() : 0;
+        String plate = booking != null && booking.getVehicle() != null ? booking.getVehicle().getLicensePlate() : null;
+        appendAfterCommit(type, slotId, slotNumber, flags, bookingId, Reason.NONE, plate);
+    }
+
+    /**
+     * Journal a rejected park request, with the slot as it was seen. Like
+     * record, inside a transaction it is written once that commits, so a
+     * rejection rolled back with a booking pipeline batch and answered again
+     * on its own is journaled once.
+     */
+    public void rejected(Integer slotNumber, ParkingSlot slot, String licensePlate, Reason reason) {
+        if (!enabled) {
+            return;
+        }
+        appendAfterCommit(Type.PARK_REJECTED, slot != null && slot.getId() != null ? slot.getId() : 0,
+               slotNumber != null ? slotNumber : 0, slot != null ? flags(slot) : 0, 0, reason, licensePlate);
+    }
+
+    private void appendAfterCommit(Type type, long slotId, int slotNumber, int flags, long bookingId,
+                                   Reason reason, String plate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(type, slotId, slotNumber, flags, bookingId, reason, plate);
+                }
+            });
+        } else {
+            append(type, slotId, slotNumber, flags, bookingId, reason, plate);
+        }
+    }
+
+    private static int flags(ParkingSlot slot) {
+        return (Boolean.TRUE.equals(slot.getIsOccupied()) ? OCCUPIED : 0)
+             | (Boolean.TRUE.equals(slot.getIsAvailable()) ? AVAILABLE : 0)
+             | (Boolean.TRUE.equals(slot.getIsUnderMaintenance()) ? MAINTENANCE : 0);
+    }
+
+    private synchronized void append(Type type, long slotId, int slotNumber, int flags, long bookingId,
+                                     Reason reason, String plate) {
+        try {
+            if (current == null || current.count == current.capacity) {
+                roll();
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Slot journal roll failed, record dropped: " + e.getMessage());
+            return;
+        }
+        long started = System.nanoTime();
+
+        Instant now = Instant.now();
+        long micros = Math.max(lastMicros + 1, now.getEpochSecond() * 1_000_000L + now.getNano() / 1000);
+        long seq = nextSeq++;
+        lastMicros = micros;
+
+        Segment segment = current;
+        MappedByteBuffer buf = segment.buf;
+        int pos = HEADER_BYTES + segment.count * RECORD_BYTES;
+        buf.putLong(pos, seq);
+        buf.putLong(pos + 8, micros);
+        buf.putLong(pos + 16, slotId);
+        buf.putLong(pos + 24, bookingId);
+        buf.putInt(pos + 32, slotNumber);
+        buf.put(pos + 36, (byte) type.ordinal());
+        buf.put(pos + 37, (byte) flags);
+        buf.put(pos + 38, (byte) reason.ordinal());
+        int plateLen = plate != null ? Math.min(plate.length(), PLATE_BYTES) : 0;
+        buf.put(pos + 39, (byte) plateLen);
+        for (int i = 0; i < PLATE_BYTES; i++) {
+            buf.put(pos + 40 + i, i < plateLen ? (byte) plate.charAt(i) : 0);
+        }
+        buf.putInt(pos + 56, 0);
+        buf.putInt(pos + 60, checksum(buf, pos));
+
+        if (segment.count == 0) {
+            segment.firstMicros = micros;
+        }
+        segment.lastMicros = micros;
+        segment.count++;
+        buf.putInt(12, segment.count);
+        if (dirtyFrom < 0) {
+            dirtyFrom = pos;
+        }
+        dirtyTo = pos + RECORD_BYTES;
+
+        appends++;
+        appendNanos += System.nanoTime() - started;
+    }
+
+    /**
+     * Force the records written since the last flush to disk
+     */
+    @Scheduled(fixedDelayString = "${parking.journal.flush-ms:200}")
+    public void flush() {
+        Segment segment;
+        int from;
+        int to;
+        synchronized (this) {
+            if (dirtyFrom < 0) {
+                return;
+            }
+            segment = current;
+            from = dirtyFrom;
+            to = dirtyTo;
+            dirtyFrom = -1;
+        }
+        segment.buf.force(from, to - from);
+        segment.buf.force(0, HEADER_BYTES);
+        forces.incrementAndGet();
+    }
+
+    // Called with the lock held
+    private void roll() throws IOException {
+        if (current != null && dirtyFrom >= 0) {
+            current.buf.force();
+            dirtyFrom = -1;
+        }
+        Path file = Paths.get(journalDir, String.format("journal-%016d.seg", nextSeq));
+        long bytes = HEADER_BYTES + (long) segmentRecords * RECORD_BYTES;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            buf.putInt(0, MAGIC);
+            buf.putInt(4, 1);
+            buf.putInt(8, segmentRecords);
+            buf.putInt(12, 0);
+            buf.putLong(16, nextSeq);
+            buf.force(0, HEADER_BYTES);
+            current = new Segment(file, buf, segmentRecords);
+            segments.add(current);
+        }
+        dropExpired();
+    }
+
+    /**
+     * Delete full segments whose newest record is past retention
+     */
+    @Scheduled(cron = "${parking.journal.retention-cron:0 30 2 * * *}")
+    public synchronized void dropExpired() {
+        long cutoff = (System.currentTimeMillis() - retentionDays * 86_400_000L) * 1000;
+        for (Segment segment : segments) {
+            if (segment != current && segment.count > 0 && segment.lastMicros < cutoff) {
+                segments.remove(segment);
+                try {
+                    Files.deleteIfExists(segment.path);
+                    System.out.println("✅ Dropped expired journal segment " + segment.path.getFileName());
+                } catch (IOException e) {
+                    System.err.println("❌ Could not delete journal segment " + segment.path + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ==================== READING ====================
+
+    /**
+     * The state of every slot (or one slot number) as of a point in time
+     */
+    public List<Record> stateAt(LocalDateTime at, Integer slotNumber) {
+        return stateAt(segments, toMicros(at), slotNumber);
+    }
+
+    /**
+     * All records of a slot number in [from, to]
+     */
+    public List<Record> history(Integer slotNumber, LocalDateTime from, LocalDateTime to) {
+        return history(segments, slotNumber, from != null ? toMicros(from) : Long.MIN_VALUE,
+                       to != null ? toMicros(to) : Long.MAX_VALUE);
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("dir", journalDir);
+        status.put("segments", segments.size());
+        long records = 0;
+        for (Segment segment : segments) {
+            records += segment.count;
+        }
+        status.put("records", records);
+        status.put("nextSeq", nextSeq);
+        long n;
+        long nanos;
+        synchronized (this) {
+            n = appends;
+            nanos = appendNanos;
+        }
+        status.put("appendsSinceStartup", n);
+        status.put("avgAppendNanos", n > 0 ? nanos / n : 0);
+        status.put("forces", forces.get());
+        if (!segments.isEmpty()) {
+            Segment first = segments.get(0);
+            Segment last = segments.get(segments.size() - 1);
+            if (first.count > 0) {
+                status.put("from", read(first.buf, 0).time().toString());
+            }
+            if (last.count > 0) {
+                status.put("to", read(last.buf, last.count - 1).time().toString());
+            }
+        }
+        return status;
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(BookingFactStore.IST) * 1_000_000L + time.getNano() / 1000;
+    }
+
+    static List<Record> stateAt(Collection<Segment> segments, long atMicros, Integer slotNumber) {
+        // slot id -> {segment, index} of its last state-changing record at or before the time;
+        // records are only decoded at the end
+        List<Segment> list = new ArrayList<>(segments);
+        Map<Long, int[]> latest = new HashMap<>();
+        int rejected = Type.PARK_REJECTED.ordinal();
+        int removed = Type.SLOT_REMOVED.ordinal();
+        for (int s = 0; s < list.size(); s++) {
+            Segment segment = list.get(s);
+            if (segment.count == 0 || segment.firstMicros > atMicros) {
+                break;
+            }
+            MappedByteBuffer buf = segment.buf;
+            int end = upperBound(segment, atMicros);
+            for (int i = 0; i < end; i++) {
+                int pos = HEADER_BYTES + i * RECORD_BYTES;
+                int type = buf.get(pos + 36);
+                if (type == rejected || (slotNumber != null && buf.getInt(pos + 32) != slotNumber)) {
+                    continue;
+                }
+                long slotId = buf.getLong(pos + 16);
+                if (type == removed) {
+                    latest.remove(slotId);
+                } else {
+                    int[] at = latest.computeIfAbsent(slotId, k -> new int[2]);
+                    at[0] = s;
+                    at[1] = i;
+                }
+            }
+        }
+        TreeMap<Integer, Record> bySlotNumber = new TreeMap<>();
+        for (int[] at : latest.values()) {
+            Record r = read(list.get(at[0]).buf, at[1]);
+            bySlotNumber.put(r.slotNumber, r);
+        }
+        return new ArrayList<>(bySlotNumber.values());
+    }
+
+    static List<Record> history(Collection<Segment> segments, Integer slotNumber, long fromMicros, long toMicros) {
+        List<Record> records = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.count == 0 || segment.lastMicros < fromMicros) {
+                continue;
+            }
+            if (segment.firstMicros > toMicros) {
+                break;
+            }
+            int end = upperBound(segment, toMicros);
+            for (int i = lowerBound(segment, fromMicros); i < end; i++) {
+                if (slotNumber == null || segment.buf.getInt(HEADER_BYTES + i * RECORD_BYTES + 32) == slotNumber) {
+                    records.add(read(segment.buf, i));
+                }
+            }
+        }
+        return records;
+    }
+
+    // First record index with time > micros
+    private static int upperBound(Segment segment, long micros) {
+        int lo = 0;
+        int hi = segment.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segment.buf.getLong(HEADER_BYTES + mid * RECORD_BYTES + 8) <= micros) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First record index with time >= micros
+    private static int lowerBound(Segment segment, long micros) {
+        int lo = 0;
+        int hi = segment.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segment.buf.getLong(HEADER_BYTES + mid * RECORD_BYTES + 8) < micros) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    static Record read(MappedByteBuffer buf, int index) {
+        int pos = HEADER_BYTES + index * RECORD_BYTES;
+        int plateLen = buf.get(pos + 39);
+        char[] plate = new char[plateLen];
+        for (int i = 0; i < plateLen; i++) {
+            plate[i] = (char) (buf.get(pos + 40 + i) & 0xFF);
+        }
+        Type[] types = Type.values();
+        Reason[] reasons = Reason.values();
+        int type = buf.get(pos + 36);
+        int reason = buf.get(pos + 38);
+        return new Record(
+            buf.getLong(pos), buf.getLong(pos + 8), buf.getLong(pos + 16), buf.getLong(pos + 24),
+            buf.getInt(pos + 32), type >= 0 && type < types.length ? types[type] : Type.SLOT_UPDATED,
+            buf.get(pos + 37), reason >= 0 && reason < reasons.length ? reasons[reason] : Reason.NONE,
+            new String(plate));
+    }
+
+    private static int checksum(MappedByteBuffer buf, int pos) {
+        long h = 0x9E3779B97F4A7C15L;
+        for (int off = 0; off < 56; off += 8) {
+            h = (h ^ buf.getLong(pos + off)) * 0xBF58476D1CE4E5B9L;
+        }
+        h = (h ^ buf.getInt(pos + 56)) * 0x94D049BB133111EBL;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Map every segment in a directory, in sequence order, trimming each to
+     * its last valid record
+     */
+    static List<Segment> openSegments(Path dir, boolean writable) throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(p -> p.getFileName().toString().startsWith("journal-")
+                                  && p.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+        List<Segment> result = new ArrayList<>();
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, writable
+                    ? new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE}
+                    : new StandardOpenOption[] {StandardOpenOption.READ})) {
+                MappedByteBuffer buf = channel.map(writable ? FileChannel.MapMode.READ_WRITE
+                                                            : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (channel.size() < HEADER_BYTES || buf.getInt(0) != MAGIC) {
+                    continue;
+                }
+                int capacity = buf.getInt(8);
+                Segment segment = new Segment(file, buf, capacity);
+                long expected = buf.getLong(16);
+                int count = 0;
+                long prevMicros = Long.MIN_VALUE;
+                while (count < capacity) {
+                    int pos = HEADER_BYTES + count * RECORD_BYTES;
+                    long micros = buf.getLong(pos + 8);
+                    if (buf.getLong(pos) != expected || micros <= prevMicros
+                            || buf.getInt(pos + 60) != checksum(buf, pos)) {
+                        break;
+                    }
+                    prevMicros = micros;
+                    expected++;
+                    count++;
+                }
+                segment.count = count;
+                if (count > 0) {
+                    segment.firstMicros = buf.getLong(HEADER_BYTES + 8);
+                    segment.lastMicros = prevMicros;
+                }
+                result.add(segment);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Offline replay, e.g. on a copy of the journal directory:
+     *
+     *   java -cp parking-backend.jar -Dloader.main=com.parking.service.SlotJournal \
+     *        org.springframework.boot.loader.launch.PropertiesLauncher \
+     *        ./data/journal state 2024-06-01T18:30:00 [slotNumber]
+     *   ... ./data/journal history slotNumber [from] [to]
+     *
+     * Times are local (Asia/Kolkata).
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || !("state".equals(args[1]) || "history".equals(args[1]))) {
+            System.err.println("usage: SlotJournal <dir> state <time> [slotNumber]");
+            System.err.println("       SlotJournal <dir> history <slotNumber> [from] [to]");
+            System.exit(2);
+        }
+        List<Segment> segments = openSegments(Paths.get(args[0]), false);
+        long started = System.nanoTime();
+        List<Record> records;
+        if ("state".equals(args[1])) {
+            Integer slotNumber = args.length > 3 ? Integer.valueOf(args[3]) : null;
+            records = stateAt(segments, toMicros(LocalDateTime.parse(args[2])), slotNumber);
+        } else {
+            long from = args.length > 3 ? toMicros(LocalDateTime.parse(args[3])) : Long.MIN_VALUE;
+            long to = args.length > 4 ? toMicros(LocalDateTime.parse(args[4])) : Long.MAX_VALUE;
+            records = history(segments, Integer.valueOf(args[2]), from, to);
+        }
+        for (Record r : records) {
+            System.out.println(r.toMap());
+        }
+        System.err.println(records.size() + " records in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+}
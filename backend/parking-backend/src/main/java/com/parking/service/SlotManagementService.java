@@ -4,13 +4,17 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.parking.config.ShardContext;
 import com.parking.entity.Booking;
+import com.parking.entity.BookingEvent;
 import com.parking.entity.ParkingSlot;
 import com.parking.repository.BookingRepository;
 import com.parking.repository.ParkingSlotRepository;
@@ -24,6 +28,31 @@ public class SlotManagementService {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingArchiveService archiveService;
+
+    @Autowired
+    private OccupancyTracker occupancyTracker;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private BookingEventBus eventBus;
+
+    @Autowired
+    private SlotJournal journal;
+
+    @Autowired
+    private ReportCache reportCache;
+
+    @Autowired
+    private BookingPipeline bookingPipeline;
+
+    // Slot numbers are grouped on in reports and shard routing, so keep them small and positive
+    @Value("${parking.slots.max-number:1000000}")
+    private int maxSlotNumber;
+
     @Transactional
     public Map<String, Object> addSlot(Map<String, Object> slotData) {
         Map<String, Object> response = new HashMap<>();
@@ -49,9 +78,14 @@ public class SlotManagementService {
             String country = slotData.containsKey("country") 
     ? slotData.get("country").toString() : "India";
 
-            // Check if slot number already exists
-            Optional<ParkingSlot> existingSlot = slotRepository.findBySlotNumber(slotNumber);
-            if (existingSlot.isPresent()) {
+            if (slotNumber < 1 || slotNumber > maxSlotNumber) {
+                response.put("success", false);
+                response.put("message", "Slot number must be between 1 and " + maxSlotNumber);
+                return response;
+            }
+
+            // Check if slot number already exists (on any shard)
+            if (shardRouter.scatter(s -> slotRepository.existsBySlotNumber(slotNumber)).containsValue(true)) {
                 response.put("success", false);
                 response.put("message", "Slot number already exists!");
                 return response;
@@ -73,7 +107,17 @@ newSlot.setIsOccupied(false);
             newSlot.setIsAvailable(true);
             newSlot.setCreatedAt(LocalDateTime.now());
 
-            ParkingSlot savedSlot = slotRepository.save(newSlot);
+            // New slots go to the shard that owns their city
+            String shard = shardRouter.shardForCity(city);
+            ParkingSlot savedSlot;
+            try (ShardContext.Scope scope = ShardContext.use(shard)) {
+                savedSlot = slotRepository.save(newSlot);
+                eventBus.publish(BookingEvent.Type.SLOT_ADDED, savedSlot, null);
+                journal.record(SlotJournal.Type.SLOT_ADDED, savedSlot, null);
+            }
+            shardRouter.slotAdded(slotNumber, shard);
+            occupancyTracker.record(savedSlot, false, false);
+            reportCache.slotsChanged();
 
             response.put("success", true);
             response.put("message", "Slot added successfully!");
@@ -91,9 +135,10 @@ newSlot.setIsOccupied(false);
     @Transactional
     public Map<String, Object> updateSlot(Long id, Map<String, Object> slotData) {
         Map<String, Object> response = new HashMap<>();
+        ShardContext.Scope shard = ShardContext.use(shardRouter.shardForId(id));
         
         try {
-            Optional<ParkingSlot> slotOpt = slotRepository.findById(id);
+            Optional<ParkingSlot> slotOpt = slotRepository.findByIdWithLock(id);
             
             if (slotOpt.isEmpty()) {
                 response.put("success", false);
@@ -110,6 +155,10 @@ newSlot.setIsOccupied(false);
                 return response;
             }
 
+            boolean wasInService = OccupancyTracker.inService(slot);
+            String wasCity = slot.getCity();
+            String wasLocation = slot.locationKey();
+
             // Update fields
             if (slotData.containsKey("slotType")) {
                 slot.setSlotType(slotData.get("slotType").toString().toUpperCase());
@@ -134,6 +183,16 @@ newSlot.setIsOccupied(false);
             }
 
             ParkingSlot updatedSlot = slotRepository.save(slot);
+            occupancyTracker.record(updatedSlot, wasCity, wasLocation, wasInService, false);
+            if (!Objects.equals(wasCity, updatedSlot.getCity()) || !Objects.equals(wasLocation, updatedSlot.locationKey())) {
+                reportCache.slotsChanged();
+                bookingPipeline.slotChanged(updatedSlot.getSlotNumber());
+            }
+            if (OccupancyTracker.inService(updatedSlot) != wasInService) {
+                eventBus.publish(wasInService ? BookingEvent.Type.SLOT_DISABLED : BookingEvent.Type.SLOT_ENABLED,
+                                 updatedSlot, null);
+            }
+            journal.record(SlotJournal.Type.SLOT_UPDATED, updatedSlot, null);
 
             response.put("success", true);
             response.put("message", "Slot updated successfully!");
@@ -143,6 +202,8 @@ newSlot.setIsOccupied(false);
             response.put("success", false);
             response.put("message", "Failed to update slot: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            shard.close();
         }
 
         return response;
@@ -151,9 +212,10 @@ newSlot.setIsOccupied(false);
     @Transactional
     public Map<String, Object> deleteSlot(Long id) {
         Map<String, Object> response = new HashMap<>();
+        ShardContext.Scope shard = ShardContext.use(shardRouter.shardForId(id));
         
         try {
-            Optional<ParkingSlot> slotOpt = slotRepository.findById(id);
+            Optional<ParkingSlot> slotOpt = slotRepository.findByIdWithLock(id);
             
             if (slotOpt.isEmpty()) {
                 response.put("success", false);
@@ -172,13 +234,19 @@ newSlot.setIsOccupied(false);
 
             // Check if slot has any bookings
             List<Booking> bookings = bookingRepository.findByParkingSlotId(slot.getId());
-            if (!bookings.isEmpty()) {
+            if (!bookings.isEmpty() || archiveService.hasArchivedBookings(slot.getId())) {
                 response.put("success", false);
                 response.put("message", "Cannot delete slot with booking history! Consider disabling it instead.");
                 return response;
             }
 
             slotRepository.deleteById(id);
+            shardRouter.slotRemoved(slot.getSlotNumber());
+            occupancyTracker.recordRemoved(slot);
+            reportCache.slotsChanged();
+            bookingPipeline.slotChanged(slot.getSlotNumber());
+            eventBus.publish(BookingEvent.Type.SLOT_REMOVED, slot, null);
+            journal.record(SlotJournal.Type.SLOT_REMOVED, slot, null);
 
             response.put("success", true);
             response.put("message", "Slot deleted successfully!");
@@ -187,6 +255,8 @@ newSlot.setIsOccupied(false);
             response.put("success", false);
             response.put("message", "Failed to delete slot: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            shard.close();
         }
 
         return response;
@@ -195,9 +265,10 @@ newSlot.setIsOccupied(false);
     @Transactional
     public Map<String, Object> toggleAvailability(Long id) {
         Map<String, Object> response = new HashMap<>();
+        ShardContext.Scope shard = ShardContext.use(shardRouter.shardForId(id));
         
         try {
-            Optional<ParkingSlot> slotOpt = slotRepository.findById(id);
+            Optional<ParkingSlot> slotOpt = slotRepository.findByIdWithLock(id);
             
             if (slotOpt.isEmpty()) {
                 response.put("success", false);
@@ -214,8 +285,15 @@ newSlot.setIsOccupied(false);
                 return response;
             }
 
+            boolean wasInService = OccupancyTracker.inService(slot);
+            boolean wasOccupied = slot.getIsOccupied();
             slot.setIsAvailable(!slot.getIsAvailable());
             ParkingSlot updatedSlot = slotRepository.save(slot);
+            occupancyTracker.record(updatedSlot, wasInService, wasOccupied);
+            eventBus.publish(updatedSlot.getIsAvailable() ? BookingEvent.Type.SLOT_ENABLED : BookingEvent.Type.SLOT_DISABLED,
+                             updatedSlot, null);
+            journal.record(updatedSlot.getIsAvailable() ? SlotJournal.Type.SLOT_ENABLED : SlotJournal.Type.SLOT_DISABLED,
+                           updatedSlot, null);
 
             response.put("success", true);
             response.put("message", slot.getIsAvailable() ? "Slot enabled!" : "Slot disabled!");
@@ -225,6 +303,8 @@ newSlot.setIsOccupied(false);
             response.put("success", false);
             response.put("message", "Failed to toggle availability: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            shard.close();
         }
 
         return response;
@@ -234,7 +314,7 @@ newSlot.setIsOccupied(false);
         Map<String, Object> response = new HashMap<>();
         
         try {
-            List<ParkingSlot> allSlots = slotRepository.findAll();
+            List<ParkingSlot> allSlots = shardRouter.gather(() -> slotRepository.findAll());
             
             long totalSlots = allSlots.size();
             long availableSlots = allSlots.stream().filter(s -> !s.getIsOccupied() && s.getIsAvailable()).count();
@@ -266,9 +346,10 @@ newSlot.setIsOccupied(false);
 @Transactional
 public Map<String, Object> toggleMaintenance(Long id, Map<String, String> data) {
     Map<String, Object> response = new HashMap<>();
+    ShardContext.Scope shard = ShardContext.use(shardRouter.shardForId(id));
     
     try {
-        Optional<ParkingSlot> slotOpt = slotRepository.findById(id);
+        Optional<ParkingSlot> slotOpt = slotRepository.findByIdWithLock(id);
         
         if (slotOpt.isEmpty()) {
             response.put("success", false);
@@ -285,6 +366,9 @@ public Map<String, Object> toggleMaintenance(Long id, Map<String, String> data)
             return response;
         }
 
+        boolean wasInService = OccupancyTracker.inService(slot);
+        boolean wasOccupied = slot.getIsOccupied();
+
         if (slot.getIsUnderMaintenance()) {
             // End maintenance
             slot.endMaintenance();
@@ -297,6 +381,11 @@ public Map<String, Object> toggleMaintenance(Long id, Map<String, String> data)
         }
 
         ParkingSlot updatedSlot = slotRepository.save(slot);
+        occupancyTracker.record(updatedSlot, wasInService, wasOccupied);
+        eventBus.publish(updatedSlot.getIsUnderMaintenance() ? BookingEvent.Type.MAINTENANCE_STARTED
+                                                             : BookingEvent.Type.MAINTENANCE_ENDED, updatedSlot, null);
+        journal.record(updatedSlot.getIsUnderMaintenance() ? SlotJournal.Type.MAINTENANCE_STARTED
+                                                           : SlotJournal.Type.MAINTENANCE_ENDED, updatedSlot, null);
 
         response.put("success", true);
         response.put("slot", updatedSlot);
@@ -305,6 +394,8 @@ public Map<String, Object> toggleMaintenance(Long id, Map<String, String> data)
         response.put("success", false);
         response.put("message", "Failed to toggle maintenance: " + e.getMessage());
         e.printStackTrace();
+    } finally {
+        shard.close();
     }
 
     return response;
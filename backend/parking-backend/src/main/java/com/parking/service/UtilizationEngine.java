@@ -0,0 +1,398 @@
+package com.parking.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.parking.entity.Booking;
+import com.parking.entity.BookingStatus;
+import com.parking.entity.ParkingSlot;
+
+/**
+ * Time-weighted occupancy over a period: how many of the available
+ * slot-hours were actually occupied, per slot, location, city and hour of
+ * day, rather than bookings per slot.
+ *
+ * Every level is a sweep over sorted interval starts and ends, so a level
+ * with n intervals costs O(n log n). Each slot's bookings are first clipped
+ * to the period (still-active ones run until now) and merged into disjoint
+ * occupied intervals, which keeps double-booked rows from counting a slot
+ * twice. The merged intervals then feed the location, city and overall
+ * sweeps, which find peak concurrent occupancy and the time spent full.
+ * Slots and locations are independent, so both are swept in parallel.
+ */
+public class UtilizationEngine {
+
+    private static final long HOUR = 3_600;
+    private static final long DAY = 86_400;
+    private static final int IST_OFFSET_SECONDS = 19_800;
+    private static final int RANKED_SLOTS = 10;
+
+    private final long from;
+    private final long to;
+    private final List<SlotTrack> slots;
+    private final List<Group> locations;
+    private final List<Group> cities;
+    private final Group overall;
+    private final long[] windowHourSeconds = new long[24];
+
+    private UtilizationEngine(long from, long to, List<SlotTrack> slots) {
+        this.from = from;
+        this.to = to;
+        this.slots = slots;
+        addHours(windowHourSeconds, from, to);
+
+        slots.parallelStream().forEach(track -> track.sweep(from, to));
+
+        Map<String, Group> byLocation = new LinkedHashMap<>();
+        Map<String, Group> byCity = new LinkedHashMap<>();
+        overall = new Group(null, null);
+        for (SlotTrack track : slots) {
+            String city = track.city != null ? track.city : "Unknown";
+            String location = track.location != null ? track.location : "Unknown";
+            byLocation.computeIfAbsent(city + "|" + location, k -> new Group(location, city)).add(track);
+            byCity.computeIfAbsent(city, k -> new Group(null, city)).add(track);
+            overall.add(track);
+        }
+        locations = new ArrayList<>(byLocation.values());
+        cities = new ArrayList<>(byCity.values());
+
+        locations.parallelStream().forEach(Group::sweep);
+        cities.parallelStream().forEach(Group::sweep);
+        overall.sweep();
+    }
+
+    /**
+     * Utilization of the given slots over [from, to). Bookings of other
+     * slots are ignored; to is capped at now, since the rest of the period
+     * has no occupancy yet.
+     */
+    public static UtilizationEngine compute(List<Booking> bookings, List<ParkingSlot> slots,
+                                            LocalDateTime from, LocalDateTime to, LocalDateTime now) {
+        long start = from.toEpochSecond(BookingFactStore.IST);
+        long end = Math.max(start, Math.min(to.toEpochSecond(BookingFactStore.IST), now.toEpochSecond(BookingFactStore.IST)));
+
+        Map<Long, SlotTrack> tracks = new LinkedHashMap<>();
+        for (ParkingSlot slot : slots) {
+            tracks.put(slot.getId(), new SlotTrack(slot));
+        }
+        long nowSecond = now.toEpochSecond(BookingFactStore.IST);
+        for (Booking b : bookings) {
+            if (b.getParkingSlot() == null || b.getEntryTime() == null || b.getStatus() == BookingStatus.CANCELLED) {
+                continue;
+            }
+            SlotTrack track = tracks.get(b.getParkingSlot().getId());
+            if (track == null) {
+                continue;
+            }
+            long exit;
+            if (b.getExitTime() != null) {
+                exit = b.getExitTime().toEpochSecond(BookingFactStore.IST);
+            } else if (b.getStatus() == BookingStatus.ACTIVE) {
+                exit = nowSecond;
+            } else {
+                continue;
+            }
+            track.add(b.getEntryTime().toEpochSecond(BookingFactStore.IST), exit);
+        }
+        return new UtilizationEngine(start, end, new ArrayList<>(tracks.values()));
+    }
+
+    /**
+     * Time-weighted utilization of all slots, in percent
+     */
+    public double averageUtilization() {
+        return percent(overall.occupiedSeconds, overall.slots * (to - from));
+    }
+
+    /**
+     * Report section; the per-slot list is included only when asked for
+     */
+    public Map<String, Object> toMap(boolean includeSlots) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Object> period = new LinkedHashMap<>();
+        period.put("from", LocalDateTime.ofEpochSecond(from, 0, BookingFactStore.IST));
+        period.put("to", LocalDateTime.ofEpochSecond(to, 0, BookingFactStore.IST));
+        period.put("hours", hours(to - from));
+        result.put("period", period);
+        result.put("overall", overall.toMap(to - from));
+
+        List<Map<String, Object>> cityRows = new ArrayList<>();
+        cities.stream()
+            .sorted(Comparator.comparing((Group g) -> g.city))
+            .forEach(g -> cityRows.add(g.toMap(to - from)));
+        result.put("byCity", cityRows);
+
+        List<Map<String, Object>> locationRows = new ArrayList<>();
+        locations.stream()
+            .sorted(Comparator.comparingDouble((Group g) -> -g.utilization(to - from)))
+            .forEach(g -> locationRows.add(g.toMap(to - from)));
+        result.put("byLocation", locationRows);
+
+        // Share of each hour of the day that slots were occupied, across all days
+        List<Map<String, Object>> hourRows = new ArrayList<>();
+        for (int h = 0; h < 24; h++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("hour", h);
+            row.put("occupiedHours", hours(overall.hourSeconds[h]));
+            row.put("utilization", percent(overall.hourSeconds[h], overall.slots * windowHourSeconds[h]));
+            hourRows.add(row);
+        }
+        result.put("byHourOfDay", hourRows);
+
+        List<SlotTrack> ranked = new ArrayList<>(slots);
+        ranked.sort(Comparator.comparingLong((SlotTrack t) -> -t.occupiedSeconds)
+            .thenComparing(t -> t.slotNumber, Comparator.nullsLast(Comparator.naturalOrder())));
+        List<Map<String, Object>> most = new ArrayList<>();
+        for (int i = 0; i < Math.min(RANKED_SLOTS, ranked.size()); i++) {
+            most.add(ranked.get(i).toMap(to - from));
+        }
+        List<Map<String, Object>> least = new ArrayList<>();
+        for (int i = ranked.size() - 1; i >= Math.max(0, ranked.size() - RANKED_SLOTS); i--) {
+            least.add(ranked.get(i).toMap(to - from));
+        }
+        result.put("mostUtilizedSlots", most);
+        result.put("leastUtilizedSlots", least);
+
+        if (includeSlots) {
+            List<Map<String, Object>> slotRows = new ArrayList<>(ranked.size());
+            for (SlotTrack track : ranked) {
+                slotRows.add(track.toMap(to - from));
+            }
+            result.put("slots", slotRows);
+        }
+        return result;
+    }
+
+    // Bookings of one slot, reduced to disjoint occupied intervals
+    private static final class SlotTrack {
+        final Long slotId;
+        final Integer slotNumber;
+        final String location;
+        final String city;
+
+        long[] starts = new long[4];
+        long[] ends = new long[4];
+        int count;
+
+        // After sweep: merged intervals as [start0, end0, start1, end1, ...]
+        long[] merged = new long[0];
+        int bookings;
+        long occupiedSeconds;
+        final long[] hourSeconds = new long[24];
+
+        SlotTrack(ParkingSlot slot) {
+            this.slotId = slot.getId();
+            this.slotNumber = slot.getSlotNumber();
+            this.location = slot.locationKey();
+            this.city = slot.getCity();
+        }
+
+        void add(long start, long end) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+        }
+
+        void sweep(long from, long to) {
+            // Clip to the period and drop what falls outside it
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                long s = Math.max(starts[i], from);
+                long e = Math.min(ends[i], to);
+                if (e > s) {
+                    starts[n] = s;
+                    ends[n] = e;
+                    n++;
+                }
+            }
+            bookings = n;
+            Sweep sweep = new Sweep(starts, ends, n, 1, true);
+            merged = sweep.merged;
+            occupiedSeconds = sweep.busySeconds;
+            for (int i = 0; i < merged.length; i += 2) {
+                addHours(hourSeconds, merged[i], merged[i + 1]);
+            }
+            starts = null;
+            ends = null;
+        }
+
+        double utilization(long windowSeconds) {
+            return percent(occupiedSeconds, windowSeconds);
+        }
+
+        Map<String, Object> toMap(long windowSeconds) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("slotId", slotId);
+            row.put("slotNumber", slotNumber);
+            row.put("location", location);
+            row.put("city", city);
+            row.put("bookings", bookings);
+            row.put("occupiedHours", hours(occupiedSeconds));
+            row.put("utilization", utilization(windowSeconds));
+            return row;
+        }
+    }
+
+    // A set of slots swept together: a location, a city or everything
+    private static final class Group {
+        final String location;
+        final String city;
+        final List<SlotTrack> members = new ArrayList<>();
+        int slots;
+        int bookings;
+        long occupiedSeconds;
+        final long[] hourSeconds = new long[24];
+
+        // After sweep
+        int peakOccupied;
+        long peakAt;
+        long fullSeconds;
+
+        Group(String location, String city) {
+            this.location = location;
+            this.city = city;
+        }
+
+        void add(SlotTrack track) {
+            members.add(track);
+        }
+
+        void sweep() {
+            int intervals = 0;
+            for (SlotTrack track : members) {
+                slots++;
+                bookings += track.bookings;
+                occupiedSeconds += track.occupiedSeconds;
+                for (int h = 0; h < 24; h++) {
+                    hourSeconds[h] += track.hourSeconds[h];
+                }
+                intervals += track.merged.length / 2;
+            }
+            long[] starts = new long[intervals];
+            long[] ends = new long[intervals];
+            int n = 0;
+            for (SlotTrack track : members) {
+                for (int i = 0; i < track.merged.length; i += 2) {
+                    starts[n] = track.merged[i];
+                    ends[n] = track.merged[i + 1];
+                    n++;
+                }
+            }
+            Sweep sweep = new Sweep(starts, ends, n, slots, false);
+            peakOccupied = sweep.peak;
+            peakAt = sweep.peakAt;
+            fullSeconds = sweep.fullSeconds;
+        }
+
+        double utilization(long windowSeconds) {
+            return percent(occupiedSeconds, slots * windowSeconds);
+        }
+
+        Map<String, Object> toMap(long windowSeconds) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            if (location != null) {
+                row.put("location", location);
+            }
+            if (city != null) {
+                row.put("city", city);
+            }
+            row.put("slots", slots);
+            row.put("bookings", bookings);
+            row.put("occupiedHours", hours(occupiedSeconds));
+            row.put("capacityHours", hours(slots * windowSeconds));
+            row.put("utilization", utilization(windowSeconds));
+            row.put("peakOccupied", peakOccupied);
+            row.put("peakAt", peakOccupied > 0 ? LocalDateTime.ofEpochSecond(peakAt, 0, BookingFactStore.IST) : null);
+            row.put("fullHours", hours(fullSeconds));
+            return row;
+        }
+    }
+
+    /**
+     * One sweep over n intervals: starts and ends are sorted separately and
+     * merged, so the concurrent count is known between consecutive events.
+     * Ends sort before starts at the same instant, so back-to-back bookings
+     * do not count as overlapping.
+     */
+    private static final class Sweep {
+        long busySeconds;
+        long fullSeconds;
+        int peak;
+        long peakAt;
+        long[] merged;
+
+        Sweep(long[] starts, long[] ends, int n, int capacity, boolean keepMerged) {
+            Arrays.sort(starts, 0, n);
+            Arrays.sort(ends, 0, n);
+            long[] out = keepMerged ? new long[n * 2] : null;
+            int m = 0;
+            int i = 0;
+            int j = 0;
+            int active = 0;
+            long last = 0;
+            while (j < n) {
+                long at = i < n && starts[i] < ends[j] ? starts[i] : ends[j];
+                if (active > 0) {
+                    busySeconds += at - last;
+                    if (active >= capacity) {
+                        fullSeconds += at - last;
+                    }
+                }
+                if (i < n && starts[i] < ends[j]) {
+                    if (active == 0 && out != null) {
+                        out[m++] = at;
+                    }
+                    active++;
+                    i++;
+                    if (active > peak) {
+                        peak = active;
+                        peakAt = at;
+                    }
+                } else {
+                    active--;
+                    j++;
+                    if (active == 0 && out != null) {
+                        out[m++] = at;
+                    }
+                }
+                last = at;
+            }
+            merged = out != null ? Arrays.copyOf(out, m) : null;
+        }
+    }
+
+    // Spread [start, end) over the hours of the day it covers, in IST
+    private static void addHours(long[] hourSeconds, long start, long end) {
+        long local = start + IST_OFFSET_SECONDS;
+        long localEnd = end + IST_OFFSET_SECONDS;
+        long fullDays = (localEnd - local) / DAY;
+        if (fullDays > 0) {
+            for (int h = 0; h < 24; h++) {
+                hourSeconds[h] += fullDays * HOUR;
+            }
+            local += fullDays * DAY;
+        }
+        while (local < localEnd) {
+            long next = Math.min(Math.floorDiv(local, HOUR) * HOUR + HOUR, localEnd);
+            hourSeconds[(int) (Math.floorMod(local, DAY) / HOUR)] += next - local;
+            local = next;
+        }
+    }
+
+    private static double percent(long part, long whole) {
+        return whole <= 0 ? 0 : Math.round(part * 10_000.0 / whole) / 100.0;
+    }
+
+    private static double hours(long seconds) {
+        return Math.round(seconds / 36.0) / 100.0;
+    }
+}
@@ -0,0 +1,137 @@
+package com.parking.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Row-oriented CSV writer. Fields are appended into one reused row buffer
+ * and copied to the underlying writer through a reused char array, so
+ * writing a row does not allocate per field.
+ */
+public final class CsvWriter implements Flushable, Closeable {
+
+    private static final String NULL_VALUE = "N/A";
+
+    private final Writer out;
+    private final StringBuilder row = new StringBuilder(256);
+    private char[] buffer = new char[256];
+    private boolean startOfRow = true;
+
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Escaped text field, "N/A" when null
+     */
+    public CsvWriter text(String value) {
+        separator();
+        if (value == null) {
+            row.append(NULL_VALUE);
+            return this;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            row.append(value);
+            return this;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+        return this;
+    }
+
+    public CsvWriter number(long value) {
+        separator();
+        row.append(value);
+        return this;
+    }
+
+    /**
+     * Numeric field that may be null ("N/A")
+     */
+    public CsvWriter number(Number value) {
+        separator();
+        if (value == null) {
+            row.append(NULL_VALUE);
+        } else if (value instanceof Double || value instanceof Float) {
+            row.append(value.doubleValue());
+        } else {
+            row.append(value.longValue());
+        }
+        return this;
+    }
+
+    public CsvWriter money(long paise) {
+        separator();
+        Money.appendRupees(row, paise);
+        return this;
+    }
+
+    public CsvWriter flag(boolean value) {
+        separator();
+        row.append(value ? "Yes" : "No");
+        return this;
+    }
+
+    /**
+     * Field appended as-is, without escaping
+     */
+    public CsvWriter raw(String value) {
+        separator();
+        row.append(value);
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        row.append('\n');
+        int len = row.length();
+        if (buffer.length < len) {
+            buffer = new char[Math.max(len, buffer.length * 2)];
+        }
+        row.getChars(0, len, buffer, 0);
+        out.write(buffer, 0, len);
+        row.setLength(0);
+        startOfRow = true;
+    }
+
+    /**
+     * Write a literal line (headers, section titles)
+     */
+    public void line(String text) throws IOException {
+        out.write(text);
+        out.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void separator() {
+        if (!startOfRow) {
+            row.append(',');
+        }
+        startOfRow = false;
+    }
+}
@@ -0,0 +1,110 @@
+package com.parking.util;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Serves a local file as a download with single-range support
+ * (Range: bytes=a-b, a-, -n). The body is sent with FileChannel.transferTo:
+ * through Tomcat's sendfile when the connector supports it, so the bytes
+ * go from the page cache to the socket without passing through the heap,
+ * otherwise straight from the channel into the response stream.
+ */
+public final class FileRangeSender {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileRangeSender() {
+    }
+
+    public static void send(Path file, String contentType, String filename,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = Files.size(file);
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+
+        String range = request.getHeader("Range");
+        // Multi-range requests are answered with the whole file, which RFC 9110 allows
+        if (range != null && range.startsWith("bytes=") && !range.contains(",")) {
+            String spec = range.substring("bytes=".length()).trim();
+            int dash = spec.indexOf('-');
+            try {
+                if (dash >= 0) {
+                    String first = spec.substring(0, dash).trim();
+                    String last = spec.substring(dash + 1).trim();
+                    if (first.isEmpty()) {
+                        // Suffix range: the last n bytes
+                        long suffix = Long.parseLong(last);
+                        start = Math.max(0, length - suffix);
+                        if (suffix == 0) {
+                            start = length;
+                        }
+                    } else {
+                        start = Long.parseLong(first);
+                        if (!last.isEmpty()) {
+                            end = Math.min(Long.parseLong(last), length - 1);
+                        }
+                    }
+                    if (start >= length || start > end) {
+                        response.setHeader("Content-Range", "bytes */" + length);
+                        response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                        return;
+                    }
+                    partial = true;
+                }
+            } catch (NumberFormatException e) {
+                // Malformed range header: ignore it and send the whole file
+                start = 0;
+                end = length - 1;
+            }
+        }
+
+        long count = end - start + 1;
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+        response.setContentType(contentType);
+        response.setContentLengthLong(Math.max(count, 0));
+        if (partial) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+        if (count <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.parking.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct counter with 2^12 registers (about 1.6% standard
+ * error). Small sets are kept sparse as packed (register, rank) ints so a
+ * sketch for a quiet day/location costs a few bytes; it switches to the
+ * dense 4 KB register array once that would be smaller. Merging takes the
+ * register-wise maximum. Not thread-safe.
+ */
+public final class HyperLogLog {
+
+    private static final int P = 12;
+    private static final int M = 1 << P;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / M);
+    private static final int SPARSE_LIMIT = M / 4;
+
+    private byte[] registers;
+    private int[] sparse = new int[4];
+    private int sparseSize;
+
+    public void addString(String value) {
+        if (value != null) {
+            addHash(hash64(value));
+        }
+    }
+
+    public void addLong(long value) {
+        addHash(mix64(value));
+    }
+
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - P));
+        int rank = Long.numberOfLeadingZeros((hash << P) | (1L << (P - 1))) + 1;
+        set(index, rank);
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.registers != null) {
+            for (int i = 0; i < M; i++) {
+                if (other.registers[i] != 0) {
+                    set(i, other.registers[i]);
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+            }
+        }
+    }
+
+    public long estimate() {
+        if (registers == null) {
+            // Every sparse entry is a distinct non-empty register
+            return Math.round(M * Math.log((double) M / (M - sparseSize)));
+        }
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * M * M / sum;
+        if (estimate <= 2.5 * M && zeros > 0) {
+            estimate = M * Math.log((double) M / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public void write(DataOutput out) throws IOException {
+        if (registers != null) {
+            out.writeInt(-1);
+            out.write(registers);
+        } else {
+            out.writeInt(sparseSize);
+            for (int i = 0; i < sparseSize; i++) {
+                out.writeInt(sparse[i]);
+            }
+        }
+    }
+
+    public static HyperLogLog read(DataInput in) throws IOException {
+        HyperLogLog hll = new HyperLogLog();
+        int n = in.readInt();
+        if (n < 0) {
+            hll.registers = new byte[M];
+            in.readFully(hll.registers);
+            hll.sparse = null;
+        } else {
+            hll.sparse = new int[Math.max(n, 4)];
+            for (int i = 0; i < n; i++) {
+                hll.sparse[i] = in.readInt();
+            }
+            hll.sparseSize = n;
+        }
+        return hll;
+    }
+
+    private void set(int index, int rank) {
+        if (registers != null) {
+            if (registers[index] < rank) {
+                registers[index] = (byte) rank;
+            }
+            return;
+        }
+        for (int i = 0; i < sparseSize; i++) {
+            if (sparse[i] >>> 8 == index) {
+                if ((sparse[i] & 0xFF) < rank) {
+                    sparse[i] = (index << 8) | rank;
+                }
+                return;
+            }
+        }
+        if (sparseSize == SPARSE_LIMIT) {
+            toDense();
+            registers[index] = (byte) rank;
+            return;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, sparseSize * 2);
+        }
+        sparse[sparseSize++] = (index << 8) | rank;
+    }
+
+    private void toDense() {
+        registers = new byte[M];
+        for (int i = 0; i < sparseSize; i++) {
+            registers[sparse[i] >>> 8] = (byte) (sparse[i] & 0xFF);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    /**
+     * 64-bit FNV-1a over the string's chars, finished with the murmur3 mixer
+     */
+    public static long hash64(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix64(h);
+    }
+
+    public static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,53 @@
+package com.parking.util;
+
+/**
+ * Fixed-point money helpers. Amounts are held as long paise (1/100 rupee)
+ * so sums over any number of bookings stay exact.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    public static long toPaise(double rupees) {
+        return Math.round(rupees * 100.0);
+    }
+
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+
+    /**
+     * Multiply by a rate expressed in basis points (10000 = 1.0), rounding half up
+     */
+    public static long applyBasisPoints(long paise, int basisPoints) {
+        return (paise * basisPoints + 5_000) / 10_000;
+    }
+
+    /**
+     * Percentage of an amount, rounding half up
+     */
+    public static long percentOf(long paise, int percent) {
+        return (paise * percent + 50) / 100;
+    }
+
+    /**
+     * Append paise as a plain "1234.50" rupee string without allocating
+     */
+    public static StringBuilder appendRupees(StringBuilder out, long paise) {
+        if (paise < 0) {
+            out.append('-');
+            paise = -paise;
+        }
+        long fraction = paise % 100;
+        out.append(paise / 100).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+
+    public static String format(long paise) {
+        return appendRupees(new StringBuilder(16), paise).toString();
+    }
+}
@@ -0,0 +1,728 @@
+package com.parking.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming writer for Apache Parquet files with a flat schema of
+ * required or optional columns.
+ *
+ * Rows are appended field by field, like CsvWriter, into per-column
+ * buffers holding one row group. When the row group is full every column
+ * is encoded as one column chunk: a single data page (format v1) of PLAIN
+ * values, or for dictionary columns a dictionary page plus RLE_DICTIONARY
+ * indexes, falling back to PLAIN when the row group has too many distinct
+ * values. Pages are compressed with the chosen codec. Numeric columns get
+ * min/max statistics, so readers can skip row groups by range. Memory is
+ * bounded by one row group; the footer keeps only chunk metadata.
+ *
+ * Only what the exports need is implemented: no nesting, no repetition,
+ * one page per chunk. Timestamps are local date-times without a zone
+ * (TIMESTAMP(MILLIS, isAdjustedToUTC=false)), money is DECIMAL(18, 2)
+ * stored as paise in an INT64.
+ */
+public final class ParquetWriter {
+
+    public enum Codec {
+        UNCOMPRESSED(0), GZIP(2);
+
+        final int id;
+
+        Codec(int id) {
+            this.id = id;
+        }
+    }
+
+    private enum Kind {
+        BOOLEAN(0), INT32(1), INT64(2), DOUBLE(5), BYTE_ARRAY(6);
+
+        final int type;
+
+        Kind(int type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * One column of the schema; build with the static factories
+     */
+    public static final class Column {
+        final String name;
+        final Kind kind;
+        final boolean optional;
+        final boolean dictionary;
+        final int logical;     // 0 none, else a LogicalType union field id
+        final int scale;
+
+        private Column(String name, Kind kind, boolean optional, boolean dictionary, int logical, int scale) {
+            this.name = name;
+            this.kind = kind;
+            this.optional = optional;
+            this.dictionary = dictionary;
+            this.logical = logical;
+            this.scale = scale;
+        }
+    }
+
+    public static Column int32(String name, boolean optional) {
+        return new Column(name, Kind.INT32, optional, false, 0, 0);
+    }
+
+    public static Column int64(String name, boolean optional) {
+        return new Column(name, Kind.INT64, optional, false, 0, 0);
+    }
+
+    public static Column float64(String name, boolean optional) {
+        return new Column(name, Kind.DOUBLE, optional, false, 0, 0);
+    }
+
+    public static Column bool(String name, boolean optional) {
+        return new Column(name, Kind.BOOLEAN, optional, false, 0, 0);
+    }
+
+    public static Column string(String name, boolean optional) {
+        return new Column(name, Kind.BYTE_ARRAY, optional, false, LOGICAL_STRING, 0);
+    }
+
+    /**
+     * String column with few distinct values (city, type, status)
+     */
+    public static Column dictionaryString(String name, boolean optional) {
+        return new Column(name, Kind.BYTE_ARRAY, optional, true, LOGICAL_STRING, 0);
+    }
+
+    public static Column timestamp(String name, boolean optional) {
+        return new Column(name, Kind.INT64, optional, false, LOGICAL_TIMESTAMP, 0);
+    }
+
+    /**
+     * Fixed-point amount stored as its unscaled value, e.g. paise with scale 2
+     */
+    public static Column decimal(String name, int scale, boolean optional) {
+        return new Column(name, Kind.INT64, optional, false, LOGICAL_DECIMAL, scale);
+    }
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    // Page types and encodings from parquet.thrift
+    private static final int DATA_PAGE = 0;
+    private static final int DICTIONARY_PAGE = 2;
+    private static final int PLAIN = 0;
+    private static final int RLE = 3;
+    private static final int RLE_DICTIONARY = 8;
+
+    // LogicalType union members
+    private static final int LOGICAL_STRING = 1;
+    private static final int LOGICAL_DECIMAL = 5;
+    private static final int LOGICAL_TIMESTAMP = 8;
+
+    // ConvertedType values for readers that predate logical types
+    private static final int CONVERTED_UTF8 = 0;
+    private static final int CONVERTED_DECIMAL = 5;
+
+    private static final int DECIMAL_PRECISION = 18;
+    private static final int MAX_DICTIONARY_ENTRIES = 1 << 15;
+
+    private final OutputStream out;
+    private final Column[] columns;
+    private final Codec codec;
+    private final int rowGroupRows;
+    private final Map<String, String> metadata;
+
+    // Buffered row group: numbers as longs (doubles as raw bits), strings as strings
+    private final long[][] numbers;
+    private final String[][] strings;
+    private final boolean[][] nulls;
+    private int rows;
+    private int field;
+
+    private long position;
+    private long totalRows;
+    private final List<byte[]> rowGroups = new ArrayList<>();
+
+    public ParquetWriter(OutputStream out, List<Column> columns, Codec codec, int rowGroupRows,
+                         Map<String, String> metadata) throws IOException {
+        this.out = out;
+        this.columns = columns.toArray(new Column[0]);
+        this.codec = codec;
+        this.rowGroupRows = rowGroupRows;
+        this.metadata = metadata;
+        numbers = new long[this.columns.length][];
+        strings = new String[this.columns.length][];
+        nulls = new boolean[this.columns.length][];
+        for (int c = 0; c < this.columns.length; c++) {
+            if (this.columns[c].kind == Kind.BYTE_ARRAY) {
+                strings[c] = new String[rowGroupRows];
+            } else {
+                numbers[c] = new long[rowGroupRows];
+            }
+            nulls[c] = new boolean[rowGroupRows];
+        }
+        write(MAGIC);
+    }
+
+    public ParquetWriter text(String value) {
+        next(Kind.BYTE_ARRAY, value == null);
+        if (value != null) {
+            strings[field][rows] = value;
+        }
+        return advance();
+    }
+
+    public ParquetWriter number(Long value) {
+        next(Kind.INT64, value == null);
+        if (value != null) {
+            numbers[field][rows] = value;
+        }
+        return advance();
+    }
+
+    public ParquetWriter number(Integer value) {
+        next(Kind.INT32, value == null);
+        if (value != null) {
+            numbers[field][rows] = value;
+        }
+        return advance();
+    }
+
+    public ParquetWriter number(Double value) {
+        next(Kind.DOUBLE, value == null);
+        if (value != null) {
+            numbers[field][rows] = Double.doubleToLongBits(value);
+        }
+        return advance();
+    }
+
+    public ParquetWriter flag(Boolean value) {
+        next(Kind.BOOLEAN, value == null);
+        if (value != null) {
+            numbers[field][rows] = value ? 1 : 0;
+        }
+        return advance();
+    }
+
+    public ParquetWriter timestamp(LocalDateTime value) {
+        return number(value != null ? value.toInstant(ZoneOffset.UTC).toEpochMilli() : null);
+    }
+
+    private void next(Kind kind, boolean isNull) {
+        if (field >= columns.length) {
+            throw new IllegalStateException("Row has more than " + columns.length + " fields");
+        }
+        Column column = columns[field];
+        if (column.kind != kind) {
+            throw new IllegalArgumentException("Column " + column.name + " is " + column.kind + ", not " + kind);
+        }
+        if (isNull && !column.optional) {
+            throw new IllegalArgumentException("Column " + column.name + " is required");
+        }
+        nulls[field][rows] = isNull;
+    }
+
+    private ParquetWriter advance() {
+        field++;
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        if (field != columns.length) {
+            throw new IllegalStateException("Row has " + field + " of " + columns.length + " fields");
+        }
+        field = 0;
+        if (++rows == rowGroupRows) {
+            flushRowGroup();
+        }
+    }
+
+    public long rowCount() {
+        return totalRows + rows;
+    }
+
+    /**
+     * Write the last row group and the footer. The stream is left open.
+     */
+    public void finish() throws IOException {
+        if (rows > 0) {
+            flushRowGroup();
+        }
+        Compact meta = new Compact();
+        meta.i32(1, 1);
+        meta.list(2, Compact.STRUCT, columns.length + 1);
+        meta.element().string(4, "schema").i32(5, columns.length).end();
+        for (Column column : columns) {
+            schemaElement(meta, column);
+        }
+        meta.i64(3, totalRows);
+        meta.list(4, Compact.STRUCT, rowGroups.size());
+        for (byte[] rowGroup : rowGroups) {
+            meta.raw(rowGroup);
+        }
+        if (!metadata.isEmpty()) {
+            meta.list(5, Compact.STRUCT, metadata.size());
+            for (Map.Entry<String, String> e : metadata.entrySet()) {
+                meta.element().string(1, e.getKey()).string(2, e.getValue()).end();
+            }
+        }
+        meta.string(6, "parking-backend ParquetWriter");
+        meta.stop();
+
+        byte[] footer = meta.toByteArray();
+        write(footer);
+        write(new byte[] {
+            (byte) footer.length, (byte) (footer.length >>> 8), (byte) (footer.length >>> 16), (byte) (footer.length >>> 24)
+        });
+        write(MAGIC);
+        out.flush();
+    }
+
+    private static void schemaElement(Compact meta, Column column) {
+        meta.element();
+        meta.i32(1, column.kind.type);
+        meta.i32(3, column.optional ? 1 : 0);
+        meta.string(4, column.name);
+        if (column.logical == LOGICAL_STRING) {
+            meta.i32(6, CONVERTED_UTF8);
+        } else if (column.logical == LOGICAL_DECIMAL) {
+            meta.i32(6, CONVERTED_DECIMAL).i32(7, column.scale).i32(8, DECIMAL_PRECISION);
+        }
+        if (column.logical != 0) {
+            meta.struct(10).struct(column.logical);
+            if (column.logical == LOGICAL_DECIMAL) {
+                meta.i32(1, column.scale).i32(2, DECIMAL_PRECISION);
+            } else if (column.logical == LOGICAL_TIMESTAMP) {
+                // isAdjustedToUTC = false, unit = MILLIS (an empty struct)
+                meta.bool(1, false).struct(2).struct(1).end().end();
+            }
+            meta.end().end();
+        }
+        meta.end();
+    }
+
+    private void flushRowGroup() throws IOException {
+        long groupStart = position;
+        long groupUncompressed = 0;
+        Compact group = new Compact();
+        group.element();
+        group.list(1, Compact.STRUCT, columns.length);
+        for (int c = 0; c < columns.length; c++) {
+            groupUncompressed += writeChunk(c, group);
+        }
+        group.i64(2, groupUncompressed);
+        group.i64(3, rows);
+        group.i64(5, groupStart);
+        group.i64(6, position - groupStart);
+        group.end();
+        rowGroups.add(group.toByteArray());
+
+        totalRows += rows;
+        rows = 0;
+        for (int c = 0; c < columns.length; c++) {
+            if (strings[c] != null) {
+                Arrays.fill(strings[c], null);
+            }
+        }
+    }
+
+    // One column chunk of the buffered row group; returns its uncompressed size
+    private long writeChunk(int c, Compact group) throws IOException {
+        Column column = columns[c];
+        boolean[] isNull = nulls[c];
+        int nullCount = 0;
+        for (int r = 0; r < rows; r++) {
+            if (isNull[r]) {
+                nullCount++;
+            }
+        }
+
+        long chunkStart = position;
+        long uncompressed = 0;
+        Long dictionaryOffset = null;
+        ByteArrayOutputStream values = new ByteArrayOutputStream();
+        int encoding = PLAIN;
+
+        Map<String, Integer> dictionary = column.dictionary ? dictionary(strings[c], isNull) : null;
+        if (dictionary != null) {
+            ByteArrayOutputStream plain = new ByteArrayOutputStream();
+            for (String value : dictionary.keySet()) {
+                plainString(plain, value);
+            }
+            dictionaryOffset = position;
+            int entries = dictionary.size();
+            uncompressed += writePage(DICTIONARY_PAGE, plain.toByteArray(),
+                header -> header.struct(7).i32(1, entries).i32(2, PLAIN).end());
+
+            int[] indexes = new int[rows - nullCount];
+            int n = 0;
+            for (int r = 0; r < rows; r++) {
+                if (!isNull[r]) {
+                    indexes[n++] = dictionary.get(strings[c][r]);
+                }
+            }
+            int bitWidth = Math.max(1, 32 - Integer.numberOfLeadingZeros(dictionary.size() - 1));
+            values.write(bitWidth);
+            rleHybrid(values, indexes, n, bitWidth);
+            encoding = RLE_DICTIONARY;
+        } else {
+            plainValues(values, c);
+        }
+
+        ByteArrayOutputStream page = new ByteArrayOutputStream();
+        if (column.optional) {
+            int[] levels = new int[rows];
+            for (int r = 0; r < rows; r++) {
+                levels[r] = isNull[r] ? 0 : 1;
+            }
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            rleHybrid(encoded, levels, rows, 1);
+            int length = encoded.size();
+            page.write(new byte[] { (byte) length, (byte) (length >>> 8), (byte) (length >>> 16), (byte) (length >>> 24) });
+            encoded.writeTo(page);
+        }
+        values.writeTo(page);
+
+        long dataOffset = position;
+        int valueEncoding = encoding;
+        uncompressed += writePage(DATA_PAGE, page.toByteArray(),
+            header -> header.struct(5).i32(1, rows).i32(2, valueEncoding).i32(3, RLE).i32(4, RLE).end());
+
+        // ColumnChunk { file_offset, meta_data }
+        group.element();
+        group.i64(2, chunkStart);
+        group.struct(3);
+        group.i32(1, column.kind.type);
+        int[] encodings = dictionary != null ? new int[] { PLAIN, RLE, RLE_DICTIONARY } : new int[] { PLAIN, RLE };
+        group.list(2, Compact.I32, encodings.length);
+        for (int e : encodings) {
+            group.rawI32(e);
+        }
+        group.list(3, Compact.BINARY, 1);
+        group.rawString(column.name);
+        group.i32(4, codec.id);
+        group.i64(5, rows);
+        group.i64(6, uncompressed);
+        group.i64(7, position - chunkStart);
+        group.i64(9, dataOffset);
+        if (dictionaryOffset != null) {
+            group.i64(11, dictionaryOffset);
+        }
+        statistics(group, c, nullCount);
+        group.end();
+        group.end();
+        return uncompressed;
+    }
+
+    // Index of each distinct value in first-seen order, or null when there are too many for a dictionary
+    private Map<String, Integer> dictionary(String[] column, boolean[] isNull) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (int r = 0; r < rows; r++) {
+            if (!isNull[r] && !dictionary.containsKey(column[r])) {
+                if (dictionary.size() == MAX_DICTIONARY_ENTRIES) {
+                    return null;
+                }
+                dictionary.put(column[r], dictionary.size());
+            }
+        }
+        return dictionary;
+    }
+
+    private void plainValues(ByteArrayOutputStream values, int c) {
+        Column column = columns[c];
+        boolean[] isNull = nulls[c];
+        if (column.kind == Kind.BOOLEAN) {
+            int bits = 0;
+            int count = 0;
+            for (int r = 0; r < rows; r++) {
+                if (isNull[r]) {
+                    continue;
+                }
+                bits |= (int) numbers[c][r] << (count & 7);
+                if ((++count & 7) == 0) {
+                    values.write(bits);
+                    bits = 0;
+                }
+            }
+            if ((count & 7) != 0) {
+                values.write(bits);
+            }
+            return;
+        }
+        for (int r = 0; r < rows; r++) {
+            if (isNull[r]) {
+                continue;
+            }
+            switch (column.kind) {
+                case INT32:
+                    littleEndian(values, numbers[c][r], 4);
+                    break;
+                case INT64:
+                case DOUBLE:
+                    littleEndian(values, numbers[c][r], 8);
+                    break;
+                default:
+                    plainString(values, strings[c][r]);
+                    break;
+            }
+        }
+    }
+
+    // Min/max of numeric columns, null count of all
+    private void statistics(Compact group, int c, int nullCount) {
+        Column column = columns[c];
+        group.struct(12);
+        group.i64(3, nullCount);
+        if (nullCount < rows && (column.kind == Kind.INT32 || column.kind == Kind.INT64 || column.kind == Kind.DOUBLE)) {
+            long min = 0;
+            long max = 0;
+            boolean first = true;
+            for (int r = 0; r < rows; r++) {
+                if (nulls[c][r]) {
+                    continue;
+                }
+                long v = numbers[c][r];
+                if (first || less(column, v, min)) {
+                    min = v;
+                }
+                if (first || less(column, max, v)) {
+                    max = v;
+                }
+                first = false;
+            }
+            int width = column.kind == Kind.INT32 ? 4 : 8;
+            group.binary(5, littleEndian(max, width));
+            group.binary(6, littleEndian(min, width));
+        }
+        group.end();
+    }
+
+    private static boolean less(Column column, long a, long b) {
+        return column.kind == Kind.DOUBLE ? Double.longBitsToDouble(a) < Double.longBitsToDouble(b) : a < b;
+    }
+
+    // PageHeader, with the header specific to the page type added by typeHeader, then the page
+    private long writePage(int type, byte[] body, Consumer<Compact> typeHeader) throws IOException {
+        byte[] stored = compress(body);
+        Compact header = new Compact();
+        header.i32(1, type).i32(2, body.length).i32(3, stored.length);
+        typeHeader.accept(header);
+        header.stop();
+        byte[] headerBytes = header.toByteArray();
+        write(headerBytes);
+        write(stored);
+        return headerBytes.length + body.length;
+    }
+
+    private byte[] compress(byte[] body) throws IOException {
+        if (codec == Codec.UNCOMPRESSED) {
+            return body;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 64 * 1024)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    /**
+     * RLE / bit-packing hybrid: runs of 8 or more equal values as RLE runs,
+     * everything else bit-packed in groups of 8
+     */
+    static void rleHybrid(ByteArrayOutputStream out, int[] values, int n, int bitWidth) {
+        int pendingStart = 0;
+        int i = 0;
+        while (i < n) {
+            int run = 1;
+            while (i + run < n && values[i + run] == values[i]) {
+                run++;
+            }
+            // Bit-packed runs hold whole groups of 8, so top up the pending group from the run first
+            int fill = (8 - (i - pendingStart) % 8) % 8;
+            if (run - fill >= 8) {
+                bitPacked(out, values, pendingStart, i + fill - pendingStart, bitWidth);
+                int repeat = run - fill;
+                varint(out, (long) repeat << 1);
+                for (int b = 0; b < (bitWidth + 7) / 8; b++) {
+                    out.write(values[i] >>> (8 * b));
+                }
+                i += run;
+                pendingStart = i;
+            } else {
+                i += run;
+            }
+        }
+        bitPacked(out, values, pendingStart, n - pendingStart, bitWidth);
+    }
+
+    private static void bitPacked(ByteArrayOutputStream out, int[] values, int from, int count, int bitWidth) {
+        if (count == 0) {
+            return;
+        }
+        int groups = (count + 7) / 8;
+        varint(out, ((long) groups << 1) | 1);
+        long buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < groups * 8; i++) {
+            long v = i < count ? values[from + i] : 0;
+            buffer |= v << bits;
+            bits += bitWidth;
+            while (bits >= 8) {
+                out.write((int) buffer);
+                buffer >>>= 8;
+                bits -= 8;
+            }
+        }
+    }
+
+    private static void plainString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        littleEndian(out, bytes.length, 4);
+        out.writeBytes(bytes);
+    }
+
+    private static void littleEndian(ByteArrayOutputStream out, long value, int width) {
+        for (int b = 0; b < width; b++) {
+            out.write((int) (value >>> (8 * b)));
+        }
+    }
+
+    private static byte[] littleEndian(long value, int width) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(width);
+        littleEndian(out, value, width);
+        return out.toByteArray();
+    }
+
+    private static void varint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Thrift compact protocol, enough for the Parquet footer and page headers
+     */
+    private static final class Compact {
+        static final int TRUE = 1;
+        static final int FALSE = 2;
+        static final int I32 = 5;
+        static final int I64 = 6;
+        static final int BINARY = 8;
+        static final int LIST = 9;
+        static final int STRUCT = 12;
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final int[] lastIds = new int[16];
+        private int depth;
+
+        private void field(int id, int type) {
+            int delta = id - lastIds[depth];
+            if (delta > 0 && delta <= 15) {
+                out.write(delta << 4 | type);
+            } else {
+                out.write(type);
+                varint(out, zigzag(id));
+            }
+            lastIds[depth] = id;
+        }
+
+        Compact i32(int id, int value) {
+            field(id, I32);
+            varint(out, zigzag(value));
+            return this;
+        }
+
+        Compact i64(int id, long value) {
+            field(id, I64);
+            varint(out, zigzag(value));
+            return this;
+        }
+
+        Compact bool(int id, boolean value) {
+            field(id, value ? TRUE : FALSE);
+            return this;
+        }
+
+        Compact binary(int id, byte[] value) {
+            field(id, BINARY);
+            varint(out, value.length);
+            out.writeBytes(value);
+            return this;
+        }
+
+        Compact string(int id, String value) {
+            return binary(id, value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Nested struct field; close with end()
+        Compact struct(int id) {
+            field(id, STRUCT);
+            lastIds[++depth] = 0;
+            return this;
+        }
+
+        // Struct element of a list; close with end()
+        Compact element() {
+            lastIds[++depth] = 0;
+            return this;
+        }
+
+        Compact end() {
+            out.write(0);
+            depth--;
+            return this;
+        }
+
+        void stop() {
+            out.write(0);
+        }
+
+        void list(int id, int elementType, int size) {
+            field(id, LIST);
+            if (size < 15) {
+                out.write(size << 4 | elementType);
+            } else {
+                out.write(0xF0 | elementType);
+                varint(out, size);
+            }
+        }
+
+        void rawI32(int value) {
+            varint(out, zigzag(value));
+        }
+
+        void rawString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(out, bytes.length);
+            out.writeBytes(bytes);
+        }
+
+        // Bytes already encoded by another Compact, e.g. a struct list element
+        void raw(byte[] bytes) {
+            out.writeBytes(bytes);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+}
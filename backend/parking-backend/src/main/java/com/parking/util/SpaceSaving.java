@@ -0,0 +1,122 @@
+package com.parking.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Space-Saving heavy hitters over long item ids (Metwally et al.), keeping
+ * at most capacity counters. When full, a new item replaces the smallest
+ * counter and inherits its count as the error bound. Summaries merge as in
+ * Agarwal et al.: an item missing from a full summary is credited with
+ * that summary's minimum, and the largest capacity counters are kept.
+ * Not thread-safe.
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+    // item -> {count, error}
+    private final Map<Long, long[]> counters = new HashMap<>();
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void add(long item) {
+        add(item, 1, 0);
+    }
+
+    private void add(long item, long count, long error) {
+        long[] counter = counters.get(item);
+        if (counter != null) {
+            counter[0] += count;
+            counter[1] += error;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(item, new long[] { count, error });
+            return;
+        }
+        Long minItem = null;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<Long, long[]> e : counters.entrySet()) {
+            if (e.getValue()[0] < minCount) {
+                minCount = e.getValue()[0];
+                minItem = e.getKey();
+            }
+        }
+        counters.remove(minItem);
+        counters.put(item, new long[] { minCount + count, minCount + error });
+    }
+
+    public void merge(SpaceSaving other) {
+        long selfMin = counters.size() < capacity ? 0 : minCount();
+        long otherMin = other.counters.size() < other.capacity ? 0 : other.minCount();
+
+        Set<Long> items = new HashSet<>(counters.keySet());
+        items.addAll(other.counters.keySet());
+
+        List<long[]> merged = new ArrayList<>(items.size());
+        for (Long item : items) {
+            long[] mine = counters.get(item);
+            long[] theirs = other.counters.get(item);
+            long count = (mine != null ? mine[0] : selfMin) + (theirs != null ? theirs[0] : otherMin);
+            long error = (mine != null ? mine[1] : selfMin) + (theirs != null ? theirs[1] : otherMin);
+            merged.add(new long[] { item, count, error });
+        }
+        merged.sort((a, b) -> Long.compare(b[1], a[1]));
+
+        counters.clear();
+        for (int i = 0; i < merged.size() && i < capacity; i++) {
+            long[] m = merged.get(i);
+            counters.put(m[0], new long[] { m[1], m[2] });
+        }
+    }
+
+    /**
+     * Up to n {item, count, error} triples, highest count first
+     */
+    public List<long[]> top(int n) {
+        List<long[]> list = new ArrayList<>(counters.size());
+        for (Map.Entry<Long, long[]> e : counters.entrySet()) {
+            list.add(new long[] { e.getKey(), e.getValue()[0], e.getValue()[1] });
+        }
+        list.sort((a, b) -> Long.compare(b[1], a[1]));
+        return list.size() > n ? list.subList(0, n) : list;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(counters.size());
+        for (Map.Entry<Long, long[]> e : counters.entrySet()) {
+            out.writeLong(e.getKey());
+            out.writeLong(e.getValue()[0]);
+            out.writeLong(e.getValue()[1]);
+        }
+    }
+
+    public static SpaceSaving read(DataInput in, int capacity) throws IOException {
+        SpaceSaving summary = new SpaceSaving(capacity);
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            long item = in.readLong();
+            long count = in.readLong();
+            long error = in.readLong();
+            summary.add(item, count, error);
+        }
+        return summary;
+    }
+
+    private long minCount() {
+        long min = Long.MAX_VALUE;
+        for (long[] counter : counters.values()) {
+            min = Math.min(min, counter[0]);
+        }
+        return counters.isEmpty() ? 0 : min;
+    }
+}
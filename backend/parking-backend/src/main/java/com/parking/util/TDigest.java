@@ -0,0 +1,232 @@
+package com.parking.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Merging t-digest (Dunning) for approximate quantiles. Values are buffered
+ * and periodically folded into a sorted list of centroids whose size is
+ * bounded by the compression factor, with small centroids at the tails so
+ * p90/p99 stay accurate. Two digests merge by folding one's centroids into
+ * the other, so per-day digests can be combined for any date range.
+ * Not thread-safe.
+ */
+public final class TDigest {
+
+    private final double compression;
+
+    // Merged centroids, sorted by mean
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+
+    // Unmerged values/centroids
+    private double[] bufferMeans;
+    private double[] bufferWeights;
+    private int buffered;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        this.compression = compression;
+        int size = (int) Math.ceil(compression) + 8;
+        this.means = new double[Math.min(size, 16)];
+        this.weights = new double[means.length];
+        this.bufferMeans = new double[16];
+        this.bufferWeights = new double[16];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, double weight) {
+        if (buffered == bufferMeans.length) {
+            if (buffered >= bufferLimit()) {
+                compress();
+            } else {
+                int size = Math.min(buffered * 2, bufferLimit());
+                bufferMeans = Arrays.copyOf(bufferMeans, size);
+                bufferWeights = Arrays.copyOf(bufferWeights, size);
+            }
+        }
+        bufferMeans[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return Math.round(totalWeight);
+    }
+
+    /**
+     * Approximate value at quantile q (0..1); NaN when empty
+     */
+    public double quantile(double q) {
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+
+        double index = q * totalWeight;
+        if (index < weights[0] / 2) {
+            return min + (means[0] - min) * (index / (weights[0] / 2));
+        }
+
+        double cumulative = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (cumulative + gap > index) {
+                double fraction = (index - cumulative) / gap;
+                return means[i] + (means[i + 1] - means[i]) * fraction;
+            }
+            cumulative += gap;
+        }
+
+        int last = centroids - 1;
+        double tail = weights[last] / 2;
+        double fraction = tail == 0 ? 1 : Math.min(1, (index - cumulative) / tail);
+        return means[last] + (max - means[last]) * fraction;
+    }
+
+    /**
+     * Fold buffered values into the centroid list
+     */
+    public void compress() {
+        if (buffered == 0) {
+            return;
+        }
+
+        int n = centroids + buffered;
+        double[] allMeans = new double[n];
+        double[] allWeights = new double[n];
+        System.arraycopy(means, 0, allMeans, 0, centroids);
+        System.arraycopy(weights, 0, allWeights, 0, centroids);
+        System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+        sortByMean(allMeans, allWeights, n);
+
+        double[] newMeans = new double[Math.min(n, means.length * 2 + 1)];
+        double[] newWeights = new double[newMeans.length];
+        int count = 0;
+
+        double curMean = allMeans[0];
+        double curWeight = allWeights[0];
+        double soFar = 0;
+        for (int i = 1; i < n; i++) {
+            double proposed = curWeight + allWeights[i];
+            double q0 = soFar / totalWeight;
+            double q2 = (soFar + proposed) / totalWeight;
+            double limit = totalWeight * 4 * Math.min(q0 * (1 - q0), q2 * (1 - q2)) / compression;
+            if (proposed <= limit) {
+                curMean += (allMeans[i] - curMean) * allWeights[i] / proposed;
+                curWeight = proposed;
+            } else {
+                if (count == newMeans.length) {
+                    newMeans = Arrays.copyOf(newMeans, count * 2);
+                    newWeights = Arrays.copyOf(newWeights, count * 2);
+                }
+                newMeans[count] = curMean;
+                newWeights[count] = curWeight;
+                count++;
+                soFar += curWeight;
+                curMean = allMeans[i];
+                curWeight = allWeights[i];
+            }
+        }
+        if (count == newMeans.length) {
+            newMeans = Arrays.copyOf(newMeans, count + 1);
+            newWeights = Arrays.copyOf(newWeights, count + 1);
+        }
+        newMeans[count] = curMean;
+        newWeights[count] = curWeight;
+        count++;
+
+        means = newMeans;
+        weights = newWeights;
+        centroids = count;
+        buffered = 0;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        compress();
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            out.writeDouble(means[i]);
+            out.writeDouble(weights[i]);
+        }
+    }
+
+    public static TDigest read(DataInput in, double compression) throws IOException {
+        TDigest digest = new TDigest(compression);
+        double min = in.readDouble();
+        double max = in.readDouble();
+        int n = in.readInt();
+        digest.means = new double[Math.max(n, 1)];
+        digest.weights = new double[Math.max(n, 1)];
+        for (int i = 0; i < n; i++) {
+            digest.means[i] = in.readDouble();
+            digest.weights[i] = in.readDouble();
+            digest.totalWeight += digest.weights[i];
+        }
+        digest.centroids = n;
+        digest.min = min;
+        digest.max = max;
+        return digest;
+    }
+
+    private int bufferLimit() {
+        return (int) (compression * 5);
+    }
+
+    // Insertion sort for short runs, otherwise sort an index permutation by mean
+    private static void sortByMean(double[] m, double[] w, int n) {
+        if (n <= 32) {
+            for (int i = 1; i < n; i++) {
+                double mean = m[i];
+                double weight = w[i];
+                int j = i - 1;
+                while (j >= 0 && m[j] > mean) {
+                    m[j + 1] = m[j];
+                    w[j + 1] = w[j];
+                    j--;
+                }
+                m[j + 1] = mean;
+                w[j + 1] = weight;
+            }
+            return;
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        double[] mc = Arrays.copyOf(m, n);
+        double[] wc = Arrays.copyOf(w, n);
+        Arrays.sort(order, (a, b) -> Double.compare(mc[a], mc[b]));
+        for (int i = 0; i < n; i++) {
+            m[i] = mc[order[i]];
+            w[i] = wc[order[i]];
+        }
+    }
+}
@@ -0,0 +1,164 @@
+-- Baseline schema: every table as mapped by the entities at the time
+-- migrations were introduced. Databases built earlier by ddl-auto are
+-- recorded at this version without running it.
+
+create table booking_outbox (
+    slot_number integer,
+    amount_paise bigint,
+    booking_id bigint,
+    id bigint generated by default as identity,
+    occurred_at timestamp(6) not null,
+    slot_id bigint not null,
+    event_type varchar(32) not null check (event_type in ('VEHICLE_PARKED','VEHICLE_EXITED','BOOKING_CHECKED_OUT','SLOT_ADDED','SLOT_REMOVED','SLOT_ENABLED','SLOT_DISABLED','MAINTENANCE_STARTED','MAINTENANCE_ENDED')),
+    shard varchar(64) not null,
+    booking_number varchar(255),
+    city varchar(255),
+    license_plate varchar(255),
+    location_name varchar(255),
+    primary key (id)
+);
+
+create table bookings (
+    end_time timestamp(6),
+    entry_time timestamp(6) not null,
+    exit_time timestamp(6),
+    hourly_rate_paise bigint default 0 not null,
+    id bigint generated by default as identity,
+    slot_id bigint not null,
+    start_time timestamp(6),
+    total_amount_paise bigint,
+    vehicle_id bigint not null,
+    booking_number varchar(255) not null unique,
+    payment_status varchar(255),
+    status varchar(255) not null,
+    primary key (id)
+);
+
+create table bookings_archive (
+    archived_at timestamp(6) not null,
+    end_time timestamp(6),
+    entry_time timestamp(6) not null,
+    exit_time timestamp(6),
+    hourly_rate_paise bigint not null,
+    id bigint not null,
+    slot_id bigint not null,
+    start_time timestamp(6),
+    total_amount_paise bigint,
+    vehicle_id bigint not null,
+    booking_number varchar(255) not null unique,
+    payment_status varchar(255),
+    status varchar(255) not null,
+    primary key (id)
+);
+
+create table outbox_checkpoints (
+    last_event_id bigint not null,
+    updated_at timestamp(6),
+    shard varchar(64) not null,
+    consumer varchar(255) not null,
+    id varchar(255) not null,
+    primary key (id)
+);
+
+create table parking_slots (
+    floor_number integer,
+    is_available boolean not null,
+    is_occupied boolean not null,
+    is_under_maintenance boolean not null,
+    latitude float(53),
+    longitude float(53),
+    slot_number integer not null unique,
+    created_at timestamp(6),
+    current_booking_id bigint unique,
+    id bigint generated by default as identity,
+    maintenance_end_time timestamp(6),
+    maintenance_start_time timestamp(6),
+    address varchar(255),
+    city varchar(255),
+    country varchar(255),
+    location_name varchar(255),
+    maintenance_reason varchar(255),
+    region varchar(255),
+    slot_type varchar(255) not null,
+    primary key (id)
+);
+
+create table rate_rules (
+    active boolean not null,
+    days_mask integer,
+    end_hour integer,
+    hourly_rate float(53) not null,
+    start_hour integer,
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    city varchar(255),
+    location_name varchar(255),
+    slot_type varchar(255),
+    vehicle_type varchar(255),
+    primary key (id)
+);
+
+create table users (
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    email varchar(255) not null unique,
+    full_name varchar(255) not null,
+    password varchar(255) not null,
+    phone_number varchar(255),
+    user_type varchar(255) not null,
+    username varchar(255) not null unique,
+    primary key (id)
+);
+
+create table vehicles (
+    created_at timestamp(6),
+    id bigint generated by default as identity,
+    user_id bigint,
+    license_plate varchar(255) not null unique,
+    owner_name varchar(255) not null,
+    phone_number varchar(255) not null,
+    vehicle_type varchar(255) not null,
+    primary key (id)
+);
+
+create index idx_bookings_entry_time
+   on bookings (entry_time);
+
+create index idx_bookings_archive_entry_time
+   on bookings_archive (entry_time);
+
+create index idx_bookings_archive_vehicle
+   on bookings_archive (vehicle_id);
+
+create index idx_bookings_archive_slot
+   on bookings_archive (slot_id);
+
+alter table if exists bookings
+   add constraint FKqmhf8vp721r1tshgla9jh3wqb
+   foreign key (slot_id)
+   references parking_slots;
+
+alter table if exists bookings
+   add constraint FKc0062bk3bchs55diw805avxq
+   foreign key (vehicle_id)
+   references vehicles;
+
+alter table if exists bookings_archive
+   add constraint FKg7e8p1inujxppi5mwif36yfbd
+   foreign key (slot_id)
+   references parking_slots;
+
+alter table if exists bookings_archive
+   add constraint FK57fulmjhr8y33kd26bbo9h80
+   foreign key (vehicle_id)
+   references vehicles;
+
+alter table if exists parking_slots
+   add constraint FKkh80gnbnvowcw50kkr29tk0yl
+   foreign key (current_booking_id)
+   references bookings;
+
+alter table if exists vehicles
+   add constraint FKo4u5y92lt2sx8y2dc1bb9sewc
+   foreign key (user_id)
+   references users;
@@ -0,0 +1,14 @@
+-- bookings.slot_id used to be mapped one-to-one, so ddl-auto gave it a
+-- unique constraint and a slot could only ever be booked once. Databases
+-- created from V1 never had it. The slot foreign key takes over the unique
+-- index when only the constraint is dropped, so it is dropped first and
+-- added back afterwards with an index of its own.
+
+alter table bookings drop constraint if exists FKqmhf8vp721r1tshgla9jh3wqb;
+
+alter table bookings drop constraint if exists UK_2dylwhyvs65ikad6w8h506c2m;
+
+alter table bookings
+   add constraint FKqmhf8vp721r1tshgla9jh3wqb
+   foreign key (slot_id)
+   references parking_slots;
@@ -0,0 +1,15 @@
+-- Responses of park, exit and checkout requests sent with an
+-- Idempotency-Key, so a retry after a restart or on another instance
+-- gets the original response instead of running again.
+
+create table if not exists idempotency_keys (
+    claimed_at timestamp(6) not null,
+    expires_at timestamp(6) not null,
+    status varchar(16) not null,
+    fingerprint varchar(64) not null,
+    id varchar(200) not null,
+    response_body varchar(8000),
+    primary key (id)
+);
+
+create index if not exists idx_idempotency_expires on idempotency_keys (expires_at);
@@ -0,0 +1,41 @@
+-- Booking and payment status become one-byte codes (see BookingStatus and
+-- PaymentStatus) instead of repeating the name on every row, in bookings
+-- and in the archive. A status outside the known names stops the
+-- migration rather than being guessed.
+-- Adds the indexes behind the status and slot availability lookups; the
+-- slot ones carry the state flags so availability by city and type is
+-- answered from the index alone.
+
+alter table bookings add column status_code tinyint;
+alter table bookings add column payment_code tinyint;
+update bookings set
+    status_code = case status when 'ACTIVE' then 1 when 'COMPLETED' then 2 when 'CANCELLED' then 3 end,
+    payment_code = case payment_status when 'PENDING' then 1 when 'PAID' then 2 end;
+alter table bookings alter column status_code set not null;
+alter table bookings drop column status;
+alter table bookings drop column payment_status;
+alter table bookings alter column status_code rename to status;
+alter table bookings alter column payment_code rename to payment_status;
+
+alter table bookings_archive add column status_code tinyint;
+alter table bookings_archive add column payment_code tinyint;
+update bookings_archive set
+    status_code = case status when 'ACTIVE' then 1 when 'COMPLETED' then 2 when 'CANCELLED' then 3 end,
+    payment_code = case payment_status when 'PENDING' then 1 when 'PAID' then 2 end;
+alter table bookings_archive alter column status_code set not null;
+alter table bookings_archive drop column status;
+alter table bookings_archive drop column payment_status;
+alter table bookings_archive alter column status_code rename to status;
+alter table bookings_archive alter column payment_code rename to payment_status;
+
+create index if not exists idx_bookings_status_entry_time
+   on bookings (status, entry_time);
+
+create index if not exists idx_slots_city_type_state
+   on parking_slots (city, slot_type, is_available, is_occupied, is_under_maintenance);
+
+create index if not exists idx_slots_type_state
+   on parking_slots (slot_type, is_available, is_occupied);
+
+create index if not exists idx_slots_state
+   on parking_slots (is_occupied, is_available);
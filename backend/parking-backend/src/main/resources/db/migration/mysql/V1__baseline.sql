@@ -0,0 +1,185 @@
+-- Baseline schema: every table as mapped by the entities at the time
+-- migrations were introduced. Databases built earlier by ddl-auto are
+-- recorded at this version without running it.
+
+create table booking_outbox (
+    slot_number integer,
+    amount_paise bigint,
+    booking_id bigint,
+    id bigint not null auto_increment,
+    occurred_at datetime(6) not null,
+    slot_id bigint not null,
+    shard varchar(64) not null,
+    booking_number varchar(255),
+    city varchar(255),
+    license_plate varchar(255),
+    location_name varchar(255),
+    event_type enum ('VEHICLE_PARKED','VEHICLE_EXITED','BOOKING_CHECKED_OUT','SLOT_ADDED','SLOT_REMOVED','SLOT_ENABLED','SLOT_DISABLED','MAINTENANCE_STARTED','MAINTENANCE_ENDED') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table bookings (
+    end_time datetime(6),
+    entry_time datetime(6) not null,
+    exit_time datetime(6),
+    hourly_rate_paise bigint default 0 not null,
+    id bigint not null auto_increment,
+    slot_id bigint not null,
+    start_time datetime(6),
+    total_amount_paise bigint,
+    vehicle_id bigint not null,
+    booking_number varchar(255) not null,
+    payment_status varchar(255),
+    status varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table bookings_archive (
+    archived_at datetime(6) not null,
+    end_time datetime(6),
+    entry_time datetime(6) not null,
+    exit_time datetime(6),
+    hourly_rate_paise bigint not null,
+    id bigint not null,
+    slot_id bigint not null,
+    start_time datetime(6),
+    total_amount_paise bigint,
+    vehicle_id bigint not null,
+    booking_number varchar(255) not null,
+    payment_status varchar(255),
+    status varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table outbox_checkpoints (
+    last_event_id bigint not null,
+    updated_at datetime(6),
+    shard varchar(64) not null,
+    consumer varchar(255) not null,
+    id varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table parking_slots (
+    floor_number integer,
+    is_available bit not null,
+    is_occupied bit not null,
+    is_under_maintenance bit not null,
+    latitude float(53),
+    longitude float(53),
+    slot_number integer not null,
+    created_at datetime(6),
+    current_booking_id bigint,
+    id bigint not null auto_increment,
+    maintenance_end_time datetime(6),
+    maintenance_start_time datetime(6),
+    address varchar(255),
+    city varchar(255),
+    country varchar(255),
+    location_name varchar(255),
+    maintenance_reason varchar(255),
+    region varchar(255),
+    slot_type varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table rate_rules (
+    active bit not null,
+    days_mask integer,
+    end_hour integer,
+    hourly_rate float(53) not null,
+    start_hour integer,
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    city varchar(255),
+    location_name varchar(255),
+    slot_type varchar(255),
+    vehicle_type varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table users (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    full_name varchar(255) not null,
+    password varchar(255) not null,
+    phone_number varchar(255),
+    user_type varchar(255) not null,
+    username varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table vehicles (
+    created_at datetime(6),
+    id bigint not null auto_increment,
+    user_id bigint,
+    license_plate varchar(255) not null,
+    owner_name varchar(255) not null,
+    phone_number varchar(255) not null,
+    vehicle_type varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create index idx_bookings_entry_time
+   on bookings (entry_time);
+
+alter table bookings
+   add constraint UK_e2b8ksk9hptq6l8msdvoo6anv unique (booking_number);
+
+create index idx_bookings_archive_entry_time
+   on bookings_archive (entry_time);
+
+create index idx_bookings_archive_vehicle
+   on bookings_archive (vehicle_id);
+
+create index idx_bookings_archive_slot
+   on bookings_archive (slot_id);
+
+alter table bookings_archive
+   add constraint UK_p4q48rpp8q8q565o381ycsde4 unique (booking_number);
+
+alter table parking_slots
+   add constraint UK_nq6ujp1fm86yxkigslk0poscj unique (slot_number);
+
+alter table parking_slots
+   add constraint UK_nc484fko462q0x4jwo85dnwee unique (current_booking_id);
+
+alter table users
+   add constraint UK_6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+alter table users
+   add constraint UK_r43af9ap4edm43mmtq01oddj6 unique (username);
+
+alter table vehicles
+   add constraint UK_9vovnbiegxevdhqfcwvp2g8pj unique (license_plate);
+
+alter table bookings
+   add constraint FKqmhf8vp721r1tshgla9jh3wqb
+   foreign key (slot_id)
+   references parking_slots (id);
+
+alter table bookings
+   add constraint FKc0062bk3bchs55diw805avxq
+   foreign key (vehicle_id)
+   references vehicles (id);
+
+alter table bookings_archive
+   add constraint FKg7e8p1inujxppi5mwif36yfbd
+   foreign key (slot_id)
+   references parking_slots (id);
+
+alter table bookings_archive
+   add constraint FK57fulmjhr8y33kd26bbo9h80
+   foreign key (vehicle_id)
+   references vehicles (id);
+
+alter table parking_slots
+   add constraint FKkh80gnbnvowcw50kkr29tk0yl
+   foreign key (current_booking_id)
+   references bookings (id);
+
+alter table vehicles
+   add constraint FKo4u5y92lt2sx8y2dc1bb9sewc
+   foreign key (user_id)
+   references users (id);
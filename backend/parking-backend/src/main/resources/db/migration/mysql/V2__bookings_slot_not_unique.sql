@@ -0,0 +1,18 @@
+-- bookings.slot_id used to be mapped one-to-one, so ddl-auto gave it a
+-- unique index and a slot could only ever be booked once. Databases
+-- created from V1 never had it. The slot foreign key needs an index on
+-- slot_id, so a plain one replaces the unique index.
+
+set @has_unique = (select count(*) from information_schema.statistics
+                   where table_schema = database() and table_name = 'bookings'
+                   and index_name = 'UK_2dylwhyvs65ikad6w8h506c2m');
+
+set @ddl = if(@has_unique > 0, 'create index idx_bookings_slot on bookings (slot_id)', 'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
+
+set @ddl = if(@has_unique > 0, 'alter table bookings drop index UK_2dylwhyvs65ikad6w8h506c2m', 'do 0');
+prepare stmt from @ddl;
+execute stmt;
+deallocate prepare stmt;
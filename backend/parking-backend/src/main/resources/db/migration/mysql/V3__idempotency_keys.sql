@@ -0,0 +1,14 @@
+-- Responses of park, exit and checkout requests sent with an
+-- Idempotency-Key, so a retry after a restart or on another instance
+-- gets the original response instead of running again.
+
+create table if not exists idempotency_keys (
+    claimed_at datetime(6) not null,
+    expires_at datetime(6) not null,
+    status varchar(16) not null,
+    fingerprint varchar(64) not null,
+    id varchar(200) not null,
+    response_body varchar(8000),
+    primary key (id),
+    index idx_idempotency_expires (expires_at)
+) engine=InnoDB;
@@ -0,0 +1,39 @@
+-- Booking and payment status become one-byte codes (see BookingStatus and
+-- PaymentStatus) instead of repeating the name on every row, in bookings
+-- and in the archive. A status outside the known names stops the
+-- migration rather than being guessed.
+-- Adds the indexes behind the status and slot availability lookups; the
+-- slot ones carry the state flags so availability by city and type is
+-- answered from the index alone.
+
+alter table bookings
+    add column status_code tinyint null,
+    add column payment_code tinyint null;
+update bookings set
+    status_code = case status when 'ACTIVE' then 1 when 'COMPLETED' then 2 when 'CANCELLED' then 3 end,
+    payment_code = case payment_status when 'PENDING' then 1 when 'PAID' then 2 end;
+alter table bookings
+    drop column status,
+    drop column payment_status;
+alter table bookings
+    change column status_code status tinyint not null,
+    change column payment_code payment_status tinyint null,
+    add index idx_bookings_status_entry_time (status, entry_time);
+
+alter table bookings_archive
+    add column status_code tinyint null,
+    add column payment_code tinyint null;
+update bookings_archive set
+    status_code = case status when 'ACTIVE' then 1 when 'COMPLETED' then 2 when 'CANCELLED' then 3 end,
+    payment_code = case payment_status when 'PENDING' then 1 when 'PAID' then 2 end;
+alter table bookings_archive
+    drop column status,
+    drop column payment_status;
+alter table bookings_archive
+    change column status_code status tinyint not null,
+    change column payment_code payment_status tinyint null;
+
+alter table parking_slots
+    add index idx_slots_city_type_state (city, slot_type, is_available, is_occupied, is_under_maintenance),
+    add index idx_slots_type_state (slot_type, is_available, is_occupied),
+    add index idx_slots_state (is_occupied, is_available);
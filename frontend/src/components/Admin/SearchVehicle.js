@@ -8,6 +8,7 @@ import './Admin.css';
 const SearchVehicle = () => {
   const [searchQuery, setSearchQuery] = useState('');
   const [searchResult, setSearchResult] = useState(null);
+  const [candidates, setCandidates] = useState([]);
   const [loading, setLoading] = useState(false);
   const [notification, setNotification] = useState(null);
 
@@ -21,17 +22,24 @@ const SearchVehicle = () => {
 
     setLoading(true);
     try {
-      const response = await api.get(`${PARKING_API}/search/${searchQuery.toUpperCase()}`);
-      
-      if (response.data.success) {
-        setSearchResult(response.data);
-      } else {
-        showNotification(response.data.message, 'error');
+      const response = await api.get(`${PARKING_API}/search`, {
+        params: { q: searchQuery.toUpperCase(), limit: 10 }
+      });
+      const found = response.data.candidates || [];
+
+      if (found.length === 0) {
+        showNotification('No vehicle matches that plate', 'error');
         setSearchResult(null);
+      } else {
+        // Open the plate straight away when it matched exactly
+        const exact = found.filter(c => c.matchType === 'EXACT');
+        setSearchResult(exact.length === 1 ? { success: true, ...exact[0] } : null);
       }
+      setCandidates(found);
     } catch (error) {
       showNotification('Search failed. Please try again.', 'error');
       setSearchResult(null);
+      setCandidates([]);
     } finally {
       setLoading(false);
     }
@@ -45,6 +53,7 @@ const SearchVehicle = () => {
       if (response.data.success) {
         showNotification(`Vehicle removed! Fee: ₹${response.data.totalAmount}`, 'success');
         setSearchResult(null);
+        setCandidates([]);
         setSearchQuery('');
       } else {
         showNotification(response.data.message, 'error');
@@ -59,6 +68,14 @@ const SearchVehicle = () => {
     setTimeout(() => setNotification(null), 4000);
   };
 
+  const matchLabels = {
+    EXACT: 'Exact',
+    OCR: 'Misread',
+    PREFIX: 'Starts with',
+    FUZZY: 'Similar',
+    CONTAINS: 'Contains'
+  };
+
   const formatDate = (dateString) => {
     return new Date(dateString).toLocaleString('en-IN', {
       day: '2-digit',
@@ -81,7 +98,7 @@ const SearchVehicle = () => {
 
       <div className="page-header">
         <h1 className="page-title">Search Vehicle</h1>
-        <p className="page-subtitle">Find vehicle by license plate number</p>
+        <p className="page-subtitle">Find vehicle by full, partial or misread license plate</p>
       </div>
 
       <div className="search-container">
@@ -108,6 +125,34 @@ const SearchVehicle = () => {
           </form>
         </div>
 
+        {candidates.length > 0 && (
+          <div className="card search-result-card">
+            <div className="result-header">
+              <h3>Matching Plates</h3>
+              <span className="badge badge-secondary">{candidates.length}</span>
+            </div>
+
+            <div className="candidate-list">
+              {candidates.map((candidate) => (
+                <button
+                  key={candidate.licensePlate}
+                  type="button"
+                  className={`candidate-row ${searchResult && searchResult.licensePlate === candidate.licensePlate ? 'selected' : ''}`}
+                  onClick={() => setSearchResult({ success: true, ...candidate })}
+                >
+                  <span className="candidate-plate">{candidate.licensePlate}</span>
+                  <span className="candidate-match">{matchLabels[candidate.matchType] || candidate.matchType}</span>
+                  {candidate.isParked ? (
+                    <span className="badge badge-success">SLOT #{candidate.slotNumber}</span>
+                  ) : (
+                    <span className="badge badge-info">NOT PARKED</span>
+                  )}
+                </button>
+              ))}
+            </div>
+          </div>
+        )}
+
         {searchResult && searchResult.success && (
           <div className="card search-result-card">
             <div className="result-header">
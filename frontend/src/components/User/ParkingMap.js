@@ -1,9 +1,9 @@
-import React, { useState, useEffect } from 'react';
-import { MapContainer, TileLayer, Marker, Popup, Circle, useMap } from 'react-leaflet';
+import React, { useState, useEffect, useRef } from 'react';
+import { MapContainer, TileLayer, Marker, Popup, useMap, useMapEvents } from 'react-leaflet';
 import 'leaflet/dist/leaflet.css';
 import L from 'leaflet';
 import api from '../../services/api';
-import { PARKING_API } from '../../utils/constants';
+import { MAP_API } from '../../utils/constants';
 
 /* =========================
    UTF-8 SAFE BASE64 HELPER
@@ -70,6 +70,55 @@ const userIcon = new L.Icon({
   popupAnchor: [0, -42]
 });
 
+// Cluster bubble sized by slot count, coloured by the share still free
+const clusterIcon = (count, free) => {
+  const size = count < 10 ? 34 : count < 100 ? 42 : 52;
+  const color = free === 0 ? '#f56565' : free * 4 < count ? '#f59e0b' : '#48bb78';
+  return L.divIcon({
+    html: `<div style="width:${size}px;height:${size}px;line-height:${size}px;border-radius:50%;
+      background:${color};color:white;font-weight:bold;text-align:center;
+      border:3px solid rgba(255,255,255,0.8);box-shadow:0 1px 4px rgba(0,0,0,0.3)">${count}</div>`,
+    className: '',
+    iconSize: [size, size],
+    iconAnchor: [size / 2, size / 2]
+  });
+};
+
+/* =========================
+   VIEWPORT LOADER
+========================= */
+function ViewportLoader({ onViewportChange }) {
+  const map = useMapEvents({
+    moveend: () => onViewportChange(map)
+  });
+
+  useEffect(() => {
+    onViewportChange(map);
+  }, [map]);
+
+  return null;
+}
+
+function ClusterMarker({ cluster }) {
+  const map = useMap();
+
+  return (
+    <Marker
+      position={[cluster.latitude, cluster.longitude]}
+      icon={clusterIcon(cluster.count, cluster.free)}
+      eventHandlers={{
+        click: () => map.setView([cluster.latitude, cluster.longitude], Math.min(map.getZoom() + 2, 18))
+      }}
+    >
+      <Popup>
+        <strong>{cluster.count} slots</strong><br />
+        {cluster.free} available
+        {cluster.maintenance > 0 && <><br />{cluster.maintenance} under maintenance</>}
+      </Popup>
+    </Marker>
+  );
+}
+
 /* =========================
    MAP RECENTER COMPONENT
 ========================= */
@@ -90,10 +139,11 @@ function RecenterMap({ position }) {
 ========================= */
 const ParkingMap = ({ onSlotSelect, selectedSlot }) => {
   const [userLocation, setUserLocation] = useState(null);
-  const [nearbySlots, setNearbySlots] = useState([]);
+  const [clusters, setClusters] = useState([]);
+  const [slots, setSlots] = useState([]);
   const [loading, setLoading] = useState(true);
-  const [searchRadius, setSearchRadius] = useState(5);
   const [error, setError] = useState('');
+  const latestRequest = useRef(0);
 
   const defaultCenter = [16.9891, 82.2475];
 
@@ -101,10 +151,6 @@ const ParkingMap = ({ onSlotSelect, selectedSlot }) => {
     getUserLocation();
   }, []);
 
-  useEffect(() => {
-    if (userLocation) fetchNearbySlots();
-  }, [userLocation, searchRadius]);
-
   const getUserLocation = () => {
     if (navigator.geolocation) {
       navigator.geolocation.getCurrentPosition(
@@ -126,27 +172,37 @@ const ParkingMap = ({ onSlotSelect, selectedSlot }) => {
     }
   };
 
-  const fetchNearbySlots = async () => {
+  // Clusters for the visible area, or the slots themselves at street zoom
+  const fetchViewport = async (map) => {
+    const bounds = map.getBounds();
+    const request = ++latestRequest.current;
     try {
       setLoading(true);
-      const res = await api.get(`${PARKING_API}/nearby`, {
+      const res = await api.get(`${MAP_API}/clusters`, {
         params: {
-          latitude: userLocation.latitude,
-          longitude: userLocation.longitude,
-          radius: searchRadius
+          south: bounds.getSouth(),
+          west: bounds.getWest(),
+          north: bounds.getNorth(),
+          east: bounds.getEast(),
+          zoom: map.getZoom()
         }
       });
-      if (res.data.success) setNearbySlots(res.data.nearbySlots || []);
+      // A later pan may already have answered
+      if (request !== latestRequest.current) return;
+      if (res.data.success) {
+        setClusters(res.data.clusters || []);
+        setSlots(res.data.slots || []);
+      }
     } catch {
-      setError('Failed to fetch nearby parking slots');
+      if (request === latestRequest.current) setError('Failed to fetch parking slots');
     } finally {
-      setLoading(false);
+      if (request === latestRequest.current) setLoading(false);
     }
   };
 
-  const handleSlotClick = (slotData) => {
-    if (!slotData.slot.isOccupied && slotData.slot.isAvailable && !slotData.slot.isUnderMaintenance) {
-      onSlotSelect(slotData.slot);
+  const handleSlotClick = (slot) => {
+    if (!slot.isOccupied && slot.isAvailable && !slot.isUnderMaintenance) {
+      onSlotSelect(slot);
     }
   };
 
@@ -162,40 +218,43 @@ const ParkingMap = ({ onSlotSelect, selectedSlot }) => {
           url="https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png"
         />
         <RecenterMap position={mapCenter} />
+        <ViewportLoader onViewportChange={fetchViewport} />
 
         {userLocation && (
           <>
             <Marker position={mapCenter} icon={userIcon}>
               <Popup>Your Location</Popup>
             </Marker>
-            <Circle
-              center={mapCenter}
-              radius={searchRadius * 1000}
-              pathOptions={{ color: '#667eea', fillOpacity: 0.1 }}
-            />
           </>
         )}
 
-        {nearbySlots.map((slotData, i) => {
-          const icon = slotData.slot.isUnderMaintenance
+        {clusters.map((cluster) => (
+          <ClusterMarker
+            key={`${cluster.latitude},${cluster.longitude}`}
+            cluster={cluster}
+          />
+        ))}
+
+        {slots.map((slot) => {
+          const icon = slot.isUnderMaintenance
             ? maintenanceIcon
-            : slotData.slot.isOccupied
+            : slot.isOccupied
             ? occupiedIcon
             : availableIcon;
 
           return (
             <Marker
-              key={i}
-              position={[slotData.slot.latitude, slotData.slot.longitude]}
+              key={slot.id}
+              position={[slot.latitude, slot.longitude]}
               icon={icon}
-              eventHandlers={{ click: () => handleSlotClick(slotData) }}
+              eventHandlers={{ click: () => handleSlotClick(slot) }}
             >
               <Popup>
-                <strong>Slot #{slotData.slot.slotNumber}</strong><br />
-                {slotData.slot.locationName}<br />
-                Status: {slotData.slot.isUnderMaintenance
+                <strong>Slot #{slot.slotNumber}</strong><br />
+                {slot.locationName}<br />
+                Status: {slot.isUnderMaintenance
                   ? 'UNDER MAINTENANCE'
-                  : slotData.slot.isOccupied
+                  : slot.isOccupied
                   ? 'OCCUPIED'
                   : 'AVAILABLE'}
               </Popup>
@@ -5,6 +5,7 @@ export const API_BASE_URL = 'http://localhost:8080/api';
 export const AUTH_API = '/auth';  // Will become /api/auth
 export const PARKING_API = '/parking';  // Will become /api/parking
 export const SLOTS_API = '/slots';  // Will become /api/slots
+export const MAP_API = '/map';  // Will become /api/map
 
 // Storage Keys
 export const STORAGE_KEYS = {